@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+/**
+ * Specifies when the ZIP64 format extensions are used in a created archive.
+ * <p>
+ * The ZIP64 extensions are required for archives and entries larger than 4 GiB, and for archives with more than 65535
+ * entries.
+ *
+ * @since saker.zip 0.8.6
+ * @see ZipCreationTaskBuilder#setZip64Mode(Zip64Mode)
+ */
+public enum Zip64Mode {
+	/**
+	 * The ZIP64 extensions are only used for the records which have values that don't fit in the standard fields.
+	 * <p>
+	 * The output is the same as the output of {@link java.util.zip.ZipOutputStream}. This is the default.
+	 */
+	AS_NEEDED,
+	/**
+	 * The ZIP64 extended information is written for all entries, and the ZIP64 end of central directory records are
+	 * always written.
+	 * <p>
+	 * This allows streaming readers to determine from the local headers that the sizes of an entry may be larger than
+	 * 4 GiB. The data descriptors have ZIP64 sizes as well, which {@link java.util.zip.ZipInputStream} can only read
+	 * since Java 21.
+	 */
+	ALWAYS,
+	/**
+	 * The ZIP64 extensions are never used, and an exception is thrown if the archive requires them.
+	 */
+	NEVER;
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+import java.util.zip.ZipEntry;
+
+/**
+ * Provides information about an entry in a created ZIP archive.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipArchiveEntryInformation {
+	/**
+	 * Gets the name of the entry.
+	 * <p>
+	 * The name is the same as it is recorded in the archive. Directory entries end with a <code>'/'</code> character.
+	 * 
+	 * @return The name.
+	 */
+	public String getName();
+
+	/**
+	 * Gets the compression method of the entry.
+	 * 
+	 * @return The method. Usually {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+	 */
+	public int getMethod();
+
+	/**
+	 * Gets the CRC-32 checksum of the uncompressed entry data.
+	 * 
+	 * @return The checksum.
+	 */
+	public long getCrc();
+
+	/**
+	 * Gets the uncompressed size of the entry data.
+	 * 
+	 * @return The size in bytes.
+	 */
+	public long getSize();
+
+	/**
+	 * Gets the compressed size of the entry data.
+	 * 
+	 * @return The size in bytes.
+	 */
+	public long getCompressedSize();
+
+	/**
+	 * Gets the offset of the local file header of the entry in the archive.
+	 * 
+	 * @return The offset in bytes.
+	 */
+	public long getLocalHeaderOffset();
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+import java.util.List;
+
+/**
+ * Provides information about the entries of a created ZIP archive.
+ * <p>
+ * The entries are in the same order as they are recorded in the central directory of the archive.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipArchiveManifest {
+	/**
+	 * Gets the number of entries in the archive.
+	 * 
+	 * @return The entry count.
+	 */
+	public int getEntryCount();
+
+	/**
+	 * Gets the entry at the given index.
+	 * 
+	 * @param index
+	 *            The index of the entry.
+	 * @return The entry information.
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is out of bounds.
+	 */
+	public ZipArchiveEntryInformation getEntry(int index) throws IndexOutOfBoundsException;
+
+	/**
+	 * Gets the entries in the archive.
+	 * <p>
+	 * The entry informations may be created on demand when the elements of the returned list are accessed.
+	 * 
+	 * @return An unmodifiable list of entries.
+	 */
+	public List<? extends ZipArchiveEntryInformation> getEntries();
+}
@@ -129,6 +129,128 @@ public interface ZipCreationTaskBuilder {
 	 */
 	public void addResourceTransformer(ZipResourceTransformerFactory transformer) throws NullPointerException;
 
+	/**
+	 * Adds a digest algorithm that should be used to compute a digest of the created archive.
+	 * <p>
+	 * The digests are computed while the archive is written, and are available using
+	 * {@link ZipCreatorTaskOutput#getDigests()}.
+	 * 
+	 * @param algorithm
+	 *            The name of the {@linkplain java.security.MessageDigest digest} algorithm. E.g. <code>SHA-256</code>.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             If the algorithm is not available.
+	 * @since saker.zip 0.8.6
+	 */
+	public default void addDigestAlgorithm(String algorithm) throws NullPointerException, IllegalArgumentException {
+		throw new UnsupportedOperationException("Archive digests are not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Sets if the computed digests should be written to files next to the created archive.
+	 * <p>
+	 * The files are named by appending the algorithm name to the archive file name. E.g. <code>output.zip.sha256</code>.
+	 * The files have the same format as the output of the <code>sha256sum</code> and similar tools.
+	 * 
+	 * @param writeDigestFiles
+	 *            <code>true</code> to write the digest files.
+	 * @see #addDigestAlgorithm(String)
+	 * @since saker.zip 0.8.6
+	 */
+	public default void setWriteDigestFiles(boolean writeDigestFiles) {
+		throw new UnsupportedOperationException("Archive digests are not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Sets the file that contains the order of the entries at the start of the archive.
+	 * <p>
+	 * The file is usually recorded while the application starts, so the entries that are read during startup are placed
+	 * next to each other. Each line of the file is an entry path, or a class loading message of the
+	 * <code>-verbose:class</code> or <code>-Xlog:class+load</code> JVM options. Empty lines, lines starting with
+	 * <code>#</code>, and other log messages are ignored.
+	 * <p>
+	 * If set, the manifest (<code>META-INF/MANIFEST.MF</code>) is written first, then the resources in the order of the
+	 * file, then the rest of the resources in path order. The entries of the included archives are written after
+	 * them. For {@linkplain #setJarSigning(FileLocation, String, String, String) signed} archives the manifest is
+	 * written at the end instead.
+	 * 
+	 * @param orderFile
+	 *            The file that contains the entry order, or <code>null</code> to write the resources in path order.
+	 * @since saker.zip 0.8.6
+	 */
+	public default void setEntryOrder(FileLocation orderFile) {
+		throw new UnsupportedOperationException("Entry ordering is not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Sets the key that the created archive is signed with as a JAR.
+	 * <p>
+	 * The digests of the entries are computed while the archive is written, so the archive is signed without reading
+	 * it again. The manifest (<code>META-INF/MANIFEST.MF</code>) with the entry digests, the signature file and the
+	 * signature block file are written at the end of the archive. The signature files are named after the alias the
+	 * same way as by the <code>jarsigner</code> tool.
+	 * <p>
+	 * The key store type is determined by the file extension. PKCS12 for <code>.p12</code> and <code>.pfx</code>,
+	 * JKS for <code>.jks</code>, and the default type of the JVM otherwise.
+	 * <p>
+	 * The passwords are not passed directly, so they are not stored in the build database. They are read from the
+	 * execution user parameters (specified with <code>-U&lt;name&gt;=&lt;password&gt;</code>) when the archive is
+	 * created.
+	 * <p>
+	 * As the manifest of a signed archive contains the digests of all entries, it is written at the end of the
+	 * archive, even if an {@linkplain #setEntryOrder(FileLocation) entry order} is set.
+	 * 
+	 * @param keystore
+	 *            The key store file, or <code>null</code> to not sign the archive.
+	 * @param alias
+	 *            The alias of the private key in the key store.
+	 * @param storepasswordparameter
+	 *            The name of the execution user parameter that contains the password of the key store. May be
+	 *            <code>null</code>.
+	 * @param keypasswordparameter
+	 *            The name of the execution user parameter that contains the password of the private key, or
+	 *            <code>null</code> to use the key store password.
+	 * @throws NullPointerException
+	 *             If the key store is set, but the alias is <code>null</code>.
+	 * @since saker.zip 0.8.6
+	 */
+	public default void setJarSigning(FileLocation keystore, String alias, String storepasswordparameter,
+			String keypasswordparameter) throws NullPointerException {
+		throw new UnsupportedOperationException("JAR signing is not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Sets how the file entries with identical contents are stored in the created archive.
+	 * <p>
+	 * If enabled, the contents of the file entries are hashed while the archive is written, and identical contents are
+	 * compressed only once. Deduplication is not applied to signed archives, archives created with resource
+	 * transformers, and entries larger than 16 MiB.
+	 * 
+	 * @param deduplication
+	 *            The deduplication mode, or <code>null</code> to store each entry separately.
+	 * @since saker.zip 0.8.6
+	 * @see ZipDeduplication
+	 */
+	public default void setDeduplication(ZipDeduplication deduplication) {
+		throw new UnsupportedOperationException("Deduplication is not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Sets when the ZIP64 format extensions are used in the created archive.
+	 * <p>
+	 * By default, the extensions are only used when the size of the archive, the size of an entry, or the number of
+	 * entries requires it.
+	 * 
+	 * @param zip64mode
+	 *            The ZIP64 mode, or <code>null</code> to use the default.
+	 * @since saker.zip 0.8.6
+	 * @see Zip64Mode
+	 */
+	public default void setZip64Mode(Zip64Mode zip64mode) {
+		throw new UnsupportedOperationException("ZIP64 mode is not supported by: " + getClass().getName());
+	}
+
 	/**
 	 * Builds a task identifier that can be used to start the {@linkplain #buildTaskFactory() task}.
 	 * <p>
@@ -15,10 +15,13 @@
  */
 package saker.zip.api.create;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 
@@ -39,6 +42,15 @@ final class ZipCreationTaskBuilderImpl implements ZipCreationTaskBuilder {
 	protected Set<ZipIncludeArchiveOption> includeOptions = new LinkedHashSet<>();
 	protected Set<ZipResourceOption> resourceOptions = new LinkedHashSet<>();
 	protected List<ZipResourceTransformerFactory> resourceTransformers = new ArrayList<>();
+	protected Set<String> digestAlgorithms = new LinkedHashSet<>();
+	protected boolean writeDigestFiles;
+	protected FileLocation entryOrder;
+	protected FileLocation signingKeystore;
+	protected String signingAlias;
+	protected String signingStorePasswordParameter;
+	protected String signingKeyPasswordParameter;
+	protected ZipDeduplication deduplication;
+	protected Zip64Mode zip64Mode;
 
 	protected ZipCreationTaskBuilderImpl() {
 	}
@@ -103,6 +115,49 @@ final class ZipCreationTaskBuilderImpl implements ZipCreationTaskBuilder {
 		this.resourceTransformers.add(transformer);
 	}
 
+	@Override
+	public void addDigestAlgorithm(String algorithm) throws NullPointerException, IllegalArgumentException {
+		Objects.requireNonNull(algorithm, "digest algorithm");
+		try {
+			MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalArgumentException("Digest algorithm not found: " + algorithm, e);
+		}
+		this.digestAlgorithms.add(algorithm.toUpperCase(Locale.ROOT));
+	}
+
+	@Override
+	public void setWriteDigestFiles(boolean writeDigestFiles) {
+		this.writeDigestFiles = writeDigestFiles;
+	}
+
+	@Override
+	public void setEntryOrder(FileLocation orderFile) {
+		this.entryOrder = orderFile;
+	}
+
+	@Override
+	public void setJarSigning(FileLocation keystore, String alias, String storepasswordparameter,
+			String keypasswordparameter) throws NullPointerException {
+		if (keystore != null) {
+			Objects.requireNonNull(alias, "alias");
+		}
+		this.signingKeystore = keystore;
+		this.signingAlias = alias;
+		this.signingStorePasswordParameter = storepasswordparameter;
+		this.signingKeyPasswordParameter = keypasswordparameter;
+	}
+
+	@Override
+	public void setDeduplication(ZipDeduplication deduplication) {
+		this.deduplication = deduplication;
+	}
+
+	@Override
+	public void setZip64Mode(Zip64Mode zip64mode) {
+		this.zip64Mode = zip64mode;
+	}
+
 	@Override
 	public TaskIdentifier buildTaskIdentifier() {
 		if (outputPath == null) {
@@ -121,6 +176,15 @@ final class ZipCreationTaskBuilderImpl implements ZipCreationTaskBuilder {
 		result.setResourceOptions(resourceOptions);
 		result.setIncludeOptions(includeOptions);
 		result.setResourceTransformers(resourceTransformers);
+		result.setDigestAlgorithms(digestAlgorithms);
+		result.setWriteDigestFiles(writeDigestFiles);
+		result.setEntryOrder(entryOrder);
+		if (signingKeystore != null) {
+			result.setJarSigning(signingKeystore, signingAlias, signingStorePasswordParameter,
+					signingKeyPasswordParameter);
+		}
+		result.setDeduplication(deduplication);
+		result.setZip64Mode(zip64Mode);
 		return result;
 	}
 }
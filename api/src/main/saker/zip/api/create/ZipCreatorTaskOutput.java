@@ -15,6 +15,9 @@
  */
 package saker.zip.api.create;
 
+import java.util.Collections;
+import java.util.Map;
+
 import saker.build.file.path.SakerPath;
 
 /**
@@ -27,4 +30,28 @@ public interface ZipCreatorTaskOutput {
 	 * @return The output path.
 	 */
 	public SakerPath getPath();
+
+	/**
+	 * Gets the manifest of the entries in the created archive.
+	 * <p>
+	 * The manifest can be used to examine the archive contents without opening and parsing the archive.
+	 * 
+	 * @return The manifest or <code>null</code> if not available.
+	 * @since saker.zip 0.8.6
+	 */
+	public default ZipArchiveManifest getManifest() {
+		return null;
+	}
+
+	/**
+	 * Gets the digests of the created archive.
+	 * <p>
+	 * The digests are computed with the algorithms specified for the creation task.
+	 * 
+	 * @return An unmodifiable map of lowercase hexadecimal digests mapped to their algorithm names.
+	 * @since saker.zip 0.8.6
+	 */
+	public default Map<String, String> getDigests() {
+		return Collections.emptyMap();
+	}
 }
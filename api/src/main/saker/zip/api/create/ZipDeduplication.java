@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+/**
+ * Specifies how the file entries with identical contents are stored in a created archive.
+ * <p>
+ * The contents of the entries are identified by their hash and compression settings. The contents are compressed
+ * only once, and the later entries with the same contents reuse the compressed data of the first one.
+ *
+ * @since saker.zip 0.8.6
+ * @see ZipCreationTaskBuilder#setDeduplication(ZipDeduplication)
+ */
+public enum ZipDeduplication {
+	/**
+	 * Each entry is compressed and stored separately.
+	 */
+	NONE,
+	/**
+	 * The central directory records of the duplicate entries point to the local header and data of the first entry.
+	 * <p>
+	 * The data is only stored once in the archive. The archive can be read by the readers that use the central
+	 * directory, like {@link java.util.zip.ZipFile}. However, streaming readers like
+	 * {@link java.util.zip.ZipInputStream} only see the first entry, and strict readers may reject the archive as the
+	 * local and central names of the duplicates differ.
+	 */
+	SHARED,
+	/**
+	 * The compressed data of the first entry is copied for the duplicate entries with their own local headers.
+	 * <p>
+	 * The archive size is the same as without deduplication, but the contents are only compressed once. The archive
+	 * can be read by all readers.
+	 */
+	COPY;
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+/**
+ * Specifies how the entries with the same name in multiple merged archives are handled.
+ * <p>
+ * Entries that have the same CRC-32 and size in all archives, and directory entries are not considered to be
+ * conflicting. The first one of them is kept.
+ * 
+ * @since saker.zip 0.8.6
+ * @see ZipMergeTaskBuilder#setConflictPolicy(ZipMergeConflictPolicy)
+ */
+public enum ZipMergeConflictPolicy {
+	/**
+	 * The entry from the first archive that contains it is kept.
+	 */
+	FIRST,
+	/**
+	 * The entry from the last archive that contains it is kept.
+	 */
+	LAST,
+	/**
+	 * The merge fails if there are conflicting entries.
+	 */
+	ERROR,
+	/**
+	 * The conflicting entries are passed to the
+	 * {@linkplain ZipMergeTaskBuilder#setMerger(ZipResourceTransformerFactory) merger transformer}.
+	 * <p>
+	 * All versions of a conflicting entry are passed to the same transformer in the order of the archives, then the
+	 * transformer is flushed. If the transformer doesn't consume a version, the first such version is kept as is.
+	 */
+	MERGE;
+}
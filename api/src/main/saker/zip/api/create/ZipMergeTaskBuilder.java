@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+import saker.build.file.path.SakerPath;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+
+/**
+ * Builder interface for creating a worker task that merges multiple ZIP archives into one.
+ * <p>
+ * The entries of the merged archive are determined by reading only the central directories of the input archives. The
+ * kept entries are copied to the output without decompressing and recompressing them. The entries are written in the
+ * order of the archives, and the order they appear in them.
+ * <p>
+ * The conflicting entries are handled based on the {@linkplain #setConflictPolicy(ZipMergeConflictPolicy) conflict
+ * policy}.
+ * <p>
+ * The task identifier is the same as the {@linkplain ZipCreationTaskBuilder#buildTaskIdentifier() archive creation}
+ * task for the same output path.
+ * <p>
+ * Clients should not implement this interface.
+ * <p>
+ * Use {@link #newBuilder()} to create a new instance.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipMergeTaskBuilder {
+	/**
+	 * Sets the output location where the merged archive should be created to.
+	 * <p>
+	 * The specified path must be {@linkplain SakerPath#isAbsolute() absolute}.
+	 * <p>
+	 * Setting the output path is <b>required</b> before calling the build methods.
+	 * 
+	 * @param outputPath
+	 *            The output path.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             If the argument is not an {@linkplain SakerPath#isAbsolute() absolute} path or has no file name.
+	 */
+	public void setOutputPath(SakerPath outputPath) throws NullPointerException, IllegalArgumentException;
+
+	/**
+	 * Adds an archive to merge.
+	 * <p>
+	 * The archives are merged in the order they are added.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void addArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Sets the policy of handling conflicting entries.
+	 * <p>
+	 * The default is {@link ZipMergeConflictPolicy#FIRST}.
+	 * 
+	 * @param policy
+	 *            The policy or <code>null</code> to use the default.
+	 */
+	public void setConflictPolicy(ZipMergeConflictPolicy policy);
+
+	/**
+	 * Sets the transformer that merges the conflicting entries.
+	 * <p>
+	 * The transformer is only used with the {@link ZipMergeConflictPolicy#MERGE} policy.
+	 * 
+	 * @param merger
+	 *            The transformer factory or <code>null</code>.
+	 */
+	public void setMerger(ZipResourceTransformerFactory merger);
+
+	/**
+	 * Builds the task identifier for the merge task.
+	 * 
+	 * @return The task identifier.
+	 * @throws IllegalStateException
+	 *             If the output path was not set.
+	 */
+	public TaskIdentifier buildTaskIdentifier() throws IllegalStateException;
+
+	/**
+	 * Builds the merge task factory.
+	 * 
+	 * @return The task factory.
+	 * @throws IllegalStateException
+	 *             If the output path or the archives were not set, or the merger transformer is missing for the
+	 *             {@link ZipMergeConflictPolicy#MERGE} policy.
+	 */
+	public TaskFactory<? extends ZipCreatorTaskOutput> buildTaskFactory() throws IllegalStateException;
+
+	/**
+	 * Creates a new builder instance.
+	 * 
+	 * @return The new builder.
+	 */
+	public static ZipMergeTaskBuilder newBuilder() {
+		return new ZipMergeTaskBuilderImpl();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.create;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.impl.create.ZipCreateWorkerTaskIdentifier;
+import saker.zip.impl.create.ZipMergeWorkerTaskFactory;
+
+final class ZipMergeTaskBuilderImpl implements ZipMergeTaskBuilder {
+	protected SakerPath outputPath;
+	protected List<FileLocation> archives = new ArrayList<>();
+	protected ZipMergeConflictPolicy conflictPolicy;
+	protected ZipResourceTransformerFactory merger;
+
+	protected ZipMergeTaskBuilderImpl() {
+	}
+
+	@Override
+	public void setOutputPath(SakerPath outputPath) {
+		Objects.requireNonNull(outputPath, "output path");
+		SakerPathFiles.requireAbsolutePath(outputPath);
+		if (outputPath.getFileName() == null) {
+			throw new InvalidPathFormatException("Output path has not file name: " + outputPath);
+		}
+		this.outputPath = outputPath;
+	}
+
+	@Override
+	public void addArchive(FileLocation archive) {
+		Objects.requireNonNull(archive, "archive");
+		this.archives.add(archive);
+	}
+
+	@Override
+	public void setConflictPolicy(ZipMergeConflictPolicy policy) {
+		this.conflictPolicy = policy;
+	}
+
+	@Override
+	public void setMerger(ZipResourceTransformerFactory merger) {
+		this.merger = merger;
+	}
+
+	@Override
+	public TaskIdentifier buildTaskIdentifier() {
+		if (outputPath == null) {
+			throw new IllegalStateException("No output path specified.");
+		}
+		return new ZipCreateWorkerTaskIdentifier(outputPath);
+	}
+
+	@Override
+	public TaskFactory<? extends ZipCreatorTaskOutput> buildTaskFactory() {
+		if (outputPath == null) {
+			throw new IllegalStateException("No output path specified.");
+		}
+		if (archives.isEmpty()) {
+			throw new IllegalStateException("No archives specified.");
+		}
+		ZipMergeConflictPolicy policy = conflictPolicy == null ? ZipMergeConflictPolicy.FIRST : conflictPolicy;
+		if (policy == ZipMergeConflictPolicy.MERGE) {
+			if (merger == null) {
+				throw new IllegalStateException("No merger specified for conflict policy: " + policy);
+			}
+			return new ZipMergeWorkerTaskFactory(outputPath, archives, policy, merger);
+		}
+		return new ZipMergeWorkerTaskFactory(outputPath, archives, policy, null);
+	}
+}
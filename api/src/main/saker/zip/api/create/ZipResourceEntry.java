@@ -24,11 +24,17 @@ import saker.build.file.path.SakerPath;
 public final class ZipResourceEntry implements Externalizable {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The padding of the local header must fit in the extra field.
+	 */
+	private static final int MAX_ALIGNMENT = 0x8000;
+
 	protected SakerPath entryPath;
 	protected FileTime modificationTime;
 
 	protected int method;
 	protected int level;
+	protected int alignment;
 
 	/**
 	 * For {@link Externalizable}.
@@ -40,6 +46,10 @@ public final class ZipResourceEntry implements Externalizable {
 	}
 
 	private ZipResourceEntry(SakerPath entryPath, FileTime modificationTime, int method, int level) {
+		this(entryPath, modificationTime, method, level, 0);
+	}
+
+	private ZipResourceEntry(SakerPath entryPath, FileTime modificationTime, int method, int level, int alignment) {
 		Objects.requireNonNull(entryPath, "entryPath");
 		if (level < -1) {
 			//normalize negative level to -1
@@ -50,6 +60,7 @@ public final class ZipResourceEntry implements Externalizable {
 		this.modificationTime = modificationTime;
 		this.method = method;
 		this.level = level;
+		this.alignment = alignment;
 	}
 
 	/**
@@ -236,13 +247,27 @@ public final class ZipResourceEntry implements Externalizable {
 		return level;
 	}
 
+	/**
+	 * Gets the alignment of the entry data in the archive.
+	 * <p>
+	 * The alignment is only applied to {@link ZipEntry#STORED STORED} entries. The local header of the entry is padded
+	 * so the uncompressed data starts at an offset that is the multiple of the alignment. This allows the data to be
+	 * accessed directly when the archive is memory mapped.
+	 * 
+	 * @return The alignment in bytes, or 0 if the data is not aligned.
+	 * @since saker.zip 0.8.6
+	 */
+	public int getAlignment() {
+		return alignment;
+	}
+
 	/**
 	 * Creates a new instance by copying this one and setting the compression method to {@link ZipEntry#STORED STORED}.
 	 * 
 	 * @return The new instance.
 	 */
 	public ZipResourceEntry asStoredEntry() {
-		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.STORED, -1);
+		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.STORED, -1, alignment);
 	}
 
 	/**
@@ -254,7 +279,7 @@ public final class ZipResourceEntry implements Externalizable {
 	 * @return The new instance.
 	 */
 	public ZipResourceEntry asDeflatedEntry(int level) {
-		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.DEFLATED, level);
+		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.DEFLATED, level, alignment);
 	}
 
 	/**
@@ -264,7 +289,7 @@ public final class ZipResourceEntry implements Externalizable {
 	 * @return The new instance.
 	 */
 	public ZipResourceEntry asDeflatedEntry() {
-		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.DEFLATED, -1);
+		return new ZipResourceEntry(entryPath, modificationTime, ZipOutputStream.DEFLATED, -1, alignment);
 	}
 
 	/**
@@ -277,7 +302,7 @@ public final class ZipResourceEntry implements Externalizable {
 	 *             If the entry path is <code>null</code>
 	 */
 	public ZipResourceEntry withEntryPath(SakerPath entryPath) throws NullPointerException {
-		return new ZipResourceEntry(entryPath, modificationTime, method, level);
+		return new ZipResourceEntry(entryPath, modificationTime, method, level, alignment);
 	}
 
 	/**
@@ -288,7 +313,25 @@ public final class ZipResourceEntry implements Externalizable {
 	 * @return The new instance.
 	 */
 	public ZipResourceEntry withModificationTime(FileTime modificationTime) {
-		return new ZipResourceEntry(entryPath, modificationTime, method, level);
+		return new ZipResourceEntry(entryPath, modificationTime, method, level, alignment);
+	}
+
+	/**
+	 * Creates a new instance that has a different data alignment.
+	 * 
+	 * @param alignment
+	 *            The alignment in bytes. Must be a power of two not greater than 32768, or 0 to not align the data.
+	 * @return The new instance.
+	 * @throws IllegalArgumentException
+	 *             If the alignment is invalid.
+	 * @see #getAlignment()
+	 * @since saker.zip 0.8.6
+	 */
+	public ZipResourceEntry withAlignment(int alignment) throws IllegalArgumentException {
+		if (alignment < 0 || alignment > MAX_ALIGNMENT || (alignment & (alignment - 1)) != 0) {
+			throw new IllegalArgumentException("Invalid alignment: " + alignment);
+		}
+		return new ZipResourceEntry(entryPath, modificationTime, method, level, alignment);
 	}
 
 	@Override
@@ -297,6 +340,7 @@ public final class ZipResourceEntry implements Externalizable {
 		out.writeObject(modificationTime);
 		out.writeInt(method);
 		out.writeInt(level);
+		out.writeInt(alignment);
 	}
 
 	@Override
@@ -305,6 +349,7 @@ public final class ZipResourceEntry implements Externalizable {
 		modificationTime = (FileTime) in.readObject();
 		method = in.readInt();
 		level = in.readInt();
+		alignment = in.readInt();
 	}
 
 	@Override
@@ -326,6 +371,8 @@ public final class ZipResourceEntry implements Externalizable {
 				return false;
 		} else if (!entryPath.equals(other.entryPath))
 			return false;
+		if (alignment != other.alignment)
+			return false;
 		if (level != other.level)
 			return false;
 		if (method != other.method)
@@ -349,6 +396,10 @@ public final class ZipResourceEntry implements Externalizable {
 		builder.append(method);
 		builder.append(", level=");
 		builder.append(level);
+		if (alignment != 0) {
+			builder.append(", alignment=");
+			builder.append(alignment);
+		}
 		builder.append("]");
 		return builder.toString();
 	}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.util.NavigableMap;
+
+import saker.zip.api.create.ZipArchiveManifest;
+
+/**
+ * Represents the differences between the entries of two ZIP archives.
+ * <p>
+ * The archives are compared based on their central directories. An entry is modified if an entry with the same name
+ * is present in both archives, but they have different CRC, size or compression method. If an archive contains
+ * multiple entries with the same name, only the first one is compared.
+ * <p>
+ * Clients should not implement this interface.
+ * 
+ * @since saker.zip 0.8.6
+ * @see ZipDiffTaskBuilder
+ */
+public interface ZipArchiveDiff {
+	/**
+	 * Gets the entries that are only present in the compared archive.
+	 * 
+	 * @return The added entries in the order of the compared archive.
+	 */
+	public ZipArchiveManifest getAddedEntries();
+
+	/**
+	 * Gets the entries that are only present in the base archive.
+	 * 
+	 * @return The removed entries in the order of the base archive.
+	 */
+	public ZipArchiveManifest getRemovedEntries();
+
+	/**
+	 * Gets the modified entries.
+	 * <p>
+	 * The entry informations in the result are the ones in the compared archive.
+	 * 
+	 * @return The modified entries in the order of the compared archive.
+	 */
+	public ZipArchiveManifest getModifiedEntries();
+
+	/**
+	 * Gets the detailed differences of the modified entries.
+	 * <p>
+	 * Only the entries that were selected for detailed comparison are present in the result.
+	 * 
+	 * @return An unmodifiable map of entry differences by the entry names.
+	 */
+	public NavigableMap<String, ? extends ZipEntryDifference> getEntryDifferences();
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.io.IOException;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.task.TaskContext;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.ZipArchiveManifest;
+
+/**
+ * Read-only view of the file hierarchy in a ZIP archive.
+ * <p>
+ * The view is created from the central directory of the archive, the entries are not read until the contents of the
+ * {@linkplain #getFile(TaskContext, SakerPath) files} are requested. The content descriptors of the files are based on
+ * the CRC and size of the entries, so they can be compared without inflating them.
+ * <p>
+ * The paths in the view are relative to the root of the archive. The directories contain the ones that are implicitly
+ * present as parents of the entries. Entries with paths that are not forward relative are not part of the view. If
+ * there are multiple entries with the same path, the first one is used.
+ * <p>
+ * Two views are equal if they were created for the same archive with the same contents.
+ * <p>
+ * Clients should not implement this interface.
+ * 
+ * @since saker.zip 0.8.6
+ * @see ZipArchiveViewTaskBuilder
+ */
+public interface ZipArchiveView {
+	/**
+	 * Gets the location of the archive.
+	 * 
+	 * @return The archive file location.
+	 */
+	public FileLocation getArchive();
+
+	/**
+	 * Gets the entries of the archive.
+	 * 
+	 * @return The manifest of the archive.
+	 */
+	public ZipArchiveManifest getManifest();
+
+	/**
+	 * Gets the paths of the files in the archive.
+	 * 
+	 * @return An unmodifiable set of relative paths.
+	 */
+	public NavigableSet<SakerPath> getFilePaths();
+
+	/**
+	 * Gets the paths of the directories in the archive.
+	 * <p>
+	 * The root directory ({@link SakerPath#EMPTY}) is not part of the result.
+	 * 
+	 * @return An unmodifiable set of relative paths.
+	 */
+	public NavigableSet<SakerPath> getDirectoryPaths();
+
+	/**
+	 * Gets a file that reads its contents from the archive entry at the given path.
+	 * <p>
+	 * The returned file is not attached to the file hierarchy of the build execution. The archive is reported as an
+	 * input dependency of the calling task.
+	 * 
+	 * @param taskcontext
+	 *            The context of the calling task.
+	 * @param path
+	 *            The relative path of the file.
+	 * @return The file or <code>null</code> if there is no file at the given path.
+	 * @throws IOException
+	 *             If the archive is not found, or its contents changed since the view was created.
+	 * @throws NullPointerException
+	 *             If any of the arguments are <code>null</code>.
+	 */
+	public SakerFile getFile(TaskContext taskcontext, SakerPath path) throws IOException, NullPointerException;
+
+	/**
+	 * Gets the files that are directly in the directory at the given path.
+	 * <p>
+	 * The subdirectories of the directory are not part of the result.
+	 * 
+	 * @param taskcontext
+	 *            The context of the calling task.
+	 * @param directorypath
+	 *            The relative path of the directory, or {@link SakerPath#EMPTY} for the root of the archive.
+	 * @return An unmodifiable map of files by their names. Empty if the directory has no files or doesn't exist.
+	 * @throws IOException
+	 *             If the archive is not found, or its contents changed since the view was created.
+	 * @throws NullPointerException
+	 *             If any of the arguments are <code>null</code>.
+	 * @see #getFile(TaskContext, SakerPath)
+	 */
+	public NavigableMap<String, SakerFile> getFiles(TaskContext taskcontext, SakerPath directorypath)
+			throws IOException, NullPointerException;
+}
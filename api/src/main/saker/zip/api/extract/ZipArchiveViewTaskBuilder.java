@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+
+/**
+ * Builder interface for creating a worker task that creates a {@link ZipArchiveView} for an archive.
+ * <p>
+ * The worker task only reads the central directory of the archive.
+ * <p>
+ * Clients should not implement this interface.
+ * <p>
+ * Use {@link #newBuilder()} to create a new instance.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipArchiveViewTaskBuilder {
+	/**
+	 * Sets the archive to create the view for.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Builds the task identifier for the view task.
+	 * 
+	 * @return The task identifier.
+	 * @throws IllegalStateException
+	 *             If the archive was not set.
+	 */
+	public TaskIdentifier buildTaskIdentifier() throws IllegalStateException;
+
+	/**
+	 * Builds the view task factory.
+	 * <p>
+	 * The result of the task is an instance of {@link ZipArchiveView}.
+	 * 
+	 * @return The task factory.
+	 * @throws IllegalStateException
+	 *             If the archive was not set.
+	 */
+	public TaskFactory<? extends ZipArchiveView> buildTaskFactory() throws IllegalStateException;
+
+	/**
+	 * Creates a new builder instance.
+	 * 
+	 * @return The new builder.
+	 */
+	public static ZipArchiveViewTaskBuilder newBuilder() {
+		return new ZipArchiveViewTaskBuilderImpl();
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.util.Objects;
+
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.impl.extract.ZipArchiveViewWorkerTaskFactory;
+import saker.zip.impl.extract.ZipArchiveViewWorkerTaskIdentifier;
+
+final class ZipArchiveViewTaskBuilderImpl implements ZipArchiveViewTaskBuilder {
+	protected FileLocation archive;
+
+	protected ZipArchiveViewTaskBuilderImpl() {
+	}
+
+	@Override
+	public void setArchive(FileLocation archive) {
+		Objects.requireNonNull(archive, "archive");
+		this.archive = archive;
+	}
+
+	@Override
+	public TaskIdentifier buildTaskIdentifier() {
+		if (archive == null) {
+			throw new IllegalStateException("No archive specified.");
+		}
+		return new ZipArchiveViewWorkerTaskIdentifier(archive);
+	}
+
+	@Override
+	public TaskFactory<? extends ZipArchiveView> buildTaskFactory() {
+		if (archive == null) {
+			throw new IllegalStateException("No archive specified.");
+		}
+		return new ZipArchiveViewWorkerTaskFactory(archive);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+
+/**
+ * Builder interface for creating a worker task that compares the entries of two ZIP archives.
+ * <p>
+ * The worker task compares the central directories of the archives. The entry data is only read for the modified
+ * entries that are selected for {@linkplain #addDetailWildcard(WildcardPath) detailed comparison}.
+ * <p>
+ * Clients should not implement this interface.
+ * <p>
+ * Use {@link #newBuilder()} to create a new instance.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipDiffTaskBuilder {
+	/**
+	 * Sets the base archive that the other archive is compared to.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setBaseArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Sets the archive to compare to the base archive.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Adds a wildcard that selects the modified entries which should be compared in detail.
+	 * <p>
+	 * The wildcard is matched against the entry names.
+	 * 
+	 * @param wildcard
+	 *            The wildcard.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 * @see ZipArchiveDiff#getEntryDifferences()
+	 */
+	public void addDetailWildcard(WildcardPath wildcard) throws NullPointerException;
+
+	/**
+	 * Builds the task identifier for the comparison task.
+	 * 
+	 * @return The task identifier.
+	 * @throws IllegalStateException
+	 *             If the archives were not set.
+	 */
+	public TaskIdentifier buildTaskIdentifier() throws IllegalStateException;
+
+	/**
+	 * Builds the comparison task factory.
+	 * <p>
+	 * The result of the task is an instance of {@link ZipArchiveDiff}.
+	 * 
+	 * @return The task factory.
+	 * @throws IllegalStateException
+	 *             If the archives were not set.
+	 */
+	public TaskFactory<? extends ZipArchiveDiff> buildTaskFactory() throws IllegalStateException;
+
+	/**
+	 * Creates a new builder instance.
+	 * 
+	 * @return The new builder.
+	 */
+	public static ZipDiffTaskBuilder newBuilder() {
+		return new ZipDiffTaskBuilderImpl();
+	}
+}
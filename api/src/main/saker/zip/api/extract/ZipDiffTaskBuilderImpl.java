@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.impl.extract.ZipDiffWorkerTaskFactory;
+import saker.zip.impl.extract.ZipDiffWorkerTaskIdentifier;
+
+final class ZipDiffTaskBuilderImpl implements ZipDiffTaskBuilder {
+	protected FileLocation baseArchive;
+	protected FileLocation archive;
+	protected Set<WildcardPath> detailWildcards = new LinkedHashSet<>();
+
+	protected ZipDiffTaskBuilderImpl() {
+	}
+
+	@Override
+	public void setBaseArchive(FileLocation archive) {
+		Objects.requireNonNull(archive, "archive");
+		this.baseArchive = archive;
+	}
+
+	@Override
+	public void setArchive(FileLocation archive) {
+		Objects.requireNonNull(archive, "archive");
+		this.archive = archive;
+	}
+
+	@Override
+	public void addDetailWildcard(WildcardPath wildcard) {
+		Objects.requireNonNull(wildcard, "wildcard");
+		this.detailWildcards.add(wildcard);
+	}
+
+	@Override
+	public TaskIdentifier buildTaskIdentifier() {
+		checkArchives();
+		return new ZipDiffWorkerTaskIdentifier(baseArchive, archive, detailWildcards);
+	}
+
+	@Override
+	public TaskFactory<? extends ZipArchiveDiff> buildTaskFactory() {
+		checkArchives();
+		return new ZipDiffWorkerTaskFactory(baseArchive, archive, detailWildcards);
+	}
+
+	private void checkArchives() {
+		if (baseArchive == null) {
+			throw new IllegalStateException("No base archive specified.");
+		}
+		if (archive == null) {
+			throw new IllegalStateException("No archive specified.");
+		}
+	}
+}
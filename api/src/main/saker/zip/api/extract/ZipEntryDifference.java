@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import saker.zip.api.create.ZipArchiveEntryInformation;
+
+/**
+ * Detailed difference of an entry that is modified between two ZIP archives.
+ * <p>
+ * The contents of the entries are inflated from both archives to compute the difference.
+ * <p>
+ * Clients should not implement this interface.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipEntryDifference {
+	/**
+	 * Gets the entry in the base archive.
+	 * 
+	 * @return The entry information.
+	 */
+	public ZipArchiveEntryInformation getBaseEntry();
+
+	/**
+	 * Gets the entry in the compared archive.
+	 * 
+	 * @return The entry information.
+	 */
+	public ZipArchiveEntryInformation getEntry();
+
+	/**
+	 * Gets the offset of the first byte where the uncompressed contents of the entries differ.
+	 * <p>
+	 * If one of the contents is the prefix of the other, the offset is the size of the shorter one.
+	 * 
+	 * @return The offset or -1 if the uncompressed contents are the same. (E.g. only the compression method differs.)
+	 */
+	public long getFirstDifferenceOffset();
+}
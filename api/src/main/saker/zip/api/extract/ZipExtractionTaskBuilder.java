@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.IncludeResourceMapping;
+
+/**
+ * Builder interface for creating a worker task that extracts the entries of a ZIP archive.
+ * <p>
+ * The entries are selected and renamed the same way as when
+ * {@linkplain saker.zip.api.create.ZipCreationTaskBuilder#addIncludeArchive(FileLocation, IncludeResourceMapping)
+ * including them} in a created archive. The mapped paths are resolved against the output directory.
+ * <p>
+ * The worker task extracts the entries in parallel. When it is rerun, only the files whose entry CRC or size changed
+ * are rewritten, and the files of the entries that are no longer extracted are deleted.
+ * <p>
+ * Clients should not implement this interface.
+ * <p>
+ * Use {@link #newBuilder()} to create a new instance.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipExtractionTaskBuilder {
+	/**
+	 * Sets the archive to extract.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Sets the execution path of the directory where the entries should be extracted to.
+	 * <p>
+	 * The worker task owns the contents of the directory, as it removes the files that it extracted previously.
+	 * 
+	 * @param outputDirectoryPath
+	 *            The absolute output directory path.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 * @throws InvalidPathFormatException
+	 *             If the path is not absolute.
+	 */
+	public void setOutputDirectoryPath(SakerPath outputDirectoryPath)
+			throws NullPointerException, InvalidPathFormatException;
+
+	/**
+	 * Sets the resource mapping that selects the entries to extract, and their paths relative to the output
+	 * directory.
+	 * <p>
+	 * If not set, all entries are extracted with their archive paths.
+	 * 
+	 * @param mapping
+	 *            The resource mapping or <code>null</code>.
+	 */
+	public void setResourceMapping(IncludeResourceMapping mapping);
+
+	/**
+	 * Builds the task identifier for the extraction task.
+	 * 
+	 * @return The task identifier.
+	 * @throws IllegalStateException
+	 *             If the output directory path was not set.
+	 */
+	public TaskIdentifier buildTaskIdentifier() throws IllegalStateException;
+
+	/**
+	 * Builds the extraction task factory.
+	 * <p>
+	 * The result of the task is an instance of {@link ZipExtractorTaskOutput}.
+	 * 
+	 * @return The task factory.
+	 * @throws IllegalStateException
+	 *             If the archive or the output directory path was not set.
+	 */
+	public TaskFactory<? extends ZipExtractorTaskOutput> buildTaskFactory() throws IllegalStateException;
+
+	/**
+	 * Creates a new builder instance.
+	 * 
+	 * @return The new builder.
+	 */
+	public static ZipExtractionTaskBuilder newBuilder() {
+		return new ZipExtractionTaskBuilderImpl();
+	}
+}
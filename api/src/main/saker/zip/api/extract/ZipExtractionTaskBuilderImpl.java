@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.util.Objects;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.impl.extract.ZipExtractWorkerTaskFactory;
+import saker.zip.impl.extract.ZipExtractWorkerTaskIdentifier;
+
+final class ZipExtractionTaskBuilderImpl implements ZipExtractionTaskBuilder {
+	protected FileLocation archive;
+	protected SakerPath outputDirectoryPath;
+	protected IncludeResourceMapping resourceMapping;
+
+	protected ZipExtractionTaskBuilderImpl() {
+	}
+
+	@Override
+	public void setArchive(FileLocation archive) {
+		Objects.requireNonNull(archive, "archive");
+		this.archive = archive;
+	}
+
+	@Override
+	public void setOutputDirectoryPath(SakerPath outputDirectoryPath) {
+		Objects.requireNonNull(outputDirectoryPath, "output directory path");
+		SakerPathFiles.requireAbsolutePath(outputDirectoryPath);
+		this.outputDirectoryPath = outputDirectoryPath;
+	}
+
+	@Override
+	public void setResourceMapping(IncludeResourceMapping mapping) {
+		this.resourceMapping = mapping;
+	}
+
+	@Override
+	public TaskIdentifier buildTaskIdentifier() {
+		if (outputDirectoryPath == null) {
+			throw new IllegalStateException("No output directory path specified.");
+		}
+		return new ZipExtractWorkerTaskIdentifier(outputDirectoryPath);
+	}
+
+	@Override
+	public TaskFactory<? extends ZipExtractorTaskOutput> buildTaskFactory() {
+		if (archive == null) {
+			throw new IllegalStateException("No archive specified.");
+		}
+		if (outputDirectoryPath == null) {
+			throw new IllegalStateException("No output directory path specified.");
+		}
+		IncludeResourceMapping mapping = resourceMapping;
+		if (mapping == null) {
+			mapping = IncludeResourceMapping.identity();
+		}
+		return new ZipExtractWorkerTaskFactory(archive, outputDirectoryPath, mapping);
+	}
+}
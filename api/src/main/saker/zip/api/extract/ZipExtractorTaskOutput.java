@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import java.util.NavigableSet;
+
+import saker.build.file.path.SakerPath;
+
+/**
+ * Represents the output of a ZIP archive extraction task.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipExtractorTaskOutput {
+	/**
+	 * Gets the execution path of the directory that the entries were extracted to.
+	 * 
+	 * @return The output directory path.
+	 */
+	public SakerPath getOutputDirectoryPath();
+
+	/**
+	 * Gets the execution paths of the extracted files.
+	 * <p>
+	 * The result doesn't contain the directories that were created for the extracted entries.
+	 * 
+	 * @return An unmodifiable set of absolute paths.
+	 */
+	public NavigableSet<SakerPath> getFilePaths();
+}
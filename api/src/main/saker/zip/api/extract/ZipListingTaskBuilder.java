@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.api.extract;
+
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipArchiveManifest;
+
+/**
+ * Builder interface for creating a worker task that lists the entries of a ZIP archive.
+ * <p>
+ * The worker task only reads the central directory of the archive, the entry data is not read. The result of the task
+ * is a {@link ZipArchiveManifest} that contains the listed entries in the order of the central directory.
+ * <p>
+ * The entries are selected and renamed the same way as when
+ * {@linkplain saker.zip.api.create.ZipCreationTaskBuilder#addIncludeArchive(FileLocation, IncludeResourceMapping)
+ * including them} in a created archive. Directory entries are listed with a <code>'/'</code> character at the end of
+ * their names.
+ * <p>
+ * Clients should not implement this interface.
+ * <p>
+ * Use {@link #newBuilder()} to create a new instance.
+ * 
+ * @since saker.zip 0.8.6
+ */
+public interface ZipListingTaskBuilder {
+	/**
+	 * Sets the archive to list.
+	 * 
+	 * @param archive
+	 *            The archive file location.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 */
+	public void setArchive(FileLocation archive) throws NullPointerException;
+
+	/**
+	 * Sets the resource mapping that selects the entries to list, and their names in the listing.
+	 * <p>
+	 * If not set, all entries are listed with their names in the archive.
+	 * 
+	 * @param mapping
+	 *            The resource mapping or <code>null</code>.
+	 */
+	public void setResourceMapping(IncludeResourceMapping mapping);
+
+	/**
+	 * Builds the task identifier for the listing task.
+	 * 
+	 * @return The task identifier.
+	 * @throws IllegalStateException
+	 *             If the archive was not set.
+	 */
+	public TaskIdentifier buildTaskIdentifier() throws IllegalStateException;
+
+	/**
+	 * Builds the listing task factory.
+	 * 
+	 * @return The task factory.
+	 * @throws IllegalStateException
+	 *             If the archive was not set.
+	 */
+	public TaskFactory<? extends ZipArchiveManifest> buildTaskFactory() throws IllegalStateException;
+
+	/**
+	 * Creates a new builder instance.
+	 * 
+	 * @return The new builder.
+	 */
+	public static ZipListingTaskBuilder newBuilder() {
+		return new ZipListingTaskBuilderImpl();
+	}
+}
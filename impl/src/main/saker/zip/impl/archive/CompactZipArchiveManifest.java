@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipArchiveManifest;
+
+/**
+ * {@link ZipArchiveManifest} implementation that stores the entry informations in flat arrays.
+ * <p>
+ * The entry names are stored as concatenated UTF-8 bytes, and are only decoded when accessed. The numeric values are
+ * serialized in a variable length format, as most of them are small.
+ */
+public final class CompactZipArchiveManifest implements ZipArchiveManifest, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int VALUE_CRC = 0;
+	private static final int VALUE_SIZE = 1;
+	private static final int VALUE_COMPRESSED_SIZE = 2;
+	private static final int VALUE_OFFSET = 3;
+	private static final int VALUE_COUNT = 4;
+
+	private int count;
+	/**
+	 * The start of the names in {@link #names}. Contains <code>count + 1</code> elements.
+	 */
+	private int[] nameOffsets;
+	private byte[] names;
+	private short[] methods;
+	private long[] values;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public CompactZipArchiveManifest() {
+	}
+
+	private CompactZipArchiveManifest(int count, int[] nameOffsets, byte[] names, short[] methods, long[] values) {
+		this.count = count;
+		this.nameOffsets = nameOffsets;
+		this.names = names;
+		this.methods = methods;
+		this.values = values;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private int count;
+		private int[] nameOffsets = new int[17];
+		private byte[] names = new byte[256];
+		private short[] methods = new short[16];
+		private long[] values = new long[16 * VALUE_COUNT];
+
+		Builder() {
+		}
+
+		/**
+		 * Adds an entry to the manifest.
+		 * 
+		 * @param name
+		 *            The UTF-8 encoded name of the entry.
+		 */
+		public void add(byte[] name, int method, long crc, long size, long compressedsize, long offset) {
+			add(name, 0, name.length, method, crc, size, compressedsize, offset);
+		}
+
+		/**
+		 * Adds an entry to the manifest.
+		 * 
+		 * @param name
+		 *            The buffer that contains the UTF-8 encoded name of the entry.
+		 * @param nameoffset
+		 *            The offset of the name in the buffer.
+		 * @param namelength
+		 *            The number of bytes in the name.
+		 */
+		public void add(byte[] name, int nameoffset, int namelength, int method, long crc, long size,
+				long compressedsize, long offset) {
+			int idx = count;
+			if (idx == methods.length) {
+				int ncap = idx * 2;
+				nameOffsets = Arrays.copyOf(nameOffsets, ncap + 1);
+				methods = Arrays.copyOf(methods, ncap);
+				values = Arrays.copyOf(values, ncap * VALUE_COUNT);
+			}
+			int namestart = nameOffsets[idx];
+			int nameend = namestart + namelength;
+			if (nameend > names.length) {
+				names = Arrays.copyOf(names, Math.max(nameend, names.length * 2));
+			}
+			System.arraycopy(name, nameoffset, names, namestart, namelength);
+			nameOffsets[idx + 1] = nameend;
+			methods[idx] = (short) method;
+			int vidx = idx * VALUE_COUNT;
+			values[vidx + VALUE_CRC] = crc;
+			values[vidx + VALUE_SIZE] = size;
+			values[vidx + VALUE_COMPRESSED_SIZE] = compressedsize;
+			values[vidx + VALUE_OFFSET] = offset;
+			count = idx + 1;
+		}
+
+		public CompactZipArchiveManifest build() {
+			int c = count;
+			return new CompactZipArchiveManifest(c, Arrays.copyOf(nameOffsets, c + 1),
+					Arrays.copyOf(names, nameOffsets[c]), Arrays.copyOf(methods, c),
+					Arrays.copyOf(values, c * VALUE_COUNT));
+		}
+	}
+
+	@Override
+	public int getEntryCount() {
+		return count;
+	}
+
+	@Override
+	public ZipArchiveEntryInformation getEntry(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException(index + " for size: " + count);
+		}
+		return new EntryInformation(index);
+	}
+
+	@Override
+	public List<? extends ZipArchiveEntryInformation> getEntries() {
+		return new EntryList();
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(count);
+		out.writeInt(names.length);
+		out.write(names);
+		for (int i = 0; i < count; i++) {
+			writeVarLong(out, nameOffsets[i + 1] - nameOffsets[i]);
+			writeVarLong(out, methods[i] & 0xFFFF);
+			int vidx = i * VALUE_COUNT;
+			for (int j = 0; j < VALUE_COUNT; j++) {
+				writeVarLong(out, values[vidx + j]);
+			}
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		int c = in.readInt();
+		byte[] n = new byte[in.readInt()];
+		in.readFully(n);
+		int[] noffsets = new int[c + 1];
+		short[] m = new short[c];
+		long[] v = new long[c * VALUE_COUNT];
+		for (int i = 0; i < c; i++) {
+			noffsets[i + 1] = noffsets[i] + (int) readVarLong(in);
+			m[i] = (short) readVarLong(in);
+			int vidx = i * VALUE_COUNT;
+			for (int j = 0; j < VALUE_COUNT; j++) {
+				v[vidx + j] = readVarLong(in);
+			}
+		}
+		this.count = c;
+		this.names = n;
+		this.nameOffsets = noffsets;
+		this.methods = m;
+		this.values = v;
+	}
+
+	@Override
+	public int hashCode() {
+		return count * 31 + Arrays.hashCode(names);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		CompactZipArchiveManifest other = (CompactZipArchiveManifest) obj;
+		if (count != other.count)
+			return false;
+		if (!Arrays.equals(nameOffsets, other.nameOffsets))
+			return false;
+		if (!Arrays.equals(names, other.names))
+			return false;
+		if (!Arrays.equals(methods, other.methods))
+			return false;
+		if (!Arrays.equals(values, other.values))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[entryCount=" + count + "]";
+	}
+
+	private static void writeVarLong(ObjectOutput out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarLong(ObjectInput in) throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			int b = in.readUnsignedByte();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IOException("Malformed variable length value.");
+	}
+
+	private final class EntryList extends AbstractList<ZipArchiveEntryInformation> implements RandomAccess {
+		@Override
+		public ZipArchiveEntryInformation get(int index) {
+			return getEntry(index);
+		}
+
+		@Override
+		public int size() {
+			return count;
+		}
+	}
+
+	private final class EntryInformation implements ZipArchiveEntryInformation {
+		private final int index;
+
+		public EntryInformation(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String getName() {
+			int start = nameOffsets[index];
+			return new String(names, start, nameOffsets[index + 1] - start, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public int getMethod() {
+			return methods[index] & 0xFFFF;
+		}
+
+		@Override
+		public long getCrc() {
+			return values[index * VALUE_COUNT + VALUE_CRC];
+		}
+
+		@Override
+		public long getSize() {
+			return values[index * VALUE_COUNT + VALUE_SIZE];
+		}
+
+		@Override
+		public long getCompressedSize() {
+			return values[index * VALUE_COUNT + VALUE_COMPRESSED_SIZE];
+		}
+
+		@Override
+		public long getLocalHeaderOffset() {
+			return values[index * VALUE_COUNT + VALUE_OFFSET];
+		}
+
+		@Override
+		public String toString() {
+			return "ZipArchiveEntryInformation[name=" + getName() + ", method=" + getMethod() + ", crc="
+					+ Long.toHexString(getCrc()) + ", size=" + getSize() + ", compressedSize=" + getCompressedSize()
+					+ ", localHeaderOffset=" + getLocalHeaderOffset() + "]";
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * Runtime dependent {@link Deflater} operations.
+ * <p>
+ * This is the Java 8 variant of the class. The multi-release JAR contains a variant for Java 11 and later that passes
+ * the {@link ByteBuffer} input directly to the deflater.
+ */
+final class DeflaterSupport {
+	private DeflaterSupport() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Checks if {@link #setInput(Deflater, ByteBuffer)} is supported.
+	 * <p>
+	 * Not a constant so it is not inlined by the compiler into the callers.
+	 */
+	static boolean isByteBufferInputSupported() {
+		return false;
+	}
+
+	/**
+	 * Sets the remaining bytes of the buffer as the input of the deflater.
+	 * <p>
+	 * The position of the buffer is advanced as the deflater consumes the input.
+	 */
+	static void setInput(Deflater deflater, ByteBuffer input) {
+		throw new UnsupportedOperationException("ByteBuffer input requires Java 11.");
+	}
+}
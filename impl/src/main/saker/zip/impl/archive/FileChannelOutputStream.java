@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Output stream that writes to a {@link FileChannel} through a direct buffer.
+ * <p>
+ * The small writes are collected in the buffer. The byte arrays that are at least as large as the buffer are written
+ * to the channel without copying them to the buffer.
+ * <p>
+ * The channel can also be written directly, given that the stream is flushed first. (E.g. by
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.)
+ * <p>
+ * The class is not thread safe.
+ */
+public final class FileChannelOutputStream extends OutputStream {
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private boolean closed;
+
+	public FileChannelOutputStream(FileChannel channel) {
+		this(channel, DEFAULT_BUFFER_SIZE);
+	}
+
+	public FileChannelOutputStream(FileChannel channel, int buffersize) {
+		if (buffersize <= 0) {
+			throw new IllegalArgumentException("Invalid buffer size: " + buffersize);
+		}
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(buffersize);
+	}
+
+	/**
+	 * Opens a stream that writes the file at the given path from its start.
+	 */
+	public static FileChannelOutputStream open(Path path) throws IOException {
+		return new FileChannelOutputStream(FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING));
+	}
+
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		if (!buffer.hasRemaining()) {
+			flushBuffer();
+		}
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (len >= buffer.capacity()) {
+			flushBuffer();
+			ByteBuffer wrapped = ByteBuffer.wrap(b, off, len);
+			while (wrapped.hasRemaining()) {
+				channel.write(wrapped);
+			}
+			return;
+		}
+		while (len > 0) {
+			if (!buffer.hasRemaining()) {
+				flushBuffer();
+			}
+			int c = Math.min(len, buffer.remaining());
+			buffer.put(b, off, c);
+			off += c;
+			len -= c;
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 * <p>
+	 * The channel is not forced to the storage device.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		flushBuffer();
+	}
+
+	/**
+	 * Flushes the stream and closes the channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try (FileChannel fc = channel) {
+			flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed.");
+		}
+	}
+}
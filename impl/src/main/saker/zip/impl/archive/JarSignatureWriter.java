@@ -0,0 +1,490 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+
+/**
+ * Signs a JAR archive while it is being written by a {@link ZipArchiveOutputStream}.
+ * <p>
+ * The output stream computes the digests of the entries while their uncompressed data is written, and holds back the
+ * <code>META-INF/MANIFEST.MF</code> entry. When the archive is finished, the manifest is written with the digest
+ * sections of the entries, followed by the signature file (<code>.SF</code>) and the signature block file. The
+ * signature block is a detached PKCS #7 signature of the signature file, the same as created by the
+ * <code>jarsigner</code> tool without timestamping.
+ * <p>
+ * The entries are digested with SHA-256. The signature files are written at the end of the archive, as the digests
+ * are only known after all entries are written. This is recognized by {@link java.util.jar.JarFile}, but not by
+ * {@link java.util.jar.JarInputStream}, which requires the manifest to be the first entry.
+ * <p>
+ * An instance can be used to sign a single archive.
+ *
+ * @see ZipArchiveOutputStream#setJarSignature(JarSignatureWriter)
+ */
+public final class JarSignatureWriter {
+	public static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String DIGEST_ATTRIBUTE = DIGEST_ALGORITHM + "-Digest";
+	private static final byte[] CRLF = { '\r', '\n' };
+	private static final int MAX_LINE_LENGTH = 72;
+
+	//DER encoded object identifiers
+	private static final byte[] OID_SIGNED_DATA = { 0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7,
+			0x0D, 0x01, 0x07, 0x02 };
+	private static final byte[] OID_DATA = { 0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01,
+			0x07, 0x01 };
+	private static final byte[] OID_SHA256 = { 0x06, 0x09, 0x60, (byte) 0x86, 0x48, 0x01, 0x65, 0x03, 0x04, 0x02,
+			0x01 };
+	private static final byte[] OID_RSA_ENCRYPTION = { 0x06, 0x09, 0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7,
+			0x0D, 0x01, 0x01, 0x01 };
+	private static final byte[] OID_ECDSA_WITH_SHA256 = { 0x06, 0x08, 0x2A, (byte) 0x86, 0x48, (byte) 0xCE, 0x3D,
+			0x04, 0x03, 0x02 };
+	private static final byte[] OID_DSA_WITH_SHA256 = { 0x06, 0x09, 0x60, (byte) 0x86, 0x48, 0x01, 0x65, 0x03, 0x04,
+			0x03, 0x02 };
+	private static final byte[] DER_NULL = { 0x05, 0x00 };
+
+	private static final int TAG_INTEGER = 0x02;
+	private static final int TAG_OCTET_STRING = 0x04;
+	private static final int TAG_SEQUENCE = 0x30;
+	private static final int TAG_SET = 0x31;
+	private static final int TAG_CONTEXT_0 = 0xA0;
+
+	private final String signerName;
+	private final PrivateKey privateKey;
+	private final List<X509Certificate> certificateChain;
+	private final FileTime modificationTime;
+	private final String keyAlgorithm;
+
+	private final Map<String, byte[]> entryDigests = new LinkedHashMap<>();
+	private final UnsyncByteArrayOutputStream manifest = new UnsyncByteArrayOutputStream();
+	private boolean hasManifest;
+	private long manifestModificationMillis = -1;
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param signerName
+	 *            The name of the signature files. 1 to 8 characters of uppercase letters, digits, <code>_</code> or
+	 *            <code>-</code>.
+	 * @param privateKey
+	 *            The private key to sign with. Only RSA, EC and DSA keys are supported.
+	 * @param certificateChain
+	 *            The certificate chain of the signer, starting with the certificate of the private key.
+	 * @param modificationTime
+	 *            The modification time of the written entries, or <code>null</code> to use the current time. The
+	 *            manifest keeps the modification time of the original entry if present.
+	 * @throws IllegalArgumentException
+	 *             If the signer name is invalid, the certificate chain is empty, or the key algorithm is not
+	 *             supported.
+	 */
+	public JarSignatureWriter(String signerName, PrivateKey privateKey,
+			List<? extends X509Certificate> certificateChain, FileTime modificationTime)
+			throws NullPointerException, IllegalArgumentException {
+		Objects.requireNonNull(signerName, "signer name");
+		Objects.requireNonNull(privateKey, "private key");
+		if (!isValidSignerName(signerName)) {
+			throw new IllegalArgumentException("Invalid signer name: " + signerName);
+		}
+		if (ObjectUtils.isNullOrEmpty(certificateChain)) {
+			throw new IllegalArgumentException("Empty certificate chain.");
+		}
+		this.keyAlgorithm = privateKey.getAlgorithm().toUpperCase(Locale.ENGLISH);
+		getSignatureEncryptionAlgorithmIdentifier(keyAlgorithm);
+		this.signerName = signerName;
+		this.privateKey = privateKey;
+		this.certificateChain = ImmutableUtils.makeImmutableList(certificateChain);
+		this.modificationTime = modificationTime;
+	}
+
+	/**
+	 * Converts a key store alias to a signer name the same way as <code>jarsigner</code>.
+	 * <p>
+	 * The first 8 characters are taken, converted to uppercase, and the characters that are not allowed are replaced
+	 * by <code>_</code>.
+	 */
+	public static String toSignerName(String alias) {
+		StringBuilder sb = new StringBuilder(8);
+		for (int i = 0, len = Math.min(alias.length(), 8); i < len; i++) {
+			char c = Character.toUpperCase(alias.charAt(i));
+			if (!isValidSignerNameChar(c)) {
+				c = '_';
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	public static boolean isValidSignerName(String name) {
+		int len = name.length();
+		if (len < 1 || len > 8) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (!isValidSignerNameChar(name.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isValidSignerNameChar(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+	}
+
+	public static boolean isManifestName(String name) {
+		return MANIFEST_NAME.equalsIgnoreCase(name);
+	}
+
+	/**
+	 * Checks if the entry with the given name is not digested when an archive is signed.
+	 * <p>
+	 * These are the directories, the manifest, and the signature related files in the <code>META-INF</code>
+	 * directory.
+	 */
+	public static boolean isExcludedFromSigning(String name) {
+		if (name.endsWith("/")) {
+			return true;
+		}
+		String upper = name.toUpperCase(Locale.ENGLISH);
+		if (!upper.startsWith("META-INF/") || upper.indexOf('/', 9) >= 0) {
+			return false;
+		}
+		return upper.equals(MANIFEST_NAME) || upper.endsWith(".SF") || upper.endsWith(".RSA")
+				|| upper.endsWith(".DSA") || upper.endsWith(".EC") || upper.startsWith("META-INF/SIG-");
+	}
+
+	MessageDigest createDigest() throws ZipException {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw (ZipException) new ZipException("Failed to create entry digest.").initCause(e);
+		}
+	}
+
+	void addEntryDigest(String name, byte[] digest) {
+		if (isExcludedFromSigning(name)) {
+			return;
+		}
+		entryDigests.put(name, digest);
+	}
+
+	UnsyncByteArrayOutputStream startManifest(long modificationmillis) throws ZipException {
+		if (hasManifest) {
+			throw new ZipException("Duplicate manifest entry: " + MANIFEST_NAME);
+		}
+		hasManifest = true;
+		manifestModificationMillis = modificationmillis;
+		return manifest;
+	}
+
+	/**
+	 * Writes the manifest and the signature files to the argument stream.
+	 * <p>
+	 * The argument stream should no longer sign the entries.
+	 */
+	void writeSignatureFiles(ZipArchiveOutputStream out) throws IOException {
+		MessageDigest digest = createDigest();
+		UnsyncByteArrayOutputStream mf = new UnsyncByteArrayOutputStream();
+		UnsyncByteArrayOutputStream sf = new UnsyncByteArrayOutputStream();
+
+		List<List<String>> usersections = hasManifest ? parseManifest(manifest.getBuffer(), manifest.size())
+				: Collections.emptyList();
+		List<String> mainsection = usersections.isEmpty() ? Collections.emptyList() : usersections.get(0);
+		if (mainsection.isEmpty()) {
+			writeHeader(mf, "Manifest-Version", "1.0");
+		} else {
+			for (String header : mainsection) {
+				writeHeaderLine(mf, header);
+			}
+		}
+		mf.write(CRLF, 0, CRLF.length);
+		digest.update(mf.getBuffer(), 0, mf.size());
+		byte[] maindigest = digest.digest();
+
+		Map<String, List<String>> entrysections = new LinkedHashMap<>();
+		for (List<String> section : usersections.subList(Math.min(1, usersections.size()), usersections.size())) {
+			String name = getSectionName(section);
+			if (name != null) {
+				entrysections.put(name, section);
+			}
+		}
+		UnsyncByteArrayOutputStream sfsections = new UnsyncByteArrayOutputStream();
+		UnsyncByteArrayOutputStream sectionbuf = new UnsyncByteArrayOutputStream();
+		for (Entry<String, byte[]> entry : entryDigests.entrySet()) {
+			String name = entry.getKey();
+			sectionbuf.reset();
+			writeHeader(sectionbuf, "Name", name);
+			List<String> usersection = entrysections.remove(name);
+			if (usersection != null) {
+				//keep the other attributes of the section
+				for (String header : usersection.subList(1, usersection.size())) {
+					if (!header.regionMatches(true, 0, DIGEST_ATTRIBUTE + ":", 0, DIGEST_ATTRIBUTE.length() + 1)) {
+						writeHeaderLine(sectionbuf, header);
+					}
+				}
+			}
+			writeHeader(sectionbuf, DIGEST_ATTRIBUTE, Base64.getEncoder().encodeToString(entry.getValue()));
+			sectionbuf.write(CRLF, 0, CRLF.length);
+			addSection(mf, sfsections, digest, name, sectionbuf);
+		}
+		for (Entry<String, List<String>> entry : entrysections.entrySet()) {
+			//sections of entries that are not present in the archive are kept as is
+			sectionbuf.reset();
+			for (String header : entry.getValue()) {
+				writeHeaderLine(sectionbuf, header);
+			}
+			sectionbuf.write(CRLF, 0, CRLF.length);
+			addSection(mf, sfsections, digest, entry.getKey(), sectionbuf);
+		}
+
+		writeHeader(sf, "Signature-Version", "1.0");
+		digest.update(mf.getBuffer(), 0, mf.size());
+		writeHeader(sf, DIGEST_ALGORITHM + "-Digest-Manifest", Base64.getEncoder().encodeToString(digest.digest()));
+		writeHeader(sf, DIGEST_ALGORITHM + "-Digest-Manifest-Main-Attributes",
+				Base64.getEncoder().encodeToString(maindigest));
+		sf.write(CRLF, 0, CRLF.length);
+		sfsections.writeTo(sf);
+
+		byte[] block;
+		try {
+			block = createSignatureBlock(sf);
+		} catch (GeneralSecurityException e) {
+			throw (ZipException) new ZipException("Failed to sign archive with signer: " + signerName).initCause(e);
+		}
+
+		long mfmillis = manifestModificationMillis;
+		writeEntry(out, MANIFEST_NAME, mfmillis == -1 ? getModificationMillis() : mfmillis, mf.getBuffer(),
+				mf.size());
+		writeEntry(out, "META-INF/" + signerName + ".SF", getModificationMillis(), sf.getBuffer(), sf.size());
+		writeEntry(out, "META-INF/" + signerName + "." + keyAlgorithm, getModificationMillis(), block,
+				block.length);
+	}
+
+	private long getModificationMillis() {
+		return modificationTime == null ? -1 : modificationTime.toMillis();
+	}
+
+	private static void addSection(UnsyncByteArrayOutputStream mf, UnsyncByteArrayOutputStream sfsections,
+			MessageDigest digest, String name, UnsyncByteArrayOutputStream sectionbuf) throws IOException {
+		digest.update(sectionbuf.getBuffer(), 0, sectionbuf.size());
+		sectionbuf.writeTo(mf);
+		writeHeader(sfsections, "Name", name);
+		writeHeader(sfsections, DIGEST_ATTRIBUTE, Base64.getEncoder().encodeToString(digest.digest()));
+		sfsections.write(CRLF, 0, CRLF.length);
+	}
+
+	private static void writeEntry(ZipArchiveOutputStream out, String name, long modificationmillis, byte[] data,
+			int length) throws IOException {
+		ZipEntryHeader header = new ZipEntryHeader();
+		header.setName(name);
+		header.setMethod(ZipEntry.DEFLATED);
+		header.setModificationMillis(modificationmillis);
+		out.putNextEntry(header);
+		out.write(data, 0, length);
+		out.closeEntry();
+	}
+
+	private byte[] createSignatureBlock(UnsyncByteArrayOutputStream sf) throws GeneralSecurityException {
+		Signature signer = Signature.getInstance("SHA256with" + ("EC".equals(keyAlgorithm) ? "ECDSA" : keyAlgorithm));
+		signer.initSign(privateKey);
+		signer.update(sf.getBuffer(), 0, sf.size());
+		byte[] signature = signer.sign();
+
+		byte[] sha256algid = der(TAG_SEQUENCE, OID_SHA256, DER_NULL);
+		X509Certificate signercert = certificateChain.get(0);
+		byte[] signerinfo = der(TAG_SEQUENCE, der(TAG_INTEGER, new byte[] { 1 }),
+				der(TAG_SEQUENCE, signercert.getIssuerX500Principal().getEncoded(),
+						der(TAG_INTEGER, signercert.getSerialNumber().toByteArray())),
+				sha256algid, getSignatureEncryptionAlgorithmIdentifier(keyAlgorithm),
+				der(TAG_OCTET_STRING, signature));
+		byte[] signeddata = der(TAG_SEQUENCE, der(TAG_INTEGER, new byte[] { 1 }), der(TAG_SET, sha256algid),
+				der(TAG_SEQUENCE, OID_DATA), der(TAG_CONTEXT_0, encodeCertificates(certificateChain)),
+				der(TAG_SET, signerinfo));
+		return der(TAG_SEQUENCE, OID_SIGNED_DATA, der(TAG_CONTEXT_0, signeddata));
+	}
+
+	private static byte[] encodeCertificates(List<X509Certificate> certificates)
+			throws CertificateEncodingException {
+		byte[][] encoded = new byte[certificates.size()][];
+		for (int i = 0; i < encoded.length; i++) {
+			encoded[i] = certificates.get(i).getEncoded();
+		}
+		return concat(encoded);
+	}
+
+	private static byte[] getSignatureEncryptionAlgorithmIdentifier(String keyalgorithm) {
+		switch (keyalgorithm) {
+			case "RSA": {
+				return der(TAG_SEQUENCE, OID_RSA_ENCRYPTION, DER_NULL);
+			}
+			case "EC": {
+				return der(TAG_SEQUENCE, OID_ECDSA_WITH_SHA256);
+			}
+			case "DSA": {
+				return der(TAG_SEQUENCE, OID_DSA_WITH_SHA256);
+			}
+			default: {
+				throw new IllegalArgumentException("Unsupported signing key algorithm: " + keyalgorithm);
+			}
+		}
+	}
+
+	private static byte[] der(int tag, byte[]... contents) {
+		byte[] content = concat(contents);
+		int len = content.length;
+		int lenbytes = len < 0x80 ? 0 : (32 - Integer.numberOfLeadingZeros(len) + 7) / 8;
+		byte[] result = new byte[2 + lenbytes + len];
+		result[0] = (byte) tag;
+		if (lenbytes == 0) {
+			result[1] = (byte) len;
+		} else {
+			result[1] = (byte) (0x80 | lenbytes);
+			for (int i = 0; i < lenbytes; i++) {
+				result[2 + i] = (byte) (len >>> ((lenbytes - 1 - i) * 8));
+			}
+		}
+		System.arraycopy(content, 0, result, 2 + lenbytes, len);
+		return result;
+	}
+
+	private static byte[] concat(byte[]... arrays) {
+		if (arrays.length == 1) {
+			return arrays[0];
+		}
+		int len = 0;
+		for (byte[] a : arrays) {
+			len += a.length;
+		}
+		byte[] result = new byte[len];
+		int offset = 0;
+		for (byte[] a : arrays) {
+			System.arraycopy(a, 0, result, offset, a.length);
+			offset += a.length;
+		}
+		return result;
+	}
+
+	private static void writeHeader(UnsyncByteArrayOutputStream out, String name, String value) {
+		writeHeaderLine(out, name + ": " + value);
+	}
+
+	/**
+	 * Writes a manifest header line, wrapping it at 72 bytes without splitting UTF-8 characters.
+	 */
+	private static void writeHeaderLine(UnsyncByteArrayOutputStream out, String header) {
+		byte[] line = header.getBytes(StandardCharsets.UTF_8);
+		int start = 0;
+		int max = MAX_LINE_LENGTH;
+		while (line.length - start > max) {
+			int end = start + max;
+			while ((line[end] & 0xC0) == 0x80) {
+				--end;
+			}
+			out.write(line, start, end - start);
+			out.write(CRLF, 0, CRLF.length);
+			out.write(' ');
+			start = end;
+			//the leading space counts to the line length
+			max = MAX_LINE_LENGTH - 1;
+		}
+		out.write(line, start, line.length - start);
+		out.write(CRLF, 0, CRLF.length);
+	}
+
+	private static String getSectionName(List<String> section) {
+		String first = section.get(0);
+		if (!first.regionMatches(true, 0, "Name:", 0, 5)) {
+			return null;
+		}
+		return first.substring(5).trim();
+	}
+
+	/**
+	 * Parses the manifest to sections of header lines.
+	 * <p>
+	 * The continuation lines are joined to their headers. The first section is the main section, which may be empty.
+	 */
+	private static List<List<String>> parseManifest(byte[] bytes, int length) {
+		List<List<String>> sections = new ArrayList<>();
+		List<String> section = new ArrayList<>();
+		UnsyncByteArrayOutputStream header = new UnsyncByteArrayOutputStream();
+		int pos = 0;
+		while (pos < length) {
+			int lineend = pos;
+			while (lineend < length && bytes[lineend] != '\r' && bytes[lineend] != '\n') {
+				++lineend;
+			}
+			if (lineend > pos && bytes[pos] == ' ') {
+				header.write(bytes, pos + 1, lineend - pos - 1);
+			} else {
+				addHeader(section, header);
+				if (lineend == pos) {
+					//empty line, end of section
+					if (!section.isEmpty() || sections.isEmpty()) {
+						sections.add(section);
+						section = new ArrayList<>();
+					}
+				} else {
+					header.write(bytes, pos, lineend - pos);
+				}
+			}
+			pos = lineend;
+			if (pos < length && bytes[pos] == '\r') {
+				++pos;
+			}
+			if (pos < length && bytes[pos] == '\n') {
+				++pos;
+			}
+		}
+		addHeader(section, header);
+		if (!section.isEmpty() || sections.isEmpty()) {
+			sections.add(section);
+		}
+		return sections;
+	}
+
+	private static void addHeader(List<String> section, UnsyncByteArrayOutputStream header) {
+		if (header.size() > 0) {
+			section.add(new String(header.getBuffer(), 0, header.size(), StandardCharsets.UTF_8));
+			header.reset();
+		}
+	}
+}
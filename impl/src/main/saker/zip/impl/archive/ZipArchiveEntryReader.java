@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+
+/**
+ * Reads the entries of an archive from arbitrary positions, based on the local header offsets in its central
+ * directory.
+ * <p>
+ * The archive data is only accessed with positional reads, so the entries can be opened and read concurrently from
+ * multiple threads. The data of the entries is verified against their CRC and size in the central directory.
+ * <p>
+ * Closing the reader closes the underlying channel.
+ */
+public final class ZipArchiveEntryReader implements Closeable {
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int INFLATE_BUFFER_SIZE = 8 * 1024;
+
+	private final FileChannel channel;
+	private final ByteBuffer bytes;
+	private final long size;
+
+	public ZipArchiveEntryReader(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.bytes = null;
+		this.size = channel.size();
+	}
+
+	public ZipArchiveEntryReader(ByteArrayRegion bytes) {
+		this.channel = null;
+		this.bytes = ByteBuffer.wrap(bytes.getArray(), bytes.getOffset(), bytes.getLength()).slice();
+		this.size = bytes.getLength();
+	}
+
+	public CompactZipArchiveManifest readManifest() throws IOException {
+		return ZipArchiveManifestReader.read(new PositionalChannel());
+	}
+
+	public ZipCentralDirectory readCentralDirectory() throws IOException {
+		return ZipCentralDirectory.read(new PositionalChannel());
+	}
+
+	/**
+	 * Opens the uncompressed data of an entry.
+	 * <p>
+	 * The returned stream throws a {@link ZipException} at the end of the data if it doesn't match the CRC or size of
+	 * the entry.
+	 */
+	public InputStream openEntry(ZipArchiveEntryInformation entry) throws IOException {
+		ByteBuffer header = readLocalHeader(entry);
+		long dataoffset = getDataOffset(entry, header);
+		InputStream data = new RangeInputStream(dataoffset, dataoffset + entry.getCompressedSize());
+		switch (entry.getMethod()) {
+			case ZipArchiveOutputStream.STORED: {
+				return new CheckedEntryInputStream(data, entry);
+			}
+			case ZipArchiveOutputStream.DEFLATED: {
+				return new CheckedEntryInputStream(new EntryInflaterInputStream(data), entry);
+			}
+			default: {
+				throw new ZipException(
+						"Unsupported compression method: " + entry.getMethod() + " for entry: " + entry.getName());
+			}
+		}
+	}
+
+	/**
+	 * Sets the attributes of the argument header from the local header and central directory record of an entry.
+	 * <p>
+	 * The modification time is read from the local header, the other attributes are taken from the argument entry.
+	 * 
+	 * @return The offset of the compressed entry data in the archive.
+	 * @see #openRawData(long, long)
+	 */
+	public long readHeader(ZipArchiveEntryInformation entry, ZipEntryHeader result) throws IOException {
+		ByteBuffer header = readLocalHeader(entry);
+		long dataoffset = getDataOffset(entry, header);
+		result.setName(entry.getName());
+		result.setMethod(entry.getMethod());
+		result.setCrc(entry.getCrc());
+		result.setSize(entry.getSize());
+		result.setCompressedSize(entry.getCompressedSize());
+		result.setModificationMillis(ZipArchiveInputStream.dosToJavaTime(header.getInt(10) & 0xFFFFFFFFL));
+		return dataoffset;
+	}
+
+	/**
+	 * Opens a stream to the raw bytes of the archive in the given range.
+	 */
+	public InputStream openRawData(long offset, long length) {
+		return new RangeInputStream(offset, offset + length);
+	}
+
+	/**
+	 * Gets the channel of the archive.
+	 * 
+	 * @return The channel or <code>null</code> if the reader was created for an in-memory archive.
+	 */
+	public FileChannel getChannel() {
+		return channel;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Gets the data alignment of an entry from the alignment extra field of its local header.
+	 *
+	 * @return The alignment or 0 if the local header has no alignment extra field.
+	 */
+	int readLocalAlignment(long localheaderoffset) throws IOException {
+		ByteBuffer header = readLocalHeader(localheaderoffset);
+		int extralen = header.getShort(28) & 0xFFFF;
+		if (extralen == 0) {
+			return 0;
+		}
+		ByteBuffer extra = ByteBuffer.allocate(extralen).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(extra, localheaderoffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF));
+		for (int idx = 0; idx + 4 <= extralen;) {
+			int tag = extra.getShort(idx) & 0xFFFF;
+			int len = extra.getShort(idx + 2) & 0xFFFF;
+			if (tag == ZipArchiveOutputStream.EXTID_ALIGNMENT && len >= 2 && idx + 6 <= extralen) {
+				return extra.getShort(idx + 4) & 0xFFFF;
+			}
+			idx += 4 + len;
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the offset of the entry data that follows the local header at the given offset.
+	 */
+	long readLocalDataOffset(long localheaderoffset) throws IOException {
+		ByteBuffer header = readLocalHeader(localheaderoffset);
+		return localheaderoffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+				+ (header.getShort(28) & 0xFFFF);
+	}
+
+	private ByteBuffer readLocalHeader(ZipArchiveEntryInformation entry) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, entry.getLocalHeaderOffset());
+		if (header.getInt(0) != (int) ZipArchiveOutputStream.LOCSIG) {
+			throw new ZipException("Invalid local file header for entry: " + entry.getName());
+		}
+		return header;
+	}
+
+	private ByteBuffer readLocalHeader(long offset) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(header, offset);
+		if (header.getInt(0) != (int) ZipArchiveOutputStream.LOCSIG) {
+			throw new ZipException("Invalid local file header at: " + offset);
+		}
+		return header;
+	}
+
+	private long getDataOffset(ZipArchiveEntryInformation entry, ByteBuffer header) throws ZipException {
+		long dataoffset = entry.getLocalHeaderOffset() + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF)
+				+ (header.getShort(28) & 0xFFFF);
+		if (dataoffset + entry.getCompressedSize() > size) {
+			throw new ZipException("Entry data is out of the archive bounds: " + entry.getName());
+		}
+		return dataoffset;
+	}
+
+	private int read(ByteBuffer dst, long position) throws IOException {
+		if (position >= size) {
+			return -1;
+		}
+		if (channel != null) {
+			return channel.read(dst, position);
+		}
+		int len = (int) Math.min(dst.remaining(), size - position);
+		ByteBuffer src = bytes.duplicate();
+		src.position((int) position);
+		src.limit((int) position + len);
+		dst.put(src);
+		return len;
+	}
+
+	private void readFully(ByteBuffer dst, long position) throws IOException {
+		while (dst.hasRemaining()) {
+			int r = read(dst, position);
+			if (r < 0) {
+				throw new EOFException("Unexpected end of archive at: " + position);
+			}
+			position += r;
+		}
+	}
+
+	private final class RangeInputStream extends InputStream {
+		private long position;
+		private final long end;
+
+		public RangeInputStream(long position, long end) {
+			this.position = position;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			if (len == 0) {
+				return 0;
+			}
+			int c = (int) Math.min(len, end - position);
+			int r = ZipArchiveEntryReader.this.read(ByteBuffer.wrap(b, off, c), position);
+			if (r < 0) {
+				throw new EOFException("Unexpected end of archive at: " + position);
+			}
+			position += r;
+			return r;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, end - position);
+		}
+	}
+
+	private static final class EntryInflaterInputStream extends InflaterInputStream {
+		private boolean eof;
+
+		public EntryInflaterInputStream(InputStream in) {
+			super(in, new Inflater(true), INFLATE_BUFFER_SIZE);
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof) {
+				throw new EOFException("Unexpected end of deflated entry data.");
+			}
+			len = in.read(buf, 0, buf.length);
+			if (len < 0) {
+				//the inflater may need an additional byte to finish in nowrap mode, same as ZipFile
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+			inf.setInput(buf, 0, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				inf.end();
+			}
+		}
+	}
+
+	private static final class CheckedEntryInputStream extends InputStream {
+		private final InputStream in;
+		private final ZipArchiveEntryInformation entry;
+		private final CRC32 crc = new CRC32();
+		private long count;
+
+		public CheckedEntryInputStream(InputStream in, ZipArchiveEntryInformation entry) {
+			this.in = in;
+			this.entry = entry;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int r = in.read(b, off, len);
+			if (r > 0) {
+				crc.update(b, off, r);
+				count += r;
+			} else if (r < 0) {
+				if (count != entry.getSize()) {
+					throw new ZipException("Invalid size of entry: " + entry.getName() + " expected: "
+							+ entry.getSize() + " actual: " + count);
+				}
+				if (crc.getValue() != entry.getCrc()) {
+					throw new ZipException("Invalid CRC of entry: " + entry.getName());
+				}
+			}
+			return r;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read-only channel view of the archive for the {@link ZipCentralDirectory}.
+	 */
+	private final class PositionalChannel implements SeekableByteChannel {
+		private long position;
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			int r = ZipArchiveEntryReader.this.read(dst, position);
+			if (r > 0) {
+				position += r;
+			}
+			return r;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) {
+			this.position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+	}
+}
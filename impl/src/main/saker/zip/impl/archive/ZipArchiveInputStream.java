@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Streaming ZIP archive reader that handles the ZIP64 format explicitly.
+ * <p>
+ * The stream reads the entries the same way as {@link java.util.zip.ZipInputStream}, but additionally handles the
+ * following ZIP64 cases:
+ * <ul>
+ * <li>The sizes of the entries are read from the ZIP64 extended information extra field of the local header.</li>
+ * <li>The size of the data descriptor of an entry is determined both from the local header and the actual size of the
+ * entry data. If the local header contains ZIP64 extended information, the 8 byte sizes in the data descriptor are
+ * recognized even if the entry is smaller than 4 GiB.</li>
+ * </ul>
+ * The stream reads the archive sequentially, and doesn't retain the read entries.
+ * <p>
+ * The class is not thread safe.
+ */
+public class ZipArchiveInputStream extends InputStream {
+	private static final int LOCAL_HEADER_SIZE = 30;
+
+	private final InputStream in;
+	private final byte[] buffer = new byte[64 * 1024];
+	private int bufferPosition;
+	private int bufferEnd;
+
+	private final CRC32 crc = new CRC32();
+	private Inflater inflater;
+
+	private ZipEntry entry;
+	private int entryFlag;
+	private boolean entryZip64;
+	private boolean entryEnd;
+	/**
+	 * The number of data bytes remaining for a stored entry.
+	 */
+	private long storedRemaining;
+
+	private boolean closed;
+
+	public ZipArchiveInputStream(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads the next entry and positions the stream at the beginning of its data.
+	 * <p>
+	 * If the current entry is not fully read, its remaining data is skipped.
+	 *
+	 * @return The next entry or <code>null</code> if there are no more entries.
+	 */
+	public ZipEntry getNextEntry() throws IOException {
+		ensureOpen();
+		if (entry != null) {
+			closeEntry();
+		}
+		if (!ensureBuffered(4)) {
+			return null;
+		}
+		if (getInt(bufferPosition) != ZipArchiveOutputStream.LOCSIG) {
+			//central directory or other records
+			return null;
+		}
+		if (!ensureBuffered(LOCAL_HEADER_SIZE)) {
+			throw new EOFException("Unexpected end of local header.");
+		}
+		int hidx = bufferPosition;
+		int flag = getShort(hidx + 6);
+		int method = getShort(hidx + 8);
+		long dostime = getInt(hidx + 10);
+		long crcval = getInt(hidx + 14);
+		long csize = getInt(hidx + 18);
+		long size = getInt(hidx + 22);
+		int namelen = getShort(hidx + 26);
+		int extralen = getShort(hidx + 28);
+		bufferPosition += LOCAL_HEADER_SIZE;
+
+		if ((flag & 1) == 1) {
+			throw new ZipException("Encrypted ZIP entry not supported.");
+		}
+		byte[] namebytes = readBytes(namelen);
+		byte[] extra = extralen == 0 ? null : readBytes(extralen);
+		ZipEntry result = new ZipEntry(new String(namebytes, StandardCharsets.UTF_8));
+		result.setMethod(method);
+		result.setTime(dosToJavaTime(dostime));
+
+		boolean zip64 = false;
+		if (extra != null) {
+			if (csize == ZipArchiveOutputStream.ZIP64_MAGICVAL || size == ZipArchiveOutputStream.ZIP64_MAGICVAL) {
+				int zip64idx = findExtra(extra, ZipArchiveOutputStream.ZIP64_EXTID);
+				if (zip64idx >= 0) {
+					zip64 = true;
+					int datalen = getShort(extra, zip64idx + 2);
+					int dataidx = zip64idx + 4;
+					int dataend = dataidx + datalen;
+					if (size == ZipArchiveOutputStream.ZIP64_MAGICVAL && dataidx + 8 <= dataend) {
+						size = getLong(extra, dataidx);
+						dataidx += 8;
+					}
+					if (csize == ZipArchiveOutputStream.ZIP64_MAGICVAL && dataidx + 8 <= dataend) {
+						csize = getLong(extra, dataidx);
+						dataidx += 8;
+					}
+				}
+			}
+			//parses the extended timestamps
+			result.setExtra(extra);
+		}
+		if ((flag & ZipArchiveOutputStream.FLAG_DATADESCR) != 0) {
+			if (method != ZipEntry.DEFLATED) {
+				throw new ZipException("Only DEFLATED entries can have data descriptor: " + result.getName());
+			}
+		} else {
+			result.setCrc(crcval);
+			result.setCompressedSize(csize);
+			result.setSize(size);
+		}
+		switch (method) {
+			case ZipEntry.STORED: {
+				if (size != csize) {
+					throw new ZipException("STORED entry where compressed != uncompressed size: " + result.getName());
+				}
+				storedRemaining = size;
+				break;
+			}
+			case ZipEntry.DEFLATED: {
+				Inflater inf = inflater;
+				if (inf == null) {
+					inf = new Inflater(true);
+					inflater = inf;
+				} else {
+					inf.reset();
+				}
+				break;
+			}
+			default: {
+				throw new ZipException("Unsupported compression method: " + method + " for " + result.getName());
+			}
+		}
+		this.entry = result;
+		this.entryFlag = flag;
+		this.entryZip64 = zip64;
+		this.entryEnd = false;
+		crc.reset();
+		return result;
+	}
+
+	/**
+	 * Skips the remaining data of the current entry.
+	 */
+	public void closeEntry() throws IOException {
+		ensureOpen();
+		if (entry == null) {
+			return;
+		}
+		while (!entryEnd) {
+			read(skipBuffer(), 0, SKIP_BUFFER_SIZE);
+		}
+		entry = null;
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = skipBuffer();
+		int r = read(b, 0, 1);
+		return r <= 0 ? -1 : (b[0] & 0xFF);
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (entry == null || entryEnd) {
+			return -1;
+		}
+		if (len == 0) {
+			return 0;
+		}
+		if (entry.getMethod() == ZipEntry.STORED) {
+			return readStored(b, off, len);
+		}
+		return readDeflated(b, off, len);
+	}
+
+	@Override
+	public int available() throws IOException {
+		ensureOpen();
+		return entry == null || entryEnd ? 0 : 1;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (inflater != null) {
+			inflater.end();
+			inflater = null;
+		}
+		in.close();
+	}
+
+	private int readStored(byte[] b, int off, int len) throws IOException {
+		if (storedRemaining == 0) {
+			finishStored();
+			return -1;
+		}
+		int count = (int) Math.min(len, storedRemaining);
+		int buffered = bufferEnd - bufferPosition;
+		int r;
+		if (buffered > 0) {
+			r = Math.min(count, buffered);
+			System.arraycopy(buffer, bufferPosition, b, off, r);
+			bufferPosition += r;
+		} else {
+			r = in.read(b, off, count);
+			if (r < 0) {
+				throw new EOFException("Unexpected end of entry data: " + entry.getName());
+			}
+		}
+		crc.update(b, off, r);
+		storedRemaining -= r;
+		if (storedRemaining == 0) {
+			finishStored();
+		}
+		return r;
+	}
+
+	private void finishStored() throws ZipException {
+		entryEnd = true;
+		if (crc.getValue() != entry.getCrc()) {
+			throw new ZipException("Invalid entry CRC-32 (expected 0x" + Long.toHexString(entry.getCrc())
+					+ " but got 0x" + Long.toHexString(crc.getValue()) + "): " + entry.getName());
+		}
+	}
+
+	private int readDeflated(byte[] b, int off, int len) throws IOException {
+		Inflater inf = inflater;
+		while (true) {
+			int r;
+			try {
+				r = inf.inflate(b, off, len);
+			} catch (DataFormatException e) {
+				throw new ZipException("Invalid deflated data of entry: " + entry.getName() + " (" + e.getMessage()
+						+ ")");
+			}
+			if (r > 0) {
+				crc.update(b, off, r);
+				return r;
+			}
+			if (inf.finished() || inf.needsDictionary()) {
+				//give back the bytes that were not consumed by the inflater
+				bufferPosition = bufferEnd - inf.getRemaining();
+				finishDeflated();
+				return -1;
+			}
+			if (inf.needsInput()) {
+				if (bufferPosition >= bufferEnd && !fill()) {
+					throw new EOFException("Unexpected end of deflated data: " + entry.getName());
+				}
+				inf.setInput(buffer, bufferPosition, bufferEnd - bufferPosition);
+				//consumed by the inflater, adjusted when the entry is finished
+				bufferPosition = bufferEnd;
+			}
+		}
+	}
+
+	private void finishDeflated() throws IOException {
+		entryEnd = true;
+		Inflater inf = inflater;
+		long csize = inf.getBytesRead();
+		long size = inf.getBytesWritten();
+		long crcval = crc.getValue();
+		ZipEntry e = entry;
+		if ((entryFlag & ZipArchiveOutputStream.FLAG_DATADESCR) != 0) {
+			readDataDescriptor(e, csize, size);
+		}
+		if (e.getCompressedSize() != csize || e.getSize() != size) {
+			throw new ZipException("Invalid entry size (expected " + e.getSize() + " and compressed "
+					+ e.getCompressedSize() + " but got " + size + " and compressed " + csize + " bytes): "
+					+ e.getName());
+		}
+		if (e.getCrc() != crcval) {
+			throw new ZipException("Invalid entry CRC-32 (expected 0x" + Long.toHexString(e.getCrc())
+					+ " but got 0x" + Long.toHexString(crcval) + "): " + e.getName());
+		}
+	}
+
+	private void readDataDescriptor(ZipEntry e, long csize, long size) throws IOException {
+		if (!ensureBuffered(4)) {
+			throw new EOFException("Unexpected end of data descriptor: " + e.getName());
+		}
+		if (getInt(bufferPosition) == ZipArchiveOutputStream.EXTSIG) {
+			bufferPosition += 4;
+		}
+		//crc + 2 * 8 byte sizes
+		boolean hasdesc64 = ensureBuffered(20);
+		if (!hasdesc64 && !ensureBuffered(12)) {
+			throw new EOFException("Unexpected end of data descriptor: " + e.getName());
+		}
+		int idx = bufferPosition;
+		e.setCrc(getInt(idx));
+		boolean zip64;
+		if (csize >= ZipArchiveOutputStream.ZIP64_MAGICVAL || size >= ZipArchiveOutputStream.ZIP64_MAGICVAL) {
+			zip64 = true;
+		} else if (entryZip64 && hasdesc64) {
+			//the local header specifies ZIP64, but the writer may have used 4 byte sizes for small entries
+			zip64 = getLong(buffer, idx + 4) == csize && getLong(buffer, idx + 12) == size;
+		} else {
+			zip64 = false;
+		}
+		if (zip64) {
+			if (!hasdesc64) {
+				throw new EOFException("Unexpected end of data descriptor: " + e.getName());
+			}
+			e.setCompressedSize(getLong(buffer, idx + 4));
+			e.setSize(getLong(buffer, idx + 12));
+			bufferPosition += 20;
+		} else {
+			e.setCompressedSize(getInt(idx + 4));
+			e.setSize(getInt(idx + 8));
+			bufferPosition += 12;
+		}
+	}
+
+	private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+	private byte[] skipBuffer;
+
+	private byte[] skipBuffer() {
+		byte[] b = skipBuffer;
+		if (b == null) {
+			b = new byte[SKIP_BUFFER_SIZE];
+			skipBuffer = b;
+		}
+		return b;
+	}
+
+	private byte[] readBytes(int len) throws IOException {
+		byte[] result = new byte[len];
+		int idx = 0;
+		while (idx < len) {
+			if (bufferPosition >= bufferEnd && !fill()) {
+				throw new EOFException("Unexpected end of local header.");
+			}
+			int c = Math.min(len - idx, bufferEnd - bufferPosition);
+			System.arraycopy(buffer, bufferPosition, result, idx, c);
+			bufferPosition += c;
+			idx += c;
+		}
+		return result;
+	}
+
+	/**
+	 * Reads more data into the buffer if it's empty.
+	 *
+	 * @return <code>false</code> if the end of the input was reached.
+	 */
+	private boolean fill() throws IOException {
+		int r = in.read(buffer, 0, buffer.length);
+		if (r <= 0) {
+			bufferPosition = 0;
+			bufferEnd = 0;
+			return false;
+		}
+		bufferPosition = 0;
+		bufferEnd = r;
+		return true;
+	}
+
+	/**
+	 * Ensures that at least the given number of bytes are in the buffer, reading more if necessary.
+	 *
+	 * @return <code>false</code> if the end of the input was reached before that.
+	 */
+	private boolean ensureBuffered(int count) throws IOException {
+		int available = bufferEnd - bufferPosition;
+		if (available >= count) {
+			return true;
+		}
+		if (bufferPosition > 0) {
+			System.arraycopy(buffer, bufferPosition, buffer, 0, available);
+			bufferPosition = 0;
+			bufferEnd = available;
+		}
+		while (bufferEnd < count) {
+			int r = in.read(buffer, bufferEnd, buffer.length - bufferEnd);
+			if (r < 0) {
+				return false;
+			}
+			bufferEnd += r;
+		}
+		return true;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed.");
+		}
+	}
+
+	private static int findExtra(byte[] extra, int tag) {
+		int idx = 0;
+		while (idx + 4 <= extra.length) {
+			int t = getShort(extra, idx);
+			int len = getShort(extra, idx + 2);
+			if (t == tag) {
+				return idx + 4 + len <= extra.length ? idx : -1;
+			}
+			idx += 4 + len;
+		}
+		return -1;
+	}
+
+	static long dosToJavaTime(long dostime) {
+		//lenient conversion, as invalid values may be present
+		LocalDateTime ldt = LocalDateTime.of((int) (((dostime >> 25) & 0x7f) + 1980), 1, 1, 0, 0)
+				.plusMonths(((dostime >> 21) & 0x0f) - 1).plusDays(((dostime >> 16) & 0x1f) - 1)
+				.plusHours((dostime >> 11) & 0x1f).plusMinutes((dostime >> 5) & 0x3f)
+				.plusSeconds((dostime << 1) & 0x3e);
+		return ldt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private int getShort(int idx) {
+		return getShort(buffer, idx);
+	}
+
+	private long getInt(int idx) {
+		return getInt(buffer, idx);
+	}
+
+	private static int getShort(byte[] b, int idx) {
+		return (b[idx] & 0xFF) | ((b[idx + 1] & 0xFF) << 8);
+	}
+
+	private static long getInt(byte[] b, int idx) {
+		return (getShort(b, idx) | ((long) getShort(b, idx + 2) << 16)) & 0xFFFFFFFFL;
+	}
+
+	private static long getLong(byte[] b, int idx) {
+		return getInt(b, idx) | (getInt(b, idx + 4) << 32);
+	}
+}
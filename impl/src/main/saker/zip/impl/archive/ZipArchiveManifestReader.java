@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Reads the {@link CompactZipArchiveManifest} of an archive from its central directory.
+ * <p>
+ * Only the end of central directory record and the central directory are read, the entry data is not accessed.
+ */
+public final class ZipArchiveManifestReader {
+	private ZipArchiveManifestReader() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static CompactZipArchiveManifest read(SeekableByteChannel channel) throws IOException {
+		return ZipCentralDirectory.read(channel).getManifest();
+	}
+}
@@ -0,0 +1,1389 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import saker.zip.api.create.Zip64Mode;
+
+/**
+ * ZIP archive writer that produces the same output as {@link java.util.zip.ZipOutputStream} for the entries that we
+ * write, but additionally allows writing entries which have their data already compressed.
+ * <p>
+ * By default, the stream switches to ZIP64 format automatically when the size of the archive or the number of entries
+ * requires it. See {@link #setZip64Mode(Zip64Mode)}.
+ * <p>
+ * The class is not thread safe.
+ */
+public class ZipArchiveOutputStream extends OutputStream {
+	public static final int STORED = ZipEntry.STORED;
+	public static final int DEFLATED = ZipEntry.DEFLATED;
+
+	static final long LOCSIG = 0x04034b50L;
+	static final long EXTSIG = 0x08074b50L;
+	static final long CENSIG = 0x02014b50L;
+	static final long ENDSIG = 0x06054b50L;
+	static final long ZIP64_ENDSIG = 0x06064b50L;
+	static final long ZIP64_LOCSIG = 0x07064b50L;
+
+	static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+	static final int ZIP64_MAGICCOUNT = 0xFFFF;
+
+	static final int ZIP64_EXTID = 0x0001;
+	static final int EXTID_EXTT = 0x5455;
+	static final int EXTT_FLAG_LMT = 0x1;
+	/**
+	 * The extra field that pads the local header to align the data, the same as the one used by zipalign.
+	 */
+	static final int EXTID_ALIGNMENT = 0xD935;
+
+	static final int FLAG_DATADESCR = 0x8;
+	static final int FLAG_UTF8 = 0x800;
+
+	static final long DOSTIME_BEFORE_1980 = (1 << 21) | (1 << 16);
+
+	/**
+	 * The attributes of an entry that are written to the headers.
+	 * <p>
+	 * A single instance is reused for each entry.
+	 */
+	static final class CentralRecord {
+		protected byte[] name;
+		protected int nameOffset;
+		protected int nameLength;
+		protected int flag;
+		protected int method;
+		protected long dosTime;
+		protected long unixModificationTime;
+		protected long offset;
+		protected long crc;
+		protected long size;
+		protected long compressedSize;
+		/**
+		 * The data alignment of the entry. Only used when the local header is written.
+		 */
+		protected int alignment;
+		/**
+		 * <code>true</code> if the local header has ZIP64 extended information, so the sizes in the data descriptor are
+		 * written in ZIP64 format.
+		 */
+		protected boolean localZip64;
+
+		/**
+		 * The CRC and size specified by the caller for a deflated entry, -1 if unspecified.
+		 */
+		protected long expectedCrc;
+		protected long expectedSize;
+
+		public String getName() {
+			return new String(name, nameOffset, nameLength, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Block based storage of the central directory records.
+	 * <p>
+	 * No objects are allocated for each entry, and the already stored data is not copied when the storage grows.
+	 */
+	private static final class CentralRecords {
+		private static final int BLOCK_SHIFT = 12;
+		private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+		/**
+		 * The size of the name pages. Larger than the maximum name length, so a name always fits in a page.
+		 */
+		private static final int PAGE_SHIFT = 17;
+		private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+		private static final int VALUE_NAME = 0;
+		private static final int VALUE_NAME_LENGTH_FLAG_METHOD = 1;
+		private static final int VALUE_DOS_TIME = 2;
+		private static final int VALUE_UNIX_TIME = 3;
+		private static final int VALUE_OFFSET = 4;
+		private static final int VALUE_CRC = 5;
+		private static final int VALUE_SIZE = 6;
+		private static final int VALUE_COMPRESSED_SIZE = 7;
+		private static final int VALUE_COUNT = 8;
+
+		private int count;
+		private long[][] blocks = new long[4][];
+		private byte[][] namePages = new byte[4][];
+		private int namePageCount;
+		private int namePageEnd = PAGE_SIZE;
+
+		public int size() {
+			return count;
+		}
+
+		public void add(CentralRecord record) {
+			int idx = count;
+			int blockidx = idx >>> BLOCK_SHIFT;
+			if (blockidx == blocks.length) {
+				blocks = Arrays.copyOf(blocks, blockidx * 2);
+			}
+			long[] block = blocks[blockidx];
+			if (block == null) {
+				block = new long[BLOCK_SIZE * VALUE_COUNT];
+				blocks[blockidx] = block;
+			}
+			int namelen = record.nameLength;
+			if (namePageEnd + namelen > PAGE_SIZE) {
+				if (namePageCount == namePages.length) {
+					namePages = Arrays.copyOf(namePages, namePageCount * 2);
+				}
+				namePages[namePageCount++] = new byte[PAGE_SIZE];
+				namePageEnd = 0;
+			}
+			int page = namePageCount - 1;
+			System.arraycopy(record.name, record.nameOffset, namePages[page], namePageEnd, namelen);
+
+			int vidx = (idx & (BLOCK_SIZE - 1)) * VALUE_COUNT;
+			block[vidx + VALUE_NAME] = ((long) page << PAGE_SHIFT) | namePageEnd;
+			block[vidx + VALUE_NAME_LENGTH_FLAG_METHOD] = ((long) namelen << 32) | (record.flag << 16) | record.method;
+			block[vidx + VALUE_DOS_TIME] = record.dosTime;
+			block[vidx + VALUE_UNIX_TIME] = record.unixModificationTime;
+			block[vidx + VALUE_OFFSET] = record.offset;
+			block[vidx + VALUE_CRC] = record.crc;
+			block[vidx + VALUE_SIZE] = record.size;
+			block[vidx + VALUE_COMPRESSED_SIZE] = record.compressedSize;
+			namePageEnd += namelen;
+			count = idx + 1;
+		}
+
+		public void get(int idx, CentralRecord record) {
+			long[] block = blocks[idx >>> BLOCK_SHIFT];
+			int vidx = (idx & (BLOCK_SIZE - 1)) * VALUE_COUNT;
+			long nameref = block[vidx + VALUE_NAME];
+			long lfm = block[vidx + VALUE_NAME_LENGTH_FLAG_METHOD];
+			record.name = namePages[(int) (nameref >>> PAGE_SHIFT)];
+			record.nameOffset = (int) (nameref & (PAGE_SIZE - 1));
+			record.nameLength = (int) (lfm >>> 32);
+			record.flag = (int) ((lfm >>> 16) & 0xFFFF);
+			record.method = (int) (lfm & 0xFFFF);
+			record.dosTime = block[vidx + VALUE_DOS_TIME];
+			record.unixModificationTime = block[vidx + VALUE_UNIX_TIME];
+			record.offset = block[vidx + VALUE_OFFSET];
+			record.crc = block[vidx + VALUE_CRC];
+			record.size = block[vidx + VALUE_SIZE];
+			record.compressedSize = block[vidx + VALUE_COMPRESSED_SIZE];
+		}
+	}
+
+	private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+	protected final OutputStream out;
+	/**
+	 * The channel that {@link #out} writes to, or <code>null</code> if not available.
+	 */
+	protected final WritableByteChannel outChannel;
+
+	private final byte[] headerBuffer = new byte[256];
+	private final byte[] deflateBuffer = new byte[1024 * 8];
+	private final CRC32 crc = new CRC32();
+	/**
+	 * Buffer for reading channels, lazily allocated.
+	 */
+	private ByteBuffer channelBuffer;
+	/**
+	 * Buffer for copying the contents of direct buffers that cannot be passed to the deflater, lazily allocated.
+	 */
+	private byte[] copyBuffer;
+	/**
+	 * Direct buffer for computing the CRC of files, lazily allocated.
+	 */
+	private ByteBuffer crcBuffer;
+	private final CentralRecords centralRecords = new CentralRecords();
+
+	private Deflater deflater;
+	private int method = DEFLATED;
+	private int level = Deflater.DEFAULT_COMPRESSION;
+	private Zip64Mode zip64Mode = Zip64Mode.AS_NEEDED;
+
+	private long written = 0;
+
+	private final CentralRecord current = new CentralRecord();
+	/**
+	 * The record of the entry that is shared by {@link #writeSharedEntry(ZipEntryHeader, int)}, lazily allocated.
+	 */
+	private CentralRecord sharedRecord;
+	private boolean entryOpen;
+	private byte[] currentName = new byte[256];
+	private long currentDataStart;
+	/**
+	 * Header used to convert the {@link ZipEntry} arguments.
+	 */
+	private ZipEntryHeader entryHeader;
+
+	private long cachedTimeMillis = Long.MIN_VALUE;
+	private long cachedDosTime;
+
+	private boolean finished = false;
+	private boolean closed = false;
+
+	private JarSignatureWriter jarSignature;
+	/**
+	 * The digest of the uncompressed data of the current entry, if the archive is signed.
+	 */
+	private MessageDigest entryDigest;
+	/**
+	 * The buffer of the held back manifest while it is being written, if the archive is signed.
+	 */
+	private UnsyncByteArrayOutputStream manifestOut;
+
+	public ZipArchiveOutputStream(OutputStream out) {
+		this.out = out;
+		this.outChannel = null;
+	}
+
+	/**
+	 * Creates a new stream that writes to the argument stream, and can transfer entry data directly to the underlying
+	 * channel of the stream.
+	 * <p>
+	 * The output stream is flushed before transferring data to the channel.
+	 *
+	 * @param out
+	 *            The output stream.
+	 * @param outchannel
+	 *            The channel that the output stream writes to.
+	 * @see #writeStoredEntry(ZipEntryHeader, FileChannel)
+	 */
+	public ZipArchiveOutputStream(OutputStream out, WritableByteChannel outchannel) {
+		this.out = out;
+		this.outChannel = outchannel;
+	}
+
+	/**
+	 * Sets the compression level for the subsequent {@link #DEFLATED} entries.
+	 *
+	 * @see Deflater#setLevel(int)
+	 */
+	public void setLevel(int level) {
+		if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+		}
+		if (this.level != level) {
+			this.level = level;
+			if (deflater != null) {
+				deflater.setLevel(level);
+			}
+		}
+	}
+
+	/**
+	 * Sets the default compression method for the entries that don't specify it.
+	 */
+	public void setMethod(int method) {
+		if (method != STORED && method != DEFLATED) {
+			throw new IllegalArgumentException("Invalid compression method: " + method);
+		}
+		this.method = method;
+	}
+
+	/**
+	 * Sets when the ZIP64 format extensions are used.
+	 * <p>
+	 * The mode should be set before the first entry is written.
+	 * <p>
+	 * In {@link Zip64Mode#ALWAYS} mode, the local headers contain ZIP64 extended information, so the sizes in the data
+	 * descriptors are written in ZIP64 format as the specification requires, regardless of the actual entry sizes.
+	 * Streaming readers that decide the data descriptor size based on the actual size of the entry, like
+	 * {@link java.util.zip.ZipInputStream} before Java 21, can't read these entries.
+	 */
+	public void setZip64Mode(Zip64Mode mode) {
+		this.zip64Mode = Objects.requireNonNull(mode, "zip64 mode");
+	}
+
+	public Zip64Mode getZip64Mode() {
+		return zip64Mode;
+	}
+
+	/**
+	 * Sets the signature writer that signs the archive.
+	 * <p>
+	 * The digests of the entries are computed while their data is written, and the manifest is held back until the
+	 * archive is {@linkplain #finish() finished}. Entries with already compressed data can't be written to signed
+	 * archives, as their uncompressed data is not available to compute the digests.
+	 * <p>
+	 * Must be called before any entries are written.
+	 */
+	public void setJarSignature(JarSignatureWriter signature) throws IOException {
+		ensureOpen();
+		if (written != 0) {
+			throw new IllegalStateException("Archive signature must be set before writing entries.");
+		}
+		this.jarSignature = signature;
+		this.entryDigest = signature == null ? null : signature.createDigest();
+	}
+
+	public void putNextEntry(ZipEntry entry) throws IOException {
+		putNextEntry(toHeader(entry));
+	}
+
+	/**
+	 * Starts a new entry with the data aligned to the given number of bytes.
+	 *
+	 * @see ZipEntryHeader#setAlignment(int)
+	 */
+	public void putNextEntry(ZipEntry entry, int alignment) throws IOException {
+		ZipEntryHeader header = toHeader(entry);
+		header.setAlignment(alignment);
+		putNextEntry(header);
+	}
+
+	/**
+	 * Starts a new entry described by the argument header.
+	 * <p>
+	 * The header is not retained by the stream, and can be reused for the next entry right after this call.
+	 */
+	public void putNextEntry(ZipEntryHeader entry) throws IOException {
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		if (jarSignature != null && JarSignatureWriter.isManifestName(entry.getName())) {
+			manifestOut = jarSignature.startManifest(entry.getModificationMillis());
+			entryOpen = true;
+			return;
+		}
+		int method = entry.getMethod();
+		if (method == -1) {
+			method = this.method;
+		}
+		int flag = FLAG_UTF8;
+		switch (method) {
+			case DEFLATED: {
+				flag |= FLAG_DATADESCR;
+				break;
+			}
+			case STORED: {
+				long size = entry.getSize();
+				long csize = entry.getCompressedSize();
+				if (size == -1) {
+					size = csize;
+				} else if (csize != -1 && size != csize) {
+					throw new ZipException("STORED entry where compressed != uncompressed size: " + entry.getName());
+				}
+				if (size == -1 || entry.getCrc() == -1) {
+					throw new ZipException("STORED entry missing size, compressed size, or crc-32: " + entry.getName());
+				}
+				break;
+			}
+			default: {
+				throw new ZipException("Unsupported compression method: " + method + " for " + entry.getName());
+			}
+		}
+		CentralRecord record = startRecord(entry, flag, method);
+		if (method == STORED) {
+			record.crc = entry.getCrc();
+			record.size = entry.getSize() == -1 ? entry.getCompressedSize() : entry.getSize();
+			record.compressedSize = record.size;
+		} else {
+			record.crc = 0;
+			record.size = 0;
+			record.compressedSize = 0;
+		}
+		record.expectedCrc = entry.getCrc();
+		record.expectedSize = entry.getSize();
+		writeLocalHeader(record);
+		entryOpen = true;
+		currentDataStart = written;
+		crc.reset();
+		if (entryDigest != null) {
+			entryDigest.reset();
+		}
+	}
+
+	/**
+	 * Writes an entry with already compressed data.
+	 * <p>
+	 * The CRC and size of the entry must be set. The data is written to the archive as is.
+	 * <p>
+	 * The entry records are laid out the same way as if the entry data was written through this stream, so the
+	 * output is the same regardless of the data being already compressed or not.
+	 */
+	public void writeRawEntry(ZipEntry entry, ByteArrayRegion data) throws IOException {
+		writeRawEntry(toHeader(entry), data);
+	}
+
+	/**
+	 * Writes an entry with already compressed data.
+	 * <p>
+	 * The header is not retained by the stream.
+	 *
+	 * @see #writeRawEntry(ZipEntry, ByteArrayRegion)
+	 */
+	public void writeRawEntry(ZipEntryHeader entry, ByteArrayRegion data) throws IOException {
+		int datalen = data.getLength();
+		CentralRecord record = startRawEntry(entry, datalen);
+		writeOut(data.getArray(), data.getOffset(), datalen);
+		finishRawEntry(record);
+	}
+
+	/**
+	 * Writes an entry with the already compressed data in the argument archive.
+	 * <p>
+	 * The compressed size of the header must be set. The data is transferred from the source archive channel to the
+	 * output channel with {@link FileChannel#transferTo(long, long, WritableByteChannel)} if both are available.
+	 * Otherwise it is copied through a buffer.
+	 * <p>
+	 * The header is not retained by the stream.
+	 *
+	 * @param dataoffset
+	 *            The offset of the compressed data in the source archive.
+	 * @see #writeRawEntry(ZipEntry, ByteArrayRegion)
+	 * @see ZipArchiveEntryReader#readHeader(saker.zip.api.create.ZipArchiveEntryInformation, ZipEntryHeader)
+	 */
+	public void writeRawEntry(ZipEntryHeader entry, ZipArchiveEntryReader source, long dataoffset)
+			throws IOException {
+		long datalen = entry.getCompressedSize();
+		if (datalen == -1) {
+			throw new ZipException("Raw entry missing compressed size: " + entry.getName());
+		}
+		CentralRecord record = startRawEntry(entry, datalen);
+		copyRaw(source, dataoffset, datalen);
+		finishRawEntry(record);
+	}
+
+	/**
+	 * Writes the entry records in the given index range of a central directory as is.
+	 * <p>
+	 * The records are copied from the source archive in a single pass, and the central directory records are added
+	 * with their offsets relocated to this archive. The records in the range must be
+	 * {@linkplain ZipCentralDirectory#isContiguous(int) contiguous} in the source archive.
+	 * <p>
+	 * This is the fastest way of assembling an archive from the parts of already existing archives, as neither the
+	 * local headers nor the entry data is processed. The exception is the aligned STORED entries, which would lose
+	 * their alignment when moved to a different offset. Their local headers are written again with the padding for
+	 * the new offset, and only their data is copied.
+	 *
+	 * @param source
+	 *            The source archive.
+	 * @param directory
+	 *            The central directory of the source archive.
+	 * @param start
+	 *            The index of the first record. (inclusive)
+	 * @param end
+	 *            The index of the last record. (exclusive)
+	 * @throws ZipException
+	 *             If the records are not contiguous.
+	 * @see ZipArchiveEntryReader#readCentralDirectory()
+	 */
+	public void writeRawRecords(ZipArchiveEntryReader source, ZipCentralDirectory directory, int start, int end)
+			throws IOException {
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		if (start >= end) {
+			return;
+		}
+		if (jarSignature != null) {
+			throw new ZipException("Entry records can't be copied to signed archives.");
+		}
+		for (int i = start; i < end - 1; i++) {
+			if (!directory.isContiguous(i)) {
+				throw new ZipException("Non-contiguous entry records at index: " + i);
+			}
+		}
+		CentralRecord record = current;
+		int runstart = start;
+		for (int i = start; i < end; i++) {
+			long relocation = written - directory.getLocalHeaderOffset(runstart);
+			if (relocation == 0) {
+				continue;
+			}
+			directory.getRecord(i, record);
+			if (record.method != STORED || record.size <= 0) {
+				continue;
+			}
+			long offset = record.offset;
+			int alignment = source.readLocalAlignment(offset);
+			if (alignment <= 1 || (offset + relocation) % alignment == 0) {
+				continue;
+			}
+			copyRawRecords(source, directory, runstart, i);
+			runstart = i + 1;
+
+			//write the local header again with the padding for the new offset
+			directory.getRecord(i, record);
+			record.flag &= ~FLAG_DATADESCR;
+			record.offset = written;
+			record.alignment = alignment;
+			writeLocalHeader(record);
+			copyRaw(source, source.readLocalDataOffset(offset), record.compressedSize);
+			centralRecords.add(record);
+		}
+		copyRawRecords(source, directory, runstart, end);
+	}
+
+	private void copyRawRecords(ZipArchiveEntryReader source, ZipCentralDirectory directory, int start, int end)
+			throws IOException {
+		if (start >= end) {
+			return;
+		}
+		long from = directory.getLocalHeaderOffset(start);
+		long relocation = written - from;
+		copyRaw(source, from, directory.getRecordEnd(end - 1) - from);
+
+		CentralRecord record = current;
+		for (int i = start; i < end; i++) {
+			directory.getRecord(i, record);
+			record.offset += relocation;
+			centralRecords.add(record);
+		}
+	}
+
+	/**
+	 * Writes an entry that shares the local header and data of a previously written entry.
+	 * <p>
+	 * Only a central directory record is added for the entry, that points to the local header of the entry at the
+	 * given index. The name and modification time are taken from the argument header, the compression method, CRC
+	 * and sizes are the same as the shared entry.
+	 * <p>
+	 * Readers that use the central directory (e.g. {@link java.util.zip.ZipFile}) see the entry with the shared
+	 * contents. Streaming readers (e.g. {@link java.util.zip.ZipInputStream}) don't see the entry, and strict readers
+	 * may reject the archive as the local and central names differ.
+	 * <p>
+	 * The header is not retained by the stream.
+	 *
+	 * @param recordindex
+	 *            The index of the previously written entry.
+	 * @throws ZipException
+	 *             If the index is out of range, or the archive is signed.
+	 * @see #getEntryCount()
+	 */
+	public void writeSharedEntry(ZipEntryHeader entry, int recordindex) throws IOException {
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		if (jarSignature != null) {
+			throw new ZipException("Shared entries can't be written to signed archives: " + entry.getName());
+		}
+		if (recordindex < 0 || recordindex >= centralRecords.size()) {
+			throw new ZipException("Shared entry index out of range: " + recordindex + " for " + entry.getName());
+		}
+		CentralRecord shared = sharedRecord;
+		if (shared == null) {
+			shared = new CentralRecord();
+			sharedRecord = shared;
+		}
+		centralRecords.get(recordindex, shared);
+		CentralRecord record = startRecord(entry, shared.flag, shared.method);
+		record.offset = shared.offset;
+		record.crc = shared.crc;
+		record.size = shared.size;
+		record.compressedSize = shared.compressedSize;
+		centralRecords.add(record);
+	}
+
+	private void copyRaw(ZipArchiveEntryReader source, long offset, long length) throws IOException {
+		FileChannel input = source.getChannel();
+		if (outChannel != null && input != null) {
+			out.flush();
+			long end = offset + length;
+			for (long pos = offset; pos < end;) {
+				long c = input.transferTo(pos, end - pos, outChannel);
+				if (c <= 0) {
+					throw new ZipException("Unexpected end of source archive at: " + pos);
+				}
+				pos += c;
+				written += c;
+			}
+		} else {
+			byte[] buf = copyBuffer;
+			if (buf == null) {
+				buf = new byte[1024 * 8];
+				copyBuffer = buf;
+			}
+			try (InputStream in = source.openRawData(offset, length)) {
+				for (int r; (r = in.read(buf)) > 0;) {
+					writeOut(buf, 0, r);
+				}
+			}
+		}
+	}
+
+	private CentralRecord startRawEntry(ZipEntryHeader entry, long datalen) throws IOException {
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		if (jarSignature != null) {
+			throw new ZipException("Entries with compressed data can't be written to signed archives: "
+					+ entry.getName());
+		}
+		int method = entry.getMethod();
+		if (method != STORED && method != DEFLATED) {
+			throw new ZipException("Unsupported compression method: " + method + " for " + entry.getName());
+		}
+		long crcval = entry.getCrc();
+		long size = entry.getSize();
+		if (crcval == -1 || size == -1) {
+			throw new ZipException("Raw entry missing size or crc-32: " + entry.getName());
+		}
+		if (method == STORED && datalen != size) {
+			throw new ZipException("STORED raw entry size mismatch: " + entry.getName() + " with " + size
+					+ " bytes and " + datalen + " bytes of data");
+		}
+		CentralRecord record = startRecord(entry, method == DEFLATED ? FLAG_UTF8 | FLAG_DATADESCR : FLAG_UTF8,
+				method);
+		record.crc = crcval;
+		record.size = size;
+		record.compressedSize = datalen;
+		writeLocalHeader(record);
+		return record;
+	}
+
+	private void finishRawEntry(CentralRecord record) throws IOException {
+		if (record.method == DEFLATED) {
+			writeDataDescriptor(record);
+		}
+		centralRecords.add(record);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		byte[] buf = headerBuffer;
+		buf[0] = (byte) b;
+		write(buf, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (len == 0) {
+			return;
+		}
+		if (!entryOpen) {
+			throw new ZipException("No current zip entry.");
+		}
+		if (manifestOut != null) {
+			manifestOut.write(b, off, len);
+			return;
+		}
+		CentralRecord record = current;
+		if (record.method == DEFLATED) {
+			Deflater def = getDeflater();
+			def.setInput(b, off, len);
+			while (!def.needsInput()) {
+				deflate(def);
+			}
+		} else {
+			writeOut(b, off, len);
+		}
+		crc.update(b, off, len);
+		if (entryDigest != null) {
+			entryDigest.update(b, off, len);
+		}
+	}
+
+	/**
+	 * Writes the remaining bytes of the argument buffer as the data of the current entry.
+	 * <p>
+	 * If the entry is compressed and the runtime supports it, the contents of a direct buffer are passed to the
+	 * deflater without copying them to the Java heap.
+	 */
+	public void write(ByteBuffer buf) throws IOException {
+		ensureOpen();
+		if (!buf.hasRemaining()) {
+			return;
+		}
+		if (!entryOpen) {
+			throw new ZipException("No current zip entry.");
+		}
+		if (buf.hasArray()) {
+			int len = buf.remaining();
+			write(buf.array(), buf.arrayOffset() + buf.position(), len);
+			buf.position(buf.position() + len);
+			return;
+		}
+		if (current.method == DEFLATED && manifestOut == null && DeflaterSupport.isByteBufferInputSupported()) {
+			int pos = buf.position();
+			crc.update(buf);
+			buf.position(pos);
+			if (entryDigest != null) {
+				entryDigest.update(buf);
+				buf.position(pos);
+			}
+			Deflater def = getDeflater();
+			DeflaterSupport.setInput(def, buf);
+			while (!def.needsInput()) {
+				deflate(def);
+			}
+			//the deflater keeps a reference to the buffer, which the caller may reuse
+			def.setInput(headerBuffer, 0, 0);
+			return;
+		}
+		byte[] copybuf = copyBuffer;
+		if (copybuf == null) {
+			copybuf = new byte[1024 * 8];
+			copyBuffer = copybuf;
+		}
+		while (buf.hasRemaining()) {
+			int len = Math.min(buf.remaining(), copybuf.length);
+			buf.get(copybuf, 0, len);
+			write(copybuf, 0, len);
+		}
+	}
+
+	/**
+	 * Writes all bytes from the argument channel as the data of the current entry.
+	 * <p>
+	 * If the runtime supports passing {@link ByteBuffer} input to the deflater, the channel is read into a direct
+	 * buffer.
+	 *
+	 * @see #write(ByteBuffer)
+	 */
+	public void writeFrom(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buf = channelBuffer;
+		if (buf == null) {
+			buf = isDirectInputSupported() ? ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE)
+					: ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+			channelBuffer = buf;
+		}
+		while (channel.read(buf) >= 0) {
+			buf.flip();
+			write(buf);
+			buf.clear();
+		}
+		buf.clear();
+	}
+
+	/**
+	 * Writes a STORED entry with the contents of the argument file, from its current position to the end.
+	 * <p>
+	 * If the CRC of the header is not set, it is computed by reading the file through a direct buffer. The data is
+	 * then transferred to the output channel with {@link FileChannel#transferTo(long, long, WritableByteChannel)} if
+	 * the stream was created with one. Otherwise, or if the output channel doesn't accept more bytes, it is copied
+	 * through a buffer. The contents of the file are not loaded to the Java heap as a whole in either case.
+	 * <p>
+	 * The header is not retained by the stream.
+	 *
+	 * @return The CRC-32 of the entry.
+	 * @throws ZipException
+	 *             If the size of the file changed while the entry was written.
+	 */
+	public long writeStoredEntry(ZipEntryHeader entry, FileChannel input) throws IOException {
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		long position = input.position();
+		long size = input.size() - position;
+		if (jarSignature != null && JarSignatureWriter.isManifestName(entry.getName())) {
+			long crcval = computeCrc(input, position, size);
+			putNextEntry(entry);
+			writeFrom(input);
+			closeEntry();
+			return crcval;
+		}
+		long crcval = entry.getCrc();
+		if (crcval == -1 || entryDigest != null) {
+			//the file is read to compute the digest anyway
+			crcval = computeCrc(input, position, size);
+		}
+		CentralRecord record = startRecord(entry, FLAG_UTF8, STORED);
+		record.crc = crcval;
+		record.size = size;
+		record.compressedSize = size;
+		writeLocalHeader(record);
+		long end = position + size;
+		long pos = position;
+		if (outChannel != null) {
+			out.flush();
+			while (pos < end) {
+				long c = input.transferTo(pos, end - pos, outChannel);
+				if (c <= 0) {
+					//no progress, copy the rest through a buffer, which fails if the file was truncated
+					break;
+				}
+				pos += c;
+				written += c;
+			}
+		}
+		if (pos < end) {
+			copyRange(input, pos, end, record);
+		}
+		if (input.size() != end) {
+			//the CRC and the sizes in the headers were computed for the previous size
+			throw new ZipException("File size changed while writing entry: " + record.getName());
+		}
+		digestEntry(record);
+		centralRecords.add(record);
+		return crcval;
+	}
+
+	private void copyRange(FileChannel input, long position, long end, CentralRecord record) throws IOException {
+		byte[] buf = copyBuffer;
+		if (buf == null) {
+			buf = new byte[1024 * 8];
+			copyBuffer = buf;
+		}
+		ByteBuffer wrapper = ByteBuffer.wrap(buf);
+		for (long pos = position; pos < end;) {
+			wrapper.clear();
+			if (end - pos < buf.length) {
+				wrapper.limit((int) (end - pos));
+			}
+			int r = input.read(wrapper, pos);
+			if (r <= 0) {
+				throw new ZipException("File size changed while writing entry: " + record.getName());
+			}
+			writeOut(buf, 0, r);
+			pos += r;
+		}
+	}
+
+	private long computeCrc(FileChannel input, long position, long size) throws IOException {
+		ByteBuffer buf = crcBuffer;
+		if (buf == null) {
+			buf = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+			crcBuffer = buf;
+		}
+		CRC32 filecrc = crc;
+		filecrc.reset();
+		MessageDigest digest = entryDigest;
+		if (digest != null) {
+			digest.reset();
+		}
+		for (long pos = position, end = position + size; pos < end;) {
+			buf.clear();
+			if (end - pos < buf.capacity()) {
+				buf.limit((int) (end - pos));
+			}
+			int r = input.read(buf, pos);
+			if (r < 0) {
+				throw new ZipException("Unexpected end of file at: " + pos);
+			}
+			buf.flip();
+			filecrc.update(buf);
+			if (digest != null) {
+				buf.flip();
+				digest.update(buf);
+			}
+			pos += r;
+		}
+		return filecrc.getValue();
+	}
+
+	/**
+	 * Checks if direct {@link ByteBuffer} input of deflated entries is processed without copying to the Java heap.
+	 * <p>
+	 * This is <code>true</code> when running on Java 11 or later.
+	 */
+	public static boolean isDirectInputSupported() {
+		return DeflaterSupport.isByteBufferInputSupported();
+	}
+
+	public void closeEntry() throws IOException {
+		ensureOpen();
+		if (!entryOpen) {
+			return;
+		}
+		if (manifestOut != null) {
+			manifestOut = null;
+			entryOpen = false;
+			return;
+		}
+		CentralRecord record = current;
+		if (record.method == DEFLATED) {
+			Deflater def = getDeflater();
+			def.finish();
+			while (!def.finished()) {
+				deflate(def);
+			}
+			long size = def.getBytesRead();
+			long csize = def.getBytesWritten();
+			long crcval = crc.getValue();
+			def.reset();
+			if (record.expectedSize != -1 && record.expectedSize != size) {
+				throw new ZipException("Invalid entry size (expected " + record.expectedSize + " but got " + size
+						+ " bytes): " + record.getName());
+			}
+			if (record.expectedCrc != -1 && record.expectedCrc != crcval) {
+				throw new ZipException("Invalid entry CRC-32 (expected 0x" + Long.toHexString(record.expectedCrc)
+						+ " but got 0x" + Long.toHexString(crcval) + "): " + record.getName());
+			}
+			record.size = size;
+			record.compressedSize = csize;
+			record.crc = crcval;
+			writeDataDescriptor(record);
+		} else {
+			long size = written - currentDataStart;
+			if (size != record.size) {
+				throw new ZipException("Invalid entry size (expected " + record.size + " but got " + size
+						+ " bytes): " + record.getName());
+			}
+			if (crc.getValue() != record.crc) {
+				throw new ZipException("Invalid entry CRC-32 (expected 0x" + Long.toHexString(record.crc)
+						+ " but got 0x" + Long.toHexString(crc.getValue()) + "): " + record.getName());
+			}
+		}
+		digestEntry(record);
+		centralRecords.add(record);
+		entryOpen = false;
+	}
+
+	private void digestEntry(CentralRecord record) {
+		if (entryDigest != null) {
+			jarSignature.addEntryDigest(record.getName(), entryDigest.digest());
+		}
+	}
+
+	/**
+	 * Finishes writing the archive by writing the central directory without closing the underlying stream.
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		ensureOpen();
+		if (entryOpen) {
+			closeEntry();
+		}
+		JarSignatureWriter signature = jarSignature;
+		if (signature != null) {
+			//the signature files are written as unsigned entries
+			jarSignature = null;
+			entryDigest = null;
+			signature.writeSignatureFiles(this);
+		}
+		long cenoffset = written;
+		CentralRecord record = current;
+		int count = centralRecords.size();
+		for (int i = 0; i < count; i++) {
+			centralRecords.get(i, record);
+			writeCentralHeader(record);
+		}
+		writeEnd(cenoffset, written - cenoffset, count);
+		finished = true;
+		if (deflater != null) {
+			deflater.end();
+			deflater = null;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		try {
+			finish();
+		} finally {
+			closed = true;
+			out.close();
+		}
+	}
+
+	/**
+	 * Gets the manifest of the entries that were written to the archive.
+	 * <p>
+	 * Only the closed entries are included.
+	 */
+	public CompactZipArchiveManifest getManifest() {
+		CompactZipArchiveManifest.Builder builder = CompactZipArchiveManifest.builder();
+		CentralRecord record = new CentralRecord();
+		int count = centralRecords.size();
+		for (int i = 0; i < count; i++) {
+			centralRecords.get(i, record);
+			builder.add(record.name, record.nameOffset, record.nameLength, record.method, record.crc, record.size,
+					record.compressedSize, record.offset);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Gets the number of closed entries in the archive.
+	 * <p>
+	 * The next written entry will have this index.
+	 */
+	public int getEntryCount() {
+		return centralRecords.size();
+	}
+
+	/**
+	 * Gets the number of bytes written to the underlying stream so far.
+	 */
+	public long getWrittenByteCount() {
+		return written;
+	}
+
+	private ZipEntryHeader toHeader(ZipEntry entry) {
+		ZipEntryHeader header = entryHeader;
+		if (header == null) {
+			header = new ZipEntryHeader();
+			entryHeader = header;
+		}
+		header.set(entry);
+		return header;
+	}
+
+	private CentralRecord startRecord(ZipEntryHeader entry, int flag, int method) throws ZipException {
+		int namelen = entry.getNameLength();
+		if (namelen > 0xFFFF) {
+			throw new ZipException("Entry name too long: " + entry.getName());
+		}
+		long millis = entry.getModificationMillis();
+		if (millis == -1) {
+			millis = System.currentTimeMillis();
+		}
+		long unixtime = Math.floorDiv(millis, 1000);
+		if (unixtime < Integer.MIN_VALUE || unixtime > Integer.MAX_VALUE) {
+			//doesn't fit in the extended timestamp
+			unixtime = Long.MIN_VALUE;
+		}
+		CentralRecord record = current;
+		//copy the name, as the header may be reused before the entry is closed
+		byte[] namebuf = currentName;
+		if (namebuf.length < namelen) {
+			namebuf = new byte[Math.max(namelen, namebuf.length * 2)];
+			currentName = namebuf;
+		}
+		System.arraycopy(entry.getNameBytes(), 0, namebuf, 0, namelen);
+		record.name = namebuf;
+		record.nameOffset = 0;
+		record.nameLength = namelen;
+		record.flag = flag;
+		record.method = method;
+		record.dosTime = toDosTime(millis);
+		record.unixModificationTime = unixtime;
+		record.offset = written;
+		record.alignment = entry.getAlignment();
+		return record;
+	}
+
+	private void writeLocalHeader(CentralRecord record) throws IOException {
+		byte[] buf = headerBuffer;
+		boolean hasexttime = record.unixModificationTime != Long.MIN_VALUE;
+		boolean datadescr = (record.flag & FLAG_DATADESCR) != 0;
+		boolean zip64 = zip64Mode == Zip64Mode.ALWAYS;
+		int elen = hasexttime ? 9 : 0;
+		if (!zip64 && !datadescr && (record.size >= ZIP64_MAGICVAL || record.compressedSize >= ZIP64_MAGICVAL)) {
+			checkZip64Allowed(record, "entry size");
+			zip64 = true;
+		}
+		if (zip64) {
+			elen += 20;
+		}
+		record.localZip64 = zip64;
+		int padding = -1;
+		int alignment = record.alignment;
+		if (alignment > 1 && record.method == STORED && record.size > 0) {
+			//the data starts after the header, name, extra fields, and the alignment extra field header
+			long datastart = record.offset + 30 + record.nameLength + elen + 6;
+			padding = (int) ((alignment - datastart % alignment) % alignment);
+			elen += 6 + padding;
+		}
+		putInt(buf, 0, LOCSIG);
+		putShort(buf, 4, zip64 ? 45 : versionFor(record.method));
+		putShort(buf, 6, record.flag);
+		putShort(buf, 8, record.method);
+		putInt(buf, 10, record.dosTime);
+		if (datadescr) {
+			putInt(buf, 14, 0);
+			putInt(buf, 18, zip64 ? ZIP64_MAGICVAL : 0);
+			putInt(buf, 22, zip64 ? ZIP64_MAGICVAL : 0);
+		} else {
+			putInt(buf, 14, record.crc);
+			if (zip64) {
+				putInt(buf, 18, ZIP64_MAGICVAL);
+				putInt(buf, 22, ZIP64_MAGICVAL);
+			} else {
+				putInt(buf, 18, record.compressedSize);
+				putInt(buf, 22, record.size);
+			}
+		}
+		putShort(buf, 26, record.nameLength);
+		putShort(buf, 28, elen);
+		writeOut(buf, 0, 30);
+		writeOut(record.name, record.nameOffset, record.nameLength);
+		int idx = 0;
+		if (zip64) {
+			putShort(buf, 0, ZIP64_EXTID);
+			putShort(buf, 2, 16);
+			//the sizes are in the data descriptor if present
+			putLong(buf, 4, datadescr ? 0 : record.size);
+			putLong(buf, 12, datadescr ? 0 : record.compressedSize);
+			idx = 20;
+		}
+		if (hasexttime) {
+			putShort(buf, idx, EXTID_EXTT);
+			putShort(buf, idx + 2, 5);
+			buf[idx + 4] = EXTT_FLAG_LMT;
+			putInt(buf, idx + 5, record.unixModificationTime);
+			idx += 9;
+		}
+		if (padding >= 0) {
+			putShort(buf, idx, EXTID_ALIGNMENT);
+			putShort(buf, idx + 2, 2 + padding);
+			putShort(buf, idx + 4, alignment);
+			idx += 6;
+		}
+		if (idx > 0) {
+			writeOut(buf, 0, idx);
+		}
+		if (padding > 0) {
+			Arrays.fill(buf, 0, Math.min(padding, buf.length), (byte) 0);
+			do {
+				int c = Math.min(padding, buf.length);
+				writeOut(buf, 0, c);
+				padding -= c;
+			} while (padding > 0);
+		}
+	}
+
+	private void writeDataDescriptor(CentralRecord record) throws IOException {
+		byte[] buf = headerBuffer;
+		putInt(buf, 0, EXTSIG);
+		putInt(buf, 4, record.crc);
+		if (record.localZip64 || record.compressedSize >= ZIP64_MAGICVAL || record.size >= ZIP64_MAGICVAL) {
+			checkZip64Allowed(record, "entry size");
+			putLong(buf, 8, record.compressedSize);
+			putLong(buf, 16, record.size);
+			writeOut(buf, 0, 24);
+		} else {
+			putInt(buf, 8, record.compressedSize);
+			putInt(buf, 12, record.size);
+			writeOut(buf, 0, 16);
+		}
+	}
+
+	private void writeCentralHeader(CentralRecord record) throws IOException {
+		byte[] buf = headerBuffer;
+		boolean hasexttime = record.unixModificationTime != Long.MIN_VALUE;
+		int zip64len = 0;
+		long size = record.size;
+		long csize = record.compressedSize;
+		long offset = record.offset;
+		boolean always = zip64Mode == Zip64Mode.ALWAYS;
+		if (always || size >= ZIP64_MAGICVAL) {
+			zip64len += 8;
+			size = ZIP64_MAGICVAL;
+		}
+		if (always || csize >= ZIP64_MAGICVAL) {
+			zip64len += 8;
+			csize = ZIP64_MAGICVAL;
+		}
+		if (always || offset >= ZIP64_MAGICVAL) {
+			zip64len += 8;
+			offset = ZIP64_MAGICVAL;
+		}
+		if (zip64len > 0) {
+			checkZip64Allowed(record, "entry size or offset");
+		}
+		int elen = hasexttime ? 9 : 0;
+		if (zip64len > 0) {
+			elen += zip64len + 4;
+		}
+		int version = zip64len > 0 ? 45 : versionFor(record.method);
+		putInt(buf, 0, CENSIG);
+		putShort(buf, 4, version);
+		putShort(buf, 6, version);
+		putShort(buf, 8, record.flag);
+		putShort(buf, 10, record.method);
+		putInt(buf, 12, record.dosTime);
+		putInt(buf, 16, record.crc);
+		putInt(buf, 20, csize);
+		putInt(buf, 24, size);
+		putShort(buf, 28, record.nameLength);
+		putShort(buf, 30, elen);
+		//comment length, disk number start, internal attributes
+		putShort(buf, 32, 0);
+		putShort(buf, 34, 0);
+		putShort(buf, 36, 0);
+		//external attributes
+		putInt(buf, 38, 0);
+		putInt(buf, 42, offset);
+		writeOut(buf, 0, 46);
+		writeOut(record.name, record.nameOffset, record.nameLength);
+		int idx = 0;
+		if (zip64len > 0) {
+			putShort(buf, 0, ZIP64_EXTID);
+			putShort(buf, 2, zip64len);
+			idx = 4;
+			if (size == ZIP64_MAGICVAL) {
+				putLong(buf, idx, record.size);
+				idx += 8;
+			}
+			if (csize == ZIP64_MAGICVAL) {
+				putLong(buf, idx, record.compressedSize);
+				idx += 8;
+			}
+			if (offset == ZIP64_MAGICVAL) {
+				putLong(buf, idx, record.offset);
+				idx += 8;
+			}
+		}
+		if (hasexttime) {
+			putShort(buf, idx, EXTID_EXTT);
+			putShort(buf, idx + 2, 5);
+			buf[idx + 4] = EXTT_FLAG_LMT;
+			putInt(buf, idx + 5, record.unixModificationTime);
+			idx += 9;
+		}
+		if (idx > 0) {
+			writeOut(buf, 0, idx);
+		}
+	}
+
+	private void writeEnd(long cenoffset, long cenlength, int count) throws IOException {
+		byte[] buf = headerBuffer;
+		boolean zip64 = zip64Mode == Zip64Mode.ALWAYS || cenoffset >= ZIP64_MAGICVAL || cenlength >= ZIP64_MAGICVAL
+				|| count >= ZIP64_MAGICCOUNT;
+		if (zip64) {
+			if (zip64Mode == Zip64Mode.NEVER) {
+				throw new ZipException("ZIP64 format required for the central directory with " + count
+						+ " entries at offset " + cenoffset + " with length " + cenlength);
+			}
+			long zip64endoffset = written;
+			putInt(buf, 0, ZIP64_ENDSIG);
+			//size of the zip64 end of central directory record without the leading 12 bytes
+			putLong(buf, 4, 44);
+			putShort(buf, 12, 45);
+			putShort(buf, 14, 45);
+			putInt(buf, 16, 0);
+			putInt(buf, 20, 0);
+			putLong(buf, 24, count);
+			putLong(buf, 32, count);
+			putLong(buf, 40, cenlength);
+			putLong(buf, 48, cenoffset);
+			writeOut(buf, 0, 56);
+
+			putInt(buf, 0, ZIP64_LOCSIG);
+			putInt(buf, 4, 0);
+			putLong(buf, 8, zip64endoffset);
+			putInt(buf, 16, 1);
+			writeOut(buf, 0, 20);
+		}
+		int endcount = count >= ZIP64_MAGICCOUNT ? ZIP64_MAGICCOUNT : count;
+		putInt(buf, 0, ENDSIG);
+		putShort(buf, 4, 0);
+		putShort(buf, 6, 0);
+		putShort(buf, 8, endcount);
+		putShort(buf, 10, endcount);
+		putInt(buf, 12, cenlength >= ZIP64_MAGICVAL ? ZIP64_MAGICVAL : cenlength);
+		putInt(buf, 16, cenoffset >= ZIP64_MAGICVAL ? ZIP64_MAGICVAL : cenoffset);
+		//comment length
+		putShort(buf, 20, 0);
+		writeOut(buf, 0, 22);
+	}
+
+	private void checkZip64Allowed(CentralRecord record, String reason) throws ZipException {
+		if (zip64Mode == Zip64Mode.NEVER) {
+			throw new ZipException("ZIP64 format required for " + reason + ": " + record.getName());
+		}
+	}
+
+	private Deflater getDeflater() {
+		Deflater def = deflater;
+		if (def == null) {
+			def = new Deflater(level, true);
+			deflater = def;
+		}
+		return def;
+	}
+
+	private void deflate(Deflater def) throws IOException {
+		int len = def.deflate(deflateBuffer, 0, deflateBuffer.length);
+		if (len > 0) {
+			writeOut(deflateBuffer, 0, len);
+		}
+	}
+
+	private void writeOut(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		written += len;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed.");
+		}
+		if (finished) {
+			throw new ZipException("Archive already finished.");
+		}
+	}
+
+	private long toDosTime(long millis) {
+		if (millis == cachedTimeMillis) {
+			return cachedDosTime;
+		}
+		long result = javaToDosTime(millis);
+		cachedTimeMillis = millis;
+		cachedDosTime = result;
+		return result;
+	}
+
+	static long javaToDosTime(long millis) {
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+		int year = ldt.getYear() - 1980;
+		if (year < 0) {
+			return DOSTIME_BEFORE_1980;
+		}
+		if (year > 127) {
+			//max representable value
+			return (127L << 25) | (12 << 21) | (31 << 16) | (23 << 11) | (59 << 5) | (59 >> 1);
+		}
+		return ((long) year << 25) | (ldt.getMonthValue() << 21) | (ldt.getDayOfMonth() << 16)
+				| (ldt.getHour() << 11) | (ldt.getMinute() << 5) | (ldt.getSecond() >> 1);
+	}
+
+	static int versionFor(int method) {
+		return method == DEFLATED ? 20 : 10;
+	}
+
+	static void putShort(byte[] buf, int idx, int v) {
+		buf[idx] = (byte) v;
+		buf[idx + 1] = (byte) (v >>> 8);
+	}
+
+	static void putInt(byte[] buf, int idx, long v) {
+		buf[idx] = (byte) v;
+		buf[idx + 1] = (byte) (v >>> 8);
+		buf[idx + 2] = (byte) (v >>> 16);
+		buf[idx + 3] = (byte) (v >>> 24);
+	}
+
+	static void putLong(byte[] buf, int idx, long v) {
+		putInt(buf, idx, v);
+		putInt(buf, idx + 4, v >>> 32);
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.zip.ZipException;
+
+import saker.zip.impl.archive.ZipArchiveOutputStream.CentralRecord;
+
+/**
+ * The central directory of an archive.
+ * <p>
+ * Besides the attributes of the entries in the {@linkplain #getManifest() manifest}, the central directory determines
+ * the range of the entry records in the archive. An entry record is the local header, the data and the data
+ * descriptor of the entry. The records are copied as is by
+ * {@link ZipArchiveOutputStream#writeRawRecords(ZipArchiveEntryReader, ZipCentralDirectory, int, int)}.
+ * <p>
+ * The end of an entry record is the start of the next record in the archive, or the start of the central directory.
+ * Multiple central directory records may point to the same entry record (see
+ * {@link ZipArchiveOutputStream#writeSharedEntry(ZipEntryHeader, int)}). The shared entry record is copied for each of
+ * them when the records are copied.
+ */
+public final class ZipCentralDirectory {
+	private static final int END_HEADER_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_END_HEADER_SIZE = 56;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+
+	private final ByteBuffer headers;
+	private final int[] headerPositions;
+	private final long[] localHeaderOffsets;
+	private final long[] recordEnds;
+
+	private ZipCentralDirectory(ByteBuffer headers, int[] headerPositions, long[] localHeaderOffsets,
+			long[] recordEnds) {
+		this.headers = headers;
+		this.headerPositions = headerPositions;
+		this.localHeaderOffsets = localHeaderOffsets;
+		this.recordEnds = recordEnds;
+	}
+
+	public static ZipCentralDirectory read(SeekableByteChannel channel) throws IOException {
+		long filesize = channel.size();
+		int taillen = (int) Math.min(filesize, END_HEADER_SIZE + MAX_COMMENT_LENGTH);
+		long tailoffset = filesize - taillen;
+		ByteBuffer tail = readFully(channel, tailoffset, taillen);
+
+		int endidx = -1;
+		for (int i = taillen - END_HEADER_SIZE; i >= 0; --i) {
+			if (tail.getInt(i) == (int) ZipArchiveOutputStream.ENDSIG
+					&& i + END_HEADER_SIZE + (tail.getShort(i + 20) & 0xFFFF) == taillen) {
+				endidx = i;
+				break;
+			}
+		}
+		if (endidx < 0) {
+			throw new ZipException("End of central directory record not found.");
+		}
+		long count = tail.getShort(endidx + 10) & 0xFFFF;
+		long cenlength = tail.getInt(endidx + 12) & 0xFFFFFFFFL;
+		long cenoffset = tail.getInt(endidx + 16) & 0xFFFFFFFFL;
+		long endoffset = tailoffset + endidx;
+		if (count == ZipArchiveOutputStream.ZIP64_MAGICCOUNT || cenlength == ZipArchiveOutputStream.ZIP64_MAGICVAL
+				|| cenoffset == ZipArchiveOutputStream.ZIP64_MAGICVAL) {
+			if (endoffset >= ZIP64_LOCATOR_SIZE) {
+				ByteBuffer locator = readFully(channel, endoffset - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+				if (locator.getInt(0) == (int) ZipArchiveOutputStream.ZIP64_LOCSIG) {
+					ByteBuffer zip64end = readFully(channel, locator.getLong(8), ZIP64_END_HEADER_SIZE);
+					if (zip64end.getInt(0) != (int) ZipArchiveOutputStream.ZIP64_ENDSIG) {
+						throw new ZipException("Invalid ZIP64 end of central directory record.");
+					}
+					count = zip64end.getLong(32);
+					cenlength = zip64end.getLong(40);
+					cenoffset = zip64end.getLong(48);
+				}
+			}
+		}
+		if (cenlength > Integer.MAX_VALUE || count > Integer.MAX_VALUE) {
+			throw new ZipException("Central directory too large: " + cenlength + " bytes, " + count + " entries");
+		}
+		ByteBuffer cen = readFully(channel, cenoffset, (int) cenlength);
+		int c = (int) count;
+		int[] positions = new int[c];
+		long[] offsets = new long[c];
+		CentralRecord record = new CentralRecord();
+		int idx = 0;
+		for (int i = 0; i < c; i++) {
+			if (idx + CENTRAL_HEADER_SIZE > cenlength || cen.getInt(idx) != (int) ZipArchiveOutputStream.CENSIG) {
+				throw new ZipException("Invalid central directory header at: " + (cenoffset + idx));
+			}
+			int namelen = cen.getShort(idx + 28) & 0xFFFF;
+			int extralen = cen.getShort(idx + 30) & 0xFFFF;
+			int commentlen = cen.getShort(idx + 32) & 0xFFFF;
+			int next = idx + CENTRAL_HEADER_SIZE + namelen + extralen + commentlen;
+			if (next > cenlength) {
+				throw new ZipException("Invalid central directory header at: " + (cenoffset + idx));
+			}
+			positions[i] = idx;
+			readRecord(cen, idx, record);
+			offsets[i] = record.offset;
+			idx = next;
+		}
+
+		long[] sortedoffsets = offsets.clone();
+		Arrays.sort(sortedoffsets);
+		long[] ends = new long[c];
+		for (int i = 0; i < c; i++) {
+			int nextidx = upperBound(sortedoffsets, offsets[i]);
+			ends[i] = nextidx < c ? sortedoffsets[nextidx] : cenoffset;
+		}
+		return new ZipCentralDirectory(cen, positions, offsets, ends);
+	}
+
+	public int getEntryCount() {
+		return headerPositions.length;
+	}
+
+	public long getLocalHeaderOffset(int index) {
+		return localHeaderOffsets[index];
+	}
+
+	/**
+	 * Gets the end offset of the entry record at the given index.
+	 */
+	public long getRecordEnd(int index) {
+		return recordEnds[index];
+	}
+
+	/**
+	 * Checks if the record at the given index is directly followed by the record at the next index in the archive.
+	 */
+	public boolean isContiguous(int index) {
+		int next = index + 1;
+		return next < localHeaderOffsets.length && recordEnds[index] == localHeaderOffsets[next];
+	}
+
+	public CompactZipArchiveManifest getManifest() {
+		CompactZipArchiveManifest.Builder builder = CompactZipArchiveManifest.builder();
+		CentralRecord record = new CentralRecord();
+		int count = headerPositions.length;
+		for (int i = 0; i < count; i++) {
+			getRecord(i, record);
+			builder.add(record.name, record.nameOffset, record.nameLength, record.method, record.crc, record.size,
+					record.compressedSize, record.offset);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Sets the attributes of the central directory record at the given index.
+	 * <p>
+	 * The name of the record refers to the array of the central directory.
+	 */
+	void getRecord(int index, CentralRecord record) {
+		readRecord(headers, headerPositions[index], record);
+	}
+
+	private static void readRecord(ByteBuffer cen, int idx, CentralRecord record) {
+		int namelen = cen.getShort(idx + 28) & 0xFFFF;
+		int extralen = cen.getShort(idx + 30) & 0xFFFF;
+		long csize = cen.getInt(idx + 20) & 0xFFFFFFFFL;
+		long size = cen.getInt(idx + 24) & 0xFFFFFFFFL;
+		long offset = cen.getInt(idx + 42) & 0xFFFFFFFFL;
+		int nameidx = idx + CENTRAL_HEADER_SIZE;
+		record.name = cen.array();
+		record.nameOffset = cen.arrayOffset() + nameidx;
+		record.nameLength = namelen;
+		record.flag = cen.getShort(idx + 8) & 0xFFFF;
+		record.method = cen.getShort(idx + 10) & 0xFFFF;
+		record.dosTime = cen.getInt(idx + 12) & 0xFFFFFFFFL;
+		record.crc = cen.getInt(idx + 16) & 0xFFFFFFFFL;
+		record.unixModificationTime = Long.MIN_VALUE;
+
+		int extraidx = nameidx + namelen;
+		int extraend = extraidx + extralen;
+		while (extraidx + 4 <= extraend) {
+			int tag = cen.getShort(extraidx) & 0xFFFF;
+			int len = cen.getShort(extraidx + 2) & 0xFFFF;
+			int dataidx = extraidx + 4;
+			extraidx = dataidx + len;
+			if (extraidx > extraend) {
+				break;
+			}
+			switch (tag) {
+				case ZipArchiveOutputStream.ZIP64_EXTID: {
+					if (size == ZipArchiveOutputStream.ZIP64_MAGICVAL && dataidx + 8 <= extraidx) {
+						size = cen.getLong(dataidx);
+						dataidx += 8;
+					}
+					if (csize == ZipArchiveOutputStream.ZIP64_MAGICVAL && dataidx + 8 <= extraidx) {
+						csize = cen.getLong(dataidx);
+						dataidx += 8;
+					}
+					if (offset == ZipArchiveOutputStream.ZIP64_MAGICVAL && dataidx + 8 <= extraidx) {
+						offset = cen.getLong(dataidx);
+						dataidx += 8;
+					}
+					break;
+				}
+				case ZipArchiveOutputStream.EXTID_EXTT: {
+					//only the modification time is in the central directory
+					if (len >= 5 && (cen.get(dataidx) & ZipArchiveOutputStream.EXTT_FLAG_LMT) != 0) {
+						record.unixModificationTime = cen.getInt(dataidx + 1);
+					}
+					break;
+				}
+				default: {
+					break;
+				}
+			}
+		}
+		record.size = size;
+		record.compressedSize = csize;
+		record.offset = offset;
+	}
+
+	private static int upperBound(long[] sorted, long value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static ByteBuffer readFully(SeekableByteChannel channel, long position, int length) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		channel.position(position);
+		while (buf.hasRemaining()) {
+			if (channel.read(buf) < 0) {
+				throw new EOFException("Unexpected end of archive at: " + (position + buf.position()));
+			}
+		}
+		buf.clear();
+		return buf;
+	}
+}
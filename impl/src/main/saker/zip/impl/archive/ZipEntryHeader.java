@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.path.SakerPath;
+
+/**
+ * Reusable description of an entry that is written by {@link ZipArchiveOutputStream}.
+ * <p>
+ * Unlike {@link ZipEntry}, the header keeps the name of the entry in UTF-8 encoded form in a buffer that is reused
+ * when the header is set up for the next entry. The same header object can be used to write any number of entries
+ * without allocating new objects.
+ * <p>
+ * The class is not thread safe.
+ */
+public final class ZipEntryHeader {
+	private byte[] name = new byte[256];
+	private int nameLength;
+	private int method = -1;
+	private long modificationMillis = -1;
+	private long crc = -1;
+	private long size = -1;
+	private long compressedSize = -1;
+	private int alignment;
+
+	public ZipEntryHeader() {
+	}
+
+	/**
+	 * Resets the attributes of the header except the name and modification time.
+	 */
+	public void reset() {
+		method = -1;
+		crc = -1;
+		size = -1;
+		compressedSize = -1;
+		alignment = 0;
+	}
+
+	/**
+	 * Sets the name of the entry by encoding the argument path.
+	 *
+	 * @param path
+	 *            The entry path.
+	 * @param directory
+	 *            <code>true</code> to append a trailing slash to the name.
+	 */
+	public void setName(SakerPath path, boolean directory) {
+		if (path.getRoot() != null) {
+			setName(directory ? path + "/" : path.toString());
+			return;
+		}
+		int len = 0;
+		int count = path.getNameCount();
+		for (int i = 0; i < count; i++) {
+			String n = path.getName(i);
+			ensureNameCapacity(len + 1 + n.length() * 3);
+			if (i > 0) {
+				name[len++] = '/';
+			}
+			len = encodeUtf8(n, name, len);
+		}
+		if (directory) {
+			ensureNameCapacity(len + 1);
+			name[len++] = '/';
+		}
+		this.nameLength = len;
+	}
+
+	/**
+	 * Sets the name of the entry by copying already UTF-8 encoded bytes.
+	 *
+	 * @param name
+	 *            The encoded entry name without the trailing slash.
+	 * @param directory
+	 *            <code>true</code> to append a trailing slash to the name.
+	 * @see #encodeName(SakerPath)
+	 */
+	public void setName(byte[] name, boolean directory) {
+		int len = name.length;
+		ensureNameCapacity(len + 1);
+		System.arraycopy(name, 0, this.name, 0, len);
+		if (directory) {
+			this.name[len++] = '/';
+		}
+		this.nameLength = len;
+	}
+
+	public void setName(String name) {
+		ensureNameCapacity(name.length() * 3);
+		this.nameLength = encodeUtf8(name, this.name, 0);
+	}
+
+	/**
+	 * Gets the buffer that contains the UTF-8 encoded name.
+	 * <p>
+	 * The buffer is reused when the name is set the next time.
+	 *
+	 * @see #getNameLength()
+	 */
+	public byte[] getNameBytes() {
+		return name;
+	}
+
+	public int getNameLength() {
+		return nameLength;
+	}
+
+	public String getName() {
+		return new String(name, 0, nameLength, StandardCharsets.UTF_8);
+	}
+
+	public boolean isDirectory() {
+		return nameLength > 0 && name[nameLength - 1] == '/';
+	}
+
+	/**
+	 * Sets the compression method.
+	 *
+	 * @param method
+	 *            {@link ZipEntry#STORED}, {@link ZipEntry#DEFLATED} or -1 to use the default of the archive.
+	 */
+	public void setMethod(int method) {
+		this.method = method;
+	}
+
+	public int getMethod() {
+		return method;
+	}
+
+	public void setModificationTime(FileTime time) {
+		this.modificationMillis = time == null ? -1 : time.toMillis();
+	}
+
+	/**
+	 * Sets the modification time.
+	 *
+	 * @param millis
+	 *            The milliseconds since the epoch, or -1 to use the current time.
+	 */
+	public void setModificationMillis(long millis) {
+		this.modificationMillis = millis;
+	}
+
+	public long getModificationMillis() {
+		return modificationMillis;
+	}
+
+	public void setCrc(long crc) {
+		this.crc = crc;
+	}
+
+	public long getCrc() {
+		return crc;
+	}
+
+	public void setSize(long size) {
+		this.size = size;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public void setCompressedSize(long compressedSize) {
+		this.compressedSize = compressedSize;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	/**
+	 * Sets the alignment of the data for {@link ZipEntry#STORED STORED} entries.
+	 *
+	 * @param alignment
+	 *            The alignment in bytes, or 0 to not align the data.
+	 * @see saker.zip.api.create.ZipResourceEntry#getAlignment()
+	 */
+	public void setAlignment(int alignment) {
+		this.alignment = alignment;
+	}
+
+	public int getAlignment() {
+		return alignment;
+	}
+
+	/**
+	 * Sets all attributes of this header from the argument entry.
+	 */
+	public void set(ZipEntry entry) {
+		setName(entry.getName());
+		method = entry.getMethod();
+		FileTime modtime = entry.getLastModifiedTime();
+		modificationMillis = modtime != null ? modtime.toMillis() : entry.getTime();
+		crc = entry.getCrc();
+		size = entry.getSize();
+		compressedSize = entry.getCompressedSize();
+		alignment = 0;
+	}
+
+	private void ensureNameCapacity(int cap) {
+		if (cap > name.length) {
+			name = Arrays.copyOf(name, Math.max(cap, name.length * 2));
+		}
+	}
+
+	/**
+	 * Encodes the argument path as UTF-8 the same way as {@link #setName(SakerPath, boolean)} without the trailing
+	 * slash.
+	 *
+	 * @param path
+	 *            The entry path.
+	 * @return The encoded name.
+	 */
+	public static byte[] encodeName(SakerPath path) {
+		if (path.getRoot() != null) {
+			String str = path.toString();
+			byte[] buf = new byte[str.length() * 3];
+			return Arrays.copyOf(buf, encodeUtf8(str, buf, 0));
+		}
+		int count = path.getNameCount();
+		int max = count;
+		for (int i = 0; i < count; i++) {
+			max += path.getName(i).length() * 3;
+		}
+		byte[] buf = new byte[max];
+		int len = 0;
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				buf[len++] = '/';
+			}
+			len = encodeUtf8(path.getName(i), buf, len);
+		}
+		return len == max ? buf : Arrays.copyOf(buf, len);
+	}
+
+	/**
+	 * Encodes the argument as UTF-8 the same way as {@link String#getBytes(java.nio.charset.Charset)}.
+	 * <p>
+	 * The buffer must have at least <code>s.length() * 3</code> bytes available after the offset.
+	 *
+	 * @return The end offset of the encoded bytes.
+	 */
+	public static int encodeUtf8(CharSequence s, byte[] buf, int offset) {
+		int slen = s.length();
+		int idx = offset;
+		for (int i = 0; i < slen; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				buf[idx++] = (byte) c;
+			} else if (c < 0x800) {
+				buf[idx++] = (byte) (0xC0 | (c >> 6));
+				buf[idx++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				char low;
+				if (Character.isHighSurrogate(c) && i + 1 < slen && Character.isLowSurrogate(low = s.charAt(i + 1))) {
+					int cp = Character.toCodePoint(c, low);
+					++i;
+					buf[idx++] = (byte) (0xF0 | (cp >> 18));
+					buf[idx++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+					buf[idx++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+					buf[idx++] = (byte) (0x80 | (cp & 0x3F));
+				} else {
+					//malformed, same replacement as String.getBytes
+					buf[idx++] = '?';
+				}
+			} else {
+				buf[idx++] = (byte) (0xE0 | (c >> 12));
+				buf[idx++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				buf[idx++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return idx;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[name=" + getName() + ", method=" + method + ", crc="
+				+ Long.toHexString(crc) + ", size=" + size + ", compressedSize=" + compressedSize + "]";
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+
+/**
+ * Output stream that forwards the written bytes to an underlying stream, and computes their digests with one or more
+ * algorithms.
+ */
+final class ArchiveDigestOutputStream extends OutputStream {
+	private final OutputStream out;
+	private final String[] algorithms;
+	private final MessageDigest[] digests;
+
+	public ArchiveDigestOutputStream(OutputStream out, Collection<String> algorithms) throws IOException {
+		this.out = out;
+		this.algorithms = algorithms.toArray(new String[algorithms.size()]);
+		this.digests = new MessageDigest[this.algorithms.length];
+		for (int i = 0; i < digests.length; i++) {
+			try {
+				digests[i] = MessageDigest.getInstance(this.algorithms[i]);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IOException("Digest algorithm not found: " + this.algorithms[i], e);
+			}
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		for (MessageDigest digest : digests) {
+			digest.update((byte) b);
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		for (MessageDigest digest : digests) {
+			digest.update(b, off, len);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Creates a channel that writes to the argument channel, and updates the digests of this stream with the written
+	 * bytes.
+	 * <p>
+	 * The argument channel should be the one that the underlying stream of this stream writes to. The underlying
+	 * stream must be flushed before writing to the returned channel, so the bytes are digested in the same order as
+	 * they are written.
+	 */
+	public WritableByteChannel digestChannel(WritableByteChannel channel) {
+		return new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) throws IOException {
+				ByteBuffer writtenbuf = src.duplicate();
+				int c = channel.write(src);
+				writtenbuf.limit(writtenbuf.position() + c);
+				for (MessageDigest digest : digests) {
+					digest.update(writtenbuf.duplicate());
+				}
+				return c;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return channel.isOpen();
+			}
+
+			@Override
+			public void close() throws IOException {
+				channel.close();
+			}
+		};
+	}
+
+	/**
+	 * Gets the digests of the bytes written so far, and resets the digests.
+	 * 
+	 * @return The lowercase hexadecimal digests mapped to their algorithms.
+	 */
+	public Map<String, String> getDigests() {
+		Map<String, String> result = new LinkedHashMap<>();
+		for (int i = 0; i < digests.length; i++) {
+			result.put(algorithms[i], StringUtils.toHexString(digests[i].digest()).toLowerCase(Locale.ROOT));
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the digests of the given stream.
+	 * 
+	 * @see #getDigests()
+	 */
+	public static Map<String, String> digest(InputStream is, Collection<String> algorithms) throws IOException {
+		ArchiveDigestOutputStream digestos = new ArchiveDigestOutputStream(StreamUtils.nullOutputStream(),
+				algorithms);
+		StreamUtils.copyStream(is, digestos);
+		return digestos.getDigests();
+	}
+}
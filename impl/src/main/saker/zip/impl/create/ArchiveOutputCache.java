@@ -0,0 +1,451 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import saker.build.thirdparty.saker.util.io.IOUtils;
+
+/**
+ * Local directory that stores previously created archives keyed by their content descriptors.
+ * <p>
+ * The archives are stored in files named by the content digest of the archive. When an archive with the same digest
+ * is created again, it can be restored from the cache instead of writing it again.
+ * <p>
+ * The cache directory is trimmed to the maximum size by removing the least recently used archives. The use of an
+ * archive is recorded by updating the last modification time of an empty file next to it. The archive file itself is
+ * not modified, as it may be hard linked to the restored outputs.
+ * <p>
+ * The total size of the cache is counted when the first archive is stored, and the sizes of the stored archives are
+ * added to it afterwards. The directory is only listed again when the counted size exceeds the maximum.
+ * <p>
+ * Multiple processes may use the same cache directory concurrently. The archives stored by the other processes are
+ * only counted when the directory is listed.
+ */
+public final class ArchiveOutputCache {
+	private static final String ARCHIVE_EXTENSION = ".zip";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final String USED_EXTENSION = ".used";
+
+	/**
+	 * Temporary files older than this are considered to be abandoned.
+	 */
+	private static final long STALE_TEMP_FILE_MILLIS = 24 * 60 * 60 * 1000;
+
+	private final Path directory;
+	private final long maxSize;
+	private final boolean hardLink;
+
+	/**
+	 * The size of the cached archives, or -1 if the directory hasn't been listed yet.
+	 */
+	private long cacheSize = -1;
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param directory
+	 *            The cache directory.
+	 * @param maxSize
+	 *            The maximum total size of the cached archives in bytes.
+	 * @param hardLink
+	 *            <code>true</code> to restore the archives as hard links to the cached files when possible.
+	 */
+	public ArchiveOutputCache(Path directory, long maxSize, boolean hardLink) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		this.hardLink = hardLink;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public boolean isHardLink() {
+		return hardLink;
+	}
+
+	/**
+	 * Gets the cached archive file for the given key.
+	 * <p>
+	 * The archive is marked as used if found.
+	 *
+	 * @return The path to the archive or <code>null</code> if not found.
+	 */
+	public Path getArchive(String key) {
+		Path path = directory.resolve(key + ARCHIVE_EXTENSION);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		markUsed(key);
+		return path;
+	}
+
+	/**
+	 * Copies the cached archive with the given key to the output.
+	 *
+	 * @return <code>true</code> if the archive was found and copied.
+	 */
+	public boolean restore(String key, OutputStream os) throws IOException {
+		Path path = getArchive(key);
+		if (path == null) {
+			return false;
+		}
+		try {
+			Files.copy(path, os);
+		} catch (NoSuchFileException e) {
+			//removed concurrently, nothing was written to the output yet
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Opens an output stream that writes to the argument stream, and stores the written bytes in the cache.
+	 * <p>
+	 * The archive is only added to the cache if {@link StoringOutputStream#commit()} is called before closing the
+	 * returned stream. Failures of writing to the cache are not propagated to the caller.
+	 */
+	public StoringOutputStream store(String key, OutputStream os) {
+		OutputStream cacheout;
+		Path temppath = directory
+				.resolve(key + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_EXTENSION);
+		try {
+			Files.createDirectories(directory);
+			cacheout = new BufferedOutputStream(Files.newOutputStream(temppath), 64 * 1024);
+		} catch (IOException e) {
+			cacheout = null;
+		}
+		return new StoringOutputStream(key, os, temppath, cacheout);
+	}
+
+	/**
+	 * Adds the given archive file to the cache as a hard link.
+	 * <p>
+	 * The file is copied if hard links are not supported. The archive file must not be modified in place after this
+	 * call, as that would modify the cached archive as well.
+	 * <p>
+	 * Failures of writing to the cache are not propagated to the caller.
+	 */
+	public void store(String key, Path archive) {
+		Path temppath = directory
+				.resolve(key + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_EXTENSION);
+		long size;
+		try {
+			Files.createDirectories(directory);
+			try {
+				Files.createLink(temppath, archive);
+			} catch (IOException | UnsupportedOperationException e) {
+				deleteQuietly(temppath);
+				Files.copy(archive, temppath);
+			}
+			size = Files.size(temppath);
+		} catch (IOException e) {
+			deleteQuietly(temppath);
+			return;
+		}
+		addTempFile(key, temppath, size);
+	}
+
+	private void addTempFile(String key, Path temppath, long size) {
+		try {
+			Files.move(temppath, directory.resolve(key + ARCHIVE_EXTENSION), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			deleteQuietly(temppath);
+			return;
+		}
+		markUsed(key);
+		added(size);
+	}
+
+	private void markUsed(String key) {
+		Path usedpath = directory.resolve(key + USED_EXTENSION);
+		FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+		try {
+			Files.setLastModifiedTime(usedpath, now);
+		} catch (NoSuchFileException e) {
+			try {
+				Files.createFile(usedpath);
+			} catch (FileAlreadyExistsException e2) {
+				//created concurrently
+			} catch (IOException e2) {
+				//the archive is considered to be unused
+			}
+		} catch (IOException e) {
+			//the archive is considered to be unused
+		}
+	}
+
+	private synchronized void added(long size) {
+		if (cacheSize >= 0) {
+			cacheSize += size;
+			if (cacheSize <= maxSize) {
+				return;
+			}
+		}
+		trim();
+	}
+
+	/**
+	 * Output stream that copies the written data to a cache file.
+	 */
+	public final class StoringOutputStream extends OutputStream {
+		private final String key;
+		private final OutputStream out;
+		private final Path tempPath;
+		private OutputStream cacheOut;
+		private long cachedBytes;
+		private boolean committed;
+
+		StoringOutputStream(String key, OutputStream out, Path tempPath, OutputStream cacheOut) {
+			this.key = key;
+			this.out = out;
+			this.tempPath = tempPath;
+			this.cacheOut = cacheOut;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			if (cacheOut != null) {
+				try {
+					cacheOut.write(b);
+					++cachedBytes;
+				} catch (IOException e) {
+					abortCaching();
+				}
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			writeCache(b, off, len);
+		}
+
+		/**
+		 * Gets a channel that writes to the argument channel, and stores the written bytes in the cache.
+		 * <p>
+		 * The argument channel should be the one that the underlying stream of this stream writes to. The underlying
+		 * stream must be flushed before writing to the returned channel, so the bytes are stored in the same order as
+		 * they are written.
+		 */
+		public WritableByteChannel storingChannel(WritableByteChannel channel) {
+			return new WritableByteChannel() {
+				private byte[] copyBuffer;
+
+				@Override
+				public int write(ByteBuffer src) throws IOException {
+					ByteBuffer writtenbuf = src.duplicate();
+					int c = channel.write(src);
+					if (writtenbuf.hasArray()) {
+						writeCache(writtenbuf.array(), writtenbuf.arrayOffset() + writtenbuf.position(), c);
+						return c;
+					}
+					byte[] buf = copyBuffer;
+					if (buf == null) {
+						buf = new byte[1024 * 8];
+						copyBuffer = buf;
+					}
+					for (int remaining = c; remaining > 0;) {
+						int len = Math.min(remaining, buf.length);
+						writtenbuf.get(buf, 0, len);
+						writeCache(buf, 0, len);
+						remaining -= len;
+					}
+					return c;
+				}
+
+				@Override
+				public boolean isOpen() {
+					return channel.isOpen();
+				}
+
+				@Override
+				public void close() throws IOException {
+					channel.close();
+				}
+			};
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		/**
+		 * Marks the written archive as complete.
+		 */
+		public void commit() {
+			this.committed = true;
+		}
+
+		/**
+		 * Closes the cache file, and adds it to the cache if the stream was committed. The underlying output stream is
+		 * not closed.
+		 */
+		@Override
+		public void close() throws IOException {
+			OutputStream cacheout = cacheOut;
+			if (cacheout == null) {
+				return;
+			}
+			cacheOut = null;
+			try {
+				cacheout.close();
+			} catch (IOException e) {
+				committed = false;
+			}
+			if (!committed) {
+				deleteQuietly(tempPath);
+				return;
+			}
+			addTempFile(key, tempPath, cachedBytes);
+		}
+
+		private void writeCache(byte[] b, int off, int len) {
+			if (cacheOut != null) {
+				try {
+					cacheOut.write(b, off, len);
+					cachedBytes += len;
+				} catch (IOException e) {
+					abortCaching();
+				}
+			}
+		}
+
+		private void abortCaching() {
+			OutputStream cacheout = cacheOut;
+			cacheOut = null;
+			IOUtils.closePrint(cacheout);
+			deleteQuietly(tempPath);
+		}
+	}
+
+	private static final class CachedFile {
+		protected final String key;
+		protected final long size;
+		/**
+		 * The last modification time of the used marker file, or of the archive if there's no marker.
+		 */
+		protected long lastUsed;
+
+		public CachedFile(String key, long size, long lastUsed) {
+			this.key = key;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+
+	/**
+	 * Lists the cache directory, and removes the least recently used archives until the cache fits in the maximum
+	 * size.
+	 */
+	public synchronized void trim() {
+		List<CachedFile> files = new ArrayList<>();
+		Map<String, Long> usedtimes = new HashMap<>();
+		long totalsize = 0;
+		long now = System.currentTimeMillis();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(directory)) {
+			for (Path p : ds) {
+				String fname = p.getFileName().toString();
+				BasicFileAttributes attrs;
+				try {
+					attrs = Files.readAttributes(p, BasicFileAttributes.class);
+				} catch (IOException e) {
+					continue;
+				}
+				long lastmodified = attrs.lastModifiedTime().toMillis();
+				if (fname.endsWith(TEMP_EXTENSION)) {
+					if (now - lastmodified > STALE_TEMP_FILE_MILLIS) {
+						deleteQuietly(p);
+					}
+					continue;
+				}
+				if (fname.endsWith(USED_EXTENSION)) {
+					usedtimes.put(fname.substring(0, fname.length() - USED_EXTENSION.length()), lastmodified);
+					continue;
+				}
+				if (!fname.endsWith(ARCHIVE_EXTENSION) || !attrs.isRegularFile()) {
+					continue;
+				}
+				files.add(new CachedFile(fname.substring(0, fname.length() - ARCHIVE_EXTENSION.length()),
+						attrs.size(), lastmodified));
+				totalsize += attrs.size();
+			}
+		} catch (IOException e) {
+			return;
+		}
+		for (CachedFile f : files) {
+			Long used = usedtimes.remove(f.key);
+			if (used != null) {
+				f.lastUsed = used;
+			}
+		}
+		for (String orphan : usedtimes.keySet()) {
+			deleteQuietly(directory.resolve(orphan + USED_EXTENSION));
+		}
+		if (totalsize > maxSize) {
+			files.sort((l, r) -> Long.compare(l.lastUsed, r.lastUsed));
+			for (CachedFile f : files) {
+				if (totalsize <= maxSize) {
+					break;
+				}
+				if (deleteQuietly(directory.resolve(f.key + ARCHIVE_EXTENSION))) {
+					deleteQuietly(directory.resolve(f.key + USED_EXTENSION));
+					totalsize -= f.size;
+				}
+			}
+		}
+		cacheSize = totalsize;
+	}
+
+	private static boolean deleteQuietly(Path path) {
+		try {
+			return Files.deleteIfExists(path);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[directory=" + directory + ", maxSize=" + maxSize + ", hardLink="
+				+ hardLink + "]";
+	}
+}
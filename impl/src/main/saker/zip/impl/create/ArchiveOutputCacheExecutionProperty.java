@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.ExecutionProperty;
+
+/**
+ * Execution property that provides the {@link ArchiveOutputCache} used by the zip creation tasks.
+ * <p>
+ * The cache is disabled by default, and can be enabled by setting the {@value #PARAMETER_CACHE_DIRECTORY} user
+ * parameter to a local directory path. The maximum size of the cache can be set by the {@value #PARAMETER_CACHE_SIZE}
+ * user parameter in bytes. The {@value #PARAMETER_CACHE_HARD_LINK} user parameter can be set to <code>true</code> to
+ * restore archives as hard links to the cached files. In that case the outputs must not be modified in place.
+ * <p>
+ * The property value is <code>null</code> if the cache is disabled.
+ * <p>
+ * The property shouldn't be reported as a dependency, as the cache doesn't affect the created archives.
+ */
+public final class ArchiveOutputCacheExecutionProperty implements ExecutionProperty<ArchiveOutputCache>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	public static final String PARAMETER_CACHE_DIRECTORY = "saker.zip.create.archive.cache.dir";
+	public static final String PARAMETER_CACHE_SIZE = "saker.zip.create.archive.cache.size";
+	public static final String PARAMETER_CACHE_HARD_LINK = "saker.zip.create.archive.cache.hardlink";
+
+	private static final long DEFAULT_MAX_CACHE_SIZE = 1024L * 1024 * 1024;
+
+	public static final ArchiveOutputCacheExecutionProperty INSTANCE = new ArchiveOutputCacheExecutionProperty();
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ArchiveOutputCacheExecutionProperty() {
+	}
+
+	@Override
+	public ArchiveOutputCache getCurrentValue(ExecutionContext executioncontext) throws Exception {
+		Map<String, String> userparams = executioncontext.getUserParameters();
+		if (userparams == null) {
+			return null;
+		}
+		String dir = userparams.get(PARAMETER_CACHE_DIRECTORY);
+		if (dir == null || dir.isEmpty()) {
+			return null;
+		}
+		long size = DEFAULT_MAX_CACHE_SIZE;
+		String sizeparam = userparams.get(PARAMETER_CACHE_SIZE);
+		if (sizeparam != null) {
+			try {
+				size = Long.parseLong(sizeparam);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Invalid " + PARAMETER_CACHE_SIZE + " user parameter value: " + sizeparam, e);
+			}
+		}
+		if (size <= 0) {
+			return null;
+		}
+		boolean hardlink = Boolean.parseBoolean(userparams.get(PARAMETER_CACHE_HARD_LINK));
+		return new ArchiveOutputCache(Paths.get(dir).toAbsolutePath().normalize(), size, hardlink);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().getName().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && this.getClass() == obj.getClass();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[]";
+	}
+}
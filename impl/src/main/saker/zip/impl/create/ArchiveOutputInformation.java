@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.zip.api.create.ZipArchiveManifest;
+
+/**
+ * Information about a created archive that is kept between builds.
+ * <p>
+ * If the archive is not written again in a later build as it is up to date, the information is reused instead of
+ * reading the archive.
+ */
+public final class ArchiveOutputInformation implements Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private ContentDescriptor contentDescriptor;
+	private ZipArchiveManifest manifest;
+	private Map<String, String> digests;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ArchiveOutputInformation() {
+	}
+
+	public ArchiveOutputInformation(ContentDescriptor contentDescriptor, ZipArchiveManifest manifest,
+			Map<String, String> digests) {
+		this.contentDescriptor = contentDescriptor;
+		this.manifest = manifest;
+		this.digests = ImmutableUtils.unmodifiableMap(digests);
+	}
+
+	/**
+	 * Checks if this information describes an archive with the given contents.
+	 */
+	public boolean isSameContents(ContentDescriptor contents) {
+		return contentDescriptor != null && !contents.isChanged(contentDescriptor);
+	}
+
+	public ZipArchiveManifest getManifest() {
+		return manifest;
+	}
+
+	public Map<String, String> getDigests() {
+		return digests;
+	}
+
+	/**
+	 * Gets the digests of the archive for the given algorithms.
+	 * 
+	 * @return The digests or <code>null</code> if not all of the algorithms were used for the archive.
+	 */
+	public Map<String, String> getDigests(Collection<String> algorithms) {
+		if (digests == null) {
+			return null;
+		}
+		Map<String, String> result = new LinkedHashMap<>();
+		for (String algorithm : algorithms) {
+			String digest = digests.get(algorithm);
+			if (digest == null) {
+				return null;
+			}
+			result.put(algorithm, digest);
+		}
+		return result;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(contentDescriptor);
+		out.writeObject(manifest);
+		SerialUtils.writeExternalMap(out, digests);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		contentDescriptor = (ContentDescriptor) in.readObject();
+		manifest = (ZipArchiveManifest) in.readObject();
+		digests = SerialUtils.readExternalImmutableLinkedHashMap(in);
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[contentDescriptor=" + contentDescriptor + "]";
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.MultiPathContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.FileUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+
+/**
+ * Compact content descriptor for a large number of paths and their contents.
+ * <p>
+ * Only the number of paths and a single digest are stored. The digest is computed from the sorted paths and the
+ * digests of their serialized content descriptors, and is used for change detection and equality checks.
+ * <p>
+ * Use {@link #create(NavigableMap)} to create a new instance. It falls back to {@link MultiPathContentDescriptor} if
+ * the content descriptors of the paths can't be digested.
+ */
+public final class CompactPathContentDescriptor implements ContentDescriptor, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private int pathCount;
+	private byte[] digest;
+
+	private transient int hashCode;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public CompactPathContentDescriptor() {
+	}
+
+	private CompactPathContentDescriptor(int pathCount, byte[] digest) {
+		this.pathCount = pathCount;
+		this.digest = digest;
+		this.hashCode = Arrays.hashCode(digest);
+	}
+
+	/**
+	 * Creates a content descriptor for the given paths and contents.
+	 * 
+	 * @return The created content descriptor.
+	 */
+	public static ContentDescriptor create(NavigableMap<SakerPath, ? extends ContentDescriptor> contents) {
+		try {
+			CompactPathContentDescriptor result = createCompact(contents);
+			if (result != null) {
+				return result;
+			}
+		} catch (IOException e) {
+			//some content descriptor is not serializable
+		}
+		return new MultiPathContentDescriptor(contents);
+	}
+
+	private static CompactPathContentDescriptor createCompact(
+			NavigableMap<SakerPath, ? extends ContentDescriptor> contents) throws IOException {
+		MessageDigest hasher = FileUtils.getDefaultFileHasher();
+		MessageDigest cdhasher = FileUtils.getDefaultFileHasher();
+		int digestlen = cdhasher.getDigestLength();
+		byte[] cddigest = new byte[digestlen];
+
+		UnsyncByteArrayOutputStream pathbuffer = new UnsyncByteArrayOutputStream(256);
+		UnsyncByteArrayOutputStream cdbuffer = new UnsyncByteArrayOutputStream(256);
+		try (ObjectOutputStream cdout = new ObjectOutputStream(cdbuffer)) {
+			//don't include the stream header in the first digest
+			cdout.flush();
+			cdbuffer.reset();
+			for (Entry<SakerPath, ? extends ContentDescriptor> entry : contents.entrySet()) {
+				ContentDescriptor cd = entry.getValue();
+				if (cd.isChanged(cd)) {
+					//the content descriptor doesn't identify the contents, digest equality can't be used
+					return null;
+				}
+				//the path is length prefixed, and followed by the fixed size content digest
+				byte[] path = entry.getKey().toString().getBytes(StandardCharsets.UTF_8);
+				pathbuffer.reset();
+				writeVarInt(pathbuffer, path.length);
+				hasher.update(pathbuffer.getBuffer(), 0, pathbuffer.size());
+				hasher.update(path);
+
+				//reset, so the serialized form only depends on the content descriptor itself
+				cdout.reset();
+				cdbuffer.reset();
+				cdout.writeObject(cd);
+				cdout.flush();
+				cdhasher.update(cdbuffer.getBuffer(), 0, cdbuffer.size());
+				int written = cdhasher.digest(cddigest, 0, digestlen);
+				if (written != digestlen) {
+					throw new IOException("Unexpected digest length: " + written);
+				}
+				hasher.update(cddigest);
+			}
+		} catch (DigestException e) {
+			throw new IOException(e);
+		}
+		return new CompactPathContentDescriptor(contents.size(), hasher.digest());
+	}
+
+	public int getPathCount() {
+		return pathCount;
+	}
+
+	@Override
+	public boolean isChanged(ContentDescriptor previouscontent) {
+		if (!(previouscontent instanceof CompactPathContentDescriptor)) {
+			return true;
+		}
+		//the digest covers all paths and contents, so there's no need for comparing them one by one
+		return !Arrays.equals(digest, ((CompactPathContentDescriptor) previouscontent).digest);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(pathCount);
+		SerialUtils.writeExternalByteArray(out, digest);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		pathCount = in.readInt();
+		digest = SerialUtils.readExternalByteArray(in);
+		hashCode = Arrays.hashCode(digest);
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		CompactPathContentDescriptor other = (CompactPathContentDescriptor) obj;
+		if (pathCount != other.pathCount)
+			return false;
+		if (!Arrays.equals(digest, other.digest))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[pathCount=" + pathCount + ", digest=" + StringUtils.toHexString(digest)
+				+ "]";
+	}
+
+	private static void writeVarInt(UnsyncByteArrayOutputStream out, int value) {
+		while ((value & ~0x7F) != 0) {
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+
+/**
+ * Memory bounded cache of compressed entry payloads.
+ * <p>
+ * The cache is keyed by the identity of the uncompressed contents, and the compression method and level. A single
+ * instance is shared by the zip creation tasks during a build execution, so the same contents that are added to
+ * multiple archives are only compressed once.
+ * <p>
+ * If multiple threads request the same payload concurrently, only one of them will compress it, and the others wait
+ * for the result.
+ * <p>
+ * The class is thread safe.
+ */
+public final class CompressedEntryCache {
+	@FunctionalInterface
+	public interface ContentWriter {
+		public void writeTo(OutputStream os) throws IOException;
+	}
+
+	/**
+	 * Compressed payload of an entry.
+	 */
+	public static final class CompressedEntry {
+		protected final int method;
+		protected final long crc;
+		protected final long size;
+		protected final ByteArrayRegion data;
+
+		CompressedEntry(int method, long crc, long size, ByteArrayRegion data) {
+			this.method = method;
+			this.crc = crc;
+			this.size = size;
+			this.data = data;
+		}
+
+		public int getMethod() {
+			return method;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Gets the data of the entry as it should be written to the archive.
+		 */
+		public ByteArrayRegion getData() {
+			return data;
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "[method=" + method + ", crc=" + Long.toHexString(crc) + ", size="
+					+ size + ", compressedSize=" + data.getLength() + "]";
+		}
+	}
+
+	private static final class Key {
+		protected final Object contents;
+		protected final int method;
+		protected final int level;
+		protected final int hashCode;
+
+		public Key(Object contents, int method, int level) {
+			this.contents = contents;
+			this.method = method;
+			this.level = level;
+			this.hashCode = (contents.hashCode() * 31 + method) * 31 + level;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			if (hashCode != other.hashCode)
+				return false;
+			if (method != other.method)
+				return false;
+			if (level != other.level)
+				return false;
+			return contents.equals(other.contents);
+		}
+	}
+
+	private static final class Slot {
+		protected CompressedEntry entry;
+		protected boolean done;
+	}
+
+	private final long maxSize;
+	private final long maxEntrySize;
+
+	private static final int MAX_CRC_COUNT = 4096;
+
+	private final LinkedHashMap<Key, Slot> slots = new LinkedHashMap<>(64, 0.75f, true);
+	private long size;
+	/**
+	 * CRC-32 values of the contents which are too large to be cached.
+	 */
+	private final LinkedHashMap<Object, Long> crcs = new LinkedHashMap<>(64, 0.75f, true);
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param maxSize
+	 *            The maximum number of compressed bytes that the cache retains.
+	 */
+	public CompressedEntryCache(long maxSize) {
+		this.maxSize = maxSize;
+		//don't let a single entry take over the cache
+		this.maxEntrySize = maxSize / 16;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Gets the maximum size of a single payload that the cache retains.
+	 */
+	public long getMaxEntrySize() {
+		return maxEntrySize;
+	}
+
+	/**
+	 * Gets the previously {@linkplain #putCrc(Object, long) stored} CRC-32 of the contents.
+	 *
+	 * @return The CRC-32 or -1 if not known.
+	 */
+	public long getCrc(Object contents) {
+		if (!isCacheableContents(contents)) {
+			return -1;
+		}
+		synchronized (crcs) {
+			Long result = crcs.get(contents);
+			return result == null ? -1 : result;
+		}
+	}
+
+	/**
+	 * Stores the CRC-32 of the contents.
+	 * <p>
+	 * Used for the entries that are written without compression or caching, so the contents are only read once when
+	 * they are written again.
+	 */
+	public void putCrc(Object contents, long crc) {
+		if (!isCacheableContents(contents)) {
+			return;
+		}
+		synchronized (crcs) {
+			crcs.put(contents, crc);
+			if (crcs.size() > MAX_CRC_COUNT) {
+				Iterator<Object> it = crcs.keySet().iterator();
+				it.next();
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets the compressed payload for the given contents of unknown size.
+	 * <p>
+	 * Same as {@link #get(Object, int, int, long, ContentWriter)} with -1 size. The writer must be able to write the
+	 * contents again if the method returns <code>null</code>.
+	 */
+	public CompressedEntry get(Object contents, int method, int level, ContentWriter writer) throws IOException {
+		return get(contents, method, level, -1, writer);
+	}
+
+	/**
+	 * Gets the compressed payload for the given contents.
+	 * <p>
+	 * If the payload is not yet cached, the contents are written by the argument writer, and compressed. Contents
+	 * larger than the {@linkplain #getMaxEntrySize() maximum entry size} are not cached, so they are never buffered
+	 * in full. If the size is known to be larger, the writer isn't called. If the size is not known, the buffering is
+	 * aborted when the contents exceed the limit. If the method returns <code>null</code>, the caller should write
+	 * the entry by itself.
+	 *
+	 * @param contents
+	 *            The identity of the uncompressed contents.
+	 * @param method
+	 *            The compression method. {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+	 * @param level
+	 *            The compression level.
+	 * @param size
+	 *            The size of the uncompressed contents, or -1 if not known. If -1, the writer must be able to write
+	 *            the contents again if the method returns <code>null</code>.
+	 * @param writer
+	 *            The writer of the uncompressed contents.
+	 * @return The compressed payload or <code>null</code> if the contents can't be cached.
+	 */
+	public CompressedEntry get(Object contents, int method, int level, long size, ContentWriter writer)
+			throws IOException {
+		if (!isCacheableContents(contents)) {
+			return null;
+		}
+		if (size > maxEntrySize) {
+			return null;
+		}
+		if (method == ZipEntry.STORED) {
+			//level is irrelevant
+			level = 0;
+		} else if (method != ZipEntry.DEFLATED) {
+			return null;
+		}
+		Key key = new Key(contents, method, level);
+		Slot slot;
+		synchronized (slots) {
+			slot = slots.get(key);
+			if (slot == null) {
+				slot = new Slot();
+				slots.put(key, slot);
+			} else {
+				slot = awaitSlot(slot);
+				if (slot == null) {
+					return null;
+				}
+				return slot.entry;
+			}
+		}
+		CompressedEntry result = null;
+		try {
+			if (size < 0) {
+				long limit = maxEntrySize;
+				result = compress(method, level, os -> writer.writeTo(new SizeLimitOutputStream(os, limit)));
+			} else {
+				result = compress(method, level, writer);
+			}
+			return result;
+		} catch (SizeLimitExceededException e) {
+			//too large to be cached, the caller writes it directly
+			return null;
+		} finally {
+			synchronized (slots) {
+				if (result == null || result.data.getLength() > maxEntrySize) {
+					slots.remove(key);
+				} else {
+					slot.entry = result;
+					this.size += result.data.getLength();
+					trim();
+				}
+				slot.done = true;
+				slots.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits for the slot to be loaded. Must be called while locked on {@link #slots}.
+	 */
+	private Slot awaitSlot(Slot slot) {
+		boolean interrupted = false;
+		try {
+			while (!slot.done) {
+				try {
+					slots.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (slot.entry == null) {
+			//failed to load, or not retained
+			return null;
+		}
+		return slot;
+	}
+
+	private void trim() {
+		if (size <= maxSize) {
+			return;
+		}
+		for (Iterator<Slot> it = slots.values().iterator(); it.hasNext() && size > maxSize;) {
+			Slot s = it.next();
+			if (!s.done) {
+				//being loaded
+				continue;
+			}
+			it.remove();
+			size -= s.entry.data.getLength();
+		}
+	}
+
+	private static boolean isCacheableContents(Object contents) {
+		if (contents == null) {
+			return false;
+		}
+		if (contents instanceof ContentDescriptor) {
+			ContentDescriptor cd = (ContentDescriptor) contents;
+			//some content descriptors always report changes, they don't identify the contents
+			return !cd.isChanged(cd);
+		}
+		return true;
+	}
+
+	/**
+	 * Compresses the contents written by the argument writer without caching the result.
+	 */
+	static CompressedEntry compress(int method, int level, ContentWriter writer) throws IOException {
+		if (method == ZipEntry.STORED) {
+			UnsyncByteArrayOutputStream buffer = new UnsyncByteArrayOutputStream();
+			writer.writeTo(buffer);
+			CRC32 crc = new CRC32();
+			crc.update(buffer.getBuffer(), 0, buffer.size());
+			return new CompressedEntry(method, crc.getValue(), buffer.size(), buffer.toByteArrayRegion());
+		}
+		Deflater deflater = new Deflater(level, true);
+		try (DeflatingOutputStream out = new DeflatingOutputStream(deflater)) {
+			writer.writeTo(out);
+			out.finish();
+			return new CompressedEntry(method, out.crc.getValue(), deflater.getBytesRead(),
+					out.buffer.toByteArrayRegion());
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Thrown by {@link SizeLimitOutputStream} if the contents are larger than the limit.
+	 */
+	private static final class SizeLimitExceededException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		public SizeLimitExceededException() {
+			super("Contents size limit exceeded.");
+		}
+	}
+
+	private static final class SizeLimitOutputStream extends OutputStream {
+		private final OutputStream out;
+		private long remaining;
+
+		public SizeLimitOutputStream(OutputStream out, long limit) {
+			this.out = out;
+			this.remaining = limit;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			remaining -= len;
+			if (remaining < 0) {
+				throw new SizeLimitExceededException();
+			}
+			out.write(b, off, len);
+		}
+	}
+
+	private static final class DeflatingOutputStream extends OutputStream {
+		protected final Deflater deflater;
+		protected final CRC32 crc = new CRC32();
+		protected final UnsyncByteArrayOutputStream buffer = new UnsyncByteArrayOutputStream();
+		private final byte[] deflateBuffer = new byte[1024 * 8];
+
+		public DeflatingOutputStream(Deflater deflater) {
+			this.deflater = deflater;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return;
+			}
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+			crc.update(b, off, len);
+		}
+
+		public void finish() {
+			deflater.finish();
+			while (!deflater.finished()) {
+				deflate();
+			}
+		}
+
+		private void deflate() {
+			int len = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+			if (len > 0) {
+				buffer.write(deflateBuffer, 0, len);
+			}
+		}
+	}
+}
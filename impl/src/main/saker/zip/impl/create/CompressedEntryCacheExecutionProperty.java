@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.ExecutionProperty;
+
+/**
+ * Execution property that provides the {@link CompressedEntryCache} shared by the zip creation tasks of a build
+ * execution.
+ * <p>
+ * The maximum size of the cache can be set by the {@value #PARAMETER_CACHE_SIZE} user parameter in bytes. Setting it
+ * to 0 disables the cache. The property value is <code>null</code> if the cache is disabled.
+ * <p>
+ * The property shouldn't be reported as a dependency, as the cache is a different object in each build execution.
+ */
+public final class CompressedEntryCacheExecutionProperty
+		implements ExecutionProperty<CompressedEntryCache>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	public static final String PARAMETER_CACHE_SIZE = "saker.zip.create.compression.cache.size";
+
+	private static final long DEFAULT_MAX_CACHE_SIZE = 64 * 1024 * 1024;
+
+	public static final CompressedEntryCacheExecutionProperty INSTANCE = new CompressedEntryCacheExecutionProperty();
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public CompressedEntryCacheExecutionProperty() {
+	}
+
+	@Override
+	public CompressedEntryCache getCurrentValue(ExecutionContext executioncontext) throws Exception {
+		long size;
+		Map<String, String> userparams = executioncontext.getUserParameters();
+		String sizeparam = userparams == null ? null : userparams.get(PARAMETER_CACHE_SIZE);
+		if (sizeparam != null) {
+			try {
+				size = Long.parseLong(sizeparam);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Invalid " + PARAMETER_CACHE_SIZE + " user parameter value: " + sizeparam, e);
+			}
+		} else {
+			size = Math.min(DEFAULT_MAX_CACHE_SIZE, Runtime.getRuntime().maxMemory() / 16);
+		}
+		if (size <= 0) {
+			return null;
+		}
+		return new CompressedEntryCache(size);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().getName().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && this.getClass() == obj.getClass();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[]";
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import saker.zip.api.create.ZipDeduplication;
+import saker.zip.impl.create.CompressedEntryCache.CompressedEntry;
+
+/**
+ * Detects the file entries with identical contents while an archive is written.
+ * <p>
+ * The contents are identified by their SHA-256 digest, the compression method and level, and the data alignment of
+ * STORED entries. The first entry with given contents is compressed and written as usual, the later ones reuse its
+ * data based on the {@linkplain ZipDeduplication deduplication mode}.
+ * <p>
+ * The class is not thread safe.
+ */
+final class EntryDeduplicator {
+	/**
+	 * The maximum size of the contents that are buffered and digested for deduplication.
+	 */
+	public static final int MAX_ENTRY_SIZE = 16 * 1024 * 1024;
+	/**
+	 * The maximum total size of the compressed data that is retained for {@link ZipDeduplication#COPY}.
+	 */
+	private static final long MAX_RETAINED_SIZE = 64 * 1024 * 1024;
+
+	public static final class Key {
+		protected final byte[] digest;
+		protected final int method;
+		protected final int level;
+		/**
+		 * The shared data of an entry is only aligned for the first entry.
+		 */
+		protected final int alignment;
+
+		Key(byte[] digest, int method, int level, int alignment) {
+			this.digest = digest;
+			this.method = method;
+			this.level = level;
+			this.alignment = alignment;
+		}
+
+		@Override
+		public int hashCode() {
+			//the digest is uniformly distributed
+			int h = (digest[0] & 0xFF) | (digest[1] & 0xFF) << 8 | (digest[2] & 0xFF) << 16
+					| (digest[3] & 0xFF) << 24;
+			return ((h * 31 + method) * 31 + level) * 31 + alignment;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			if (method != other.method)
+				return false;
+			if (level != other.level)
+				return false;
+			if (alignment != other.alignment)
+				return false;
+			return Arrays.equals(digest, other.digest);
+		}
+	}
+
+	/**
+	 * A previously written entry.
+	 */
+	public static final class WrittenEntry {
+		/**
+		 * The index of the entry in the archive.
+		 */
+		protected final int index;
+		/**
+		 * The compressed data of the entry, or <code>null</code> if it is not retained.
+		 */
+		protected final CompressedEntry compressed;
+
+		WrittenEntry(int index, CompressedEntry compressed) {
+			this.index = index;
+			this.compressed = compressed;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public CompressedEntry getCompressed() {
+			return compressed;
+		}
+	}
+
+	private final ZipDeduplication mode;
+	private final MessageDigest hasher;
+	private final HashMap<Key, WrittenEntry> entries = new HashMap<>();
+	private long retainedSize;
+
+	public EntryDeduplicator(ZipDeduplication mode) {
+		this.mode = mode;
+		try {
+			this.hasher = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError("SHA-256 is not available.", e);
+		}
+	}
+
+	public Key createKey(byte[] contents, int offset, int length, int method, int level, int alignment) {
+		hasher.update(contents, offset, length);
+		return new Key(hasher.digest(), method, level, alignment);
+	}
+
+	/**
+	 * Gets the previously written entry with the same contents.
+	 *
+	 * @return The entry or <code>null</code> if not found.
+	 */
+	public WrittenEntry get(Key key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Records an entry that was written to the archive.
+	 * <p>
+	 * In {@link ZipDeduplication#COPY} mode the compressed data is retained to be copied for the later entries. If
+	 * the retained data exceeds the memory limit, the entry is not recorded.
+	 */
+	public void put(Key key, int index, CompressedEntry compressed) {
+		if (mode == ZipDeduplication.SHARED) {
+			entries.put(key, new WrittenEntry(index, null));
+			return;
+		}
+		long datalen = compressed.getData().getLength();
+		if (retainedSize + datalen > MAX_RETAINED_SIZE) {
+			return;
+		}
+		retainedSize += datalen;
+		entries.put(key, new WrittenEntry(index, compressed));
+	}
+}
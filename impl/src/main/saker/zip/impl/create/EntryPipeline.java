@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import saker.build.file.FileHandle;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.impl.create.CompressedEntryCache.CompressedEntry;
+
+/**
+ * Staged pipeline that reads and compresses the file entries of an archive in parallel, while the archive writer
+ * writes them in the original order.
+ * <p>
+ * The pipeline consists of the following stages:
+ * <ol>
+ * <li>Reader threads that load the contents of the input files.</li>
+ * <li>Compressor threads that compress the loaded contents, or get them from the {@link CompressedEntryCache}.</li>
+ * <li>The writer, which is the thread that submits the entries, and takes their results in the submission
+ * order.</li>
+ * </ol>
+ * The stages are connected by bounded queues. The writer should stop submitting new entries while
+ * {@link #isFull()} returns <code>true</code>, that is, if the number of entries in the pipeline reaches the queue
+ * capacity, or the loaded and compressed data exceeds the buffer size.
+ * <p>
+ * If an entry can't be processed by the pipeline, because it is too large, or reading it fails, the result of the
+ * entry is <code>null</code>, and the writer should write the entry by itself. This way any errors are reported the
+ * same way as without the pipeline.
+ * <p>
+ * The compressed data of the entries is the same as if they were compressed by the archive writer.
+ */
+final class EntryPipeline implements Closeable {
+	private static final int READ_CHUNK_SIZE = 16 * 1024;
+
+	private final CompressedEntryCache cache;
+	private final int queueCapacity;
+	private final long bufferSize;
+	/**
+	 * Entries larger than this are left for the writer.
+	 */
+	private final long maxEntrySize;
+
+	private final ThreadPoolExecutor readers;
+	private final ThreadPoolExecutor compressors;
+
+	private final AtomicLong bufferedBytes = new AtomicLong();
+	private int inFlight;
+
+	public EntryPipeline(EntryPipelineConfiguration configuration, CompressedEntryCache cache) {
+		this.cache = cache;
+		this.queueCapacity = configuration.getQueueCapacity();
+		this.bufferSize = configuration.getBufferSize();
+		this.maxEntrySize = Math.max(READ_CHUNK_SIZE, bufferSize / 4);
+		this.readers = createExecutor(configuration.getReaderCount(), queueCapacity, "reader");
+		this.compressors = createExecutor(configuration.getCompressorCount(), queueCapacity, "compressor");
+	}
+
+	/**
+	 * Checks if the writer should wait for the results of the already submitted entries before submitting more.
+	 */
+	public boolean isFull() {
+		return inFlight >= queueCapacity || bufferedBytes.get() >= bufferSize;
+	}
+
+	/**
+	 * Submits an entry to the pipeline.
+	 *
+	 * @param handle
+	 *            The handle to the uncompressed contents.
+	 * @param contents
+	 *            The identity of the contents for the {@link CompressedEntryCache}, or <code>null</code>.
+	 * @param method
+	 *            {@link java.util.zip.ZipEntry#DEFLATED} or {@link java.util.zip.ZipEntry#STORED}. STORED local files
+	 *            should be written by the archive writer instead, as it can transfer them directly from the file.
+	 * @param level
+	 *            The compression level.
+	 * @return The future result, that should be passed to {@link #take(CompletableFuture)}.
+	 */
+	public CompletableFuture<CompressedEntry> submit(FileHandle handle, Object contents, int method, int level) {
+		++inFlight;
+		if (cache != null && contents != null) {
+			//the cache reads the contents only if they're not cached yet
+			return CompletableFuture.supplyAsync(() -> compressCached(handle, contents, method, level), compressors);
+		}
+		return CompletableFuture.supplyAsync(() -> read(handle), readers)
+				.thenApplyAsync(data -> compress(data, method, level), compressors);
+	}
+
+	/**
+	 * Waits for the result of a submitted entry.
+	 * <p>
+	 * Must be called in the submission order for all submitted entries.
+	 *
+	 * @return The compressed entry, or <code>null</code> if the writer should write the entry by itself.
+	 */
+	public CompressedEntry take(CompletableFuture<CompressedEntry> result) throws IOException {
+		--inFlight;
+		CompressedEntry entry;
+		try {
+			entry = result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for archive entry.");
+		} catch (ExecutionException e) {
+			//the writer writes the entry, and reports the error if it happens again
+			return null;
+		}
+		if (entry != null) {
+			bufferedBytes.addAndGet(-entry.getData().getLength());
+		}
+		return entry;
+	}
+
+	@Override
+	public void close() {
+		readers.shutdownNow();
+		compressors.shutdownNow();
+	}
+
+	private CompressedEntry compressCached(FileHandle handle, Object contents, int method, int level) {
+		try {
+			if (!(handle instanceof LocalFileHandle)) {
+				//the size is not known, read it with the limit, and compress from the memory if not cached
+				ByteArrayRegion data = read(handle);
+				if (data == null) {
+					return null;
+				}
+				CompressedEntry result;
+				try {
+					result = cache.get(contents, method, level, data.getLength(),
+							os -> os.write(data.getArray(), data.getOffset(), data.getLength()));
+				} catch (Throwable e) {
+					bufferedBytes.addAndGet(-data.getLength());
+					throw e;
+				}
+				if (result == null) {
+					return compress(data, method, level);
+				}
+				bufferedBytes.addAndGet(result.getData().getLength() - data.getLength());
+				return result;
+			}
+			LocalFileHandle localhandle = (LocalFileHandle) handle;
+			long size = localhandle.size();
+			if (size > maxEntrySize) {
+				//left for the writer, which streams it
+				return null;
+			}
+			CompressedEntry result;
+			//the cache buffers the contents while compressing them
+			bufferedBytes.addAndGet(size);
+			try {
+				result = cache.get(contents, method, level, size, localhandle::writeTo);
+			} finally {
+				bufferedBytes.addAndGet(-size);
+			}
+			if (result == null) {
+				return compress(readLocal(localhandle), method, level);
+			}
+			bufferedBytes.addAndGet(result.getData().getLength());
+			return result;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the contents of the handle, or returns <code>null</code> if it is larger than the maximum entry size.
+	 */
+	private ByteArrayRegion read(FileHandle handle) {
+		if (handle instanceof LocalFileHandle) {
+			return readLocal((LocalFileHandle) handle);
+		}
+		byte[] buf = new byte[READ_CHUNK_SIZE];
+		int len = 0;
+		try (InputStream in = handle.openInputStream()) {
+			while (true) {
+				if (len == buf.length) {
+					if (len >= maxEntrySize) {
+						return null;
+					}
+					buf = Arrays.copyOf(buf, (int) Math.min(maxEntrySize + 1, buf.length * 2L));
+				}
+				int r = in.read(buf, len, buf.length - len);
+				if (r < 0) {
+					break;
+				}
+				len += r;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		bufferedBytes.addAndGet(len);
+		return ByteArrayRegion.wrap(buf, 0, len);
+	}
+
+	/**
+	 * Reads the local file if it is not larger than the maximum entry size, without reading any of it otherwise.
+	 */
+	private ByteArrayRegion readLocal(LocalFileHandle handle) {
+		try (FileChannel channel = handle.openChannel()) {
+			long size = channel.size();
+			if (size > maxEntrySize) {
+				return null;
+			}
+			ByteBuffer buf = ByteBuffer.allocate((int) size);
+			while (buf.hasRemaining()) {
+				if (channel.read(buf) < 0) {
+					//file changed, let the writer handle it
+					return null;
+				}
+			}
+			bufferedBytes.addAndGet(size);
+			return ByteArrayRegion.wrap(buf.array());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private CompressedEntry compress(ByteArrayRegion data, int method, int level) {
+		if (data == null) {
+			return null;
+		}
+		try {
+			CompressedEntry result = CompressedEntryCache.compress(method, level,
+					os -> os.write(data.getArray(), data.getOffset(), data.getLength()));
+			bufferedBytes.addAndGet(result.getData().getLength());
+			return result;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			bufferedBytes.addAndGet(-data.getLength());
+		}
+	}
+
+	private static ThreadPoolExecutor createExecutor(int threadcount, int queuecapacity, String stagename) {
+		AtomicInteger counter = new AtomicInteger();
+		ThreadFactory threadfactory = r -> {
+			Thread thread = new Thread(r, "saker.zip-pipeline-" + stagename + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		//the writer doesn't submit more than the queue capacity, so the submissions are never rejected
+		return new ThreadPoolExecutor(threadcount, threadcount, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queuecapacity), threadfactory);
+	}
+}
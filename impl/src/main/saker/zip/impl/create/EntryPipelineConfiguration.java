@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+/**
+ * Configuration of the {@link EntryPipeline} that reads and compresses the archive entries in parallel.
+ * <p>
+ * The class is immutable.
+ */
+public final class EntryPipelineConfiguration {
+	private final int readerCount;
+	private final int compressorCount;
+	private final int queueCapacity;
+	private final long bufferSize;
+
+	/**
+	 * Creates a new configuration.
+	 *
+	 * @param readerCount
+	 *            The number of threads that read the input files.
+	 * @param compressorCount
+	 *            The number of threads that compress the entries.
+	 * @param queueCapacity
+	 *            The maximum number of entries that are in the pipeline at the same time.
+	 * @param bufferSize
+	 *            The maximum number of bytes that the pipeline holds for the entries which are not yet written.
+	 * @throws IllegalArgumentException
+	 *             If any of the arguments are not positive.
+	 */
+	public EntryPipelineConfiguration(int readerCount, int compressorCount, int queueCapacity, long bufferSize)
+			throws IllegalArgumentException {
+		if (readerCount <= 0) {
+			throw new IllegalArgumentException("Invalid reader count: " + readerCount);
+		}
+		if (compressorCount <= 0) {
+			throw new IllegalArgumentException("Invalid compressor count: " + compressorCount);
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+		}
+		this.readerCount = readerCount;
+		this.compressorCount = compressorCount;
+		this.queueCapacity = queueCapacity;
+		this.bufferSize = bufferSize;
+	}
+
+	public int getReaderCount() {
+		return readerCount;
+	}
+
+	public int getCompressorCount() {
+		return compressorCount;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public long getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[readerCount=" + readerCount + ", compressorCount=" + compressorCount
+				+ ", queueCapacity=" + queueCapacity + ", bufferSize=" + bufferSize + "]";
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Map;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.ExecutionProperty;
+
+/**
+ * Execution property that provides the {@link EntryPipelineConfiguration} for the zip creation tasks.
+ * <p>
+ * The configuration can be set by the following user parameters:
+ * <ul>
+ * <li>{@value #PARAMETER_READERS}: The number of reader threads. Setting it to 0 or a negative value disables the
+ * pipeline.</li>
+ * <li>{@value #PARAMETER_COMPRESSORS}: The number of compressor threads. Setting it to 0 or a negative value disables
+ * the pipeline.</li>
+ * <li>{@value #PARAMETER_QUEUE_CAPACITY}: The maximum number of entries in the pipeline. Setting it to 0 or a negative
+ * value disables the pipeline.</li>
+ * <li>{@value #PARAMETER_BUFFER_SIZE}: The maximum number of bytes held by the pipeline. Setting it to 0 or a negative
+ * value disables the pipeline.</li>
+ * </ul>
+ * The property value is <code>null</code> if the pipeline is disabled.
+ * <p>
+ * The property shouldn't be reported as a dependency, as the configuration doesn't affect the created archives.
+ */
+public final class EntryPipelineConfigurationExecutionProperty
+		implements ExecutionProperty<EntryPipelineConfiguration>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	public static final String PARAMETER_READERS = "saker.zip.create.pipeline.readers";
+	public static final String PARAMETER_COMPRESSORS = "saker.zip.create.pipeline.compressors";
+	public static final String PARAMETER_QUEUE_CAPACITY = "saker.zip.create.pipeline.queue.capacity";
+	public static final String PARAMETER_BUFFER_SIZE = "saker.zip.create.pipeline.buffer.size";
+
+	private static final int DEFAULT_READERS = 2;
+	private static final int DEFAULT_MAX_COMPRESSORS = 4;
+	private static final int DEFAULT_QUEUE_CAPACITY = 64;
+	private static final long DEFAULT_MAX_BUFFER_SIZE = 32 * 1024 * 1024;
+
+	public static final EntryPipelineConfigurationExecutionProperty INSTANCE = new EntryPipelineConfigurationExecutionProperty();
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public EntryPipelineConfigurationExecutionProperty() {
+	}
+
+	@Override
+	public EntryPipelineConfiguration getCurrentValue(ExecutionContext executioncontext) throws Exception {
+		Map<String, String> userparams = executioncontext.getUserParameters();
+		long readers = getParameter(userparams, PARAMETER_READERS, DEFAULT_READERS);
+		long compressors = getParameter(userparams, PARAMETER_COMPRESSORS,
+				Math.max(1, Math.min(DEFAULT_MAX_COMPRESSORS, Runtime.getRuntime().availableProcessors() / 2)));
+		if (readers <= 0 || compressors <= 0) {
+			return null;
+		}
+		long queuecapacity = getParameter(userparams, PARAMETER_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+		long buffersize = getParameter(userparams, PARAMETER_BUFFER_SIZE,
+				Math.min(DEFAULT_MAX_BUFFER_SIZE, Runtime.getRuntime().maxMemory() / 32));
+		if (queuecapacity <= 0 || buffersize <= 0) {
+			return null;
+		}
+		return new EntryPipelineConfiguration((int) Math.min(readers, Integer.MAX_VALUE),
+				(int) Math.min(compressors, Integer.MAX_VALUE), (int) Math.min(queuecapacity, Integer.MAX_VALUE),
+				buffersize);
+	}
+
+	private static long getParameter(Map<String, String> userparams, String name, long defaultvalue) {
+		String param = userparams == null ? null : userparams.get(name);
+		if (param == null) {
+			return defaultvalue;
+		}
+		try {
+			return Long.parseLong(param);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + " user parameter value: " + param, e);
+		}
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().getName().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && this.getClass() == obj.getClass();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[]";
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the contents of upcoming input files ahead of the archive writer.
+ * <p>
+ * This is the Java 8 variant of the class, which doesn't prefetch anything. The multi-release JAR contains a variant
+ * for Java 21 and later that reads the inputs on virtual threads.
+ * <p>
+ * The prefetcher is only used when the entries are not written through the {@link EntryPipeline}. The prefetched
+ * inputs are still {@link LocalFileHandle} instances, so the writer can use the file for the operations that don't
+ * need the contents on the heap.
+ */
+final class InputPrefetcher implements Closeable {
+	/**
+	 * The default maximum number of bytes that are read ahead and not yet taken by the writer.
+	 */
+	static final long DEFAULT_BYTE_BUDGET = 32 * 1024 * 1024;
+
+	/**
+	 * Creates a new prefetcher.
+	 *
+	 * @param handles
+	 *            The handles in the order they are taken. <code>null</code> elements are not prefetched.
+	 * @param bytebudget
+	 *            The maximum number of bytes that are read ahead.
+	 */
+	InputPrefetcher(LocalFileHandle[] handles, long bytebudget) {
+	}
+
+	/**
+	 * Checks if the inputs are actually prefetched on this runtime.
+	 * <p>
+	 * If not, callers don't need to create prefetchers.
+	 */
+	static boolean isSupported() {
+		return false;
+	}
+
+	/**
+	 * Gets the handle to use for the input at the given index.
+	 * <p>
+	 * Must be called with increasing indexes.
+	 *
+	 * @return A handle to the prefetched contents or the argument handle if the input was not prefetched.
+	 */
+	LocalFileHandle take(int index, LocalFileHandle handle) throws IOException {
+		return handle;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -18,12 +18,16 @@ package saker.zip.impl.create;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
 import saker.build.file.FileHandle;
 import saker.build.file.path.SakerPath;
 import saker.build.file.provider.LocalFileProvider;
 import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.ByteSource;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
 
 class LocalFileHandle implements FileHandle {
 	//TODO this class should be in saker.build instead
@@ -35,6 +39,28 @@ class LocalFileHandle implements FileHandle {
 		LocalFileProvider.getInstance().writeToStream(LocalFileProvider.toRealPath(path), os);
 	}
 
+	/**
+	 * Writes the contents of the file as the data of the current entry of the argument stream through a
+	 * {@link FileChannel}.
+	 */
+	public void writeTo(ZipArchiveOutputStream zipout) throws IOException {
+		try (FileChannel channel = openChannel()) {
+			zipout.writeFrom(channel);
+		}
+	}
+
+	public SakerPath getPath() {
+		return path;
+	}
+
+	public long size() throws IOException {
+		return Files.size(LocalFileProvider.toRealPath(path));
+	}
+
+	public FileChannel openChannel() throws IOException {
+		return FileChannel.open(LocalFileProvider.toRealPath(path), StandardOpenOption.READ);
+	}
+
 	@Override
 	public ByteArrayRegion getBytes() throws IOException {
 		return LocalFileProvider.getInstance().getAllBytes(path);
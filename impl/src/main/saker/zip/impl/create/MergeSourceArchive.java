@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+
+/**
+ * An archive that is merged by a {@link MergedZipOutputSakerFile}.
+ * <p>
+ * While the merging task runs, the entries are read through the same reader. After the archive is closed, the merged
+ * file opens the archive again when it is written.
+ * <p>
+ * Archives created with {@link #MergeSourceArchive(ZipArchiveEntryReader)} have no file to open again, so they must be
+ * kept open while the merged file is written.
+ */
+public final class MergeSourceArchive implements Closeable {
+	private final Path path;
+	private volatile ZipArchiveEntryReader reader;
+
+	public MergeSourceArchive(Path path) throws IOException {
+		this.path = path;
+		this.reader = openReader(path);
+	}
+
+	public MergeSourceArchive(ZipArchiveEntryReader reader) {
+		this.path = null;
+		this.reader = reader;
+	}
+
+	/**
+	 * Gets the reader of the open archive.
+	 *
+	 * @throws IOException
+	 *             If the archive is closed.
+	 */
+	public ZipArchiveEntryReader getReader() throws IOException {
+		ZipArchiveEntryReader r = reader;
+		if (r == null) {
+			throw new IOException("Archive closed: " + path);
+		}
+		return r;
+	}
+
+	/**
+	 * Gets the reader of the archive, or opens the archive again if it is closed.
+	 *
+	 * @param reopened
+	 *            The readers that were opened again by the caller. The newly opened reader is put in it, and the
+	 *            caller is responsible for closing them.
+	 */
+	ZipArchiveEntryReader getReader(Map<MergeSourceArchive, ZipArchiveEntryReader> reopened) throws IOException {
+		ZipArchiveEntryReader r = reader;
+		if (r != null) {
+			return r;
+		}
+		r = reopened.get(this);
+		if (r == null) {
+			if (path == null) {
+				throw new IOException("Archive closed.");
+			}
+			r = openReader(path);
+			reopened.put(this, r);
+		}
+		return r;
+	}
+
+	@Override
+	public void close() throws IOException {
+		ZipArchiveEntryReader r = reader;
+		reader = null;
+		if (r != null) {
+			r.close();
+		}
+	}
+
+	private static ZipArchiveEntryReader openReader(Path path) throws IOException {
+		return new ZipArchiveEntryReader(FileChannel.open(path, StandardOpenOption.READ));
+	}
+}
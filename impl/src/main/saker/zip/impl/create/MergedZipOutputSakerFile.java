@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.SakerFileBase;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.create.ZipMergeConflictPolicy;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.api.create.ZipResourceTransformationContext;
+import saker.zip.api.create.ZipResourceTransformer;
+import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.FileChannelOutputStream;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipCentralDirectory;
+import saker.zip.impl.archive.ZipEntryHeader;
+
+/**
+ * File that writes the entries of multiple archives into a single archive.
+ * <p>
+ * The entries to write are planned when the file is created, based on the central directories of the archives. The
+ * planned entries are copied as is, without decompressing them. Only the conflicting entries that are passed to the
+ * merger transformer are decompressed.
+ * <p>
+ * The planned entries that are adjacent in their source archive are copied together, with their local headers, and
+ * only the central directory is generated for them. This makes the archives created for separate modules reusable
+ * as precompressed fragments of a larger archive.
+ * <p>
+ * If the merger transformer returns a modified resource entry for a conflicting entry, the entry is decompressed
+ * and written with the returned attributes, after the copied entries.
+ * <p>
+ * The archives are read while they're open. If they are closed, they are opened again when the file is written.
+ */
+public class MergedZipOutputSakerFile extends SakerFileBase {
+	private static final FileTime DEFAULT_ENTRY_MODIFICATION_TIME = FileTime.fromMillis(0);
+
+	protected final MergedZipContentDescriptor contentDescriptor;
+	protected final List<PlannedEntry> plannedEntries;
+	protected final List<AppendedEntry> appendedEntries;
+
+	private transient volatile ZipArchiveManifest manifest;
+
+	private MergedZipOutputSakerFile(String name, MergedZipContentDescriptor contentDescriptor,
+			List<PlannedEntry> plannedEntries, List<AppendedEntry> appendedEntries) {
+		super(name);
+		this.contentDescriptor = contentDescriptor;
+		this.plannedEntries = plannedEntries;
+		this.appendedEntries = appendedEntries;
+	}
+
+	/**
+	 * Creates a new file by planning the entries of the merged archive.
+	 *
+	 * @param archives
+	 *            The archives to merge in order. They must be open.
+	 * @param archiveContents
+	 *            The content descriptors of the archives.
+	 * @param merger
+	 *            The merger transformer for {@link ZipMergeConflictPolicy#MERGE}.
+	 * @throws IllegalArgumentException
+	 *             If there are conflicting entries with the {@link ZipMergeConflictPolicy#ERROR} policy, or the merger
+	 *             appended an entry that already exists.
+	 */
+	public static MergedZipOutputSakerFile create(String name, List<? extends MergeSourceArchive> archives,
+			List<? extends ContentDescriptor> archiveContents, ZipMergeConflictPolicy policy,
+			ZipResourceTransformerFactory merger) throws IOException, IllegalArgumentException {
+		Map<String, PlannedEntry> candidates = new LinkedHashMap<>();
+		for (MergeSourceArchive archive : archives) {
+			ZipCentralDirectory directory = archive.getReader().readCentralDirectory();
+			CompactZipArchiveManifest archivemanifest = directory.getManifest();
+			int count = archivemanifest.getEntryCount();
+			for (int i = 0; i < count; i++) {
+				ZipArchiveEntryInformation entry = archivemanifest.getEntry(i);
+				PlannedEntry planned = new PlannedEntry(archive, directory, i, entry);
+				PlannedEntry prev = candidates.putIfAbsent(entry.getName(), planned);
+				if (prev != null) {
+					prev.last.next = planned;
+					prev.last = planned;
+				}
+			}
+		}
+
+		List<PlannedEntry> plannedentries = new ArrayList<>(candidates.size());
+		List<AppendedEntry> appendedentries = new ArrayList<>();
+		Set<String> conflicts = new TreeSet<>();
+		ZipResourceTransformer transformer = null;
+		MergeTransformationContext context = null;
+		ZipEntryHeader header = new ZipEntryHeader();
+		for (PlannedEntry first : candidates.values()) {
+			if (!isConflicting(first)) {
+				plannedentries.add(first);
+				continue;
+			}
+			switch (policy) {
+				case FIRST: {
+					plannedentries.add(first);
+					break;
+				}
+				case LAST: {
+					plannedentries.add(first.last);
+					break;
+				}
+				case ERROR: {
+					conflicts.add(first.entry.getName());
+					break;
+				}
+				case MERGE: {
+					if (transformer == null) {
+						transformer = merger.createTransformer();
+						if (transformer == null) {
+							throw new NullPointerException(
+									"Zip resource transformer factory returned null: " + merger);
+						}
+						context = new MergeTransformationContext(appendedentries);
+					}
+					SakerPath path = SakerPath.valueOf(first.entry.getName());
+					PlannedEntry kept = null;
+					for (PlannedEntry c = first; c != null; c = c.next) {
+						ZipArchiveEntryReader reader = c.archive.getReader();
+						header.reset();
+						reader.readHeader(c.entry, header);
+						ZipResourceEntry resourceentry = ZipResourceEntry.create(path,
+								FileTime.fromMillis(header.getModificationMillis()));
+						ZipResourceEntry processed;
+						try (InputStream in = reader.openEntry(c.entry)) {
+							processed = transformer.process(context, resourceentry, in);
+						}
+						if (processed == null) {
+							continue;
+						}
+						if (processed.equals(resourceentry)) {
+							if (kept == null) {
+								kept = c;
+							}
+							continue;
+						}
+						//renamed or the attributes changed, can't be copied as is
+						UnsyncByteArrayOutputStream data = new UnsyncByteArrayOutputStream();
+						try (InputStream in = reader.openEntry(c.entry)) {
+							data.readFrom(in);
+						}
+						appendedentries.add(new AppendedEntry(processed, data));
+					}
+					transformer.flush(context);
+					if (kept != null) {
+						plannedentries.add(kept);
+					}
+					break;
+				}
+				default: {
+					throw new IllegalArgumentException("Unknown conflict policy: " + policy);
+				}
+			}
+		}
+		if (!conflicts.isEmpty()) {
+			throw new IllegalArgumentException("Conflicting entries in merged archives: " + conflicts);
+		}
+		if (transformer != null) {
+			transformer.end(context);
+			Set<String> names = new HashSet<>();
+			for (PlannedEntry planned : plannedentries) {
+				names.add(planned.entry.getName());
+			}
+			for (AppendedEntry appended : appendedentries) {
+				String entryname = appended.getEntryName();
+				if (!names.add(entryname)) {
+					throw new IllegalArgumentException("Duplicate zip entry: " + entryname);
+				}
+			}
+		}
+		for (PlannedEntry planned : plannedentries) {
+			//release the conflicting candidates
+			planned.next = null;
+			planned.last = null;
+		}
+
+		MergedZipContentDescriptor contentdescriptor = new MergedZipContentDescriptor(
+				ImmutableUtils.makeImmutableList(archiveContents), policy, merger);
+		return new MergedZipOutputSakerFile(name, contentdescriptor, plannedentries, appendedentries);
+	}
+
+	@Override
+	public ContentDescriptor getContentDescriptor() {
+		return contentDescriptor;
+	}
+
+	@Override
+	public void synchronizeImpl(ProviderHolderPathKey pathkey) throws IOException {
+		if (LocalFileProvider.getProviderKeyStatic().equals(pathkey.getFileProviderKey())) {
+			//write through a file channel, so the entries can be transferred to it directly
+			Path target = LocalFileProvider.toRealPath(pathkey.getPath());
+			try (FileChannelOutputStream os = FileChannelOutputStream.open(target)) {
+				writeArchive(new ZipArchiveOutputStream(os, os.getChannel()));
+			}
+			return;
+		}
+		super.synchronizeImpl(pathkey);
+	}
+
+	@Override
+	public void writeToStreamImpl(OutputStream os) throws IOException, NullPointerException {
+		writeArchive(new ZipArchiveOutputStream(os));
+	}
+
+	/**
+	 * Gets the manifest of the archive that was last written by this file.
+	 *
+	 * @return The manifest or <code>null</code> if the archive wasn't written.
+	 */
+	public ZipArchiveManifest getManifest() {
+		return manifest;
+	}
+
+	private void writeArchive(ZipArchiveOutputStream zipos) throws IOException {
+		//the readers of the archives that were closed after the file was created
+		Map<MergeSourceArchive, ZipArchiveEntryReader> reopened = new IdentityHashMap<>();
+		try {
+			writeArchive(zipos, reopened);
+		} finally {
+			IOUtils.close(reopened.values());
+		}
+	}
+
+	private void writeArchive(ZipArchiveOutputStream zipos, Map<MergeSourceArchive, ZipArchiveEntryReader> reopened)
+			throws IOException {
+		Exception exc = null;
+		try {
+			List<PlannedEntry> planned = plannedEntries;
+			int size = planned.size();
+			for (int i = 0; i < size;) {
+				PlannedEntry first = planned.get(i);
+				int end = first.index + 1;
+				//extend the run while the entries directly follow each other in the same archive
+				while (++i < size) {
+					PlannedEntry next = planned.get(i);
+					if (next.directory != first.directory || next.index != end
+							|| !first.directory.isContiguous(end - 1)) {
+						break;
+					}
+					++end;
+				}
+				zipos.writeRawRecords(first.archive.getReader(reopened), first.directory, first.index, end);
+			}
+			ZipEntryHeader header = new ZipEntryHeader();
+			for (AppendedEntry appended : appendedEntries) {
+				appended.write(zipos, header);
+			}
+		} catch (Exception e) {
+			exc = e;
+			throw e;
+		} finally {
+			try {
+				//try catch to not lose the exception happening inside the main body
+				zipos.finish();
+			} catch (IOException e) {
+				throw IOUtils.addExc(e, exc);
+			}
+		}
+		this.manifest = zipos.getManifest();
+	}
+
+	private static boolean isConflicting(PlannedEntry first) {
+		if (first.next == null) {
+			return false;
+		}
+		ZipArchiveEntryInformation entry = first.entry;
+		if (entry.getName().endsWith("/")) {
+			return false;
+		}
+		for (PlannedEntry c = first.next; c != null; c = c.next) {
+			if (c.entry.getCrc() != entry.getCrc() || c.entry.getSize() != entry.getSize()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An entry that is copied from an archive.
+	 * <p>
+	 * While planning, the entries with the same name are linked after the first one.
+	 */
+	protected static final class PlannedEntry {
+		protected final MergeSourceArchive archive;
+		protected final ZipCentralDirectory directory;
+		/**
+		 * The index of the entry in the central directory.
+		 */
+		protected final int index;
+		protected final ZipArchiveEntryInformation entry;
+		PlannedEntry next;
+		PlannedEntry last = this;
+
+		PlannedEntry(MergeSourceArchive archive, ZipCentralDirectory directory, int index,
+				ZipArchiveEntryInformation entry) {
+			this.archive = archive;
+			this.directory = directory;
+			this.index = index;
+			this.entry = entry;
+		}
+	}
+
+	/**
+	 * An entry that was appended by the merger transformer.
+	 */
+	protected static final class AppendedEntry {
+		protected final ZipResourceEntry resourceEntry;
+		protected final UnsyncByteArrayOutputStream data;
+
+		AppendedEntry(ZipResourceEntry resourceEntry, UnsyncByteArrayOutputStream data) {
+			this.resourceEntry = resourceEntry;
+			this.data = data;
+		}
+
+		String getEntryName() {
+			String path = resourceEntry.getEntryPath().toString();
+			return data == null ? path + "/" : path;
+		}
+
+		void write(ZipArchiveOutputStream zipos, ZipEntryHeader header) throws IOException {
+			FileTime modtime = resourceEntry.getModificationTime();
+			header.reset();
+			header.setName(resourceEntry.getEntryPath(), data == null);
+			header.setModificationMillis(
+					(modtime == null ? DEFAULT_ENTRY_MODIFICATION_TIME : modtime).toMillis());
+			if (data == null) {
+				header.setMethod(ZipEntry.STORED);
+				header.setCrc(0);
+				header.setSize(0);
+				zipos.putNextEntry(header);
+				zipos.closeEntry();
+				return;
+			}
+			if (resourceEntry.getMethod() == ZipEntry.STORED) {
+				CRC32 crc = new CRC32();
+				crc.update(data.getBuffer(), 0, data.size());
+				header.setMethod(ZipEntry.STORED);
+				header.setCrc(crc.getValue());
+				header.setSize(data.size());
+				header.setAlignment(resourceEntry.getAlignment());
+			} else {
+				int level = resourceEntry.getLevel();
+				zipos.setLevel(level < 0 ? Deflater.DEFAULT_COMPRESSION : level);
+				header.setMethod(ZipEntry.DEFLATED);
+			}
+			zipos.putNextEntry(header);
+			zipos.write(data.getBuffer(), 0, data.size());
+			zipos.closeEntry();
+		}
+	}
+
+	private static final class MergeTransformationContext implements ZipResourceTransformationContext {
+		private final List<AppendedEntry> appendedEntries;
+
+		public MergeTransformationContext(List<AppendedEntry> appendedEntries) {
+			this.appendedEntries = appendedEntries;
+		}
+
+		@Override
+		public void appendDirectory(SakerPath entrypath, FileTime modificationtime) throws NullPointerException {
+			appendDirectory(ZipResourceEntry.create(entrypath, modificationtime));
+		}
+
+		@Override
+		public void appendDirectory(ZipResourceEntry resourceentry) throws NullPointerException {
+			Objects.requireNonNull(resourceentry, "resource entry");
+			appendedEntries.add(new AppendedEntry(resourceentry, null));
+		}
+
+		@Override
+		public OutputStream appendFile(SakerPath entrypath, FileTime modificationtime) throws NullPointerException {
+			return appendFile(ZipResourceEntry.create(entrypath, modificationtime));
+		}
+
+		@Override
+		public OutputStream appendFile(ZipResourceEntry resourceentry) throws NullPointerException {
+			Objects.requireNonNull(resourceentry, "resource entry");
+			UnsyncByteArrayOutputStream data = new UnsyncByteArrayOutputStream();
+			appendedEntries.add(new AppendedEntry(resourceentry, data));
+			return data;
+		}
+	}
+
+	protected static class MergedZipContentDescriptor implements ContentDescriptor, Externalizable {
+		private static final long serialVersionUID = 1L;
+
+		protected List<ContentDescriptor> archiveContents;
+		protected ZipMergeConflictPolicy conflictPolicy;
+		protected ZipResourceTransformerFactory merger;
+
+		/**
+		 * For {@link Externalizable}.
+		 */
+		public MergedZipContentDescriptor() {
+		}
+
+		public MergedZipContentDescriptor(List<ContentDescriptor> archiveContents,
+				ZipMergeConflictPolicy conflictPolicy, ZipResourceTransformerFactory merger) {
+			this.archiveContents = archiveContents;
+			this.conflictPolicy = conflictPolicy;
+			this.merger = merger;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			SerialUtils.writeExternalCollection(out, archiveContents);
+			out.writeObject(conflictPolicy);
+			out.writeObject(merger);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			archiveContents = SerialUtils.readExternalImmutableList(in);
+			conflictPolicy = (ZipMergeConflictPolicy) in.readObject();
+			merger = (ZipResourceTransformerFactory) in.readObject();
+		}
+
+		@Override
+		public boolean isChanged(ContentDescriptor previouscontent) {
+			if (!(previouscontent instanceof MergedZipContentDescriptor)) {
+				return true;
+			}
+			MergedZipContentDescriptor mergecd = (MergedZipContentDescriptor) previouscontent;
+			if (conflictPolicy != mergecd.conflictPolicy) {
+				return true;
+			}
+			if (!Objects.equals(merger, mergecd.merger)) {
+				return true;
+			}
+			if (archiveContents.size() != mergecd.archiveContents.size()) {
+				return true;
+			}
+			Iterator<ContentDescriptor> it = mergecd.archiveContents.iterator();
+			for (ContentDescriptor cd : archiveContents) {
+				if (cd.isChanged(it.next())) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + ((archiveContents == null) ? 0 : archiveContents.hashCode());
+			result = prime * result + ((conflictPolicy == null) ? 0 : conflictPolicy.hashCode());
+			result = prime * result + ((merger == null) ? 0 : merger.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			MergedZipContentDescriptor other = (MergedZipContentDescriptor) obj;
+			if (archiveContents == null) {
+				if (other.archiveContents != null)
+					return false;
+			} else if (!archiveContents.equals(other.archiveContents))
+				return false;
+			if (conflictPolicy != other.conflictPolicy)
+				return false;
+			if (merger == null) {
+				if (other.merger != null)
+					return false;
+			} else if (!merger.equals(other.merger))
+				return false;
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return getClass().getSimpleName() + "[archiveContents=" + archiveContents + ", conflictPolicy="
+					+ conflictPolicy + ", merger=" + merger + "]";
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.FileUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.ZipEntryHeader;
+
+/**
+ * Merkle tree of the attributes of the resource entries in an archive.
+ * <p>
+ * The digest of a directory node is computed from the encoded attributes of the entries directly in the directory,
+ * and the names and digests of its subdirectories. The digest of the root node identifies all resource entries.
+ * <p>
+ * Only the digests of the nodes are kept, with a 64-bit change key that is computed from the attributes of the entries
+ * in the subtree without encoding them. When the tree is built based on the tree of a previous build, the nodes that
+ * have the same change key and entry count reuse the previous digests, so only the changed subtrees are encoded and
+ * hashed again.
+ */
+public final class ResourceEntriesDigestTree implements Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private static final byte TAG_ENTRY = 1;
+	private static final byte TAG_DIRECTORY = 2;
+
+	private static final long CHANGE_KEY_SEED = 0xCBF29CE484222325L;
+
+	private static final class Node {
+		protected final long changeKey;
+		protected final int entryCount;
+		protected final byte[] digest;
+
+		public Node(long changeKey, int entryCount, byte[] digest) {
+			this.changeKey = changeKey;
+			this.entryCount = entryCount;
+			this.digest = digest;
+		}
+	}
+
+	private Map<SakerPath, Node> nodes;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ResourceEntriesDigestTree() {
+	}
+
+	private ResourceEntriesDigestTree(Map<SakerPath, Node> nodes) {
+		this.nodes = nodes;
+	}
+
+	/**
+	 * Gets the digest of all the resource entries.
+	 */
+	public byte[] getRootDigest() {
+		return nodes.get(SakerPath.EMPTY).digest.clone();
+	}
+
+	/**
+	 * Builder of the tree.
+	 * <p>
+	 * The entries must be added in the order of their paths, so the entries of a directory are added after each other
+	 * with the entries of its subdirectories. The directories are completed when an entry outside of them is added.
+	 */
+	public static final class Builder {
+		private final ResourceEntriesDigestTree previous;
+		private final Map<SakerPath, Node> result = new HashMap<>();
+		/**
+		 * The directories of the last added entry, starting with the root.
+		 */
+		private final List<DirectoryBuilder> stack = new ArrayList<>();
+
+		private MessageDigest hasher;
+		private UnsyncByteArrayOutputStream contents;
+		private byte[] nameBuffer;
+
+		/**
+		 * Creates a new builder.
+		 * 
+		 * @param previous
+		 *            The tree of the previous build or <code>null</code> if not available.
+		 */
+		public Builder(ResourceEntriesDigestTree previous) {
+			this.previous = previous;
+		}
+
+		public void add(ZipResourceEntry entry) {
+			SakerPath path = entry.getEntryPath();
+			int depth = path.getNameCount() - 1;
+			if (stack.isEmpty()) {
+				stack.add(new DirectoryBuilder(SakerPath.EMPTY, null));
+			}
+			//the number of directories that are shared with the previous entry
+			int common = 0;
+			int stackdepth = stack.size() - 1;
+			while (common < depth && common < stackdepth) {
+				String name = path.getName(common);
+				String stackname = stack.get(common + 1).name;
+				if (name != stackname && !name.equals(stackname)) {
+					break;
+				}
+				++common;
+			}
+			while (stack.size() - 1 > common) {
+				completeDirectory();
+			}
+			for (int i = common; i < depth; i++) {
+				stack.add(new DirectoryBuilder(path.subPath(0, i + 1), path.getName(i)));
+			}
+			DirectoryBuilder dir = stack.get(stack.size() - 1);
+			dir.entries.add(entry);
+			dir.changeKey = mixEntry(dir.changeKey, entry);
+			++dir.entryCount;
+		}
+
+		/**
+		 * Builds the tree.
+		 * 
+		 * @return The tree or <code>null</code> if no entries were added.
+		 */
+		public ResourceEntriesDigestTree build() {
+			if (stack.isEmpty()) {
+				return null;
+			}
+			while (!stack.isEmpty()) {
+				completeDirectory();
+			}
+			return new ResourceEntriesDigestTree(result);
+		}
+
+		private void completeDirectory() {
+			DirectoryBuilder dir = stack.remove(stack.size() - 1);
+			Node prevnode = previous == null ? null : previous.nodes.get(dir.path);
+			Node node;
+			if (prevnode != null && prevnode.changeKey == dir.changeKey && prevnode.entryCount == dir.entryCount) {
+				//unchanged subtree
+				node = prevnode;
+			} else {
+				node = new Node(dir.changeKey, dir.entryCount, digest(dir));
+			}
+			result.put(dir.path, node);
+			dir.node = node;
+			if (!stack.isEmpty()) {
+				DirectoryBuilder parent = stack.get(stack.size() - 1);
+				parent.children.add(dir);
+				parent.changeKey = mix(mixName(parent.changeKey, dir.name), node.changeKey);
+				parent.entryCount += dir.entryCount;
+			}
+		}
+
+		private byte[] digest(DirectoryBuilder dir) {
+			UnsyncByteArrayOutputStream out = contents;
+			if (out == null) {
+				out = new UnsyncByteArrayOutputStream();
+				contents = out;
+				hasher = FileUtils.getDefaultFileHasher();
+			}
+			out.reset();
+			for (ZipResourceEntry entry : dir.entries) {
+				out.write(TAG_ENTRY);
+				writeName(out, entry.getEntryPath().getFileName());
+				FileTime modtime = entry.getModificationTime();
+				if (modtime == null) {
+					out.write(0);
+				} else {
+					out.write(1);
+					writeLong(out, modtime.toMillis());
+				}
+				writeInt(out, entry.getMethod());
+				writeInt(out, entry.getLevel());
+				writeInt(out, entry.getAlignment());
+			}
+			for (DirectoryBuilder child : dir.children) {
+				out.write(TAG_DIRECTORY);
+				writeName(out, child.name);
+				byte[] childdigest = child.node.digest;
+				out.write(childdigest, 0, childdigest.length);
+			}
+			hasher.update(out.getBuffer(), 0, out.size());
+			return hasher.digest();
+		}
+
+		private void writeName(UnsyncByteArrayOutputStream out, String name) {
+			int maxlen = name.length() * 3;
+			byte[] buf = nameBuffer;
+			if (buf == null || buf.length < maxlen) {
+				buf = new byte[Math.max(256, maxlen)];
+				nameBuffer = buf;
+			}
+			int len = ZipEntryHeader.encodeUtf8(name, buf, 0);
+			writeInt(out, len);
+			out.write(buf, 0, len);
+		}
+	}
+
+	private static final class DirectoryBuilder {
+		protected final SakerPath path;
+		protected final String name;
+		protected final List<ZipResourceEntry> entries = new ArrayList<>();
+		protected final List<DirectoryBuilder> children = new ArrayList<>();
+		protected long changeKey = CHANGE_KEY_SEED;
+		protected int entryCount;
+		protected Node node;
+
+		public DirectoryBuilder(SakerPath path, String name) {
+			this.path = path;
+			this.name = name;
+		}
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(nodes.size());
+		for (Map.Entry<SakerPath, Node> entry : nodes.entrySet()) {
+			Node node = entry.getValue();
+			out.writeObject(entry.getKey());
+			out.writeLong(node.changeKey);
+			out.writeInt(node.entryCount);
+			SerialUtils.writeExternalByteArray(out, node.digest);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		int size = in.readInt();
+		Map<SakerPath, Node> nodes = new HashMap<>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			SakerPath path = (SakerPath) in.readObject();
+			long changekey = in.readLong();
+			int entrycount = in.readInt();
+			byte[] digest = SerialUtils.readExternalByteArray(in);
+			nodes.put(path, new Node(changekey, entrycount, digest));
+		}
+		this.nodes = nodes;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[nodes=" + nodes.size() + "]";
+	}
+
+	private static long mixEntry(long h, ZipResourceEntry entry) {
+		h = mixName(h, entry.getEntryPath().getFileName());
+		FileTime modtime = entry.getModificationTime();
+		h = mix(h, modtime == null ? Long.MIN_VALUE : modtime.toMillis());
+		h = mix(h, entry.getMethod());
+		h = mix(h, entry.getLevel());
+		return mix(h, entry.getAlignment());
+	}
+
+	private static long mixName(long h, String name) {
+		//64-bit FNV-1a of the characters, so names with the same String hash code differ
+		long nh = CHANGE_KEY_SEED;
+		int len = name.length();
+		for (int i = 0; i < len; i++) {
+			nh = (nh ^ name.charAt(i)) * 0x100000001B3L;
+		}
+		return mix(mix(h, len), nh);
+	}
+
+	private static long mix(long h, long v) {
+		h = (h ^ v) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	private static void writeInt(UnsyncByteArrayOutputStream out, int v) {
+		out.write(v >>> 24);
+		out.write(v >>> 16);
+		out.write(v >>> 8);
+		out.write(v);
+	}
+
+	private static void writeLong(UnsyncByteArrayOutputStream out, long v) {
+		writeInt(out, (int) (v >>> 32));
+		writeInt(out, (int) v);
+	}
+}
@@ -19,13 +19,34 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
 
 import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.zip.api.create.ZipArchiveManifest;
 import saker.zip.api.create.ZipCreatorTaskOutput;
 
+/**
+ * The output of the archive creation tasks.
+ * <p>
+ * The manifest of the archive is not serialized with the output, as it is recorded by the task that created the
+ * archive. After the output is deserialized, the manifest is read from the central directory of the archive when it is
+ * first requested.
+ */
 public class SimpleZipCreatorTaskOutput implements ZipCreatorTaskOutput, Externalizable {
 	private static final long serialVersionUID = 1L;
 	private SakerPath path;
+	private Map<String, String> digests;
+	/**
+	 * The local file system path of the archive, or <code>null</code> if it is not on the local file system.
+	 */
+	private String localPath;
+
+	private transient volatile ZipArchiveManifest manifest;
 
 	/**
 	 * For {@link Externalizable}.
@@ -37,19 +58,56 @@ public class SimpleZipCreatorTaskOutput implements ZipCreatorTaskOutput, Externa
 		this.path = path;
 	}
 
+	public SimpleZipCreatorTaskOutput(SakerPath path, ZipArchiveManifest manifest, Map<String, String> digests,
+			Path localPath) {
+		this.path = path;
+		this.manifest = manifest;
+		this.digests = ImmutableUtils.unmodifiableMap(digests);
+		this.localPath = localPath == null ? null : localPath.toString();
+	}
+
 	@Override
 	public SakerPath getPath() {
 		return path;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The manifest is <code>null</code> if it needs to be read, but the archive is not on the local file system or
+	 * cannot be read.
+	 */
+	@Override
+	public ZipArchiveManifest getManifest() {
+		ZipArchiveManifest result = manifest;
+		if (result == null && localPath != null) {
+			try {
+				result = ZipCreateWorkerTaskFactory.readManifest(Paths.get(localPath));
+			} catch (IOException e) {
+				return null;
+			}
+			manifest = result;
+		}
+		return result;
+	}
+
+	@Override
+	public Map<String, String> getDigests() {
+		return digests == null ? Collections.emptyMap() : digests;
+	}
+
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
 		out.writeObject(path);
+		SerialUtils.writeExternalMap(out, digests);
+		out.writeObject(localPath);
 	}
 
 	@Override
 	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 		path = (SakerPath) in.readObject();
+		digests = SerialUtils.readExternalImmutableLinkedHashMap(in);
+		localPath = (String) in.readObject();
 	}
 
 	@Override
@@ -15,26 +15,45 @@
  */
 package saker.zip.impl.create;
 
+import java.io.ByteArrayInputStream;
 import java.io.Externalizable;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import saker.build.file.ByteArraySakerFile;
 import saker.build.file.FileHandle;
 import saker.build.file.SakerDirectory;
 import saker.build.file.SakerFile;
 import saker.build.file.content.ContentDescriptor;
 import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.path.ProviderHolderPathKey;
 import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
 import saker.build.runtime.execution.ExecutionContext;
 import saker.build.runtime.execution.SakerLog;
 import saker.build.task.CommonTaskContentDescriptors;
@@ -44,17 +63,25 @@ import saker.build.task.TaskExecutionUtilities;
 import saker.build.task.TaskFactory;
 import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
 import saker.std.api.file.location.ExecutionFileLocation;
+import saker.std.api.file.location.FileLocation;
 import saker.std.api.file.location.FileLocationVisitor;
 import saker.std.api.file.location.LocalFileLocation;
 import saker.std.api.util.SakerStandardUtils;
 import saker.build.thirdparty.saker.util.ImmutableUtils;
 import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.ByteSource;
 import saker.build.thirdparty.saker.util.io.FileUtils;
 import saker.build.thirdparty.saker.util.io.SerialUtils;
 import saker.build.trace.BuildTrace;
 import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.Zip64Mode;
+import saker.zip.api.create.ZipArchiveManifest;
 import saker.zip.api.create.ZipCreatorTaskOutput;
+import saker.zip.api.create.ZipDeduplication;
 import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.impl.archive.JarSignatureWriter;
+import saker.zip.impl.archive.ZipArchiveManifestReader;
 import saker.zip.impl.create.options.MultiIncludeResourceMapping;
 import saker.zip.impl.create.options.ZipIncludeArchiveOption;
 import saker.zip.impl.create.options.ZipResourceOption;
@@ -63,11 +90,23 @@ public class ZipCreateWorkerTaskFactory
 		implements TaskFactory<ZipCreatorTaskOutput>, Task<ZipCreatorTaskOutput>, Externalizable {
 	private static final long serialVersionUID = 1L;
 
+	private static final String TASK_OUTPUT_TAG_DIGEST_TREE = "saker.zip.create.resource-entries-digest-tree";
+	static final String TASK_OUTPUT_TAG_ARCHIVE_INFORMATION = "saker.zip.create.archive-information";
+
 	protected SakerPath outputPath;
 	protected Date modificationTime;
 	protected Set<ZipResourceOption> resourceOptions;
 	protected Set<ZipIncludeArchiveOption> includeOptions;
 	protected List<ZipResourceTransformerFactory> resourceTransformers;
+	protected Set<String> digestAlgorithms;
+	protected boolean writeDigestFiles;
+	protected FileLocation entryOrder;
+	protected FileLocation signingKeystore;
+	protected String signingAlias;
+	protected String signingStorePasswordParameter;
+	protected String signingKeyPasswordParameter;
+	protected ZipDeduplication deduplication;
+	protected Zip64Mode zip64Mode;
 
 	/**
 	 * For {@link Externalizable}.
@@ -99,6 +138,34 @@ public class ZipCreateWorkerTaskFactory
 		this.resourceTransformers = ImmutableUtils.makeImmutableList(resourceTransformers);
 	}
 
+	public void setDigestAlgorithms(Set<String> digestAlgorithms) {
+		this.digestAlgorithms = ImmutableUtils.makeImmutableLinkedHashSet(digestAlgorithms);
+	}
+
+	public void setWriteDigestFiles(boolean writeDigestFiles) {
+		this.writeDigestFiles = writeDigestFiles;
+	}
+
+	public void setEntryOrder(FileLocation entryOrder) {
+		this.entryOrder = entryOrder;
+	}
+
+	public void setJarSigning(FileLocation keystore, String alias, String storepasswordparameter,
+			String keypasswordparameter) {
+		this.signingKeystore = keystore;
+		this.signingAlias = alias;
+		this.signingStorePasswordParameter = storepasswordparameter;
+		this.signingKeyPasswordParameter = keypasswordparameter;
+	}
+
+	public void setDeduplication(ZipDeduplication deduplication) {
+		this.deduplication = deduplication;
+	}
+
+	public void setZip64Mode(Zip64Mode zip64Mode) {
+		this.zip64Mode = zip64Mode;
+	}
+
 	@Override
 	public ZipCreatorTaskOutput run(TaskContext taskcontext) throws Exception {
 		String fn = outputPath.getFileName();
@@ -122,6 +189,16 @@ public class ZipCreateWorkerTaskFactory
 		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
 		builder.setDefaultEntryModificationTime(
 				modificationTime == null ? null : FileTime.fromMillis(modificationTime.getTime()));
+		//the caches are not reported as dependencies, as they don't affect the created archive
+		builder.setCompressedEntryCache(taskcontext.getExecutionContext()
+				.getExecutionPropertyCurrentValue(CompressedEntryCacheExecutionProperty.INSTANCE));
+		builder.setArchiveOutputCache(taskcontext.getExecutionContext()
+				.getExecutionPropertyCurrentValue(ArchiveOutputCacheExecutionProperty.INSTANCE));
+		builder.setPipelineConfiguration(taskcontext.getExecutionContext()
+				.getExecutionPropertyCurrentValue(EntryPipelineConfigurationExecutionProperty.INSTANCE));
+		builder.setDigestAlgorithms(digestAlgorithms);
+		builder.setPreviousResourceEntriesDigestTree(
+				taskcontext.getPreviousTaskOutput(TASK_OUTPUT_TAG_DIGEST_TREE, ResourceEntriesDigestTree.class));
 
 		if (!ObjectUtils.isNullOrEmpty(resourceOptions)) {
 			//XXX create bulk file resolution methods in task utilities
@@ -231,19 +308,266 @@ public class ZipCreateWorkerTaskFactory
 				builder.addResourceTransformer(transformer);
 			}
 		}
+		if (entryOrder != null) {
+			ByteArrayRegion order = readInputFile(taskcontext, entryOrder, "Entry order");
+			builder.setEntryOrder(ZipEntryOrder
+					.parse(new String(order.getArray(), order.getOffset(), order.getLength(), StandardCharsets.UTF_8)));
+		}
+		if (signingKeystore != null) {
+			if (entryOrder != null) {
+				SakerLog.warning().println(
+						"The manifest of signed archives is written at the end, the entry order doesn't apply to it: "
+								+ outputPath);
+			}
+			setJarSignature(taskcontext, builder);
+		}
+		builder.setDeduplication(deduplication);
+		builder.setZip64Mode(zip64Mode);
 
-		SakerFile file = builder.build(outputPath.getFileName());
+		ZipOutputSakerFile file = builder.build(outputPath.getFileName());
 		outparentdir.add(file);
 		file.synchronize();
 		taskutils.reportOutputFileDependency(null, file);
+		taskcontext.setTaskOutput(TASK_OUTPUT_TAG_DIGEST_TREE, file.getResourceEntriesDigestTree());
 
 		SakerLog.success().verbose().println("Archive created at: " + outputPath);
 
-		SimpleZipCreatorTaskOutput result = new SimpleZipCreatorTaskOutput(file.getSakerPath());
+		SakerPath filepath = file.getSakerPath();
+		ArchiveOutputInformation outputinfo = getOutputInformation(taskcontext, file, file.getManifest(),
+				file.getDigests(), digestAlgorithms);
+		Map<String, String> digests = outputinfo.getDigests();
+		if (!ObjectUtils.isNullOrEmpty(digestAlgorithms)) {
+			if (writeDigestFiles) {
+				for (Entry<String, String> entry : digests.entrySet()) {
+					SakerFile digestfile = new ByteArraySakerFile(fn + "." + getDigestFileExtension(entry.getKey()),
+							(entry.getValue() + "  " + fn + "\n").getBytes(StandardCharsets.UTF_8));
+					outparentdir.add(digestfile);
+					digestfile.synchronize();
+					taskutils.reportOutputFileDependency(null, digestfile);
+				}
+			}
+		}
+		SimpleZipCreatorTaskOutput result = new SimpleZipCreatorTaskOutput(filepath, outputinfo.getManifest(), digests,
+				getLocalPath(taskcontext.getExecutionContext(), filepath));
 		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
 		return result;
 	}
 
+	/**
+	 * Gets the manifest and digests of the synchronized output archive, and records them for the next build.
+	 * <p>
+	 * If the archive wasn't written during synchronization, the manifest and digests of the previous build are used
+	 * if the archive contents are the same. Otherwise, the archive was restored from the archive output cache, and
+	 * the output file is read.
+	 * 
+	 * @param writtenmanifest
+	 *            The manifest that was captured when the archive was written, or <code>null</code> if it wasn't
+	 *            written.
+	 * @param writtendigests
+	 *            The digests that were computed when the archive was written, or <code>null</code> if not
+	 *            available.
+	 * @param digestalgorithms
+	 *            The digest algorithms to compute the digests with. May be <code>null</code>.
+	 */
+	static ArchiveOutputInformation getOutputInformation(TaskContext taskcontext, SakerFile file,
+			ZipArchiveManifest writtenmanifest, Map<String, String> writtendigests,
+			Collection<String> digestalgorithms) throws IOException {
+		ContentDescriptor contents = file.getContentDescriptor();
+		boolean needdigests = !ObjectUtils.isNullOrEmpty(digestalgorithms);
+		ArchiveOutputInformation previous = null;
+		if (writtenmanifest == null || (needdigests && writtendigests == null)) {
+			previous = taskcontext.getPreviousTaskOutput(TASK_OUTPUT_TAG_ARCHIVE_INFORMATION,
+					ArchiveOutputInformation.class);
+			if (previous != null && !previous.isSameContents(contents)) {
+				previous = null;
+			}
+		}
+		ZipArchiveManifest manifest = writtenmanifest;
+		if (manifest == null) {
+			if (previous != null) {
+				manifest = previous.getManifest();
+			}
+			if (manifest == null) {
+				manifest = readManifest(taskcontext.getExecutionContext(), file.getSakerPath());
+			}
+		}
+		Map<String, String> digests = Collections.emptyMap();
+		if (needdigests) {
+			digests = writtendigests;
+			if (digests == null && previous != null) {
+				digests = previous.getDigests(digestalgorithms);
+			}
+			if (digests == null) {
+				digests = digestFile(taskcontext.getExecutionContext(), file.getSakerPath(), digestalgorithms);
+			}
+		}
+		ArchiveOutputInformation result = new ArchiveOutputInformation(contents, manifest, digests);
+		taskcontext.setTaskOutput(TASK_OUTPUT_TAG_ARCHIVE_INFORMATION, result);
+		return result;
+	}
+
+	/**
+	 * Reads the manifest from the central directory of the archive at the given path.
+	 * 
+	 * @return The manifest or <code>null</code> if the archive is not on the local file system.
+	 * @throws IOException
+	 *             If the archive cannot be read.
+	 */
+	static ZipArchiveManifest readManifest(ExecutionContext executioncontext, SakerPath path) throws IOException {
+		Path localpath = getLocalPath(executioncontext, path);
+		if (localpath == null) {
+			return null;
+		}
+		try {
+			return readManifest(localpath);
+		} catch (IOException e) {
+			throw new IOException("Failed to read the manifest of the created archive: " + path, e);
+		}
+	}
+
+	static ZipArchiveManifest readManifest(Path localpath) throws IOException {
+		try (FileChannel channel = FileChannel.open(localpath, StandardOpenOption.READ)) {
+			return ZipArchiveManifestReader.read(channel);
+		}
+	}
+
+	/**
+	 * Gets the local file system path of the given execution path.
+	 * 
+	 * @return The local path or <code>null</code> if the path is not on the local file system.
+	 */
+	static Path getLocalPath(ExecutionContext executioncontext, SakerPath path) {
+		ProviderHolderPathKey pathkey = executioncontext.getPathConfiguration().getPathKey(path);
+		if (!LocalFileProvider.getProviderKeyStatic().equals(pathkey.getFileProviderKey())) {
+			return null;
+		}
+		return LocalFileProvider.toRealPath(pathkey.getPath());
+	}
+
+	private static ByteArrayRegion readInputFile(TaskContext taskcontext, FileLocation location, String kind)
+			throws IOException {
+		ByteArrayRegion[] result = { null };
+		location.accept(new FileLocationVisitor() {
+			@Override
+			public void visit(ExecutionFileLocation loc) {
+				SakerPath filepath = loc.getPath();
+				SakerFile file = taskcontext.getTaskUtilities().resolveFileAtAbsolutePath(filepath);
+				if (file == null) {
+					taskcontext.reportInputFileDependency(null, filepath, CommonTaskContentDescriptors.IS_NOT_FILE);
+					throw ObjectUtils.sneakyThrow(new FileNotFoundException(kind + " file not found: " + filepath));
+				}
+				taskcontext.reportInputFileDependency(null, filepath, file.getContentDescriptor());
+				try {
+					result[0] = file.getBytes();
+				} catch (IOException e) {
+					throw ObjectUtils.sneakyThrow(e);
+				}
+			}
+
+			@Override
+			public void visit(LocalFileLocation loc) {
+				SakerPath filepath = loc.getLocalPath();
+				ContentDescriptor cd = taskcontext.getTaskUtilities().getReportExecutionDependency(SakerStandardUtils
+						.createLocalFileContentDescriptorExecutionProperty(filepath, taskcontext.getTaskId()));
+				if (cd == null || DirectoryContentDescriptor.INSTANCE.equals(cd)) {
+					throw ObjectUtils.sneakyThrow(new FileNotFoundException(kind + " file not found: " + filepath));
+				}
+				try {
+					result[0] = ByteArrayRegion.wrap(Files.readAllBytes(LocalFileProvider.toRealPath(filepath)));
+				} catch (IOException e) {
+					throw ObjectUtils.sneakyThrow(e);
+				}
+			}
+		});
+		return result[0];
+	}
+
+	private static String getFileName(FileLocation location) {
+		String[] result = { null };
+		location.accept(new FileLocationVisitor() {
+			@Override
+			public void visit(ExecutionFileLocation loc) {
+				result[0] = loc.getPath().getFileName();
+			}
+
+			@Override
+			public void visit(LocalFileLocation loc) {
+				result[0] = loc.getLocalPath().getFileName();
+			}
+		});
+		return result[0];
+	}
+
+	private void setJarSignature(TaskContext taskcontext, ZipOutputSakerFile.Builder builder) throws Exception {
+		ByteArrayRegion keystorebytes = readInputFile(taskcontext, signingKeystore, "Keystore");
+		String keystoreext = FileUtils.getExtension(getFileName(signingKeystore));
+		String type;
+		if ("p12".equalsIgnoreCase(keystoreext) || "pfx".equalsIgnoreCase(keystoreext)) {
+			type = "PKCS12";
+		} else if ("jks".equalsIgnoreCase(keystoreext)) {
+			type = "JKS";
+		} else {
+			type = KeyStore.getDefaultType();
+		}
+		char[] storepass = getPasswordParameter(taskcontext, signingStorePasswordParameter);
+		char[] keypass = signingKeyPasswordParameter == null ? storepass
+				: getPasswordParameter(taskcontext, signingKeyPasswordParameter);
+
+		KeyStore keystore = KeyStore.getInstance(type);
+		keystore.load(new ByteArrayInputStream(keystorebytes.getArray(), keystorebytes.getOffset(),
+				keystorebytes.getLength()), storepass);
+		Key key = keystore.getKey(signingAlias, keypass);
+		if (!(key instanceof PrivateKey)) {
+			throw new IllegalArgumentException("Private key not found in keystore: " + signingAlias);
+		}
+		Certificate[] chain = keystore.getCertificateChain(signingAlias);
+		if (ObjectUtils.isNullOrEmpty(chain)) {
+			throw new IllegalArgumentException("Certificate chain not found in keystore: " + signingAlias);
+		}
+		List<X509Certificate> certificates = new ArrayList<>(chain.length);
+		for (Certificate cert : chain) {
+			if (!(cert instanceof X509Certificate)) {
+				throw new IllegalArgumentException("Unsupported certificate type: " + cert.getType());
+			}
+			certificates.add((X509Certificate) cert);
+		}
+		builder.setJarSignature(JarSignatureWriter.toSignerName(signingAlias), (PrivateKey) key, certificates);
+	}
+
+	/**
+	 * Gets the password from the execution user parameters.
+	 * <p>
+	 * No dependency is reported on the parameter, as the password doesn't affect the output. If it is wrong, the task
+	 * fails, and is run again in the next build.
+	 */
+	private static char[] getPasswordParameter(TaskContext taskcontext, String parameter) {
+		if (parameter == null) {
+			return null;
+		}
+		String password = taskcontext.getExecutionContext().getUserParameters().get(parameter);
+		if (password == null) {
+			throw new IllegalArgumentException("Password user parameter not found: " + parameter);
+		}
+		return password.toCharArray();
+	}
+
+	private static Map<String, String> digestFile(ExecutionContext executioncontext, SakerPath path,
+			Collection<String> algorithms) throws IOException {
+		ProviderHolderPathKey pathkey = executioncontext.getPathConfiguration().getPathKey(path);
+		try (InputStream is = ByteSource.toInputStream(pathkey.getFileProvider().openInput(pathkey.getPath()))) {
+			return ArchiveDigestOutputStream.digest(is, algorithms);
+		}
+	}
+
+	private static String getDigestFileExtension(String algorithm) {
+		String ext = algorithm.toLowerCase(Locale.ROOT);
+		if (ext.startsWith("sha-")) {
+			//same extension as the common tools use: sha256, sha512
+			return "sha" + ext.substring(4);
+		}
+		return ext;
+	}
+
 	private static class IncludeInfo {
 		protected ContentDescriptor contentDescriptor;
 		protected IncludeResourceMapping resourceMapping;
@@ -273,6 +597,15 @@ public class ZipCreateWorkerTaskFactory
 		SerialUtils.writeExternalCollection(out, includeOptions);
 		SerialUtils.writeExternalCollection(out, resourceOptions, ZipResourceOption::writeToExternal);
 		SerialUtils.writeExternalCollection(out, resourceTransformers);
+		SerialUtils.writeExternalCollection(out, digestAlgorithms);
+		out.writeBoolean(writeDigestFiles);
+		out.writeObject(entryOrder);
+		out.writeObject(signingKeystore);
+		out.writeObject(signingAlias);
+		out.writeObject(signingStorePasswordParameter);
+		out.writeObject(signingKeyPasswordParameter);
+		out.writeObject(deduplication);
+		out.writeObject(zip64Mode);
 	}
 
 	@Override
@@ -283,17 +616,36 @@ public class ZipCreateWorkerTaskFactory
 		resourceOptions = SerialUtils.readExternalCollection(new LinkedHashSet<>(), in,
 				ZipResourceOption::readFromExternal);
 		resourceTransformers = SerialUtils.readExternalImmutableList(in);
+		digestAlgorithms = SerialUtils.readExternalImmutableLinkedHashSet(in);
+		writeDigestFiles = in.readBoolean();
+		entryOrder = (FileLocation) in.readObject();
+		signingKeystore = (FileLocation) in.readObject();
+		signingAlias = (String) in.readObject();
+		signingStorePasswordParameter = (String) in.readObject();
+		signingKeyPasswordParameter = (String) in.readObject();
+		deduplication = (ZipDeduplication) in.readObject();
+		zip64Mode = (Zip64Mode) in.readObject();
 	}
 
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
+		result = prime * result + ((deduplication == null) ? 0 : deduplication.hashCode());
+		result = prime * result + ((digestAlgorithms == null) ? 0 : digestAlgorithms.hashCode());
+		result = prime * result + ((entryOrder == null) ? 0 : entryOrder.hashCode());
+		result = prime * result + ((signingKeystore == null) ? 0 : signingKeystore.hashCode());
+		result = prime * result + ((signingAlias == null) ? 0 : signingAlias.hashCode());
+		result = prime * result
+				+ ((signingStorePasswordParameter == null) ? 0 : signingStorePasswordParameter.hashCode());
+		result = prime * result + ((signingKeyPasswordParameter == null) ? 0 : signingKeyPasswordParameter.hashCode());
 		result = prime * result + ((includeOptions == null) ? 0 : includeOptions.hashCode());
 		result = prime * result + ((modificationTime == null) ? 0 : modificationTime.hashCode());
 		result = prime * result + ((outputPath == null) ? 0 : outputPath.hashCode());
 		result = prime * result + ((resourceOptions == null) ? 0 : resourceOptions.hashCode());
 		result = prime * result + ((resourceTransformers == null) ? 0 : resourceTransformers.hashCode());
+		result = prime * result + (writeDigestFiles ? 1231 : 1237);
+		result = prime * result + ((zip64Mode == null) ? 0 : zip64Mode.hashCode());
 		return result;
 	}
 
@@ -306,6 +658,38 @@ public class ZipCreateWorkerTaskFactory
 		if (getClass() != obj.getClass())
 			return false;
 		ZipCreateWorkerTaskFactory other = (ZipCreateWorkerTaskFactory) obj;
+		if (deduplication != other.deduplication)
+			return false;
+		if (digestAlgorithms == null) {
+			if (other.digestAlgorithms != null)
+				return false;
+		} else if (!digestAlgorithms.equals(other.digestAlgorithms))
+			return false;
+		if (entryOrder == null) {
+			if (other.entryOrder != null)
+				return false;
+		} else if (!entryOrder.equals(other.entryOrder))
+			return false;
+		if (signingKeystore == null) {
+			if (other.signingKeystore != null)
+				return false;
+		} else if (!signingKeystore.equals(other.signingKeystore))
+			return false;
+		if (signingAlias == null) {
+			if (other.signingAlias != null)
+				return false;
+		} else if (!signingAlias.equals(other.signingAlias))
+			return false;
+		if (signingStorePasswordParameter == null) {
+			if (other.signingStorePasswordParameter != null)
+				return false;
+		} else if (!signingStorePasswordParameter.equals(other.signingStorePasswordParameter))
+			return false;
+		if (signingKeyPasswordParameter == null) {
+			if (other.signingKeyPasswordParameter != null)
+				return false;
+		} else if (!signingKeyPasswordParameter.equals(other.signingKeyPasswordParameter))
+			return false;
 		if (includeOptions == null) {
 			if (other.includeOptions != null)
 				return false;
@@ -331,6 +715,10 @@ public class ZipCreateWorkerTaskFactory
 				return false;
 		} else if (!resourceTransformers.equals(other.resourceTransformers))
 			return false;
+		if (writeDigestFiles != other.writeDigestFiles)
+			return false;
+		if (zip64Mode != other.zip64Mode)
+			return false;
 		return true;
 	}
 
@@ -340,7 +728,16 @@ public class ZipCreateWorkerTaskFactory
 				+ (modificationTime != null ? "modificationTime=" + modificationTime + ", " : "")
 				+ (resourceOptions != null ? "resourceOptions=" + resourceOptions + ", " : "")
 				+ (includeOptions != null ? "includeOptions=" + includeOptions + ", " : "")
-				+ (resourceTransformers != null ? "resourceTransformers=" + resourceTransformers : "") + "]";
+				+ (resourceTransformers != null ? "resourceTransformers=" + resourceTransformers + ", " : "")
+				+ (digestAlgorithms != null ? "digestAlgorithms=" + digestAlgorithms + ", " : "")
+				+ (entryOrder != null ? "entryOrder=" + entryOrder + ", " : "")
+				+ (signingKeystore != null
+						? "signingKeystore=" + signingKeystore + ", signingAlias=" + signingAlias + ", "
+						: "")
+				+ (deduplication != null ? "deduplication=" + deduplication + ", " : "")
+				+ (zip64Mode != null ? "zip64Mode=" + zip64Mode + ", " : "")
+				+ "writeDigestFiles="
+				+ writeDigestFiles + "]";
 	}
 
 }
\ No newline at end of file
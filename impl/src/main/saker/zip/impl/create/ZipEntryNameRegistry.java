@@ -0,0 +1,414 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import saker.build.file.path.SakerPath;
+import saker.zip.impl.archive.ZipEntryHeader;
+
+/**
+ * Case insensitive set of zip entry names with an associated flag for each name.
+ * <p>
+ * The names are encoded as UTF-8, case folded, and stored in fixed size pages. The attributes of the names are stored
+ * in fixed size blocks of primitive arrays, and the lookup is done with an open addressing hash table. No objects are
+ * allocated for the added names, and the already added names are not copied when the registry grows. Two names are
+ * considered to be the same if {@link String#compareToIgnoreCase(String)} would consider them equal.
+ * <p>
+ * If the encoded names exceed the spill threshold, the name pages are moved to a memory mapped temporary file to keep
+ * the heap usage of archives with a very large number of entries low. The registry should be closed to release the
+ * file.
+ * <p>
+ * The class is not thread safe.
+ */
+public final class ZipEntryNameRegistry implements Closeable {
+	/**
+	 * Return value of {@link #putIfAbsent(SakerPath, byte)} if the name wasn't present.
+	 */
+	public static final int ABSENT = -1;
+
+	public static final long DEFAULT_SPILL_THRESHOLD = 128 * 1024 * 1024;
+
+	private static final int BLOCK_SHIFT = 12;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	/**
+	 * The size of a name page. A name is never split between pages.
+	 */
+	private static final int PAGE_SHIFT = 18;
+	private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+	/**
+	 * The size of a single memory mapped region of the spill file. Multiple of the page size, so a name is never split
+	 * between regions.
+	 */
+	private static final int SPILL_REGION_SHIFT = 26;
+	private static final int SPILL_REGION_SIZE = 1 << SPILL_REGION_SHIFT;
+
+	private final long spillThreshold;
+
+	private int size;
+	/**
+	 * The hash table. Contains entry index + 1, or 0 for empty slots.
+	 */
+	private int[] table = new int[64];
+	/**
+	 * The name positions, and the hash, length and flag of the names. Two values for each entry.
+	 */
+	private long[][] blocks = new long[4][];
+
+	private byte[][] pages = new byte[4][];
+	private int pageCount;
+	/**
+	 * The end position of the names in the last page.
+	 */
+	private int pageEnd = PAGE_SIZE;
+
+	private FileChannel spillChannel;
+	private MappedByteBuffer[] spillRegions;
+
+	private byte[] nameBuffer = new byte[256];
+	/**
+	 * Encodes the path arguments segment by segment into its reused name buffer.
+	 */
+	private final ZipEntryHeader encodeHeader = new ZipEntryHeader();
+	private byte[] compareBuffer;
+
+	public ZipEntryNameRegistry() {
+		this(DEFAULT_SPILL_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new registry.
+	 *
+	 * @param spillThreshold
+	 *            The number of name bytes after which the names are moved to a temporary file.
+	 *            {@link Long#MAX_VALUE} to always keep them in memory.
+	 */
+	public ZipEntryNameRegistry(long spillThreshold) {
+		this.spillThreshold = spillThreshold;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the names are stored in a temporary file.
+	 */
+	public boolean isSpilled() {
+		return spillChannel != null;
+	}
+
+	/**
+	 * Adds the name if not present.
+	 *
+	 * @param path
+	 *            The entry path.
+	 * @param flag
+	 *            The flag to associate with the name. Must be non-negative.
+	 * @return The flag associated with the already present name, or {@link #ABSENT} if the name was added.
+	 * @throws IOException
+	 *             If the names failed to be written to the spill file.
+	 */
+	public int putIfAbsent(SakerPath path, byte flag) throws IOException {
+		ZipEntryHeader header = this.encodeHeader;
+		header.setName(path, false);
+		return putIfAbsent(header.getNameBytes(), 0, header.getNameLength(), flag);
+	}
+
+	/**
+	 * Adds the UTF-8 encoded name if not present.
+	 *
+	 * @param name
+	 *            The buffer that contains the name.
+	 * @param offset
+	 *            The offset of the name in the buffer.
+	 * @param length
+	 *            The number of bytes in the name.
+	 * @param flag
+	 *            The flag to associate with the name. Must be non-negative.
+	 * @return The flag associated with the already present name, or {@link #ABSENT} if the name was added.
+	 * @throws IOException
+	 *             If the names failed to be written to the spill file.
+	 * @see #putIfAbsent(SakerPath, byte)
+	 */
+	public int putIfAbsent(byte[] name, int offset, int length, byte flag) throws IOException {
+		if (flag < 0) {
+			throw new IllegalArgumentException("Negative flag: " + flag);
+		}
+		int len = fold(name, offset, length);
+		if (len > PAGE_SIZE) {
+			throw new IllegalArgumentException(
+					"Entry name too long: " + new String(name, offset, length, StandardCharsets.UTF_8));
+		}
+		byte[] namebuf = this.nameBuffer;
+		int hash = hash(namebuf, len);
+		long attrs = ((long) hash << 32) | ((long) len << 8) | flag;
+
+		int[] table = this.table;
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while (true) {
+			int idx = table[slot] - 1;
+			if (idx < 0) {
+				break;
+			}
+			long[] block = blocks[idx >>> BLOCK_SHIFT];
+			int bidx = (idx & (BLOCK_SIZE - 1)) * 2;
+			long entryattrs = block[bidx + 1];
+			//compare the hash and length
+			if ((entryattrs & ~0xFFL) == (attrs & ~0xFFL) && nameEquals(block[bidx], namebuf, len)) {
+				return (int) (entryattrs & 0xFF);
+			}
+			slot = (slot + 1) & mask;
+		}
+		int idx = size;
+		int blockidx = idx >>> BLOCK_SHIFT;
+		if (blockidx == blocks.length) {
+			blocks = Arrays.copyOf(blocks, blockidx * 2);
+		}
+		long[] block = blocks[blockidx];
+		if (block == null) {
+			block = new long[BLOCK_SIZE * 2];
+			blocks[blockidx] = block;
+		}
+		int bidx = (idx & (BLOCK_SIZE - 1)) * 2;
+		block[bidx] = appendName(namebuf, len);
+		block[bidx + 1] = attrs;
+		table[slot] = idx + 1;
+		size = idx + 1;
+		if (size * 2 > table.length) {
+			rehash();
+		}
+		return ABSENT;
+	}
+
+	/**
+	 * Adds the name if not present.
+	 *
+	 * @return <code>true</code> if the name was added.
+	 * @see #putIfAbsent(SakerPath, byte)
+	 */
+	public boolean add(SakerPath path) throws IOException {
+		return putIfAbsent(path, (byte) 0) == ABSENT;
+	}
+
+	@Override
+	public void close() throws IOException {
+		FileChannel channel = spillChannel;
+		spillChannel = null;
+		spillRegions = null;
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	private void rehash() {
+		int[] ntable = new int[table.length * 2];
+		int mask = ntable.length - 1;
+		for (int i = 0; i < size; i++) {
+			long[] block = blocks[i >>> BLOCK_SHIFT];
+			int hash = (int) (block[(i & (BLOCK_SIZE - 1)) * 2 + 1] >>> 32);
+			int slot = hash & mask;
+			while (ntable[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			ntable[slot] = i + 1;
+		}
+		this.table = ntable;
+	}
+
+	/**
+	 * Appends the name to the pages and returns its position.
+	 */
+	private long appendName(byte[] name, int len) throws IOException {
+		if (pageEnd + len > PAGE_SIZE) {
+			addPage();
+		}
+		long position = ((long) (pageCount - 1) << PAGE_SHIFT) | pageEnd;
+		if (spillChannel == null) {
+			System.arraycopy(name, 0, pages[pageCount - 1], pageEnd, len);
+		} else {
+			MappedByteBuffer region = spillRegions[(int) (position >>> SPILL_REGION_SHIFT)];
+			region.position((int) (position & (SPILL_REGION_SIZE - 1)));
+			region.put(name, 0, len);
+		}
+		pageEnd += len;
+		return position;
+	}
+
+	private void addPage() throws IOException {
+		if (spillChannel == null && (long) (pageCount + 1) * PAGE_SIZE > spillThreshold) {
+			spill();
+		}
+		if (spillChannel == null) {
+			if (pageCount == pages.length) {
+				pages = Arrays.copyOf(pages, pageCount * 2);
+			}
+			pages[pageCount] = new byte[PAGE_SIZE];
+		} else {
+			int regionidx = (int) (((long) pageCount << PAGE_SHIFT) >>> SPILL_REGION_SHIFT);
+			if (regionidx == spillRegions.length) {
+				spillRegions = Arrays.copyOf(spillRegions, regionidx * 2);
+			}
+			if (spillRegions[regionidx] == null) {
+				spillRegions[regionidx] = spillChannel.map(FileChannel.MapMode.READ_WRITE,
+						(long) regionidx << SPILL_REGION_SHIFT, SPILL_REGION_SIZE);
+			}
+		}
+		++pageCount;
+		pageEnd = 0;
+	}
+
+	private void spill() throws IOException {
+		Path file = Files.createTempFile("saker.zip-entry-names-", ".tmp");
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+					StandardOpenOption.DELETE_ON_CLOSE);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		try {
+			//the pages are written to the same positions, so the names don't need to be relocated
+			for (int i = 0; i < pageCount; i++) {
+				ByteBuffer buf = ByteBuffer.wrap(pages[i]);
+				long pos = (long) i << PAGE_SHIFT;
+				while (buf.hasRemaining()) {
+					pos += channel.write(buf, pos);
+				}
+			}
+			int regioncount = (int) ((((long) pageCount << PAGE_SHIFT) + SPILL_REGION_SIZE - 1) >>> SPILL_REGION_SHIFT);
+			MappedByteBuffer[] regions = new MappedByteBuffer[Math.max(4, regioncount * 2)];
+			for (int i = 0; i < regioncount; i++) {
+				regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i << SPILL_REGION_SHIFT,
+						SPILL_REGION_SIZE);
+			}
+			this.spillRegions = regions;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		this.spillChannel = channel;
+		this.pages = null;
+	}
+
+	private boolean nameEquals(long position, byte[] name, int len) {
+		byte[] cmp;
+		int off;
+		if (spillChannel == null) {
+			cmp = pages[(int) (position >>> PAGE_SHIFT)];
+			off = (int) (position & (PAGE_SIZE - 1));
+		} else {
+			cmp = compareBuffer;
+			if (cmp == null || cmp.length < len) {
+				cmp = new byte[Math.max(len, 256)];
+				compareBuffer = cmp;
+			}
+			MappedByteBuffer region = spillRegions[(int) (position >>> SPILL_REGION_SHIFT)];
+			region.position((int) (position & (SPILL_REGION_SIZE - 1)));
+			region.get(cmp, 0, len);
+			off = 0;
+		}
+		for (int i = 0; i < len; i++) {
+			if (cmp[off + i] != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(byte[] b, int len) {
+		//FNV-1a
+		int h = 0x811c9dc5;
+		for (int i = 0; i < len; i++) {
+			h ^= b[i] & 0xFF;
+			h *= 0x01000193;
+		}
+		//spread the bits, as the low bits are used for the slot index
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Case folds the UTF-8 encoded name to {@link #nameBuffer}.
+	 * <p>
+	 * Each code point is folded the same way as in {@link String#compareToIgnoreCase(String)}.
+	 */
+	private int fold(byte[] name, int offset, int length) {
+		byte[] buf = this.nameBuffer;
+		//a folded code point takes at most twice the bytes of the original
+		if (buf.length < length * 2) {
+			buf = new byte[Math.max(length * 2, buf.length * 2)];
+			this.nameBuffer = buf;
+		}
+		int len = 0;
+		int end = offset + length;
+		for (int i = offset; i < end;) {
+			int b = name[i++];
+			if (b >= 0) {
+				if (b >= 'A' && b <= 'Z') {
+					b += 'a' - 'A';
+				}
+				buf[len++] = (byte) b;
+				continue;
+			}
+			int cp;
+			if ((b & 0xE0) == 0xC0 && i < end) {
+				cp = ((b & 0x1F) << 6) | (name[i++] & 0x3F);
+			} else if ((b & 0xF0) == 0xE0 && i + 1 < end) {
+				cp = ((b & 0x0F) << 12) | ((name[i++] & 0x3F) << 6) | (name[i++] & 0x3F);
+			} else if ((b & 0xF8) == 0xF0 && i + 2 < end) {
+				cp = ((b & 0x07) << 18) | ((name[i++] & 0x3F) << 12) | ((name[i++] & 0x3F) << 6)
+						| (name[i++] & 0x3F);
+			} else {
+				//malformed, keep as is
+				buf[len++] = (byte) b;
+				continue;
+			}
+			cp = Character.toLowerCase(Character.toUpperCase(cp));
+			if (cp < 0x80) {
+				buf[len++] = (byte) cp;
+			} else if (cp < 0x800) {
+				buf[len++] = (byte) (0xC0 | (cp >> 6));
+				buf[len++] = (byte) (0x80 | (cp & 0x3F));
+			} else if (cp < 0x10000) {
+				buf[len++] = (byte) (0xE0 | (cp >> 12));
+				buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buf[len++] = (byte) (0x80 | (cp & 0x3F));
+			} else {
+				buf[len++] = (byte) (0xF0 | (cp >> 18));
+				buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buf[len++] = (byte) (0x80 | (cp & 0x3F));
+			}
+		}
+		return len;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size + ", spilled=" + isSpilled() + "]";
+	}
+}
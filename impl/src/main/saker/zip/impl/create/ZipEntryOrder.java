@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+
+/**
+ * Parses the list of entries that should be placed at the start of the created archive.
+ * <p>
+ * The list is usually recorded while an application starts, so the entries that are read during startup are placed
+ * next to each other. Each line of the list is either:
+ * <ul>
+ * <li>An entry path, e.g. <code>com/example/Main.class</code> or <code>config/app.properties</code>.</li>
+ * <li>A class loading message of <code>-verbose:class</code> (<code>[Loaded com.example.Main from ...]</code>) or
+ * <code>-Xlog:class+load</code> (<code>[0.012s][info][class,load] com.example.Main source: ...</code>). The
+ * <code>.class</code> entry of the loaded class is used.</li>
+ * </ul>
+ * Empty lines, lines starting with <code>#</code>, other log messages and invalid paths are ignored.
+ */
+public final class ZipEntryOrder {
+	private static final String VERBOSE_CLASS_PREFIX = "[Loaded ";
+	private static final String CLASS_LOAD_TAG = "[class,load]";
+
+	private ZipEntryOrder() {
+		throw new UnsupportedOperationException();
+	}
+
+	public static List<SakerPath> parse(CharSequence contents) {
+		Set<SakerPath> result = new LinkedHashSet<>();
+		int len = contents.length();
+		for (int start = 0; start < len;) {
+			int end = start;
+			while (end < len && contents.charAt(end) != '\n' && contents.charAt(end) != '\r') {
+				++end;
+			}
+			SakerPath path = parseLine(contents.subSequence(start, end).toString().trim());
+			if (path != null) {
+				result.add(path);
+			}
+			start = end + 1;
+		}
+		if (result.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return new ArrayList<>(result);
+	}
+
+	private static SakerPath parseLine(String line) {
+		if (line.isEmpty() || line.startsWith("#")) {
+			return null;
+		}
+		String entry;
+		if (line.startsWith("[")) {
+			String classname;
+			if (line.startsWith(VERBOSE_CLASS_PREFIX)) {
+				classname = firstToken(line, VERBOSE_CLASS_PREFIX.length());
+			} else {
+				int tagidx = line.indexOf(CLASS_LOAD_TAG);
+				if (tagidx < 0) {
+					return null;
+				}
+				classname = firstToken(line, tagidx + CLASS_LOAD_TAG.length());
+			}
+			if (classname == null || classname.indexOf('/') >= 0) {
+				//hidden classes are named as <name>/<address>, they are not in archives
+				return null;
+			}
+			entry = classname.replace('.', '/') + ".class";
+		} else {
+			entry = line;
+		}
+		try {
+			SakerPath path = SakerPath.valueOf(entry);
+			if (!path.isForwardRelative() || path.getFileName() == null) {
+				return null;
+			}
+			return path;
+		} catch (InvalidPathFormatException e) {
+			return null;
+		}
+	}
+
+	private static String firstToken(String line, int start) {
+		int len = line.length();
+		while (start < len && line.charAt(start) == ' ') {
+			++start;
+		}
+		int end = start;
+		while (end < len && line.charAt(end) != ' ' && line.charAt(end) != ']') {
+			++end;
+		}
+		return start == end ? null : line.substring(start, end);
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import saker.build.file.SakerDirectory;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.SakerLog;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskExecutionUtilities;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.io.FileUtils;
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.trace.BuildTrace;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.create.ZipCreatorTaskOutput;
+import saker.zip.api.create.ZipMergeConflictPolicy;
+import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.impl.extract.LocalArchiveFile;
+
+public class ZipMergeWorkerTaskFactory
+		implements TaskFactory<ZipCreatorTaskOutput>, Task<ZipCreatorTaskOutput>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	protected SakerPath outputPath;
+	protected List<FileLocation> archives;
+	protected ZipMergeConflictPolicy conflictPolicy;
+	protected ZipResourceTransformerFactory merger;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipMergeWorkerTaskFactory() {
+	}
+
+	public ZipMergeWorkerTaskFactory(SakerPath outputPath, List<? extends FileLocation> archives,
+			ZipMergeConflictPolicy conflictPolicy, ZipResourceTransformerFactory merger) {
+		this.outputPath = outputPath;
+		this.archives = ImmutableUtils.makeImmutableList(archives);
+		this.conflictPolicy = conflictPolicy;
+		this.merger = merger;
+	}
+
+	@Override
+	public ZipCreatorTaskOutput run(TaskContext taskcontext) throws Exception {
+		String fn = outputPath.getFileName();
+		String ext = FileUtils.getExtension(fn);
+		if (ObjectUtils.isNullOrEmpty(ext)) {
+			ext = "zip";
+		}
+		if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+			BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_WORKER);
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_007) {
+				BuildTrace.reportOutputArtifact(outputPath, BuildTrace.ARTIFACT_EMBED_DEFAULT);
+			}
+		}
+		taskcontext.setStandardOutDisplayIdentifier(ext + ":" + fn);
+
+		TaskExecutionUtilities taskutils = taskcontext.getTaskUtilities();
+		SakerDirectory outparentdir = taskutils.resolveDirectoryAtPathCreateIfAbsent(outputPath.getParent());
+		if (outparentdir == null) {
+			throw new IllegalArgumentException("Failed to create directory for output: " + outputPath);
+		}
+
+		List<MergeSourceArchive> sources = new ArrayList<>(archives.size());
+		List<ContentDescriptor> contents = new ArrayList<>(archives.size());
+		MergedZipOutputSakerFile file;
+		try {
+			for (FileLocation archive : archives) {
+				LocalArchiveFile localarchive = LocalArchiveFile.resolve(taskcontext, archive);
+				sources.add(new MergeSourceArchive(localarchive.getPath()));
+				contents.add(localarchive.getContentDescriptor());
+			}
+			file = MergedZipOutputSakerFile.create(fn, sources, contents, conflictPolicy, merger);
+			outparentdir.add(file);
+			file.synchronize();
+		} finally {
+			//the file opens the archives again if it is written later
+			IOUtils.close(sources);
+		}
+		taskutils.reportOutputFileDependency(null, file);
+
+		SakerLog.success().verbose().println("Archive merged at: " + outputPath);
+
+		SakerPath filepath = file.getSakerPath();
+		ZipArchiveManifest manifest = ZipCreateWorkerTaskFactory
+				.getOutputInformation(taskcontext, file, file.getManifest(), null, null).getManifest();
+		SimpleZipCreatorTaskOutput result = new SimpleZipCreatorTaskOutput(filepath, manifest, Collections.emptyMap(),
+				ZipCreateWorkerTaskFactory.getLocalPath(taskcontext.getExecutionContext(), filepath));
+		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+		return result;
+	}
+
+	@Override
+	public final Task<? extends ZipCreatorTaskOutput> createTask(ExecutionContext executioncontext) {
+		return this;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(outputPath);
+		SerialUtils.writeExternalCollection(out, archives);
+		out.writeObject(conflictPolicy);
+		out.writeObject(merger);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		outputPath = (SakerPath) in.readObject();
+		archives = SerialUtils.readExternalImmutableList(in);
+		conflictPolicy = (ZipMergeConflictPolicy) in.readObject();
+		merger = (ZipResourceTransformerFactory) in.readObject();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archives == null) ? 0 : archives.hashCode());
+		result = prime * result + ((conflictPolicy == null) ? 0 : conflictPolicy.hashCode());
+		result = prime * result + ((merger == null) ? 0 : merger.hashCode());
+		result = prime * result + ((outputPath == null) ? 0 : outputPath.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipMergeWorkerTaskFactory other = (ZipMergeWorkerTaskFactory) obj;
+		if (archives == null) {
+			if (other.archives != null)
+				return false;
+		} else if (!archives.equals(other.archives))
+			return false;
+		if (conflictPolicy != other.conflictPolicy)
+			return false;
+		if (merger == null) {
+			if (other.merger != null)
+				return false;
+		} else if (!merger.equals(other.merger))
+			return false;
+		if (outputPath == null) {
+			if (other.outputPath != null)
+				return false;
+		} else if (!outputPath.equals(other.outputPath))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[outputPath=" + outputPath + ", archives=" + archives
+				+ ", conflictPolicy=" + conflictPolicy + ", merger=" + merger + "]";
+	}
+}
@@ -21,28 +21,38 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
 import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
-import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import saker.build.exception.InvalidPathFormatException;
 import saker.build.file.FileHandle;
@@ -53,9 +63,12 @@ import saker.build.file.content.ContentDescriptor;
 import saker.build.file.content.EmptyContentDescriptor;
 import saker.build.file.content.HashContentDescriptor;
 import saker.build.file.content.MultiContentDescriptor;
-import saker.build.file.content.MultiPathContentDescriptor;
+import saker.build.file.path.ProviderHolderPathKey;
 import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
 import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.StringUtils;
 import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.ConcatInputStream;
 import saker.build.thirdparty.saker.util.io.FileUtils;
@@ -65,10 +78,19 @@ import saker.build.thirdparty.saker.util.io.StreamUtils;
 import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
 import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
 import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.Zip64Mode;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.create.ZipDeduplication;
 import saker.zip.api.create.ZipResourceEntry;
 import saker.zip.api.create.ZipResourceTransformationContext;
 import saker.zip.api.create.ZipResourceTransformer;
 import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.impl.archive.FileChannelOutputStream;
+import saker.zip.impl.archive.JarSignatureWriter;
+import saker.zip.impl.archive.ZipArchiveInputStream;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipEntryHeader;
+import saker.zip.impl.create.CompressedEntryCache.CompressedEntry;
 
 public class ZipOutputSakerFile extends SakerFileBase {
 	private static final FileTime DEFAULT_ENTRY_MODIFICATION_TIME = FileTime.fromMillis(0);
@@ -99,23 +121,175 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		public void addResourceTransformer(ZipResourceTransformerFactory transformer);
 
-		public SakerFile build(String name);
+		/**
+		 * Sets the cache to use for retrieving the compressed payloads of the entries.
+		 * <p>
+		 * <code>null</code> to compress all entries when the archive is written.
+		 */
+		public void setCompressedEntryCache(CompressedEntryCache cache);
+
+		/**
+		 * Sets the cache of the previously created archives.
+		 * <p>
+		 * If the cache contains an archive with the same content descriptor, it is restored from the cache instead of
+		 * writing it. Otherwise the written archive is stored in the cache.
+		 */
+		public void setArchiveOutputCache(ArchiveOutputCache cache);
+
+		/**
+		 * Sets the configuration of the pipeline that reads and compresses the file entries in parallel to writing the
+		 * archive.
+		 * <p>
+		 * <code>null</code> to read and compress the entries on the writing thread. The written archive is the same
+		 * regardless of the configuration.
+		 */
+		public void setPipelineConfiguration(EntryPipelineConfiguration configuration);
+
+		/**
+		 * Sets the algorithms of the digests to compute while the archive is written.
+		 * 
+		 * @see ZipOutputSakerFile#getDigests()
+		 */
+		public void setDigestAlgorithms(Collection<String> algorithms);
+
+		/**
+		 * Sets the resource entries digest tree of the previously built file.
+		 * <p>
+		 * The unchanged parts of the tree are reused when the content descriptor of the file is computed.
+		 * 
+		 * @see ZipOutputSakerFile#getResourceEntriesDigestTree()
+		 */
+		public void setPreviousResourceEntriesDigestTree(ResourceEntriesDigestTree tree);
+
+		/**
+		 * Sets the order of the entries at the start of the archive.
+		 * <p>
+		 * If set, the manifest (<code>META-INF/MANIFEST.MF</code>) is written first, then the added entries in the
+		 * order of the argument list, then the rest of the added entries in path order. The paths in the list that
+		 * are not added to the archive are ignored. The entries of the included archives are written after them.
+		 * <p>
+		 * If the archive is {@linkplain #setJarSignature(String, PrivateKey, List) signed}, the manifest is written at
+		 * the end of the archive instead, as it contains the digests of the other entries.
+		 * <p>
+		 * <code>null</code> to write the added entries in path order.
+		 * 
+		 * @see ZipEntryOrder
+		 */
+		public void setEntryOrder(List<? extends SakerPath> order);
+
+		/**
+		 * Sets the key that the archive is signed with as a JAR.
+		 * <p>
+		 * The digests of the entries are computed while they are written, and the signature files are appended to
+		 * the archive. As the data of each entry needs to pass through the writer for that, the compressed entry
+		 * cache and the pipeline are not used for signed archives.
+		 * <p>
+		 * <code>null</code> private key to not sign the archive.
+		 * 
+		 * @throws IllegalArgumentException
+		 *             If the signer name, the key or the certificates are invalid.
+		 * @see JarSignatureWriter
+		 */
+		public void setJarSignature(String signername, PrivateKey privatekey,
+				List<? extends X509Certificate> certificatechain) throws IllegalArgumentException;
+
+		/**
+		 * Sets how the file entries with identical contents are stored.
+		 * <p>
+		 * The contents of the entries are hashed in the order they are written, so the pipeline is not used if
+		 * deduplication is enabled. Deduplication is not applied to signed archives, archives written with resource
+		 * transformers, and entries larger than 16 MiB.
+		 * <p>
+		 * <code>null</code> or {@link ZipDeduplication#NONE} to store each entry separately.
+		 */
+		public void setDeduplication(ZipDeduplication deduplication);
+
+		/**
+		 * Sets when the ZIP64 format extensions are used in the archive.
+		 * <p>
+		 * <code>null</code> or {@link Zip64Mode#AS_NEEDED} to only use them when the archive requires it.
+		 * 
+		 * @see ZipArchiveOutputStream#setZip64Mode(Zip64Mode)
+		 */
+		public void setZip64Mode(Zip64Mode zip64Mode);
+
+		public ZipOutputSakerFile build(String name);
 	}
 
 	private static final class IncludeFile {
 		protected final ZipResourceEntry resourceEntry;
 		protected final FileHandle fileHandle;
+		protected final ContentDescriptor contentDescriptor;
+		/**
+		 * The UTF-8 encoded entry path, lazily computed and reused when the archive is written again.
+		 */
+		private volatile byte[] nameBytes;
 
-		public IncludeFile(ZipResourceEntry resourceEntry, FileHandle fileHandle) {
+		public IncludeFile(ZipResourceEntry resourceEntry, FileHandle fileHandle,
+				ContentDescriptor contentDescriptor) {
 			this.resourceEntry = resourceEntry;
 			this.fileHandle = fileHandle;
+			this.contentDescriptor = contentDescriptor;
+		}
+
+		public byte[] getNameBytes() {
+			byte[] result = nameBytes;
+			if (result == null) {
+				result = ZipEntryHeader.encodeName(resourceEntry.getEntryPath());
+				nameBytes = result;
+			}
+			return result;
+		}
+	}
+
+	private static final class IncludeArchive {
+		protected final IncludeResourceMapping resourceMapping;
+		protected final ContentDescriptor contentDescriptor;
+
+		public IncludeArchive(IncludeResourceMapping resourceMapping, ContentDescriptor contentDescriptor) {
+			this.resourceMapping = resourceMapping;
+			this.contentDescriptor = contentDescriptor;
+		}
+	}
+
+	/**
+	 * Identifies the contents of an entry in an included archive.
+	 */
+	private static final class ArchiveEntryContents {
+		protected final ContentDescriptor archiveContents;
+		protected final int index;
+
+		public ArchiveEntryContents(ContentDescriptor archiveContents, int index) {
+			this.archiveContents = archiveContents;
+			this.index = index;
+		}
+
+		@Override
+		public int hashCode() {
+			return archiveContents.hashCode() * 31 + index;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			ArchiveEntryContents other = (ArchiveEntryContents) obj;
+			if (index != other.index)
+				return false;
+			if (!archiveContents.equals(other.archiveContents))
+				return false;
+			return true;
 		}
 	}
 
 	protected static final class BuilderImpl implements Builder {
 		protected NavigableMap<SakerPath, IncludeFile> files = new TreeMap<>();
 		//linked has map for reproducible order
-		protected Map<FileHandle, IncludeResourceMapping> includes = new LinkedHashMap<>();
+		protected Map<FileHandle, IncludeArchive> includes = new LinkedHashMap<>();
 
 		protected Collection<ContentDescriptor> subContents = new ArrayList<>();
 		protected NavigableMap<SakerPath, ContentDescriptor> subEntryContents = new TreeMap<>();
@@ -124,6 +298,89 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		protected List<ZipResourceTransformerFactory> transformers = new ArrayList<>();
 
+		protected CompressedEntryCache compressedEntryCache;
+		protected ArchiveOutputCache archiveOutputCache;
+		protected EntryPipelineConfiguration pipelineConfiguration;
+		protected List<String> digestAlgorithms = Collections.emptyList();
+		protected ResourceEntriesDigestTree previousResourceEntriesDigestTree;
+		protected List<SakerPath> entryOrder;
+		protected String jarSignerName;
+		protected PrivateKey jarSignatureKey;
+		protected List<X509Certificate> jarSignatureCertificates;
+		protected ContentDescriptor jarSignatureContents;
+		protected ZipDeduplication deduplication;
+		protected Zip64Mode zip64Mode;
+
+		@Override
+		public void setCompressedEntryCache(CompressedEntryCache cache) {
+			this.compressedEntryCache = cache;
+		}
+
+		@Override
+		public void setArchiveOutputCache(ArchiveOutputCache cache) {
+			this.archiveOutputCache = cache;
+		}
+
+		@Override
+		public void setPipelineConfiguration(EntryPipelineConfiguration configuration) {
+			this.pipelineConfiguration = configuration;
+		}
+
+		@Override
+		public void setPreviousResourceEntriesDigestTree(ResourceEntriesDigestTree tree) {
+			this.previousResourceEntriesDigestTree = tree;
+		}
+
+		@Override
+		public void setEntryOrder(List<? extends SakerPath> order) {
+			this.entryOrder = order == null ? null : new ArrayList<>(order);
+		}
+
+		@Override
+		public void setJarSignature(String signername, PrivateKey privatekey,
+				List<? extends X509Certificate> certificatechain) throws IllegalArgumentException {
+			if (privatekey == null) {
+				this.jarSignerName = null;
+				this.jarSignatureKey = null;
+				this.jarSignatureCertificates = null;
+				this.jarSignatureContents = null;
+				return;
+			}
+			//validate the arguments
+			new JarSignatureWriter(signername, privatekey, certificatechain, null);
+
+			MessageDigest hasher = FileUtils.getDefaultFileHasher();
+			hasher.update(signername.getBytes(StandardCharsets.UTF_8));
+			hasher.update(privatekey.getAlgorithm().getBytes(StandardCharsets.UTF_8));
+			try {
+				for (X509Certificate cert : certificatechain) {
+					hasher.update(cert.getEncoded());
+				}
+			} catch (CertificateEncodingException e) {
+				throw new IllegalArgumentException("Failed to encode signer certificate.", e);
+			}
+			this.jarSignerName = signername;
+			this.jarSignatureKey = privatekey;
+			this.jarSignatureCertificates = ImmutableUtils.makeImmutableList(certificatechain);
+			this.jarSignatureContents = HashContentDescriptor.createWithHash(hasher.digest());
+		}
+
+		@Override
+		public void setDeduplication(ZipDeduplication deduplication) {
+			this.deduplication = deduplication == ZipDeduplication.NONE ? null : deduplication;
+		}
+
+		@Override
+		public void setZip64Mode(Zip64Mode zip64Mode) {
+			this.zip64Mode = zip64Mode == Zip64Mode.AS_NEEDED ? null : zip64Mode;
+		}
+
+		@Override
+		public void setDigestAlgorithms(Collection<String> algorithms) {
+			this.digestAlgorithms = ObjectUtils.isNullOrEmpty(algorithms) ? Collections.emptyList()
+					: new ArrayList<>(algorithms);
+		}
+
 		@Override
 		public void addResourceTransformer(ZipResourceTransformerFactory transformer) {
 			this.transformers.add(transformer);
@@ -144,7 +401,7 @@ public class ZipOutputSakerFile extends SakerFileBase {
 				throw new InvalidPathFormatException("Zip entry path must be forward relative: " + path);
 			}
 
-			IncludeFile prevsw = this.files.putIfAbsent(path, new IncludeFile(resourceentry, file));
+			IncludeFile prevsw = this.files.putIfAbsent(path, new IncludeFile(resourceentry, file, content));
 			if (prevsw != null) {
 				throw new IllegalArgumentException("Duplicate ZIP entries: " + path);
 			}
@@ -162,16 +419,17 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			Objects.requireNonNull(archivehandle, "archive handle");
 			Objects.requireNonNull(resourcemappings, "resource mappings");
 
-			IncludeResourceMapping previnclude = includes.putIfAbsent(archivehandle, resourcemappings);
+			IncludeArchive previnclude = includes.putIfAbsent(archivehandle,
+					new IncludeArchive(resourcemappings, archivecontents));
 			if (previnclude != null) {
 				throw new IllegalArgumentException("Multiple includes from archive: " + archivehandle + " with "
-						+ previnclude + " and " + resourcemappings);
+						+ previnclude.resourceMapping + " and " + resourcemappings);
 			}
 			this.subContents.add(archivecontents);
 		}
 
 		@Override
-		public SakerFile build(String name) {
+		public ZipOutputSakerFile build(String name) {
 			if (files == null) {
 				throw new IllegalStateException("Builder already consumed.");
 			}
@@ -198,30 +456,260 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		return new BuilderImpl();
 	}
 
+	/**
+	 * The version of the archive output format. Included in the content digest, so archives created by different
+	 * writer implementations are not considered to be the same.
+	 */
+	private static final String OUTPUT_FORMAT_VERSION = "saker.zip-archive-v1";
+
+	private static final SakerPath PATH_META_INF = SakerPath.valueOf("META-INF");
+	private static final SakerPath PATH_MANIFEST = PATH_META_INF.resolve("MANIFEST.MF");
+
 	protected final Collection<? extends IncludeFile> files;
-	protected final Map<FileHandle, IncludeResourceMapping> includes;
+	protected final Map<FileHandle, IncludeArchive> includes;
 	protected final ZipFileContentDescriptor contentDescriptor;
+	protected final CompressedEntryCache compressedEntryCache;
+	protected final ArchiveOutputCache archiveOutputCache;
+	protected final EntryPipelineConfiguration pipelineConfiguration;
+	protected final List<String> digestAlgorithms;
+	protected final String jarSignerName;
+	protected final PrivateKey jarSignatureKey;
+	protected final List<X509Certificate> jarSignatureCertificates;
+	/**
+	 * The deduplication mode, or <code>null</code> if disabled.
+	 */
+	protected final ZipDeduplication deduplication;
+	/**
+	 * The ZIP64 mode, or <code>null</code> if the extensions are used as needed.
+	 */
+	protected final Zip64Mode zip64Mode;
+	protected ResourceEntriesDigestTree resourceEntriesDigestTree;
+	/**
+	 * The digest of the {@linkplain #contentDescriptor content descriptor}, or an empty array if it cannot be computed.
+	 */
+	private transient volatile byte[] contentDigest;
+	private transient volatile ContentDescriptor digestContentDescriptor;
+	private transient volatile ZipArchiveManifest manifest;
+	private transient volatile Map<String, String> digests;
 
 	protected ZipOutputSakerFile(String name, BuilderImpl builder)
 			throws NullPointerException, InvalidPathFormatException {
 		super(name);
-		this.files = builder.files.values();
+		List<SakerPath> orderedpaths = getOrderedPaths(builder.files, builder.entryOrder);
+		this.files = orderFiles(builder.files, orderedpaths);
+		//the signature writer digests the data of each entry separately
+		this.deduplication = builder.jarSignatureKey == null ? builder.deduplication : null;
 		ZipFileContentDescriptor contentdescriptor = new ZipFileContentDescriptor(
 				builder.getDefaultEntryModificationTime(), MultiContentDescriptor.create(builder.subContents),
-				new MultiPathContentDescriptor(builder.subEntryContents),
-				getResourceEntriesContentDescriptor(this.files), builder.transformers);
+				CompactPathContentDescriptor.create(builder.subEntryContents),
+				getResourceEntriesContentDescriptor(builder.files.values(),
+						builder.previousResourceEntriesDigestTree),
+				builder.transformers, orderedpaths.isEmpty() ? null : orderedpaths, builder.jarSignatureContents,
+				deduplication, builder.zip64Mode);
+		this.zip64Mode = builder.zip64Mode;
 		this.includes = builder.includes;
 		this.contentDescriptor = contentdescriptor;
+		this.archiveOutputCache = builder.archiveOutputCache;
+		this.digestAlgorithms = builder.digestAlgorithms;
+		this.jarSignerName = builder.jarSignerName;
+		this.jarSignatureKey = builder.jarSignatureKey;
+		this.jarSignatureCertificates = builder.jarSignatureCertificates;
+		if (jarSignatureKey == null) {
+			this.compressedEntryCache = builder.compressedEntryCache;
+			//the deduplicated entries are hashed in the order they are written
+			this.pipelineConfiguration = deduplication == null ? builder.pipelineConfiguration : null;
+		} else {
+			//the uncompressed data of the entries is digested by the writer
+			this.compressedEntryCache = null;
+			this.pipelineConfiguration = null;
+		}
 	}
 
+	/**
+	 * Gets the content descriptor of the archive.
+	 * <p>
+	 * As the created archive is determined by the {@link ZipFileContentDescriptor}, the returned content descriptor is a
+	 * {@link HashContentDescriptor} that is derived from it. This allows the consumers of the archive to compare the
+	 * contents without storing and comparing all the information of the archive entries.
+	 * <p>
+	 * If the digest cannot be computed, the {@link ZipFileContentDescriptor} is returned.
+	 */
 	@Override
 	public ContentDescriptor getContentDescriptor() {
-		return contentDescriptor;
+		ContentDescriptor result = digestContentDescriptor;
+		if (result == null) {
+			byte[] digest = getContentDigest();
+			if (digest == null) {
+				result = contentDescriptor;
+			} else {
+				result = HashContentDescriptor.createWithHash(digest);
+			}
+			digestContentDescriptor = result;
+		}
+		return result;
+	}
+
+	@Override
+	public void synchronizeImpl(ProviderHolderPathKey pathkey) throws IOException {
+		if (!LocalFileProvider.getProviderKeyStatic().equals(pathkey.getFileProviderKey())) {
+			super.synchronizeImpl(pathkey);
+			return;
+		}
+		ArchiveOutputCache cache = archiveOutputCache;
+		String key = cache == null ? null : getArchiveCacheKey();
+		Path target = LocalFileProvider.toRealPath(pathkey.getPath());
+		if (key != null && cache.isHardLink()) {
+			Path cachedarchive = cache.getArchive(key);
+			if (cachedarchive != null) {
+				try {
+					Files.deleteIfExists(target);
+					Files.createLink(target, cachedarchive);
+					return;
+				} catch (IOException | UnsupportedOperationException e) {
+					//hard links not supported, write the file instead
+				}
+			}
+		}
+		//the target may be a hard link to a cached archive from a previous build
+		//unlink it instead of writing in place, so the cached archive is not modified
+		Files.deleteIfExists(target);
+		//write through a file channel, so the data of STORED entries can be transferred to it directly
+		try (FileChannelOutputStream fileos = FileChannelOutputStream.open(target)) {
+			OutputStream os = fileos;
+			WritableByteChannel channel = fileos.getChannel();
+			ArchiveDigestOutputStream digestos = null;
+			if (!digestAlgorithms.isEmpty()) {
+				//the transferred data is digested as well, but the transfers are no longer zero-copy
+				digestos = new ArchiveDigestOutputStream(fileos, digestAlgorithms);
+				os = digestos;
+				channel = digestos.digestChannel(channel);
+			}
+			boolean restored = key != null && cache.restore(key, os);
+			if (!restored) {
+				if (key != null && !cache.isHardLink()) {
+					//store a copy of the written bytes, as the output may be modified in place later
+					//the transferred data is stored as well, but the transfers are no longer zero-copy
+					try (ArchiveOutputCache.StoringOutputStream storingos = cache.store(key, os)) {
+						writeArchive(storingos, storingos.storingChannel(channel));
+						storingos.commit();
+					}
+				} else {
+					writeArchive(os, channel);
+				}
+			}
+			if (digestos != null) {
+				this.digests = digestos.getDigests();
+			}
+			if (restored || key == null || !cache.isHardLink()) {
+				return;
+			}
+		}
+		//add the completed file to the cache as a hard link after the channel is closed
+		cache.store(key, target);
 	}
 
 	@Override
 	public void writeToStreamImpl(OutputStream os) throws IOException, NullPointerException {
-		ZipOutputStream zipos = new ZipOutputStream(os);
+		if (digestAlgorithms.isEmpty()) {
+			writeArchiveOrRestore(os);
+			return;
+		}
+		ArchiveDigestOutputStream digestos = new ArchiveDigestOutputStream(os, digestAlgorithms);
+		writeArchiveOrRestore(digestos);
+		this.digests = digestos.getDigests();
+	}
+
+	/**
+	 * Gets the digests of the archive that was last written by this file.
+	 * <p>
+	 * The digests are computed with the algorithms set in the builder while the archive is written.
+	 * 
+	 * @return The lowercase hexadecimal digests mapped to their algorithms or <code>null</code> if the archive wasn't
+	 *             written.
+	 */
+	public Map<String, String> getDigests() {
+		return digests;
+	}
+
+	private void writeArchiveOrRestore(OutputStream os) throws IOException {
+		ArchiveOutputCache cache = archiveOutputCache;
+		if (cache != null) {
+			String key = getArchiveCacheKey();
+			if (key != null) {
+				if (cache.restore(key, os)) {
+					return;
+				}
+				try (ArchiveOutputCache.StoringOutputStream storingos = cache.store(key, os)) {
+					writeArchive(storingos);
+					storingos.commit();
+				}
+				return;
+			}
+		}
+		writeArchive(os);
+	}
+
+	private String getArchiveCacheKey() {
+		byte[] digest = getContentDigest();
+		if (digest == null) {
+			//not cacheable
+			return null;
+		}
+		return StringUtils.toHexString(digest);
+	}
+
+	private byte[] getContentDigest() {
+		byte[] digest = contentDigest;
+		if (digest == null) {
+			digest = digestContentDescriptor(contentDescriptor);
+			if (digest == null) {
+				digest = ObjectUtils.EMPTY_BYTE_ARRAY;
+			}
+			contentDigest = digest;
+		}
+		return digest.length == 0 ? null : digest;
+	}
+
+	/**
+	 * Computes a digest that identifies the archive created with the given content descriptor.
+	 * 
+	 * @return The digest or <code>null</code> if the content descriptor doesn't identify the archive contents.
+	 */
+	private static byte[] digestContentDescriptor(ZipFileContentDescriptor contents) {
+		if (contents.isChanged(contents)) {
+			//some sub content descriptors always report changes, they don't identify the contents
+			return null;
+		}
+		MessageDigest hasher = FileUtils.getDefaultFileHasher();
+		hasher.update(OUTPUT_FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+		try (ObjectOutputStream oos = new ObjectOutputStream(
+				new DigestOutputStream(StreamUtils.nullOutputStream(), hasher))) {
+			oos.writeObject(contents);
+		} catch (IOException e) {
+			//some part of the content descriptor is not serializable
+			return null;
+		}
+		return hasher.digest();
+	}
+
+	private void writeArchive(OutputStream os) throws IOException {
+		writeArchive(os, null);
+	}
+
+	/**
+	 * Writes the archive to the argument stream, and optionally transfers entry data to the underlying channel of the
+	 * stream directly.
+	 */
+	private void writeArchive(OutputStream os, WritableByteChannel channel) throws IOException {
+		ZipArchiveOutputStream zipos = channel == null ? new ZipArchiveOutputStream(os)
+				: new ZipArchiveOutputStream(os, channel);
+		if (zip64Mode != null) {
+			zipos.setZip64Mode(zip64Mode);
+		}
+		if (jarSignatureKey != null) {
+			zipos.setJarSignature(new JarSignatureWriter(jarSignerName, jarSignatureKey, jarSignatureCertificates,
+					getDefaultModificationTime()));
+		}
 		Exception exc = null;
 		try {
 			if (contentDescriptor.transformers.isEmpty()) {
@@ -240,16 +728,35 @@ public class ZipOutputSakerFile extends SakerFileBase {
 				throw IOUtils.addExc(e, exc);
 			}
 		}
+		this.manifest = zipos.getManifest();
+	}
+
+	/**
+	 * Gets the digest tree of the resource entries that was used to compute the content descriptor.
+	 * 
+	 * @return The tree or <code>null</code> if there are no resource entries.
+	 */
+	public ResourceEntriesDigestTree getResourceEntriesDigestTree() {
+		return resourceEntriesDigestTree;
+	}
+
+	/**
+	 * Gets the manifest of the archive that was last written by this file.
+	 * 
+	 * @return The manifest or <code>null</code> if the archive wasn't written, or was restored from the cache.
+	 */
+	public ZipArchiveManifest getManifest() {
+		return manifest;
 	}
 
 	private static abstract class AbstractTransformationContext {
-		protected final ZipOutputStream zipOut;
+		protected final ZipArchiveOutputStream zipOut;
 		protected final UnsyncByteArrayOutputStream buffer = new UnsyncByteArrayOutputStream(1024 * 8);
 
 		private int currentLevel = Deflater.DEFAULT_COMPRESSION;
 		private CRC32 crc = null;
 
-		public AbstractTransformationContext(ZipOutputStream zipOut) {
+		public AbstractTransformationContext(ZipArchiveOutputStream zipOut) {
 			this.zipOut = zipOut;
 		}
 
@@ -263,14 +770,42 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 
 		protected void updateCompression(ZipEntry entry, int method, int level) {
+			int entrymethod = updateCompression(method, level);
+			if (entrymethod >= 0) {
+				entry.setMethod(entrymethod);
+			}
+		}
+
+		protected void updateCompression(ZipEntryHeader entry, int method, int level) {
+			int entrymethod = updateCompression(method, level);
+			if (entrymethod >= 0) {
+				entry.setMethod(entrymethod);
+			}
+		}
+
+		/**
+		 * Checks if the resource entries are passed to code outside of the context, so they should contain all
+		 * attributes.
+		 * <p>
+		 * If not, the context uses the default modification time for entries without one.
+		 */
+		protected boolean isExposingResourceEntries() {
+			return false;
+		}
+
+		/**
+		 * Updates the compression level of the output and returns the method to set for the entry.
+		 * 
+		 * @return The method or -1 if the method of the entry shouldn't be set.
+		 */
+		private int updateCompression(int method, int level) {
 			if (method < 0) {
 				//in case of unspecified method, use the defaults
-				method = ZipOutputStream.DEFLATED;
+				method = ZipEntry.DEFLATED;
 				level = Deflater.DEFAULT_COMPRESSION;
 			}
 			switch (method) {
-				case ZipOutputStream.DEFLATED: {
-					entry.setMethod(ZipOutputStream.DEFLATED);
+				case ZipEntry.DEFLATED: {
 					if (level < 0) {
 						level = Deflater.DEFAULT_COMPRESSION;
 					}
@@ -278,12 +813,11 @@ public class ZipOutputSakerFile extends SakerFileBase {
 						zipOut.setLevel(level);
 						this.currentLevel = level;
 					}
-					break;
+					return ZipEntry.DEFLATED;
 				}
-				case ZipOutputStream.STORED: {
+				case ZipEntry.STORED: {
 					//no need to change the output stream itself
-					entry.setMethod(ZipOutputStream.STORED);
-					break;
+					return ZipEntry.STORED;
 				}
 				default: {
 					//unknown method to us,
@@ -294,50 +828,111 @@ public class ZipOutputSakerFile extends SakerFileBase {
 						zipOut.setLevel(level);
 						this.currentLevel = level;
 					}
-					break;
+					return -1;
 				}
 			}
 		}
 
+		/**
+		 * Called before the argument file is transformed, with the same entry path as the next transform call.
+		 * <p>
+		 * The transforming contexts ignore it, as the transformers may change the path of the entry.
+		 */
+		public void beginIncludeFile(IncludeFile file) {
+		}
+
+		/**
+		 * The contents arguments identify the uncompressed contents of the entry, or <code>null</code> if not
+		 * available.
+		 */
 		public abstract void transform(ZipResourceEntry resourceentry, ZipEntry entry,
-				UnsyncByteArrayOutputStream contentbuffer) throws IOException;
+				UnsyncByteArrayOutputStream contentbuffer, Object contents) throws IOException;
 
-		public abstract void transform(ZipResourceEntry resourceentry, ZipEntry entry, InputStream input)
-				throws IOException;
+		public abstract void transform(ZipResourceEntry resourceentry, ZipEntry entry, InputStream input,
+				Object contents) throws IOException;
 
-		public abstract void transform(ZipResourceEntry resourceentry, FileHandle handle) throws IOException;
+		public abstract void transform(ZipResourceEntry resourceentry, FileHandle handle, Object contents)
+				throws IOException;
 
 		public abstract void transform(ZipResourceEntry entry, InputStream input) throws IOException;
 
 		public abstract void transformDirectory(ZipResourceEntry entry) throws IOException;
 	}
 
-	private static class NonTransformationContext extends AbstractTransformationContext {
-		private final NavigableMap<SakerPath, Boolean> entries = new TreeMap<>(SakerPath::compareToIgnoreCase);
+	private static class NonTransformationContext extends AbstractTransformationContext implements Closeable {
+		private static final byte FLAG_FILE = 0;
+		private static final byte FLAG_DIRECTORY = 1;
+		/**
+		 * The minimum size of STORED local files that are transferred directly from the file channel.
+		 */
+		private static final long DIRECT_STORED_MIN_SIZE = 64 * 1024;
+
+		private final ZipEntryNameRegistry entries = new ZipEntryNameRegistry();
 		private final FileTime defaultModificationTime;
+		private final CompressedEntryCache cache;
+		/**
+		 * The deduplicator of the file entries, or <code>null</code> if disabled.
+		 */
+		private final EntryDeduplicator deduplicator;
+		/**
+		 * Buffer for the bounded reading of inputs, lazily allocated.
+		 */
+		private byte[] readBuffer;
+		/**
+		 * The header of the entry being written. Reused for all entries.
+		 */
+		private final ZipEntryHeader header = new ZipEntryHeader();
+		/**
+		 * The encoded name of the next entry if set by {@link #beginIncludeFile(IncludeFile)}, consumed when the entry
+		 * is created.
+		 */
+		private byte[] nextEntryName;
 
-		public NonTransformationContext(ZipOutputStream zipOut, FileTime defaultmodtime) {
+		public NonTransformationContext(ZipArchiveOutputStream zipOut, FileTime defaultmodtime,
+				CompressedEntryCache cache, EntryDeduplicator deduplicator) {
 			super(zipOut);
 			this.defaultModificationTime = defaultmodtime;
+			this.cache = cache;
+			this.deduplicator = deduplicator;
 		}
 
 		@Override
-		public void transform(ZipResourceEntry resourceentry, ZipEntry entry, UnsyncByteArrayOutputStream contentbuffer)
-				throws IOException {
-			SakerPath entrypath = resourceentry.getEntryPath();
-			checkEntryFileDuplication(entrypath);
+		public void beginIncludeFile(IncludeFile file) {
+			this.nextEntryName = file.getNameBytes();
+		}
 
-			ZipEntry ze = createNextEntry(entrypath.toString(), resourceentry);
-			updateCompression(ze, resourceentry.getMethod(), resourceentry.getLevel());
+		@Override
+		public void transform(ZipResourceEntry resourceentry, ZipEntry entry, UnsyncByteArrayOutputStream contentbuffer,
+				Object contents) throws IOException {
+			ZipEntryHeader ze = createNextFileEntry(resourceentry);
+			transformBuffered(ze, resourceentry, entry.getCrc(), contentbuffer, contents);
+		}
+
+		/**
+		 * Writes a file entry with the contents in the argument buffer.
+		 * 
+		 * @param crcval
+		 *            The CRC-32 of the contents, or -1 if not known.
+		 */
+		private void transformBuffered(ZipEntryHeader ze, ZipResourceEntry resourceentry, long crcval,
+				UnsyncByteArrayOutputStream contentbuffer, Object contents) throws IOException {
+			if (deduplicator != null && contentbuffer.size() <= EntryDeduplicator.MAX_ENTRY_SIZE) {
+				if (writeDeduplicatedEntry(ze, resourceentry, contentbuffer, contents)) {
+					return;
+				}
+			}
+			//check the cache first so the content writer isn't allocated for every entry without it
+			if (cache != null && writeCachedEntry(ze, resourceentry, contents, contentbuffer.size(),
+					contentbuffer::writeTo)) {
+				return;
+			}
 			if (ze.getMethod() == ZipEntry.STORED) {
-				long zcrc = entry.getCrc();
-				if (zcrc < 0) {
+				if (crcval < 0) {
 					CRC32 crc = getCrc();
-					int size = buffer.size();
-					crc.update(buffer.getBuffer(), 0, size);
-					zcrc = crc.getValue();
+					crc.update(contentbuffer.getBuffer(), 0, contentbuffer.size());
+					crcval = crc.getValue();
 				}
-				ze.setCrc(zcrc);
+				ze.setCrc(crcval);
 				ze.setSize(contentbuffer.size());
 			}
 
@@ -347,12 +942,30 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 
 		@Override
-		public void transform(ZipResourceEntry resourceentry, ZipEntry entry, InputStream input) throws IOException {
-			SakerPath entrypath = resourceentry.getEntryPath();
-			checkEntryFileDuplication(entrypath);
-
-			ZipEntry ze = createNextEntry(entrypath.toString(), resourceentry);
-			updateCompression(ze, resourceentry.getMethod(), resourceentry.getLevel());
+		public void transform(ZipResourceEntry resourceentry, ZipEntry entry, InputStream input, Object contents)
+				throws IOException {
+			ZipEntryHeader ze = createNextFileEntry(resourceentry);
+			long size = entry.getSize();
+			//the size is not known if the entry has a data descriptor
+			//buffer the start of the contents in that case to find out if the entry fits the limits
+			long bufferlimit = -1;
+			if (deduplicator != null && isDeduplicable(ze) && size <= EntryDeduplicator.MAX_ENTRY_SIZE) {
+				bufferlimit = EntryDeduplicator.MAX_ENTRY_SIZE;
+			} else if (size < 0 && cache != null && contents != null) {
+				bufferlimit = cache.getMaxEntrySize();
+			}
+			if (bufferlimit >= 0) {
+				if (readBounded(input, bufferlimit)) {
+					transformBuffered(ze, resourceentry, entry.getCrc(), buffer, contents);
+				} else {
+					transformBufferedStream(input, ze);
+				}
+				return;
+			}
+			if (cache != null && writeCachedEntry(ze, resourceentry, contents, size,
+					os -> StreamUtils.copyStream(input, os, buffer.getBuffer()))) {
+				return;
+			}
 			if (ze.getMethod() == ZipEntry.STORED) {
 				long zcrc = entry.getCrc();
 				long zsize = entry.getSize();
@@ -371,12 +984,38 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 
 		@Override
-		public void transform(ZipResourceEntry resourceentry, FileHandle handle) throws IOException {
-			SakerPath entrypath = resourceentry.getEntryPath();
-			checkEntryFileDuplication(entrypath);
-
-			ZipEntry ze = createNextEntry(entrypath.toString(), resourceentry);
-			updateCompression(ze, resourceentry.getMethod(), resourceentry.getLevel());
+		public void transform(ZipResourceEntry resourceentry, FileHandle handle, Object contents)
+				throws IOException {
+			ZipEntryHeader ze = createNextFileEntry(resourceentry);
+			if (deduplicator != null && isDeduplicable(ze)) {
+				if (!(handle instanceof LocalFileHandle)) {
+					//the size is not known, buffer the start of the contents to find out if it fits the limit
+					try (InputStream input = handle.openInputStream()) {
+						if (readBounded(input, EntryDeduplicator.MAX_ENTRY_SIZE)) {
+							writeDeduplicatedEntry(ze, resourceentry, buffer, contents);
+						} else {
+							transformBufferedStream(input, ze);
+						}
+					}
+					return;
+				}
+				if (((LocalFileHandle) handle).size() <= EntryDeduplicator.MAX_ENTRY_SIZE) {
+					UnsyncByteArrayOutputStream buffer = this.buffer;
+					buffer.reset();
+					handle.writeTo((OutputStream) buffer);
+					writeDeduplicatedEntry(ze, resourceentry, buffer, contents);
+					return;
+				}
+			}
+			if (ze.getMethod() == ZipEntry.STORED && handle instanceof LocalFileHandle) {
+				if (writeStoredLocalFile(ze, (LocalFileHandle) handle, contents)) {
+					return;
+				}
+			}
+			if (cache != null && writeCachedEntry(ze, resourceentry, contents,
+					handle instanceof LocalFileHandle ? ((LocalFileHandle) handle).size() : -1, handle::writeTo)) {
+				return;
+			}
 
 			if (ze.getMethod() == ZipEntry.STORED) {
 				UnsyncByteArrayOutputStream buffer = this.buffer;
@@ -391,6 +1030,10 @@ public class ZipOutputSakerFile extends SakerFileBase {
 				ze.setSize(size);
 				zipOut.putNextEntry(ze);
 				buffer.writeTo(zipOut);
+			} else if (handle instanceof LocalFileHandle && ZipArchiveOutputStream.isDirectInputSupported()) {
+				//compress from the page cache without copying the contents to the heap
+				zipOut.putNextEntry(ze);
+				((LocalFileHandle) handle).writeTo(zipOut);
 			} else {
 				zipOut.putNextEntry(ze);
 				handle.writeTo(zipOut);
@@ -401,16 +1044,12 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		@Override
 		public void transform(ZipResourceEntry resourceentry, InputStream input) throws IOException {
-			SakerPath entrypath = resourceentry.getEntryPath();
-			checkEntryFileDuplication(entrypath);
-
-			ZipEntry ze = createNextEntry(entrypath.toString(), resourceentry);
-			updateCompression(ze, resourceentry.getMethod(), resourceentry.getLevel());
+			ZipEntryHeader ze = createNextFileEntry(resourceentry);
 
 			transformStream(input, ze);
 		}
 
-		private void transformStream(InputStream input, ZipEntry ze) throws IOException {
+		private void transformStream(InputStream input, ZipEntryHeader ze) throws IOException {
 			if (ze.getMethod() == ZipEntry.STORED) {
 				transformStoredStream(input, ze);
 			} else {
@@ -420,7 +1059,31 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			}
 		}
 
-		private void transformStoredStream(InputStream input, ZipEntry ze) throws IOException {
+		/**
+		 * Writes an entry with the contents of the input, that is preceded by the contents in the buffer.
+		 */
+		private void transformBufferedStream(InputStream input, ZipEntryHeader ze) throws IOException {
+			UnsyncByteArrayOutputStream buffer = this.buffer;
+			if (ze.getMethod() == ZipEntry.STORED) {
+				buffer.readFrom(input);
+				CRC32 crc = getCrc();
+				int size = buffer.size();
+				crc.update(buffer.getBuffer(), 0, size);
+
+				ze.setCrc(crc.getValue());
+				ze.setSize(size);
+
+				zipOut.putNextEntry(ze);
+				buffer.writeTo(zipOut);
+			} else {
+				zipOut.putNextEntry(ze);
+				buffer.writeTo(zipOut);
+				StreamUtils.copyStream(input, zipOut, buffer.getBuffer());
+			}
+			zipOut.closeEntry();
+		}
+
+		private void transformStoredStream(InputStream input, ZipEntryHeader ze) throws IOException {
 			UnsyncByteArrayOutputStream buffer = this.buffer;
 			buffer.reset();
 			buffer.readFrom(input);
@@ -439,8 +1102,8 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		@Override
 		public void transformDirectory(ZipResourceEntry entry) throws IOException {
 			SakerPath entrypath = entry.getEntryPath();
-			if (addCheckEntryDirectoryDuplication(entrypath)) {
-				ZipEntry ze = createNextEntry(entrypath + "/", entry);
+			ZipEntryHeader ze = createNextEntry(entrypath, true, entry);
+			if (addCheckEntryDirectoryDuplication(ze, entrypath)) {
 				if (ze.getMethod() == ZipEntry.STORED) {
 					ze.setCrc(0); // zero length data has 0 crc
 					ze.setSize(0);
@@ -452,28 +1115,195 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		}
 
-		private ZipEntry createNextEntry(String entrypath, ZipResourceEntry resourceentry) {
-			ZipEntry ze = new ZipEntry(entrypath);
+		/**
+		 * Reads the input to the buffer until it ends, or the limit is exceeded.
+		 * 
+		 * @return <code>true</code> if the input was fully read.
+		 */
+		private boolean readBounded(InputStream input, long limit) throws IOException {
+			UnsyncByteArrayOutputStream buffer = this.buffer;
+			buffer.reset();
+			byte[] chunk = readBuffer;
+			if (chunk == null) {
+				chunk = new byte[1024 * 8];
+				readBuffer = chunk;
+			}
+			for (int r; (r = input.read(chunk)) > 0;) {
+				buffer.write(chunk, 0, r);
+				if (buffer.size() > limit) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean isDeduplicable(ZipEntryHeader ze) {
+			int method = ze.getMethod();
+			return method == ZipEntry.STORED || method == ZipEntry.DEFLATED;
+		}
+
+		private static int getCompressionLevel(ZipResourceEntry resourceentry) {
+			int level = resourceentry.getLevel();
+			if (level < 0 || resourceentry.getMethod() < 0) {
+				level = Deflater.DEFAULT_COMPRESSION;
+			}
+			return level;
+		}
+
+		/**
+		 * Writes a file entry with the contents in the argument buffer, and reuses the data of a previously written
+		 * entry with the same contents if found.
+		 * 
+		 * @return <code>true</code> if the entry was written.
+		 */
+		private boolean writeDeduplicatedEntry(ZipEntryHeader ze, ZipResourceEntry resourceentry,
+				UnsyncByteArrayOutputStream contentbuffer, Object contents) throws IOException {
+			int method = ze.getMethod();
+			if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+				return false;
+			}
+			int level = getCompressionLevel(resourceentry);
+			EntryDeduplicator.Key key;
+			if (method == ZipEntry.STORED) {
+				int alignment = ze.getAlignment();
+				key = deduplicator.createKey(contentbuffer.getBuffer(), 0, contentbuffer.size(), method, 0,
+						alignment > 1 ? alignment : 0);
+			} else {
+				key = deduplicator.createKey(contentbuffer.getBuffer(), 0, contentbuffer.size(), method, level, 0);
+			}
+			EntryDeduplicator.WrittenEntry written = deduplicator.get(key);
+			if (written != null) {
+				CompressedEntry compressed = written.getCompressed();
+				if (compressed == null) {
+					zipOut.writeSharedEntry(ze, written.getIndex());
+				} else {
+					writeCompressedEntry(ze, compressed);
+				}
+				return true;
+			}
+			CompressedEntry compressed = null;
+			if (cache != null && contents != null) {
+				compressed = cache.get(contents, method, level, contentbuffer.size(), contentbuffer::writeTo);
+			}
+			if (compressed == null) {
+				compressed = CompressedEntryCache.compress(method, level, contentbuffer::writeTo);
+			}
+			int index = zipOut.getEntryCount();
+			writeCompressedEntry(ze, compressed);
+			deduplicator.put(key, index, compressed);
+			return true;
+		}
+
+		/**
+		 * @param size
+		 *            The size of the contents, or -1 if not known. If -1, the content writer must be able to write the
+		 *            contents again if the entry is not written.
+		 */
+		private boolean writeCachedEntry(ZipEntryHeader ze, ZipResourceEntry resourceentry, Object contents,
+				long size, CompressedEntryCache.ContentWriter contentwriter) throws IOException {
+			if (cache == null || contents == null) {
+				return false;
+			}
+			int level = getCompressionLevel(resourceentry);
+			CompressedEntry compressed = cache.get(contents, ze.getMethod(), level, size, contentwriter);
+			if (compressed == null) {
+				return false;
+			}
+			writeCompressedEntry(ze, compressed);
+			return true;
+		}
+
+		/**
+		 * Writes a STORED entry directly from the file channel if the file is not small.
+		 * <p>
+		 * The CRC of the contents is remembered in the cache, so the contents are not read again to compute it the
+		 * next time the entry is written.
+		 * 
+		 * @return <code>true</code> if the entry was written.
+		 */
+		private boolean writeStoredLocalFile(ZipEntryHeader ze, LocalFileHandle handle, Object contents)
+				throws IOException {
+			try (FileChannel channel = handle.openChannel()) {
+				long minsize = DIRECT_STORED_MIN_SIZE;
+				if (cache != null) {
+					//smaller files are retained by the cache
+					minsize = Math.max(minsize, cache.getMaxEntrySize());
+				}
+				if (channel.size() < minsize) {
+					return false;
+				}
+				long crc = cache == null ? -1 : cache.getCrc(contents);
+				ze.setCrc(crc);
+				long writtencrc = zipOut.writeStoredEntry(ze, channel);
+				if (crc == -1 && cache != null) {
+					cache.putCrc(contents, writtencrc);
+				}
+				return true;
+			}
+		}
+
+		/**
+		 * Writes a file entry that was compressed by the {@link EntryPipeline}.
+		 */
+		public void transform(ZipResourceEntry resourceentry, CompressedEntry compressed) throws IOException {
+			writeCompressedEntry(createNextFileEntry(resourceentry), compressed);
+		}
+
+		private void writeCompressedEntry(ZipEntryHeader ze, CompressedEntry compressed) throws IOException {
+			ByteArrayRegion data = compressed.getData();
+			ze.setCrc(compressed.getCrc());
+			ze.setSize(compressed.getSize());
+			ze.setCompressedSize(data.getLength());
+			zipOut.writeRawEntry(ze, data);
+		}
+
+		private ZipEntryHeader createNextFileEntry(ZipResourceEntry resourceentry) throws IOException {
+			SakerPath entrypath = resourceentry.getEntryPath();
+			ZipEntryHeader ze = createNextEntry(entrypath, false, resourceentry);
+			checkEntryFileDuplication(ze, entrypath);
+			return ze;
+		}
+
+		private ZipEntryHeader createNextEntry(SakerPath entrypath, boolean directory,
+				ZipResourceEntry resourceentry) {
+			ZipEntryHeader ze = header;
+			ze.reset();
+			byte[] name = nextEntryName;
+			if (name != null) {
+				nextEntryName = null;
+				ze.setName(name, directory);
+			} else {
+				ze.setName(entrypath, directory);
+			}
 			FileTime modtime = resourceentry.getModificationTime();
 
-			ze.setLastModifiedTime(modtime == null ? defaultModificationTime : modtime);
+			ze.setModificationTime(modtime == null ? defaultModificationTime : modtime);
 			updateCompression(ze, resourceentry.getMethod(), resourceentry.getLevel());
+			ze.setAlignment(resourceentry.getAlignment());
 			return ze;
 		}
 
-		private void checkEntryFileDuplication(SakerPath entrypath) {
-			if (entries.putIfAbsent(entrypath, Boolean.FALSE) != null) {
+		private void checkEntryFileDuplication(ZipEntryHeader ze, SakerPath entrypath) throws IOException {
+			if (entries.putIfAbsent(ze.getNameBytes(), 0, ze.getNameLength(),
+					FLAG_FILE) != ZipEntryNameRegistry.ABSENT) {
 				throw new IllegalArgumentException("Duplicate zip file entry: " + entrypath);
 			}
 		}
 
-		private boolean addCheckEntryDirectoryDuplication(SakerPath entrypath) {
-			Boolean prev = entries.putIfAbsent(entrypath, Boolean.TRUE);
-			if (prev == Boolean.FALSE) {
+		private boolean addCheckEntryDirectoryDuplication(ZipEntryHeader ze, SakerPath entrypath)
+				throws IOException {
+			//without the trailing slash
+			int prev = entries.putIfAbsent(ze.getNameBytes(), 0, ze.getNameLength() - 1, FLAG_DIRECTORY);
+			if (prev == FLAG_FILE) {
 				//already present as a file
 				throw new IllegalArgumentException("Zip file entry already exists for directory: " + entrypath);
 			}
-			return prev == null;
+			return prev == ZipEntryNameRegistry.ABSENT;
+		}
+
+		@Override
+		public void close() throws IOException {
+			entries.close();
 		}
 
 	}
@@ -544,9 +1374,9 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		protected final List<TransformerState> transformers;
 		protected final ArrayDeque<PendingResource> pendingResources = new ArrayDeque<>();
 		protected final FileTime defaultModificationTime;
-		private final NavigableSet<SakerPath> entries = new TreeSet<>(SakerPath::compareToIgnoreCase);
+		private final ZipEntryNameRegistry entries = new ZipEntryNameRegistry();
 
-		public TransformationContextImpl(ZipOutputStream zipos, List<ZipResourceTransformer> transformers,
+		public TransformationContextImpl(ZipArchiveOutputStream zipos, List<ZipResourceTransformer> transformers,
 				FileTime defaultmodificationtime) {
 			super(zipos);
 			this.defaultModificationTime = defaultmodificationtime;
@@ -556,6 +1386,12 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			}
 		}
 
+		@Override
+		protected boolean isExposingResourceEntries() {
+			//the entries are passed to the transformers
+			return true;
+		}
+
 		@Override
 		public void appendDirectory(SakerPath entrypath, FileTime modificationtime) {
 			appendDirectory(ZipResourceEntry.create(entrypath, modificationtime));
@@ -598,7 +1434,7 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		@Override
 		public void transform(ZipResourceEntry resourceentry, ZipEntry zipentry,
-				UnsyncByteArrayOutputStream contentbuffer) throws IOException {
+				UnsyncByteArrayOutputStream contentbuffer, Object contents) throws IOException {
 			try (UnsyncByteArrayInputStream is = new UnsyncByteArrayInputStream(contentbuffer.toByteArrayRegion())) {
 				transformSingleEntryImpl(resourceentry, is, zipentry);
 
@@ -607,7 +1443,8 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 
 		@Override
-		public void transform(ZipResourceEntry resourceentry, ZipEntry zipentry, InputStream input) throws IOException {
+		public void transform(ZipResourceEntry resourceentry, ZipEntry zipentry, InputStream input, Object contents)
+				throws IOException {
 			transformSingleEntryImpl(resourceentry, input, zipentry);
 
 			executePendingTransformations();
@@ -621,7 +1458,8 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 
 		@Override
-		public void transform(ZipResourceEntry resourceentry, FileHandle handle) throws IOException {
+		public void transform(ZipResourceEntry resourceentry, FileHandle handle, Object contents)
+				throws IOException {
 			try (InputStream is = handle.openInputStream()) {
 				transform(resourceentry, is);
 			}
@@ -636,16 +1474,20 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		@Override
 		public void close() throws IOException {
-			for (TransformerState transformer : transformers) {
-				transformer.transformer.flush(this);
-				executePendingTransformations();
-			}
-			for (Iterator<TransformerState> it = transformers.iterator(); it.hasNext();) {
-				TransformerState transformer = it.next();
-				//remove first, so no more transformations
-				it.remove();
-				transformer.transformer.end(this);
-				executePendingTransformations();
+			try {
+				for (TransformerState transformer : transformers) {
+					transformer.transformer.flush(this);
+					executePendingTransformations();
+				}
+				for (Iterator<TransformerState> it = transformers.iterator(); it.hasNext();) {
+					TransformerState transformer = it.next();
+					//remove first, so no more transformations
+					it.remove();
+					transformer.transformer.end(this);
+					executePendingTransformations();
+				}
+			} finally {
+				entries.close();
 			}
 		}
 
@@ -731,7 +1573,7 @@ public class ZipOutputSakerFile extends SakerFileBase {
 				}
 			}
 
-			zipOut.putNextEntry(ze);
+			zipOut.putNextEntry(ze, entry.getAlignment());
 			if (input != null) {
 				transformingBuffer.writeTo(zipOut);
 				StreamUtils.copyStream(input, zipOut, transformingBuffer.getBuffer());
@@ -739,14 +1581,14 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			zipOut.closeEntry();
 		}
 
-		private void checkEntryDuplication(SakerPath entrypath) {
+		private void checkEntryDuplication(SakerPath entrypath) throws IOException {
 			if (!entries.add(entrypath)) {
 				throw new IllegalArgumentException("Duplicate zip entry: " + entrypath);
 			}
 		}
 	}
 
-	private void writeZipWithTransformers(ZipOutputStream zipos) throws IOException {
+	private void writeZipWithTransformers(ZipArchiveOutputStream zipos) throws IOException {
 		List<ZipResourceTransformer> transformers = new ArrayList<>();
 		for (ZipResourceTransformerFactory factory : contentDescriptor.transformers) {
 			ZipResourceTransformer transformer = factory.createTransformer();
@@ -762,29 +1604,133 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 	}
 
-	private void writeNonTransformingZip(ZipOutputStream zipos) throws IOException {
-		NonTransformationContext context = new NonTransformationContext(zipos, getDefaultModificationTime());
-		writeZipFiles(context);
-		writeZipIncludes(context);
+	private void writeNonTransformingZip(ZipArchiveOutputStream zipos) throws IOException {
+		try (NonTransformationContext context = new NonTransformationContext(zipos, getDefaultModificationTime(),
+				compressedEntryCache, deduplication == null ? null : new EntryDeduplicator(deduplication))) {
+			writeZipFiles(context);
+			writeZipIncludes(context);
+		}
 	}
 
 	private void writeZipFiles(AbstractTransformationContext context) throws IOException {
 		if (files.isEmpty()) {
 			return;
 		}
+		if (pipelineConfiguration != null && context instanceof NonTransformationContext) {
+			//the pipeline reads the inputs on its own threads, so the prefetcher is not used with it
+			writeZipFilesPipelined((NonTransformationContext) context);
+			return;
+		}
 		FileTime defaultmodtime = getDefaultModificationTime();
+		try (InputPrefetcher prefetcher = createInputPrefetcher()) {
+			int index = 0;
+			for (IncludeFile includefile : files) {
+				FileHandle handle = includefile.fileHandle;
+				ZipResourceEntry resourceentry = includefile.resourceEntry;
+				if (resourceentry.getModificationTime() == null && context.isExposingResourceEntries()) {
+					resourceentry = resourceentry.withModificationTime(defaultmodtime);
+				}
+				context.beginIncludeFile(includefile);
+				if (handle == null) {
+					context.transformDirectory(resourceentry);
+				} else {
+					if (prefetcher != null && handle instanceof LocalFileHandle) {
+						handle = prefetcher.take(index, (LocalFileHandle) handle);
+					}
+					context.transform(resourceentry, handle, includefile.contentDescriptor);
+				}
+				++index;
+			}
+		}
+	}
+
+	private void writeZipFilesPipelined(NonTransformationContext context) throws IOException {
+		//the files in submission order, with their pipeline results
+		ArrayDeque<IncludeFile> pendingfiles = new ArrayDeque<>();
+		ArrayDeque<CompletableFuture<CompressedEntry>> pendingresults = new ArrayDeque<>();
+		try (EntryPipeline pipeline = new EntryPipeline(pipelineConfiguration, compressedEntryCache)) {
+			Iterator<? extends IncludeFile> it = files.iterator();
+			while (true) {
+				while (it.hasNext() && (pendingfiles.isEmpty() || !pipeline.isFull())) {
+					IncludeFile includefile = it.next();
+					pendingfiles.add(includefile);
+					pendingresults.add(submitPipelined(pipeline, includefile));
+				}
+				IncludeFile includefile = pendingfiles.pollFirst();
+				if (includefile == null) {
+					break;
+				}
+				CompletableFuture<CompressedEntry> result = pendingresults.pollFirst();
+				context.beginIncludeFile(includefile);
+				if (includefile.fileHandle == null) {
+					context.transformDirectory(includefile.resourceEntry);
+					continue;
+				}
+				CompressedEntry compressed = result == NOT_PIPELINED ? null : pipeline.take(result);
+				if (compressed != null) {
+					context.transform(includefile.resourceEntry, compressed);
+				} else {
+					context.transform(includefile.resourceEntry, includefile.fileHandle,
+							includefile.contentDescriptor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Placeholder result for the entries that are not processed by the pipeline, as {@link ArrayDeque} doesn't
+	 * permit <code>null</code>.
+	 */
+	private static final CompletableFuture<CompressedEntry> NOT_PIPELINED = CompletableFuture.completedFuture(null);
+
+	private static CompletableFuture<CompressedEntry> submitPipelined(EntryPipeline pipeline,
+			IncludeFile includefile) {
+		if (includefile.fileHandle == null) {
+			return NOT_PIPELINED;
+		}
+		ZipResourceEntry resourceentry = includefile.resourceEntry;
+		int method = resourceentry.getMethod();
+		int level = resourceentry.getLevel();
+		if (method < 0) {
+			method = ZipEntry.DEFLATED;
+			level = Deflater.DEFAULT_COMPRESSION;
+		} else if (method == ZipEntry.DEFLATED) {
+			if (level < 0) {
+				level = Deflater.DEFAULT_COMPRESSION;
+			}
+		} else if (method != ZipEntry.STORED) {
+			//unknown method, handled by the archive writer
+			return NOT_PIPELINED;
+		} else if (includefile.fileHandle instanceof LocalFileHandle) {
+			//the archive writer may transfer it directly from the file channel
+			return NOT_PIPELINED;
+		}
+		return pipeline.submit(includefile.fileHandle, includefile.contentDescriptor, method, level);
+	}
+
+	/**
+	 * Creates a prefetcher for the local input files, or <code>null</code> if not supported on the current runtime.
+	 * <p>
+	 * The prefetcher is only used when the files are not written through the {@link EntryPipeline}. The files that
+	 * may be written without reading them to the heap are not prefetched. These are the STORED files that are
+	 * transferred from the file channel, and the files that may be found in the compressed entry cache.
+	 */
+	private InputPrefetcher createInputPrefetcher() {
+		if (!InputPrefetcher.isSupported()) {
+			return null;
+		}
+		LocalFileHandle[] handles = new LocalFileHandle[files.size()];
+		int i = 0;
 		for (IncludeFile includefile : files) {
 			FileHandle handle = includefile.fileHandle;
-			ZipResourceEntry resourceentry = includefile.resourceEntry;
-			if (resourceentry.getModificationTime() == null) {
-				resourceentry = resourceentry.withModificationTime(defaultmodtime);
-			}
-			if (handle == null) {
-				context.transformDirectory(resourceentry);
-			} else {
-				context.transform(resourceentry, handle);
+			//only the local files, other handles may have their contents in memory already
+			if (handle instanceof LocalFileHandle && includefile.resourceEntry.getMethod() != ZipEntry.STORED
+					&& (compressedEntryCache == null || includefile.contentDescriptor == null)) {
+				handles[i] = (LocalFileHandle) handle;
 			}
+			++i;
 		}
+		return new InputPrefetcher(handles, InputPrefetcher.DEFAULT_BYTE_BUDGET);
 	}
 
 	private void writeZipIncludes(AbstractTransformationContext context) throws IOException {
@@ -792,12 +1738,16 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			return;
 		}
 		NavigableMap<SakerPath, ZipResourceEntry> multientryaddpaths = new TreeMap<>();
-		for (Entry<FileHandle, IncludeResourceMapping> incentry : includes.entrySet()) {
+		for (Entry<FileHandle, IncludeArchive> incentry : includes.entrySet()) {
 			FileHandle handle = incentry.getKey();
-			IncludeResourceMapping inc = incentry.getValue();
+			IncludeArchive includearchive = incentry.getValue();
+			IncludeResourceMapping inc = includearchive.resourceMapping;
+			ContentDescriptor archivecontents = includearchive.contentDescriptor;
 			try (InputStream archivein = handle.openInputStream();
-					ZipInputStream zis = new ZipInputStream(archivein)) {
+					ZipArchiveInputStream zis = new ZipArchiveInputStream(archivein)) {
+				int entryindex = -1;
 				for (ZipEntry ze; (ze = zis.getNextEntry()) != null;) {
+					++entryindex;
 					boolean directory = ze.isDirectory();
 
 					ZipResourceEntry zipresourceentry = ZipResourceEntry.from(ze);
@@ -829,6 +1779,8 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 						Entry<SakerPath, ZipResourceEntry> addentrypath = multientryaddpaths.pollFirstEntry();
 						if (addentrypath != null) {
+							Object entrycontents = archivecontents == null ? null
+									: new ArchiveEntryContents(archivecontents, entryindex);
 							if (!multientryaddpaths.isEmpty()) {
 								//buffer the resource data and transform for each additional entry path
 								UnsyncByteArrayOutputStream bytebuffer = context.buffer;
@@ -836,14 +1788,14 @@ public class ZipOutputSakerFile extends SakerFileBase {
 								bytebuffer.readFrom(zis);
 
 								while (true) {
-									context.transform(addentrypath.getValue(), ze, bytebuffer);
+									context.transform(addentrypath.getValue(), ze, bytebuffer, entrycontents);
 									addentrypath = multientryaddpaths.pollFirstEntry();
 									if (addentrypath == null) {
 										break;
 									}
 								}
 							} else {
-								context.transform(addentrypath.getValue(), ze, zis);
+								context.transform(addentrypath.getValue(), ze, zis, entrycontents);
 							}
 						}
 					}
@@ -869,43 +1821,71 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		}
 	}
 
+	/**
+	 * Gets the paths of the added entries that are written before the others, in order.
+	 */
+	private static List<SakerPath> getOrderedPaths(NavigableMap<SakerPath, IncludeFile> files,
+			List<SakerPath> order) {
+		if (order == null) {
+			return Collections.emptyList();
+		}
+		Set<SakerPath> result = new LinkedHashSet<>();
+		IncludeFile metainf = files.get(PATH_META_INF);
+		if (metainf != null && metainf.fileHandle == null) {
+			//the directory of the manifest precedes it
+			result.add(PATH_META_INF);
+		}
+		if (files.containsKey(PATH_MANIFEST)) {
+			result.add(PATH_MANIFEST);
+		}
+		for (SakerPath path : order) {
+			if (files.containsKey(path)) {
+				result.add(path);
+			}
+		}
+		return ImmutableUtils.makeImmutableList(result);
+	}
+
+	private static Collection<? extends IncludeFile> orderFiles(NavigableMap<SakerPath, IncludeFile> files,
+			List<SakerPath> orderedpaths) {
+		if (orderedpaths.isEmpty()) {
+			return files.values();
+		}
+		List<IncludeFile> result = new ArrayList<>(files.size());
+		for (SakerPath path : orderedpaths) {
+			result.add(files.get(path));
+		}
+		Set<SakerPath> ordered = new HashSet<>(orderedpaths);
+		for (Entry<SakerPath, IncludeFile> entry : files.entrySet()) {
+			if (!ordered.contains(entry.getKey())) {
+				result.add(entry.getValue());
+			}
+		}
+		return result;
+	}
+
 	protected final FileTime getDefaultModificationTime() {
 		return contentDescriptor.defaultEntryModificationTime;
 	}
 
 	/**
 	 * Creates a content descriptor that contains the information from the resource entries in the argument.
+	 * <p>
+	 * The created digest tree is set to {@link #resourceEntriesDigestTree}.
 	 */
-	private static ContentDescriptor getResourceEntriesContentDescriptor(Iterable<? extends IncludeFile> entries) {
+	private ContentDescriptor getResourceEntriesContentDescriptor(Iterable<? extends IncludeFile> entries,
+			ResourceEntriesDigestTree previoustree) {
 		//a hash content descriptor is created instead of storing each and every resource entry and checking for equality
-		Iterator<? extends IncludeFile> it = entries.iterator();
-		if (!it.hasNext()) {
+		ResourceEntriesDigestTree.Builder treebuilder = new ResourceEntriesDigestTree.Builder(previoustree);
+		for (IncludeFile incfile : entries) {
+			treebuilder.add(incfile.resourceEntry);
+		}
+		ResourceEntriesDigestTree tree = treebuilder.build();
+		this.resourceEntriesDigestTree = tree;
+		if (tree == null) {
 			return EmptyContentDescriptor.INSTANCE;
 		}
-
-		//buffer for other fields
-		byte[] buffer = new byte[Long.BYTES + Integer.BYTES * 2];
-		MessageDigest hasher = FileUtils.getDefaultFileHasher();
-		do {
-			IncludeFile incfile = it.next();
-			ZipResourceEntry entry = incfile.resourceEntry;
-			hasher.update(entry.getEntryPath().toString().getBytes(StandardCharsets.UTF_8));
-			FileTime modtime = entry.getModificationTime();
-			int idx = 0;
-			if (modtime != null) {
-				SerialUtils.writeLongToBuffer(modtime.toMillis(), buffer, idx);
-				idx += Long.BYTES;
-			}
-			int method = entry.getMethod();
-			int level = entry.getLevel();
-			SerialUtils.writeIntToBuffer(method, buffer, idx);
-			idx += Integer.BYTES;
-			SerialUtils.writeIntToBuffer(level, buffer, idx);
-			idx += Integer.BYTES;
-
-			hasher.update(buffer, 0, idx);
-		} while (it.hasNext());
-		return HashContentDescriptor.createWithHash(hasher.digest());
+		return HashContentDescriptor.createWithHash(tree.getRootDigest());
 	}
 
 	protected static class ZipFileContentDescriptor implements ContentDescriptor, Externalizable {
@@ -916,6 +1896,22 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		protected ContentDescriptor subPathContents;
 		protected ContentDescriptor entriesContents;
 		protected List<ZipResourceTransformerFactory> transformers;
+		/**
+		 * The paths of the entries that are written first, or <code>null</code> if all entries are in path order.
+		 */
+		protected List<SakerPath> entryOrder;
+		/**
+		 * The identity of the signer key, or <code>null</code> if the archive is not signed.
+		 */
+		protected ContentDescriptor jarSignature;
+		/**
+		 * The deduplication mode, or <code>null</code> if disabled.
+		 */
+		protected ZipDeduplication deduplication;
+		/**
+		 * The ZIP64 mode, or <code>null</code> if the extensions are used as needed.
+		 */
+		protected Zip64Mode zip64Mode;
 
 		/**
 		 * For {@link Externalizable}.
@@ -925,12 +1921,17 @@ public class ZipOutputSakerFile extends SakerFileBase {
 
 		public ZipFileContentDescriptor(FileTime defaultEntryModificationTime, ContentDescriptor subContents,
 				ContentDescriptor subPathContents, ContentDescriptor entriesContents,
-				List<ZipResourceTransformerFactory> transformers) {
+				List<ZipResourceTransformerFactory> transformers, List<SakerPath> entryOrder,
+				ContentDescriptor jarSignature, ZipDeduplication deduplication, Zip64Mode zip64Mode) {
 			this.defaultEntryModificationTime = defaultEntryModificationTime;
 			this.subContents = subContents;
 			this.subPathContents = subPathContents;
 			this.entriesContents = entriesContents;
 			this.transformers = transformers;
+			this.entryOrder = entryOrder;
+			this.jarSignature = jarSignature;
+			this.deduplication = deduplication;
+			this.zip64Mode = zip64Mode;
 		}
 
 		@Override
@@ -940,6 +1941,10 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			out.writeObject(subPathContents);
 			out.writeObject(entriesContents);
 			SerialUtils.writeExternalCollection(out, transformers);
+			SerialUtils.writeExternalCollection(out, entryOrder);
+			out.writeObject(jarSignature);
+			out.writeObject(deduplication);
+			out.writeObject(zip64Mode);
 		}
 
 		@Override
@@ -949,6 +1954,10 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			subPathContents = (ContentDescriptor) in.readObject();
 			entriesContents = (ContentDescriptor) in.readObject();
 			transformers = SerialUtils.readExternalImmutableList(in);
+			entryOrder = SerialUtils.readExternalImmutableList(in);
+			jarSignature = (ContentDescriptor) in.readObject();
+			deduplication = (ZipDeduplication) in.readObject();
+			zip64Mode = (Zip64Mode) in.readObject();
 		}
 
 		@Override
@@ -972,6 +1981,18 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			if (!Objects.equals(transformers, zipcd.transformers)) {
 				return true;
 			}
+			if (!Objects.equals(entryOrder, zipcd.entryOrder)) {
+				return true;
+			}
+			if (!Objects.equals(jarSignature, zipcd.jarSignature)) {
+				return true;
+			}
+			if (deduplication != zipcd.deduplication) {
+				return true;
+			}
+			if (zip64Mode != zipcd.zip64Mode) {
+				return true;
+			}
 			return false;
 		}
 
@@ -979,12 +2000,16 @@ public class ZipOutputSakerFile extends SakerFileBase {
 		public int hashCode() {
 			final int prime = 31;
 			int result = 1;
+			result = prime * result + ((deduplication == null) ? 0 : deduplication.hashCode());
 			result = prime * result
 					+ ((defaultEntryModificationTime == null) ? 0 : defaultEntryModificationTime.hashCode());
 			result = prime * result + ((subContents == null) ? 0 : subContents.hashCode());
 			result = prime * result + ((subPathContents == null) ? 0 : subPathContents.hashCode());
 			result = prime * result + ((entriesContents == null) ? 0 : entriesContents.hashCode());
+			result = prime * result + ((entryOrder == null) ? 0 : entryOrder.hashCode());
+			result = prime * result + ((jarSignature == null) ? 0 : jarSignature.hashCode());
 			result = prime * result + ((transformers == null) ? 0 : transformers.hashCode());
+			result = prime * result + ((zip64Mode == null) ? 0 : zip64Mode.hashCode());
 			return result;
 		}
 
@@ -997,6 +2022,8 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			if (getClass() != obj.getClass())
 				return false;
 			ZipFileContentDescriptor other = (ZipFileContentDescriptor) obj;
+			if (deduplication != other.deduplication)
+				return false;
 			if (defaultEntryModificationTime == null) {
 				if (other.defaultEntryModificationTime != null)
 					return false;
@@ -1017,11 +2044,23 @@ public class ZipOutputSakerFile extends SakerFileBase {
 					return false;
 			} else if (!entriesContents.equals(other.entriesContents))
 				return false;
+			if (entryOrder == null) {
+				if (other.entryOrder != null)
+					return false;
+			} else if (!entryOrder.equals(other.entryOrder))
+				return false;
+			if (jarSignature == null) {
+				if (other.jarSignature != null)
+					return false;
+			} else if (!jarSignature.equals(other.jarSignature))
+				return false;
 			if (transformers == null) {
 				if (other.transformers != null)
 					return false;
 			} else if (!transformers.equals(other.transformers))
 				return false;
+			if (zip64Mode != other.zip64Mode)
+				return false;
 			return true;
 		}
 
@@ -1038,6 +2077,22 @@ public class ZipOutputSakerFile extends SakerFileBase {
 			builder.append(entriesContents);
 			builder.append(", transformers=");
 			builder.append(transformers);
+			if (entryOrder != null) {
+				builder.append(", entryOrder=");
+				builder.append(entryOrder);
+			}
+			if (jarSignature != null) {
+				builder.append(", jarSignature=");
+				builder.append(jarSignature);
+			}
+			if (deduplication != null) {
+				builder.append(", deduplication=");
+				builder.append(deduplication);
+			}
+			if (zip64Mode != null) {
+				builder.append(", zip64Mode=");
+				builder.append(zip64Mode);
+			}
 			builder.append("]");
 			return builder.toString();
 		}
@@ -35,12 +35,33 @@ public final class StoredCompressionIncludeResourceMapping implements IncludeRes
 
 	public static final StoredCompressionIncludeResourceMapping INSTANCE = new StoredCompressionIncludeResourceMapping();
 
+	/**
+	 * The alignment to set for the entries, or 0 to keep the alignment of the entries.
+	 */
+	private int alignment;
+
 	/**
 	 * For {@link Externalizable}.
 	 */
 	public StoredCompressionIncludeResourceMapping() {
 	}
 
+	private StoredCompressionIncludeResourceMapping(int alignment) {
+		this.alignment = alignment;
+	}
+
+	/**
+	 * Gets the mapping that stores the entries with the given data alignment.
+	 * 
+	 * @see ZipResourceEntry#withAlignment(int)
+	 */
+	public static StoredCompressionIncludeResourceMapping get(int alignment) {
+		if (alignment <= 0) {
+			return INSTANCE;
+		}
+		return new StoredCompressionIncludeResourceMapping(alignment);
+	}
+
 	@Override
 	@SuppressWarnings("deprecation")
 	public Set<SakerPath> mapResourcePath(SakerPath archivepath, boolean directory) {
@@ -49,33 +70,40 @@ public final class StoredCompressionIncludeResourceMapping implements IncludeRes
 
 	@Override
 	public Collection<? extends ZipResourceEntry> mapResource(ZipResourceEntry resourceentry, boolean directory) {
-		if (resourceentry.getMethod() != ZipEntry.STORED) {
-			return ImmutableUtils.singletonSet(resourceentry.asStoredEntry());
+		ZipResourceEntry result = resourceentry;
+		if (result.getMethod() != ZipEntry.STORED) {
+			result = result.asStoredEntry();
+		}
+		if (alignment > 0 && result.getAlignment() != alignment) {
+			result = result.withAlignment(alignment);
 		}
-		return ImmutableUtils.singletonSet(resourceentry);
+		return ImmutableUtils.singletonSet(result);
 	}
 
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeInt(alignment);
 	}
 
 	@Override
 	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		alignment = in.readInt();
 	}
 
 	@Override
 	public int hashCode() {
-		return getClass().getName().hashCode();
+		return getClass().getName().hashCode() * 31 + alignment;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		return ObjectUtils.isSameClass(this, obj);
+		return ObjectUtils.isSameClass(this, obj)
+				&& alignment == ((StoredCompressionIncludeResourceMapping) obj).alignment;
 	}
 
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + "[]";
+		return getClass().getSimpleName() + (alignment > 0 ? "[alignment=" + alignment + "]" : "[]");
 	}
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import saker.build.file.SakerFileBase;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+
+/**
+ * File that inflates its contents from an entry of the extracted archive.
+ */
+final class ExtractedEntrySakerFile extends SakerFileBase {
+	private final ExtractionArchive archive;
+	private final ZipArchiveEntryInformation entry;
+	private final ContentDescriptor contentDescriptor;
+
+	public ExtractedEntrySakerFile(String name, ExtractionArchive archive, ZipArchiveEntryInformation entry) {
+		super(name);
+		this.archive = archive;
+		this.entry = entry;
+		this.contentDescriptor = new ZipEntryContentDescriptor(entry.getCrc(), entry.getSize());
+	}
+
+	@Override
+	public ContentDescriptor getContentDescriptor() {
+		return contentDescriptor;
+	}
+
+	@Override
+	public void writeToStreamImpl(OutputStream os) throws IOException, NullPointerException {
+		try (InputStream in = archive.openEntry(entry)) {
+			StreamUtils.copyStream(in, os);
+		}
+	}
+}
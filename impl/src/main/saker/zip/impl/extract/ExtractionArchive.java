@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+
+/**
+ * The archive being extracted, shared by the extracted files.
+ * <p>
+ * While the extraction is in progress, the entries are read through the same reader. After the archive is closed, the
+ * extracted files open the archive again when their contents are requested.
+ * <p>
+ * Archives created with {@link #unopened(Path)} are never kept open, every entry is read by opening the archive.
+ */
+final class ExtractionArchive implements Closeable {
+	private final Path path;
+	private volatile ZipArchiveEntryReader reader;
+
+	public ExtractionArchive(Path path) throws IOException {
+		this.path = path;
+		this.reader = openReader(path);
+	}
+
+	private ExtractionArchive(Path path, ZipArchiveEntryReader reader) {
+		this.path = path;
+		this.reader = reader;
+	}
+
+	public static ExtractionArchive unopened(Path path) {
+		return new ExtractionArchive(path, null);
+	}
+
+	public CompactZipArchiveManifest readManifest() throws IOException {
+		ZipArchiveEntryReader r = reader;
+		if (r == null) {
+			throw new IOException("Archive closed.");
+		}
+		return r.readManifest();
+	}
+
+	public InputStream openEntry(ZipArchiveEntryInformation entry) throws IOException {
+		ZipArchiveEntryReader r = reader;
+		if (r != null) {
+			return r.openEntry(entry);
+		}
+		ZipArchiveEntryReader opened = openReader(path);
+		try {
+			return new FilterInputStream(opened.openEntry(entry)) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						opened.close();
+					}
+				}
+			};
+		} catch (Throwable e) {
+			IOUtils.closePrint(opened);
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		ZipArchiveEntryReader r = reader;
+		reader = null;
+		if (r != null) {
+			r.close();
+		}
+	}
+
+	private static ZipArchiveEntryReader openReader(Path path) throws IOException {
+		return new ZipArchiveEntryReader(FileChannel.open(path, StandardOpenOption.READ));
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import saker.build.file.SakerFile;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.task.CommonTaskContentDescriptors;
+import saker.build.task.TaskContext;
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.std.api.file.location.ExecutionFileLocation;
+import saker.std.api.file.location.FileLocation;
+import saker.std.api.file.location.FileLocationVisitor;
+import saker.std.api.file.location.LocalFileLocation;
+import saker.std.api.util.SakerStandardUtils;
+
+/**
+ * The local file of an archive that is read by a task.
+ * <p>
+ * The entries are read with positional reads, so archives in the execution file hierarchy are mirrored to the local
+ * file system.
+ */
+public final class LocalArchiveFile {
+	private final Path path;
+	private final ContentDescriptor contentDescriptor;
+
+	private LocalArchiveFile(Path path, ContentDescriptor contentDescriptor) {
+		this.path = path;
+		this.contentDescriptor = contentDescriptor;
+	}
+
+	/**
+	 * Resolves the archive and reports it as an input dependency of the task.
+	 */
+	public static LocalArchiveFile resolve(TaskContext taskcontext, FileLocation archive)
+			throws FileNotFoundException {
+		LocalArchiveFile[] result = { null };
+		archive.accept(new FileLocationVisitor() {
+			@Override
+			public void visit(ExecutionFileLocation loc) {
+				SakerPath filepath = loc.getPath();
+				SakerFile file = taskcontext.getTaskUtilities().resolveFileAtAbsolutePath(filepath);
+				if (file == null) {
+					taskcontext.reportInputFileDependency(null, filepath, CommonTaskContentDescriptors.IS_NOT_FILE);
+					throw ObjectUtils.sneakyThrow(new FileNotFoundException("Archive not found: " + filepath));
+				}
+				ContentDescriptor cd = file.getContentDescriptor();
+				taskcontext.reportInputFileDependency(null, filepath, cd);
+				try {
+					result[0] = new LocalArchiveFile(taskcontext.mirror(file), cd);
+				} catch (IOException e) {
+					throw ObjectUtils.sneakyThrow(e);
+				}
+			}
+
+			@Override
+			public void visit(LocalFileLocation loc) {
+				SakerPath filepath = loc.getLocalPath();
+				ContentDescriptor cd = taskcontext.getTaskUtilities().getReportExecutionDependency(SakerStandardUtils
+						.createLocalFileContentDescriptorExecutionProperty(filepath, taskcontext.getTaskId()));
+				if (cd == null || DirectoryContentDescriptor.INSTANCE.equals(cd)) {
+					throw ObjectUtils.sneakyThrow(new FileNotFoundException("Archive not found: " + filepath));
+				}
+				result[0] = new LocalArchiveFile(LocalFileProvider.toRealPath(filepath), cd);
+			}
+		});
+		return result[0];
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public ContentDescriptor getContentDescriptor() {
+		return contentDescriptor;
+	}
+}
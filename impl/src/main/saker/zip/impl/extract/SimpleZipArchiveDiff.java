@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.NavigableMap;
+
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.extract.ZipArchiveDiff;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class SimpleZipArchiveDiff implements ZipArchiveDiff, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private CompactZipArchiveManifest addedEntries;
+	private CompactZipArchiveManifest removedEntries;
+	private CompactZipArchiveManifest modifiedEntries;
+	private NavigableMap<String, SimpleZipEntryDifference> entryDifferences;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public SimpleZipArchiveDiff() {
+	}
+
+	public SimpleZipArchiveDiff(CompactZipArchiveManifest addedEntries, CompactZipArchiveManifest removedEntries,
+			CompactZipArchiveManifest modifiedEntries, NavigableMap<String, SimpleZipEntryDifference> entryDifferences) {
+		this.addedEntries = addedEntries;
+		this.removedEntries = removedEntries;
+		this.modifiedEntries = modifiedEntries;
+		this.entryDifferences = ImmutableUtils.makeImmutableNavigableMap(entryDifferences);
+	}
+
+	@Override
+	public ZipArchiveManifest getAddedEntries() {
+		return addedEntries;
+	}
+
+	@Override
+	public ZipArchiveManifest getRemovedEntries() {
+		return removedEntries;
+	}
+
+	@Override
+	public ZipArchiveManifest getModifiedEntries() {
+		return modifiedEntries;
+	}
+
+	@Override
+	public NavigableMap<String, SimpleZipEntryDifference> getEntryDifferences() {
+		return entryDifferences;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(addedEntries);
+		out.writeObject(removedEntries);
+		out.writeObject(modifiedEntries);
+		SerialUtils.writeExternalMap(out, entryDifferences);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		addedEntries = (CompactZipArchiveManifest) in.readObject();
+		removedEntries = (CompactZipArchiveManifest) in.readObject();
+		modifiedEntries = (CompactZipArchiveManifest) in.readObject();
+		entryDifferences = SerialUtils.readExternalSortedImmutableNavigableMap(in);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((addedEntries == null) ? 0 : addedEntries.hashCode());
+		result = prime * result + ((modifiedEntries == null) ? 0 : modifiedEntries.hashCode());
+		result = prime * result + ((removedEntries == null) ? 0 : removedEntries.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SimpleZipArchiveDiff other = (SimpleZipArchiveDiff) obj;
+		if (addedEntries == null) {
+			if (other.addedEntries != null)
+				return false;
+		} else if (!addedEntries.equals(other.addedEntries))
+			return false;
+		if (entryDifferences == null) {
+			if (other.entryDifferences != null)
+				return false;
+		} else if (!entryDifferences.equals(other.entryDifferences))
+			return false;
+		if (modifiedEntries == null) {
+			if (other.modifiedEntries != null)
+				return false;
+		} else if (!modifiedEntries.equals(other.modifiedEntries))
+			return false;
+		if (removedEntries == null) {
+			if (other.removedEntries != null)
+				return false;
+		} else if (!removedEntries.equals(other.removedEntries))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[added=" + addedEntries.getEntryCount() + ", removed="
+				+ removedEntries.getEntryCount() + ", modified=" + modifiedEntries.getEntryCount() + "]";
+	}
+}
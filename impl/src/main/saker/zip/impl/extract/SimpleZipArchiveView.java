@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.SakerFile;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.task.TaskContext;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.extract.ZipArchiveView;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class SimpleZipArchiveView implements ZipArchiveView, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private FileLocation archive;
+	private ContentDescriptor archiveContents;
+	private CompactZipArchiveManifest manifest;
+
+	/**
+	 * The file hierarchy, built from the manifest on first use.
+	 */
+	private transient volatile EntryIndex index;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public SimpleZipArchiveView() {
+	}
+
+	public SimpleZipArchiveView(FileLocation archive, ContentDescriptor archiveContents,
+			CompactZipArchiveManifest manifest) {
+		this.archive = archive;
+		this.archiveContents = archiveContents;
+		this.manifest = manifest;
+	}
+
+	@Override
+	public FileLocation getArchive() {
+		return archive;
+	}
+
+	@Override
+	public ZipArchiveManifest getManifest() {
+		return manifest;
+	}
+
+	@Override
+	public NavigableSet<SakerPath> getFilePaths() {
+		return getIndex().files.navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<SakerPath> getDirectoryPaths() {
+		return getIndex().directories;
+	}
+
+	@Override
+	public SakerFile getFile(TaskContext taskcontext, SakerPath path) throws IOException, NullPointerException {
+		Objects.requireNonNull(taskcontext, "task context");
+		Objects.requireNonNull(path, "path");
+		if (!getIndex().files.containsKey(path)) {
+			return null;
+		}
+		return getFile(resolveLocalArchivePath(taskcontext), path);
+	}
+
+	@Override
+	public NavigableMap<String, SakerFile> getFiles(TaskContext taskcontext, SakerPath directorypath)
+			throws IOException, NullPointerException {
+		Objects.requireNonNull(taskcontext, "task context");
+		Objects.requireNonNull(directorypath, "directory path");
+		if (!getIndex().directoryFiles.containsKey(directorypath)) {
+			return Collections.emptyNavigableMap();
+		}
+		return getFiles(resolveLocalArchivePath(taskcontext), directorypath);
+	}
+
+	/**
+	 * Gets the file at the given path, reading the archive from the specified local file.
+	 * 
+	 * @see #getFile(TaskContext, SakerPath)
+	 */
+	public SakerFile getFile(Path localarchivepath, SakerPath path) {
+		ZipArchiveEntryInformation entry = getIndex().files.get(path);
+		if (entry == null) {
+			return null;
+		}
+		return new ExtractedEntrySakerFile(path.getFileName(), ExtractionArchive.unopened(localarchivepath), entry);
+	}
+
+	/**
+	 * Gets the files in the given directory, reading the archive from the specified local file.
+	 * 
+	 * @see #getFiles(TaskContext, SakerPath)
+	 */
+	public NavigableMap<String, SakerFile> getFiles(Path localarchivepath, SakerPath directorypath) {
+		NavigableMap<String, ZipArchiveEntryInformation> entries = getIndex().directoryFiles.get(directorypath);
+		if (entries == null) {
+			return Collections.emptyNavigableMap();
+		}
+		ExtractionArchive extractionarchive = ExtractionArchive.unopened(localarchivepath);
+		NavigableMap<String, SakerFile> result = new TreeMap<>();
+		for (Map.Entry<String, ZipArchiveEntryInformation> entry : entries.entrySet()) {
+			String name = entry.getKey();
+			result.put(name, new ExtractedEntrySakerFile(name, extractionarchive, entry.getValue()));
+		}
+		return ImmutableUtils.unmodifiableNavigableMap(result);
+	}
+
+	private Path resolveLocalArchivePath(TaskContext taskcontext) throws IOException {
+		LocalArchiveFile localarchive = LocalArchiveFile.resolve(taskcontext, archive);
+		if (!Objects.equals(archiveContents, localarchive.getContentDescriptor())) {
+			//the entry offsets in the manifest are no longer valid
+			throw new IOException("Archive contents changed since the view was created: " + archive);
+		}
+		return localarchive.getPath();
+	}
+
+	private EntryIndex getIndex() {
+		EntryIndex result = index;
+		if (result == null) {
+			result = new EntryIndex(manifest);
+			index = result;
+		}
+		return result;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(archive);
+		out.writeObject(archiveContents);
+		out.writeObject(manifest);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		archive = (FileLocation) in.readObject();
+		archiveContents = (ContentDescriptor) in.readObject();
+		manifest = (CompactZipArchiveManifest) in.readObject();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		result = prime * result + ((archiveContents == null) ? 0 : archiveContents.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SimpleZipArchiveView other = (SimpleZipArchiveView) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		if (archiveContents == null) {
+			if (other.archiveContents != null)
+				return false;
+		} else if (!archiveContents.equals(other.archiveContents))
+			return false;
+		if (manifest == null) {
+			if (other.manifest != null)
+				return false;
+		} else if (!manifest.equals(other.manifest))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[archive=" + archive + ", archiveContents=" + archiveContents + "]";
+	}
+
+	private static final class EntryIndex {
+		protected final NavigableMap<SakerPath, ZipArchiveEntryInformation> files;
+		protected final NavigableSet<SakerPath> directories;
+		/**
+		 * The files directly in a directory by their names. The root directory is {@link SakerPath#EMPTY}.
+		 */
+		protected final Map<SakerPath, NavigableMap<String, ZipArchiveEntryInformation>> directoryFiles;
+
+		public EntryIndex(ZipArchiveManifest manifest) {
+			NavigableMap<SakerPath, ZipArchiveEntryInformation> files = new TreeMap<>();
+			NavigableSet<SakerPath> directories = new TreeSet<>();
+			Map<SakerPath, NavigableMap<String, ZipArchiveEntryInformation>> directoryfiles = new HashMap<>();
+			for (ZipArchiveEntryInformation entry : manifest.getEntries()) {
+				String name = entry.getName();
+				SakerPath path;
+				try {
+					path = SakerPath.valueOf(name);
+				} catch (InvalidPathFormatException e) {
+					continue;
+				}
+				if (!path.isForwardRelative() || SakerPath.EMPTY.equals(path)) {
+					continue;
+				}
+				SakerPath parent = getParentPath(path);
+				//the first entry is used if files and directories conflict
+				if (files.containsKey(path) || isAnyFile(files, parent)) {
+					continue;
+				}
+				if (name.endsWith("/")) {
+					addDirectory(directories, path);
+					continue;
+				}
+				if (directories.contains(path)) {
+					continue;
+				}
+				files.put(path, entry);
+				addDirectory(directories, parent);
+				directoryfiles.computeIfAbsent(parent, x -> new TreeMap<>()).put(path.getFileName(), entry);
+			}
+			this.files = ImmutableUtils.unmodifiableNavigableMap(files);
+			this.directories = Collections.unmodifiableNavigableSet(directories);
+			this.directoryFiles = directoryfiles;
+		}
+
+		private static void addDirectory(NavigableSet<SakerPath> directories, SakerPath path) {
+			while (!SakerPath.EMPTY.equals(path) && directories.add(path)) {
+				path = getParentPath(path);
+			}
+		}
+
+		private static boolean isAnyFile(NavigableMap<SakerPath, ?> files, SakerPath path) {
+			for (; !SakerPath.EMPTY.equals(path); path = getParentPath(path)) {
+				if (files.containsKey(path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private static SakerPath getParentPath(SakerPath path) {
+			SakerPath parent = path.getParent();
+			if (parent == null) {
+				return SakerPath.EMPTY;
+			}
+			return parent;
+		}
+	}
+}
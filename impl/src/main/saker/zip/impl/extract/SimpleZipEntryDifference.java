@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.extract.ZipEntryDifference;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class SimpleZipEntryDifference implements ZipEntryDifference, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Contains the base entry at index 0, and the compared entry at index 1.
+	 */
+	private CompactZipArchiveManifest entries;
+	private long firstDifferenceOffset;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public SimpleZipEntryDifference() {
+	}
+
+	public SimpleZipEntryDifference(CompactZipArchiveManifest entries, long firstDifferenceOffset) {
+		this.entries = entries;
+		this.firstDifferenceOffset = firstDifferenceOffset;
+	}
+
+	@Override
+	public ZipArchiveEntryInformation getBaseEntry() {
+		return entries.getEntry(0);
+	}
+
+	@Override
+	public ZipArchiveEntryInformation getEntry() {
+		return entries.getEntry(1);
+	}
+
+	@Override
+	public long getFirstDifferenceOffset() {
+		return firstDifferenceOffset;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(entries);
+		out.writeLong(firstDifferenceOffset);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		entries = (CompactZipArchiveManifest) in.readObject();
+		firstDifferenceOffset = in.readLong();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((entries == null) ? 0 : entries.hashCode());
+		result = prime * result + (int) (firstDifferenceOffset ^ (firstDifferenceOffset >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SimpleZipEntryDifference other = (SimpleZipEntryDifference) obj;
+		if (entries == null) {
+			if (other.entries != null)
+				return false;
+		} else if (!entries.equals(other.entries))
+			return false;
+		if (firstDifferenceOffset != other.firstDifferenceOffset)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[entries=" + entries + ", firstDifferenceOffset="
+				+ firstDifferenceOffset + "]";
+	}
+}
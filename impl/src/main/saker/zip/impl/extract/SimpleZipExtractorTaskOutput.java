@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.NavigableSet;
+
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.zip.api.extract.ZipExtractorTaskOutput;
+
+public class SimpleZipExtractorTaskOutput implements ZipExtractorTaskOutput, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private SakerPath outputDirectoryPath;
+	private NavigableSet<SakerPath> filePaths;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public SimpleZipExtractorTaskOutput() {
+	}
+
+	public SimpleZipExtractorTaskOutput(SakerPath outputDirectoryPath, NavigableSet<SakerPath> filePaths) {
+		this.outputDirectoryPath = outputDirectoryPath;
+		this.filePaths = ImmutableUtils.makeImmutableNavigableSet(filePaths);
+	}
+
+	@Override
+	public SakerPath getOutputDirectoryPath() {
+		return outputDirectoryPath;
+	}
+
+	@Override
+	public NavigableSet<SakerPath> getFilePaths() {
+		return filePaths;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(outputDirectoryPath);
+		SerialUtils.writeExternalCollection(out, filePaths);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		outputDirectoryPath = (SakerPath) in.readObject();
+		filePaths = SerialUtils.readExternalSortedImmutableNavigableSet(in);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((filePaths == null) ? 0 : filePaths.hashCode());
+		result = prime * result + ((outputDirectoryPath == null) ? 0 : outputDirectoryPath.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SimpleZipExtractorTaskOutput other = (SimpleZipExtractorTaskOutput) obj;
+		if (filePaths == null) {
+			if (other.filePaths != null)
+				return false;
+		} else if (!filePaths.equals(other.filePaths))
+			return false;
+		if (outputDirectoryPath == null) {
+			if (other.outputDirectoryPath != null)
+				return false;
+		} else if (!outputDirectoryPath.equals(other.outputDirectoryPath))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[outputDirectoryPath=" + outputDirectoryPath + ", filePaths="
+				+ filePaths + "]";
+	}
+}
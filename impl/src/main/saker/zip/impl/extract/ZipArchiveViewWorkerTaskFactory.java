@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.extract.ZipArchiveView;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class ZipArchiveViewWorkerTaskFactory
+		implements TaskFactory<ZipArchiveView>, Task<ZipArchiveView>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	protected FileLocation archive;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipArchiveViewWorkerTaskFactory() {
+	}
+
+	public ZipArchiveViewWorkerTaskFactory(FileLocation archive) {
+		this.archive = archive;
+	}
+
+	@Override
+	public ZipArchiveView run(TaskContext taskcontext) throws Exception {
+		if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+			BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_WORKER);
+		}
+		LocalArchiveFile localarchive = LocalArchiveFile.resolve(taskcontext, archive);
+		CompactZipArchiveManifest manifest;
+		try (ExtractionArchive extractionarchive = new ExtractionArchive(localarchive.getPath())) {
+			manifest = extractionarchive.readManifest();
+		}
+		SimpleZipArchiveView result = new SimpleZipArchiveView(archive, localarchive.getContentDescriptor(),
+				manifest);
+		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+		return result;
+	}
+
+	@Override
+	public final Task<? extends ZipArchiveView> createTask(ExecutionContext executioncontext) {
+		return this;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(archive);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		archive = (FileLocation) in.readObject();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipArchiveViewWorkerTaskFactory other = (ZipArchiveViewWorkerTaskFactory) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[archive=" + archive + "]";
+	}
+}
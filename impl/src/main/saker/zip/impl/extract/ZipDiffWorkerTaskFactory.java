@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.SakerLog;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.trace.BuildTrace;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.extract.ZipArchiveDiff;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+
+public class ZipDiffWorkerTaskFactory implements TaskFactory<ZipArchiveDiff>, Task<ZipArchiveDiff>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int COMPARE_BUFFER_SIZE = 8 * 1024;
+
+	protected FileLocation baseArchive;
+	protected FileLocation archive;
+	protected Set<WildcardPath> detailWildcards;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipDiffWorkerTaskFactory() {
+	}
+
+	public ZipDiffWorkerTaskFactory(FileLocation baseArchive, FileLocation archive,
+			Set<WildcardPath> detailWildcards) {
+		this.baseArchive = baseArchive;
+		this.archive = archive;
+		this.detailWildcards = ImmutableUtils.makeImmutableLinkedHashSet(detailWildcards);
+	}
+
+	@Override
+	public ZipArchiveDiff run(TaskContext taskcontext) throws Exception {
+		if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+			BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_WORKER);
+		}
+		LocalArchiveFile localbase = LocalArchiveFile.resolve(taskcontext, baseArchive);
+		LocalArchiveFile localarchive = LocalArchiveFile.resolve(taskcontext, archive);
+		SimpleZipArchiveDiff result;
+		try (ZipArchiveEntryReader basereader = new ZipArchiveEntryReader(
+				FileChannel.open(localbase.getPath(), StandardOpenOption.READ));
+				ZipArchiveEntryReader reader = new ZipArchiveEntryReader(
+						FileChannel.open(localarchive.getPath(), StandardOpenOption.READ))) {
+			result = diff(basereader, reader, detailWildcards);
+		}
+		SakerLog.log().verbose()
+				.println("Added: " + result.getAddedEntries().getEntryCount() + " removed: "
+						+ result.getRemovedEntries().getEntryCount() + " modified: "
+						+ result.getModifiedEntries().getEntryCount() + " entries.");
+		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+		return result;
+	}
+
+	/**
+	 * Compares the entries of the archives.
+	 * <p>
+	 * Only the central directories are read, except for the modified entries that match any of the detail
+	 * wildcards.
+	 */
+	public static SimpleZipArchiveDiff diff(ZipArchiveEntryReader basereader, ZipArchiveEntryReader reader,
+			Set<WildcardPath> detailwildcards) throws IOException {
+		CompactZipArchiveManifest basemanifest = basereader.readManifest();
+		CompactZipArchiveManifest manifest = reader.readManifest();
+		Map<String, Integer> baseindices = mapEntryIndicesByName(basemanifest);
+		Map<String, Integer> indices = mapEntryIndicesByName(manifest);
+
+		CompactZipArchiveManifest.Builder added = CompactZipArchiveManifest.builder();
+		CompactZipArchiveManifest.Builder removed = CompactZipArchiveManifest.builder();
+		CompactZipArchiveManifest.Builder modified = CompactZipArchiveManifest.builder();
+		NavigableMap<String, SimpleZipEntryDifference> differences = new TreeMap<>();
+		int count = manifest.getEntryCount();
+		for (int i = 0; i < count; i++) {
+			ZipArchiveEntryInformation entry = manifest.getEntry(i);
+			String name = entry.getName();
+			if (indices.get(name) != i) {
+				//duplicate
+				continue;
+			}
+			Integer baseidx = baseindices.get(name);
+			if (baseidx == null) {
+				addEntry(added, entry);
+				continue;
+			}
+			ZipArchiveEntryInformation baseentry = basemanifest.getEntry(baseidx);
+			if (baseentry.getCrc() == entry.getCrc() && baseentry.getSize() == entry.getSize()
+					&& baseentry.getMethod() == entry.getMethod()) {
+				continue;
+			}
+			addEntry(modified, entry);
+			if (!name.endsWith("/") && isDetailEntry(detailwildcards, name)) {
+				CompactZipArchiveManifest.Builder diffentries = CompactZipArchiveManifest.builder();
+				addEntry(diffentries, baseentry);
+				addEntry(diffentries, entry);
+				long offset = compareContents(basereader, baseentry, reader, entry);
+				differences.put(name, new SimpleZipEntryDifference(diffentries.build(), offset));
+			}
+		}
+		int basecount = basemanifest.getEntryCount();
+		for (int i = 0; i < basecount; i++) {
+			ZipArchiveEntryInformation baseentry = basemanifest.getEntry(i);
+			String name = baseentry.getName();
+			if (baseindices.get(name) == i && !indices.containsKey(name)) {
+				addEntry(removed, baseentry);
+			}
+		}
+		return new SimpleZipArchiveDiff(added.build(), removed.build(), modified.build(), differences);
+	}
+
+	/**
+	 * Maps the entry names to the index of their first occurrence.
+	 */
+	private static Map<String, Integer> mapEntryIndicesByName(CompactZipArchiveManifest manifest) {
+		int count = manifest.getEntryCount();
+		Map<String, Integer> result = new HashMap<>(count * 4 / 3 + 1);
+		for (int i = 0; i < count; i++) {
+			result.putIfAbsent(manifest.getEntry(i).getName(), i);
+		}
+		return result;
+	}
+
+	private static void addEntry(CompactZipArchiveManifest.Builder builder, ZipArchiveEntryInformation entry) {
+		builder.add(entry.getName().getBytes(StandardCharsets.UTF_8), entry.getMethod(), entry.getCrc(),
+				entry.getSize(), entry.getCompressedSize(), entry.getLocalHeaderOffset());
+	}
+
+	private static boolean isDetailEntry(Set<WildcardPath> detailwildcards, String name) {
+		for (WildcardPath wc : detailwildcards) {
+			if (wc.includes(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the offset of the first differing byte in the uncompressed entry contents, or -1 if they are the same.
+	 */
+	private static long compareContents(ZipArchiveEntryReader basereader, ZipArchiveEntryInformation baseentry,
+			ZipArchiveEntryReader reader, ZipArchiveEntryInformation entry) throws IOException {
+		try (InputStream basein = basereader.openEntry(baseentry);
+				InputStream in = reader.openEntry(entry)) {
+			byte[] basebuf = new byte[COMPARE_BUFFER_SIZE];
+			byte[] buf = new byte[COMPARE_BUFFER_SIZE];
+			long offset = 0;
+			while (true) {
+				int baseread = readFully(basein, basebuf);
+				int read = readFully(in, buf);
+				int common = Math.min(baseread, read);
+				for (int i = 0; i < common; i++) {
+					if (basebuf[i] != buf[i]) {
+						return offset + i;
+					}
+				}
+				if (baseread != read) {
+					return offset + common;
+				}
+				if (read < buf.length) {
+					return -1;
+				}
+				offset += read;
+			}
+		}
+	}
+
+	private static int readFully(InputStream in, byte[] buf) throws IOException {
+		int count = 0;
+		while (count < buf.length) {
+			int r = in.read(buf, count, buf.length - count);
+			if (r < 0) {
+				break;
+			}
+			count += r;
+		}
+		return count;
+	}
+
+	@Override
+	public final Task<? extends ZipArchiveDiff> createTask(ExecutionContext executioncontext) {
+		return this;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(baseArchive);
+		out.writeObject(archive);
+		SerialUtils.writeExternalCollection(out, detailWildcards);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		baseArchive = (FileLocation) in.readObject();
+		archive = (FileLocation) in.readObject();
+		detailWildcards = SerialUtils.readExternalImmutableLinkedHashSet(in);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		result = prime * result + ((baseArchive == null) ? 0 : baseArchive.hashCode());
+		result = prime * result + ((detailWildcards == null) ? 0 : detailWildcards.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipDiffWorkerTaskFactory other = (ZipDiffWorkerTaskFactory) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		if (baseArchive == null) {
+			if (other.baseArchive != null)
+				return false;
+		} else if (!baseArchive.equals(other.baseArchive))
+			return false;
+		if (detailWildcards == null) {
+			if (other.detailWildcards != null)
+				return false;
+		} else if (!detailWildcards.equals(other.detailWildcards))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[baseArchive=" + baseArchive + ", archive=" + archive
+				+ ", detailWildcards=" + detailWildcards + "]";
+	}
+}
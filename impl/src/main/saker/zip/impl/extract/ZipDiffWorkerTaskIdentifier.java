@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.std.api.file.location.FileLocation;
+
+public class ZipDiffWorkerTaskIdentifier implements TaskIdentifier, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	protected FileLocation baseArchive;
+	protected FileLocation archive;
+	protected Set<WildcardPath> detailWildcards;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipDiffWorkerTaskIdentifier() {
+	}
+
+	public ZipDiffWorkerTaskIdentifier(FileLocation baseArchive, FileLocation archive,
+			Set<WildcardPath> detailWildcards) {
+		this.baseArchive = baseArchive;
+		this.archive = archive;
+		this.detailWildcards = ImmutableUtils.makeImmutableLinkedHashSet(detailWildcards);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(baseArchive);
+		out.writeObject(archive);
+		SerialUtils.writeExternalCollection(out, detailWildcards);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		baseArchive = (FileLocation) in.readObject();
+		archive = (FileLocation) in.readObject();
+		detailWildcards = SerialUtils.readExternalImmutableLinkedHashSet(in);
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		result = prime * result + ((baseArchive == null) ? 0 : baseArchive.hashCode());
+		result = prime * result + ((detailWildcards == null) ? 0 : detailWildcards.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipDiffWorkerTaskIdentifier other = (ZipDiffWorkerTaskIdentifier) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		if (baseArchive == null) {
+			if (other.baseArchive != null)
+				return false;
+		} else if (!baseArchive.equals(other.baseArchive))
+			return false;
+		if (detailWildcards == null) {
+			if (other.detailWildcards != null)
+				return false;
+		} else if (!detailWildcards.equals(other.detailWildcards))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[baseArchive=" + baseArchive + ", archive=" + archive
+				+ ", detailWildcards=" + detailWildcards + "]";
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+import saker.build.file.content.ContentDescriptor;
+
+/**
+ * Content descriptor of an extracted archive entry based on the CRC and size of its uncompressed data.
+ * <p>
+ * The extracted files are only rewritten by the synchronization if these change.
+ */
+public final class ZipEntryContentDescriptor implements ContentDescriptor, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private long crc;
+	private long size;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipEntryContentDescriptor() {
+	}
+
+	public ZipEntryContentDescriptor(long crc, long size) {
+		this.crc = crc;
+		this.size = size;
+	}
+
+	@Override
+	public boolean isChanged(ContentDescriptor previouscontent) {
+		return !this.equals(previouscontent);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeLong(crc);
+		out.writeLong(size);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		crc = in.readLong();
+		size = in.readLong();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (crc ^ (crc >>> 32));
+		result = prime * result + (int) (size ^ (size >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipEntryContentDescriptor other = (ZipEntryContentDescriptor) obj;
+		if (crc != other.crc)
+			return false;
+		if (size != other.size)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[crc=" + Long.toHexString(crc) + ", size=" + size + "]";
+	}
+}
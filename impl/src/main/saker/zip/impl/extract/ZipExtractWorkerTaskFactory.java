@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.SakerDirectory;
+import saker.build.file.SakerFile;
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.SakerLog;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskExecutionUtilities;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.trace.BuildTrace;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.api.extract.ZipExtractorTaskOutput;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class ZipExtractWorkerTaskFactory
+		implements TaskFactory<ZipExtractorTaskOutput>, Task<ZipExtractorTaskOutput>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	private static final String TASK_OUTPUT_TAG_EXTRACTED_FILES = "saker.zip.extract.extracted-files";
+
+	protected FileLocation archive;
+	protected SakerPath outputDirectoryPath;
+	protected IncludeResourceMapping resourceMapping;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipExtractWorkerTaskFactory() {
+	}
+
+	public ZipExtractWorkerTaskFactory(FileLocation archive, SakerPath outputDirectoryPath,
+			IncludeResourceMapping resourceMapping) {
+		this.archive = archive;
+		this.outputDirectoryPath = outputDirectoryPath;
+		this.resourceMapping = resourceMapping;
+	}
+
+	@Override
+	public ZipExtractorTaskOutput run(TaskContext taskcontext) throws Exception {
+		if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+			BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_WORKER);
+		}
+		taskcontext.setStandardOutDisplayIdentifier("unzip:" + outputDirectoryPath.getFileName());
+
+		TaskExecutionUtilities taskutils = taskcontext.getTaskUtilities();
+		Path archivepath = LocalArchiveFile.resolve(taskcontext, archive).getPath();
+		SakerDirectory outdir = taskutils.resolveDirectoryAtPathCreate(outputDirectoryPath);
+		if (outdir == null) {
+			throw new IllegalArgumentException("Failed to create output directory: " + outputDirectoryPath);
+		}
+
+		ExtractionArchive extractionarchive = new ExtractionArchive(archivepath);
+		NavigableMap<SakerPath, ExtractedEntrySakerFile> files = new TreeMap<>();
+		try {
+			CompactZipArchiveManifest manifest = extractionarchive.readManifest();
+			Map<SakerPath, SakerDirectory> directories = new HashMap<>();
+			directories.put(SakerPath.EMPTY, outdir);
+			for (ZipArchiveEntryInformation entry : manifest.getEntries()) {
+				String name = entry.getName();
+				boolean directory = name.endsWith("/");
+				SakerPath entrypath = SakerPath.valueOf(name);
+				Collection<? extends ZipResourceEntry> mapped = resourceMapping
+						.mapResource(ZipResourceEntry.create(entrypath), directory);
+				if (ObjectUtils.isNullOrEmpty(mapped)) {
+					continue;
+				}
+				for (ZipResourceEntry mappedentry : mapped) {
+					SakerPath relativepath = mappedentry.getEntryPath();
+					validateMappingResultPath(entrypath, relativepath);
+					if (directory) {
+						getDirectory(directories, relativepath);
+						continue;
+					}
+					SakerPath filepath = outputDirectoryPath.resolve(relativepath);
+					if (files.containsKey(filepath)) {
+						//multiple entries with the same path, the first one is extracted, same as for includes
+						continue;
+					}
+					ExtractedEntrySakerFile file = new ExtractedEntrySakerFile(relativepath.getFileName(),
+							extractionarchive, entry);
+					getDirectory(directories, relativepath.getParent()).add(file);
+					files.put(filepath, file);
+				}
+			}
+			removeStaleFiles(taskcontext, files);
+
+			synchronizeFiles(files.values());
+		} finally {
+			extractionarchive.close();
+		}
+		taskutils.reportOutputFileDependency(null, files.values());
+
+		SimpleZipExtractorTaskOutput result = new SimpleZipExtractorTaskOutput(outputDirectoryPath,
+				files.navigableKeySet());
+		taskcontext.setTaskOutput(TASK_OUTPUT_TAG_EXTRACTED_FILES, result);
+		SakerLog.success().verbose().println("Extracted " + files.size() + " files to: " + outputDirectoryPath);
+
+		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+		return result;
+	}
+
+	/**
+	 * Deletes the files that were extracted by the previous run of the task, but are not part of the current
+	 * extraction.
+	 */
+	private void removeStaleFiles(TaskContext taskcontext, NavigableMap<SakerPath, ?> files) throws IOException {
+		SimpleZipExtractorTaskOutput prevoutput = taskcontext.getPreviousTaskOutput(TASK_OUTPUT_TAG_EXTRACTED_FILES,
+				SimpleZipExtractorTaskOutput.class);
+		if (prevoutput == null) {
+			return;
+		}
+		ExecutionContext executioncontext = taskcontext.getExecutionContext();
+		TaskExecutionUtilities taskutils = taskcontext.getTaskUtilities();
+		for (SakerPath prevpath : prevoutput.getFilePaths()) {
+			if (files.containsKey(prevpath)) {
+				continue;
+			}
+			SakerFile prevfile = taskutils.resolveAtAbsolutePath(prevpath);
+			if (prevfile instanceof SakerDirectory) {
+				//not created by us
+				continue;
+			}
+			if (prevfile != null) {
+				prevfile.remove();
+			}
+			ProviderHolderPathKey pathkey = executioncontext.getPathConfiguration().getPathKey(prevpath);
+			pathkey.getFileProvider().delete(pathkey.getPath());
+		}
+	}
+
+	private static SakerDirectory getDirectory(Map<SakerPath, SakerDirectory> directories, SakerPath relativepath) {
+		if (relativepath == null) {
+			relativepath = SakerPath.EMPTY;
+		}
+		SakerDirectory result = directories.get(relativepath);
+		if (result == null) {
+			result = getDirectory(directories, relativepath.getParent())
+					.getDirectoryCreate(relativepath.getFileName());
+			directories.put(relativepath, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Synchronizes the extracted files in parallel.
+	 * <p>
+	 * The synchronization only writes the files if their content descriptors changed, so the entries are only
+	 * inflated if their CRC or size differs from the previously extracted one.
+	 */
+	private static void synchronizeFiles(Collection<? extends SakerFile> files) throws IOException {
+		int threadcount = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+		if (threadcount <= 1) {
+			for (SakerFile file : files) {
+				file.synchronize();
+			}
+			return;
+		}
+		AtomicInteger counter = new AtomicInteger();
+		ThreadFactory threadfactory = r -> {
+			Thread thread = new Thread(r, "saker.zip-extract-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(threadcount, threadfactory);
+		try {
+			List<Future<?>> futures = new ArrayList<>(files.size());
+			for (SakerFile file : files) {
+				futures.add(executor.submit(() -> {
+					file.synchronize();
+					return null;
+				}));
+			}
+			IOException exc = null;
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					exc = IOUtils.addExc(exc, new IOException("Failed to extract archive entry.", e.getCause()));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw IOUtils.addExc(new InterruptedIOException("Interrupted while extracting archive."), exc);
+				}
+			}
+			if (exc != null) {
+				throw exc;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void validateMappingResultPath(SakerPath path, SakerPath resultpath) {
+		if (resultpath == null) {
+			throw new NullPointerException(
+					"Extract resource mapping produced null path for: " + path + " by " + resourceMapping);
+		}
+		if (!resultpath.isForwardRelative()) {
+			throw new InvalidPathFormatException("Extracted resource mapped to non forward relative path: " + path
+					+ " to " + resultpath + " by " + resourceMapping);
+		}
+		if (SakerPath.EMPTY.equals(resultpath)) {
+			throw new InvalidPathFormatException("Extracted resource mapped to empty path: " + path + " to "
+					+ resultpath + " by " + resourceMapping);
+		}
+	}
+
+	@Override
+	public final Task<? extends ZipExtractorTaskOutput> createTask(ExecutionContext executioncontext) {
+		return this;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(archive);
+		out.writeObject(outputDirectoryPath);
+		out.writeObject(resourceMapping);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		archive = (FileLocation) in.readObject();
+		outputDirectoryPath = (SakerPath) in.readObject();
+		resourceMapping = (IncludeResourceMapping) in.readObject();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		result = prime * result + ((outputDirectoryPath == null) ? 0 : outputDirectoryPath.hashCode());
+		result = prime * result + ((resourceMapping == null) ? 0 : resourceMapping.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipExtractWorkerTaskFactory other = (ZipExtractWorkerTaskFactory) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		if (outputDirectoryPath == null) {
+			if (other.outputDirectoryPath != null)
+				return false;
+		} else if (!outputDirectoryPath.equals(other.outputDirectoryPath))
+			return false;
+		if (resourceMapping == null) {
+			if (other.resourceMapping != null)
+				return false;
+		} else if (!resourceMapping.equals(other.resourceMapping))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[archive=" + archive + ", outputDirectoryPath=" + outputDirectoryPath
+				+ ", resourceMapping=" + resourceMapping + "]";
+	}
+}
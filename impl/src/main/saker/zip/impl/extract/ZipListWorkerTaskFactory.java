@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.extract;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.trace.BuildTrace;
+import saker.std.api.file.location.FileLocation;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+
+public class ZipListWorkerTaskFactory
+		implements TaskFactory<ZipArchiveManifest>, Task<ZipArchiveManifest>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	protected FileLocation archive;
+	protected IncludeResourceMapping resourceMapping;
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public ZipListWorkerTaskFactory() {
+	}
+
+	public ZipListWorkerTaskFactory(FileLocation archive, IncludeResourceMapping resourceMapping) {
+		this.archive = archive;
+		this.resourceMapping = resourceMapping;
+	}
+
+	@Override
+	public ZipArchiveManifest run(TaskContext taskcontext) throws Exception {
+		if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+			BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_WORKER);
+		}
+		LocalArchiveFile localarchive = LocalArchiveFile.resolve(taskcontext, archive);
+		CompactZipArchiveManifest manifest;
+		try (ExtractionArchive extractionarchive = new ExtractionArchive(localarchive.getPath())) {
+			manifest = extractionarchive.readManifest();
+		}
+		CompactZipArchiveManifest result = listEntries(manifest);
+		taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+		return result;
+	}
+
+	private CompactZipArchiveManifest listEntries(CompactZipArchiveManifest manifest) {
+		CompactZipArchiveManifest.Builder builder = CompactZipArchiveManifest.builder();
+		for (ZipArchiveEntryInformation entry : manifest.getEntries()) {
+			String name = entry.getName();
+			boolean directory = name.endsWith("/");
+			SakerPath entrypath;
+			try {
+				entrypath = SakerPath.valueOf(name);
+			} catch (InvalidPathFormatException e) {
+				continue;
+			}
+			Collection<? extends ZipResourceEntry> mapped = resourceMapping
+					.mapResource(ZipResourceEntry.create(entrypath), directory);
+			if (ObjectUtils.isNullOrEmpty(mapped)) {
+				continue;
+			}
+			for (ZipResourceEntry mappedentry : mapped) {
+				SakerPath resultpath = mappedentry.getEntryPath();
+				if (resultpath == null) {
+					throw new NullPointerException(
+							"Listing resource mapping produced null path for: " + entrypath + " by " + resourceMapping);
+				}
+				String resultname;
+				if (resultpath.equals(entrypath)) {
+					resultname = name;
+				} else {
+					resultname = directory ? resultpath + "/" : resultpath.toString();
+				}
+				builder.add(resultname.getBytes(StandardCharsets.UTF_8), entry.getMethod(), entry.getCrc(),
+						entry.getSize(), entry.getCompressedSize(), entry.getLocalHeaderOffset());
+			}
+		}
+		return builder.build();
+	}
+
+	@Override
+	public final Task<? extends ZipArchiveManifest> createTask(ExecutionContext executioncontext) {
+		return this;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeObject(archive);
+		out.writeObject(resourceMapping);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		archive = (FileLocation) in.readObject();
+		resourceMapping = (IncludeResourceMapping) in.readObject();
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((archive == null) ? 0 : archive.hashCode());
+		result = prime * result + ((resourceMapping == null) ? 0 : resourceMapping.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ZipListWorkerTaskFactory other = (ZipListWorkerTaskFactory) obj;
+		if (archive == null) {
+			if (other.archive != null)
+				return false;
+		} else if (!archive.equals(other.archive))
+			return false;
+		if (resourceMapping == null) {
+			if (other.resourceMapping != null)
+				return false;
+		} else if (!resourceMapping.equals(other.resourceMapping))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[archive=" + archive + ", resourceMapping=" + resourceMapping + "]";
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.archive;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * Runtime dependent {@link Deflater} operations.
+ * <p>
+ * This is the Java 11 variant of the class, which is placed under <code>META-INF/versions/11</code> in the
+ * multi-release JAR.
+ */
+final class DeflaterSupport {
+	private DeflaterSupport() {
+		throw new UnsupportedOperationException();
+	}
+
+	static boolean isByteBufferInputSupported() {
+		return true;
+	}
+
+	static void setInput(Deflater deflater, ByteBuffer input) {
+		deflater.setInput(input);
+	}
+}
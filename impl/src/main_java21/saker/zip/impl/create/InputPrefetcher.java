@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.impl.create;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.ByteSource;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+
+/**
+ * Reads the contents of upcoming input files ahead of the archive writer.
+ * <p>
+ * This is the Java 21 variant of the class, which is placed under <code>META-INF/versions/21</code> in the
+ * multi-release JAR. Each input is read on its own virtual thread, so the writer rarely waits for opening and reading
+ * the files.
+ * <p>
+ * The number of bytes read ahead is limited by a budget. If reading an input would exceed the budget, or the input is
+ * not small, the reading is abandoned, and the writer reads the input itself. Read failures are handled the same way, so the writer reports
+ * the errors as if there was no prefetching.
+ */
+final class InputPrefetcher implements Closeable {
+	static final long DEFAULT_BYTE_BUDGET = 32 * 1024 * 1024;
+
+	/**
+	 * The maximum number of inputs that are submitted ahead of the writer.
+	 */
+	private static final int MAX_INPUTS_AHEAD = 256;
+	private static final int READ_CHUNK_SIZE = 16 * 1024;
+	/**
+	 * Larger inputs are left for the writer, which may stream them without copying to the heap.
+	 */
+	private static final int MAX_INPUT_SIZE = 1024 * 1024;
+
+	private final LocalFileHandle[] handles;
+	private final long byteBudget;
+	private final AtomicLong reservedBytes = new AtomicLong();
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	/**
+	 * Ring buffer of the submitted reads, indexed by the input index modulo {@link #MAX_INPUTS_AHEAD}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private final CompletableFuture<ByteArrayRegion>[] pending = new CompletableFuture[MAX_INPUTS_AHEAD];
+	private final int[] pendingIndexes = new int[MAX_INPUTS_AHEAD];
+	private int submitIndex;
+	private int nextTakeIndex;
+	private volatile boolean closed;
+
+	InputPrefetcher(LocalFileHandle[] handles, long bytebudget) {
+		this.handles = handles;
+		this.byteBudget = bytebudget;
+		submitAhead(0);
+	}
+
+	static boolean isSupported() {
+		return true;
+	}
+
+	LocalFileHandle take(int index, LocalFileHandle handle) throws IOException {
+		//discard the reads that the caller skipped
+		for (int i = nextTakeIndex; i < index && i < submitIndex; i++) {
+			CompletableFuture<ByteArrayRegion> skipped = removePending(i);
+			if (skipped != null) {
+				skipped.thenAccept(this::releaseContents);
+			}
+		}
+		nextTakeIndex = index + 1;
+		if (index >= submitIndex) {
+			//not submitted due to the budget, skip it
+			submitIndex = index + 1;
+		}
+		CompletableFuture<ByteArrayRegion> future = removePending(index);
+		submitAhead(index + 1);
+		if (future == null) {
+			return handle;
+		}
+		ByteArrayRegion contents;
+		try {
+			contents = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for input: " + handle.getName());
+		} catch (ExecutionException e) {
+			//let the caller read it, and report the error
+			return handle;
+		}
+		if (contents == null) {
+			return handle;
+		}
+		releaseContents(contents);
+		return new PrefetchedFileHandle(handle, contents);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		executor.shutdownNow();
+	}
+
+	private void submitAhead(int fromindex) {
+		int end = Math.min(handles.length, fromindex + MAX_INPUTS_AHEAD - 1);
+		while (submitIndex < end) {
+			if (reservedBytes.get() >= byteBudget) {
+				return;
+			}
+			LocalFileHandle handle = handles[submitIndex];
+			if (handle != null) {
+				int slot = submitIndex % MAX_INPUTS_AHEAD;
+				pending[slot] = CompletableFuture.supplyAsync(() -> {
+					try {
+						return read(handle);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}, executor);
+				pendingIndexes[slot] = submitIndex;
+			}
+			++submitIndex;
+		}
+	}
+
+	private CompletableFuture<ByteArrayRegion> removePending(int index) {
+		int slot = index % MAX_INPUTS_AHEAD;
+		CompletableFuture<ByteArrayRegion> future = pending[slot];
+		if (future == null || pendingIndexes[slot] != index) {
+			return null;
+		}
+		pending[slot] = null;
+		return future;
+	}
+
+	private void releaseContents(ByteArrayRegion contents) {
+		if (contents != null) {
+			release(contents.getLength());
+		}
+	}
+
+	private ByteArrayRegion read(LocalFileHandle handle) throws IOException {
+		if (closed || !reserve(READ_CHUNK_SIZE)) {
+			return null;
+		}
+		long reserved = READ_CHUNK_SIZE;
+		try (InputStream in = handle.openInputStream()) {
+			byte[] buf = new byte[READ_CHUNK_SIZE];
+			int len = 0;
+			while (true) {
+				if (len == buf.length) {
+					if (closed || buf.length >= MAX_INPUT_SIZE || !reserve(buf.length)) {
+						release(reserved);
+						return null;
+					}
+					reserved += buf.length;
+					buf = Arrays.copyOf(buf, buf.length * 2);
+				}
+				int r = in.read(buf, len, buf.length - len);
+				if (r < 0) {
+					break;
+				}
+				len += r;
+			}
+			//keep the reservation only for the actual contents
+			release(reserved - len);
+			return ByteArrayRegion.wrap(buf, 0, len);
+		} catch (Throwable e) {
+			release(reserved);
+			throw e;
+		}
+	}
+
+	private boolean reserve(long count) {
+		while (true) {
+			long current = reservedBytes.get();
+			if (current + count > byteBudget) {
+				return false;
+			}
+			if (reservedBytes.compareAndSet(current, current + count)) {
+				return true;
+			}
+		}
+	}
+
+	private void release(long count) {
+		reservedBytes.addAndGet(-count);
+	}
+
+	/**
+	 * A local file handle with its contents already read.
+	 * <p>
+	 * The contents are served from the memory, but the file is still available through {@link #openChannel()}.
+	 */
+	private static final class PrefetchedFileHandle extends LocalFileHandle {
+		private final ByteArrayRegion contents;
+
+		public PrefetchedFileHandle(LocalFileHandle handle, ByteArrayRegion contents) {
+			super(handle.getPath());
+			this.contents = contents;
+		}
+
+		@Override
+		public void writeTo(OutputStream os) throws IOException {
+			os.write(contents.getArray(), contents.getOffset(), contents.getLength());
+		}
+
+		@Override
+		public void writeTo(ZipArchiveOutputStream zipout) throws IOException {
+			zipout.write(contents.getArray(), contents.getOffset(), contents.getLength());
+		}
+
+		@Override
+		public long size() {
+			return contents.getLength();
+		}
+
+		@Override
+		public ByteArrayRegion getBytes() {
+			return contents;
+		}
+
+		@Override
+		public ByteSource openByteSource() {
+			return new UnsyncByteArrayInputStream(contents);
+		}
+
+		@Override
+		public InputStream openInputStream() {
+			return new UnsyncByteArrayInputStream(contents);
+		}
+	}
+}
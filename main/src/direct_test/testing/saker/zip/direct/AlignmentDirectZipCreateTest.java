@@ -0,0 +1,114 @@
+package testing.saker.zip.direct;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipCentralDirectory;
+import saker.zip.impl.archive.ZipEntryHeader;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import saker.zip.impl.create.options.StoredCompressionIncludeResourceMapping;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.direct.transformers.NoCompressZipResourceTransformerFactory;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the data of the STORED entries start at the offset specified by the alignment.
+ */
+@SakerTest
+public class AlignmentDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		try {
+			ZipResourceEntry.create(SakerPath.valueOf("a")).withAlignment(3);
+			fail("Invalid alignment accepted.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		SakerFile includedzip = ZipCreatorUtils.getZipFile(TestUtils.<String, String>treeMapBuilder()
+				.put("inc1.txt", "included").put("incdir/inc2.txt", "included_2").build());
+		TreeMap<String, String> expectedcontents = TestUtils.<String, String>treeMapBuilder().put("a.txt", "a")
+				.put("lib/libnative.so", "native").put("b.txt", "bb").put("deflated.txt", "deflated")
+				.put("mydir/", null).put("included/inc1.txt", "included").put("included/incdir/inc2.txt", "included_2")
+				.build();
+		for (boolean transformer : new boolean[] { false, true }) {
+			ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+			builder.add(ZipResourceEntry.stored(SakerPath.valueOf("a.txt")).withAlignment(4),
+					ZipCreatorUtils.byteFileHandle("a"));
+			builder.add(ZipResourceEntry.stored(SakerPath.valueOf("lib/libnative.so")).withAlignment(4096),
+					ZipCreatorUtils.byteFileHandle("native"));
+			builder.add(ZipResourceEntry.stored(SakerPath.valueOf("b.txt")).withAlignment(8),
+					ZipCreatorUtils.byteFileHandle("bb"));
+			builder.add(ZipResourceEntry.deflated(SakerPath.valueOf("deflated.txt")).withAlignment(4096),
+					ZipCreatorUtils.byteFileHandle("deflated"));
+			builder.add(ZipResourceEntry.stored(SakerPath.valueOf("mydir")).withAlignment(4096), null,
+					ZipCreatorUtils.byteFileHandle("").getContentDescriptor());
+			builder.addIncludeFromArchive(includedzip, includedzip.getContentDescriptor(),
+					IncludeResourceMapping.chain(IncludeResourceMapping.targetDirectory(SakerPath.valueOf("included")),
+							StoredCompressionIncludeResourceMapping.get(16)));
+			if (transformer) {
+				builder.addResourceTransformer(new NoCompressZipResourceTransformerFactory());
+			}
+			ByteArrayRegion bytes = builder.build("test.zip").getBytes();
+			ZipCreatorUtils.assertSameContents(expectedcontents, bytes);
+
+			Map<String, Long> offsets = getDataOffsets(bytes);
+			assertEquals(offsets.get("a.txt") % 4, 0L);
+			assertEquals(offsets.get("lib/libnative.so") % 4096, 0L);
+			assertEquals(offsets.get("b.txt") % 8, 0L);
+			assertEquals(offsets.get("included/inc1.txt") % 16, 0L);
+			assertEquals(offsets.get("included/incdir/inc2.txt") % 16, 0L);
+
+			//the alignment is kept when the records are copied to a different offset
+			ByteArrayRegion relocated = relocateRecords(bytes);
+			TreeMap<String, String> relocatedcontents = new TreeMap<>(expectedcontents);
+			relocatedcontents.put("prefix.txt", "prefix");
+			ZipCreatorUtils.assertSameContents(relocatedcontents, relocated);
+			Map<String, Long> relocatedoffsets = getDataOffsets(relocated);
+			assertEquals(relocatedoffsets.get("a.txt") % 4, 0L);
+			assertEquals(relocatedoffsets.get("lib/libnative.so") % 4096, 0L);
+			assertEquals(relocatedoffsets.get("b.txt") % 8, 0L);
+			assertEquals(relocatedoffsets.get("included/inc1.txt") % 16, 0L);
+			assertEquals(relocatedoffsets.get("included/incdir/inc2.txt") % 16, 0L);
+		}
+	}
+
+	private static ByteArrayRegion relocateRecords(ByteArrayRegion bytes) throws IOException {
+		UnsyncByteArrayOutputStream out = new UnsyncByteArrayOutputStream();
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(bytes);
+				ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(out)) {
+			zipout.putNextEntry(new ZipEntry("prefix.txt"));
+			zipout.write("prefix".getBytes(StandardCharsets.UTF_8));
+			zipout.closeEntry();
+			ZipCentralDirectory directory = reader.readCentralDirectory();
+			zipout.writeRawRecords(reader, directory, 0, directory.getEntryCount());
+		}
+		return out.toByteArrayRegion();
+	}
+
+	private static Map<String, Long> getDataOffsets(ByteArrayRegion bytes) throws IOException {
+		Map<String, Long> result = new TreeMap<>();
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(bytes)) {
+			ZipEntryHeader header = new ZipEntryHeader();
+			for (ZipArchiveEntryInformation entry : reader.readManifest().getEntries()) {
+				header.reset();
+				result.put(entry.getName(), reader.readHeader(entry, header));
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,164 @@
+package testing.saker.zip.direct;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.ArchiveOutputCache;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ArchiveOutputCacheDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Path cachedir = Files.createTempDirectory("saker.zip-archive-cache");
+		try {
+			ArchiveOutputCache cache = new ArchiveOutputCache(cachedir, 1024 * 1024, false);
+
+			ByteArrayRegion nocachebytes = genZipBytes(null, "readme");
+			ByteArrayRegion firstbytes = genZipBytes(cache, "readme");
+			assertEquals(nocachebytes.copy(), firstbytes.copy());
+
+			List<Path> cachedfiles = listArchives(cachedir);
+			assertEquals(cachedfiles.size(), 1);
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), firstbytes.copy());
+
+			//overwrite the cached archive, to check that it is used instead of writing the archive
+			byte[] marker = "cached".getBytes(StandardCharsets.UTF_8);
+			Files.write(cachedfiles.get(0), marker);
+			assertEquals(genZipBytes(cache, "readme").copy(), marker);
+
+			//different contents are stored separately
+			ByteArrayRegion modifiedbytes = genZipBytes(cache, "modified");
+			//make sure the first archive is the least recently used one
+			Files.setLastModifiedTime(getUsedMarker(cachedfiles.get(0)), FileTime.fromMillis(0));
+			ZipCreatorUtils.assertSameContents(
+					TestUtils.<String, String>treeMapBuilder().put("readme.txt", "modified").build(), modifiedbytes);
+			assertEquals(listArchives(cachedir).size(), 2);
+
+			//the least recently used archive is removed when trimming
+			new ArchiveOutputCache(cachedir, modifiedbytes.getLength(), false).trim();
+			cachedfiles = listArchives(cachedir);
+			assertEquals(cachedfiles.size(), 1);
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), modifiedbytes.copy());
+		} finally {
+			deleteDirectory(cachedir);
+		}
+		testSynchronization();
+		testHardLinkSynchronization();
+	}
+
+	private static void testSynchronization() throws Exception {
+		Path cachedir = Files.createTempDirectory("saker.zip-archive-cache");
+		Path outdir = Files.createTempDirectory("saker.zip-archive-out");
+		try {
+			ArchiveOutputCache cache = new ArchiveOutputCache(cachedir, 1024 * 1024, false);
+			Path target = outdir.resolve("test.zip");
+			ProviderHolderPathKey targetkey = LocalFileProvider.getInstance().getPathKey(SakerPath.valueOf(target));
+
+			//the written bytes are stored in the cache while the archive is written
+			genZipFile(cache, "readme").synchronizeImpl(targetkey);
+			List<Path> cachedfiles = listArchives(cachedir);
+			assertEquals(cachedfiles.size(), 1);
+			byte[] firstbytes = Files.readAllBytes(target);
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), firstbytes);
+
+			//modifying the output in place doesn't modify the cached archive
+			Files.write(target, "modified".getBytes(StandardCharsets.UTF_8));
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), firstbytes);
+			genZipFile(cache, "readme").synchronizeImpl(targetkey);
+			assertEquals(Files.readAllBytes(target), firstbytes);
+		} finally {
+			deleteDirectory(cachedir);
+			deleteDirectory(outdir);
+		}
+	}
+
+	private static void testHardLinkSynchronization() throws Exception {
+		Path cachedir = Files.createTempDirectory("saker.zip-archive-cache");
+		Path outdir = Files.createTempDirectory("saker.zip-archive-out");
+		try {
+			ArchiveOutputCache cache = new ArchiveOutputCache(cachedir, 1024 * 1024, true);
+			Path target = outdir.resolve("test.zip");
+			ProviderHolderPathKey targetkey = LocalFileProvider.getInstance().getPathKey(SakerPath.valueOf(target));
+
+			//the archive is written through the file channel, and stored in the cache afterwards
+			genZipFile(cache, "readme").synchronizeImpl(targetkey);
+			List<Path> cachedfiles = listArchives(cachedir);
+			assertEquals(cachedfiles.size(), 1);
+			byte[] firstbytes = Files.readAllBytes(target);
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), firstbytes);
+
+			//restored as a hard link
+			genZipFile(cache, "readme").synchronizeImpl(targetkey);
+			assertEquals(Files.readAllBytes(target), firstbytes);
+
+			//using the cached archive doesn't modify the hard linked outputs
+			Files.setLastModifiedTime(target, FileTime.fromMillis(1000));
+			genZipFile(cache, "readme").synchronizeImpl(targetkey);
+			assertEquals(Files.getLastModifiedTime(target).toMillis(), 1000L);
+			assertEquals(Files.readAllBytes(target), firstbytes);
+
+			//writing different contents to the hard linked target doesn't modify the cached archive
+			ZipOutputSakerFile modified = genZipFile(null, "modified");
+			modified.synchronizeImpl(targetkey);
+			assertEquals(Files.readAllBytes(target), modified.getBytes().copy());
+			assertEquals(Files.readAllBytes(cachedfiles.get(0)), firstbytes);
+		} finally {
+			deleteDirectory(cachedir);
+			deleteDirectory(outdir);
+		}
+	}
+
+	private static void deleteDirectory(Path dir) throws Exception {
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+			for (Path p : ds) {
+				Files.delete(p);
+			}
+		}
+		Files.delete(dir);
+	}
+
+	private static Path getUsedMarker(Path archive) {
+		String fname = archive.getFileName().toString();
+		return archive.resolveSibling(fname.substring(0, fname.length() - ".zip".length()) + ".used");
+	}
+
+	private static List<Path> listArchives(Path cachedir) throws Exception {
+		List<Path> result = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(cachedir, "*.zip")) {
+			for (Path p : ds) {
+				result.add(p);
+			}
+		}
+		return result;
+	}
+
+	private static ByteArrayRegion genZipBytes(ArchiveOutputCache cache, String content) throws Exception {
+		return genZipFile(cache, content).getBytes();
+	}
+
+	private static ZipOutputSakerFile genZipFile(ArchiveOutputCache cache, String content) throws Exception {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setArchiveOutputCache(cache);
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("readme.txt")),
+				ZipCreatorUtils.byteFileHandle(content));
+		return builder.build("test.zip");
+	}
+
+}
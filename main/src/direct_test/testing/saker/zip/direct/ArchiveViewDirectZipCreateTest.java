@@ -0,0 +1,108 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.extract.SimpleZipArchiveView;
+import saker.zip.impl.extract.ZipEntryContentDescriptor;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Checks the file hierarchy of an archive view, and that the files read their contents from the archive when
+ * accessed.
+ */
+@SakerTest
+public class ArchiveViewDirectZipCreateTest extends SakerTestCase {
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Path file = Files.createTempFile("archive-view", ".zip");
+		try {
+			try (ZipOutputStream zipout = new ZipOutputStream(Files.newOutputStream(file))) {
+				putEntry(zipout, "a.txt", "aval");
+				putEntry(zipout, "empty/", null);
+				putEntry(zipout, "dir/sub/c.bin", "cval");
+				putEntry(zipout, "dir/d.txt", "dval");
+				putEntry(zipout, "../outside.txt", "outside");
+				//conflicting with the a.txt file
+				putEntry(zipout, "a.txt/", null);
+				putEntry(zipout, "a.txt/nested.txt", "nested");
+				putEntry(zipout, "dir//d.txt", "duplicate");
+			}
+			CompactZipArchiveManifest manifest;
+			try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(FileChannel.open(file))) {
+				manifest = reader.readManifest();
+			}
+			SimpleZipArchiveView view = new SimpleZipArchiveView(null, null, manifest);
+
+			assertEquals(view.getFilePaths(), new TreeSet<>(Arrays.asList(SakerPath.valueOf("a.txt"),
+					SakerPath.valueOf("dir/d.txt"), SakerPath.valueOf("dir/sub/c.bin"))));
+			assertEquals(view.getDirectoryPaths(), new TreeSet<>(
+					Arrays.asList(SakerPath.valueOf("dir"), SakerPath.valueOf("dir/sub"), SakerPath.valueOf("empty"))));
+
+			SakerFile cfile = view.getFile(file, SakerPath.valueOf("dir/sub/c.bin"));
+			assertEquals(cfile.getName(), "c.bin");
+			assertEquals(cfile.getContentDescriptor(), new ZipEntryContentDescriptor(crc("cval"), 4));
+			assertEquals(new String(cfile.getBytes().copy(), StandardCharsets.UTF_8), "cval");
+			//can be read multiple times
+			assertEquals(new String(cfile.getBytes().copy(), StandardCharsets.UTF_8), "cval");
+
+			assertNull(view.getFile(file, SakerPath.valueOf("dir")));
+			assertNull(view.getFile(file, SakerPath.valueOf("nonexistent.txt")));
+
+			NavigableMap<String, SakerFile> dirfiles = view.getFiles(file, SakerPath.valueOf("dir"));
+			assertEquals(dirfiles.keySet(), new TreeSet<>(Arrays.asList("d.txt")));
+			assertEquals(new String(dirfiles.get("d.txt").getBytes().copy(), StandardCharsets.UTF_8), "dval");
+			assertEquals(view.getFiles(file, SakerPath.EMPTY).keySet(), new TreeSet<>(Arrays.asList("a.txt")));
+			assertTrue(view.getFiles(file, SakerPath.valueOf("empty")).isEmpty());
+
+			SimpleZipArchiveView readview = serializeRoundtrip(view);
+			assertEquals(readview, view);
+			assertEquals(readview.getFilePaths(), view.getFilePaths());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static void putEntry(ZipOutputStream zipout, String name, String contents) throws IOException {
+		zipout.putNextEntry(new ZipEntry(name));
+		if (contents != null) {
+			zipout.write(contents.getBytes(StandardCharsets.UTF_8));
+		}
+		zipout.closeEntry();
+	}
+
+	private static long crc(String contents) {
+		CRC32 crc = new CRC32();
+		crc.update(contents.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	private static SimpleZipArchiveView serializeRoundtrip(SimpleZipArchiveView view) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(view);
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+			return (SimpleZipArchiveView) ois.readObject();
+		}
+	}
+}
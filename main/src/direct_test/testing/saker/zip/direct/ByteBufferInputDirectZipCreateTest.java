@@ -0,0 +1,92 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Checks that writing the entry data from buffers and channels produces the same archive as writing it from byte
+ * arrays.
+ */
+@SakerTest
+public class ByteBufferInputDirectZipCreateTest extends SakerTestCase {
+	private static final int MODE_ARRAY = 0;
+	private static final int MODE_HEAP_BUFFER = 1;
+	private static final int MODE_DIRECT_BUFFER = 2;
+	private static final int MODE_CHANNEL = 3;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Random random = new Random(1234);
+		byte[][] contents = new byte[6][];
+		for (int i = 0; i < contents.length; i++) {
+			//compressible data of varying size, larger than the internal buffers
+			byte[] data = new byte[i * 100_000 + 1];
+			for (int j = 0; j < data.length; j++) {
+				data[j] = (byte) ('a' + random.nextInt(4));
+			}
+			contents[i] = data;
+		}
+		byte[] expected = write(contents, MODE_ARRAY);
+		assertTrue(Arrays.equals(expected, write(contents, MODE_HEAP_BUFFER)));
+		assertTrue(Arrays.equals(expected, write(contents, MODE_DIRECT_BUFFER)));
+		assertTrue(Arrays.equals(expected, write(contents, MODE_CHANNEL)));
+	}
+
+	private static byte[] write(byte[][] contents, int mode) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			for (int i = 0; i < contents.length; i++) {
+				byte[] data = contents[i];
+				ZipEntry entry = new ZipEntry("entry" + i);
+				entry.setTime(1_600_000_000_000L);
+				if (i % 2 == 1) {
+					CRC32 crc = new CRC32();
+					crc.update(data);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(data.length);
+					entry.setCrc(crc.getValue());
+				}
+				zipout.putNextEntry(entry);
+				switch (mode) {
+					case MODE_ARRAY: {
+						zipout.write(data);
+						break;
+					}
+					case MODE_HEAP_BUFFER: {
+						zipout.write(ByteBuffer.wrap(data));
+						break;
+					}
+					case MODE_DIRECT_BUFFER: {
+						ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+						buf.put(data);
+						buf.flip();
+						zipout.write(buf);
+						assertFalse(buf.hasRemaining());
+						break;
+					}
+					case MODE_CHANNEL: {
+						zipout.writeFrom(Channels.newChannel(new ByteArrayInputStream(data)));
+						break;
+					}
+					default: {
+						throw new AssertionError(mode);
+					}
+				}
+				zipout.closeEntry();
+			}
+		}
+		return baos.toByteArray();
+	}
+}
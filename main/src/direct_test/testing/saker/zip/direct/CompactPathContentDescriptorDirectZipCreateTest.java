@@ -0,0 +1,72 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.MultiPathContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.zip.impl.create.CompactPathContentDescriptor;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class CompactPathContentDescriptorDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ContentDescriptor first = create("a", "b", "c");
+		ContentDescriptor second = create("a", "b", "c");
+		assertTrue(first instanceof CompactPathContentDescriptor);
+		assertEquals(first, second);
+		assertFalse(second.isChanged(first));
+
+		ContentDescriptor changed = create("a", "x", "c");
+		assertNotEquals(first, changed);
+		assertTrue(changed.isChanged(first));
+
+		NavigableMap<SakerPath, ContentDescriptor> renamed = new TreeMap<>();
+		renamed.put(SakerPath.valueOf("dir/a.txt"), ZipCreatorUtils.byteFileHandle("a").getContentDescriptor());
+		renamed.put(SakerPath.valueOf("dir/b.txt"), ZipCreatorUtils.byteFileHandle("b").getContentDescriptor());
+		renamed.put(SakerPath.valueOf("d.txt"), ZipCreatorUtils.byteFileHandle("c").getContentDescriptor());
+		assertTrue(CompactPathContentDescriptor.create(renamed).isChanged(first));
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(first);
+		}
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+			ContentDescriptor read = (ContentDescriptor) ois.readObject();
+			assertEquals(read, first);
+			assertFalse(read.isChanged(first));
+		}
+
+		//content descriptors that always report changes can't be digested
+		NavigableMap<SakerPath, ContentDescriptor> alwayschanged = new TreeMap<>();
+		alwayschanged.put(SakerPath.valueOf("a.txt"), new AlwaysChangedContentDescriptor());
+		ContentDescriptor fallback = CompactPathContentDescriptor.create(alwayschanged);
+		assertTrue(fallback instanceof MultiPathContentDescriptor);
+	}
+
+	private static ContentDescriptor create(String a, String b, String c) {
+		NavigableMap<SakerPath, ContentDescriptor> contents = new TreeMap<>();
+		contents.put(SakerPath.valueOf("dir/a.txt"), ZipCreatorUtils.byteFileHandle(a).getContentDescriptor());
+		contents.put(SakerPath.valueOf("dir/b.txt"), ZipCreatorUtils.byteFileHandle(b).getContentDescriptor());
+		contents.put(SakerPath.valueOf("c.txt"), ZipCreatorUtils.byteFileHandle(c).getContentDescriptor());
+		return CompactPathContentDescriptor.create(contents);
+	}
+
+	private static class AlwaysChangedContentDescriptor implements ContentDescriptor {
+		@Override
+		public boolean isChanged(ContentDescriptor previouscontent) {
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package testing.saker.zip.direct;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.SakerFile;
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.WildcardPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.CompressedEntryCache;
+import saker.zip.impl.create.CompressedEntryCache.CompressedEntry;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import saker.zip.impl.create.options.IdentityIncludeResourceMapping;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class CompressedEntryCacheDirectZipCreateTest extends SakerTestCase {
+	private static final String LARGE = createLargeContents();
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		CompressedEntryCache cache = new CompressedEntryCache(1024 * 1024);
+
+		HashContentDescriptor contents = HashContentDescriptor.createWithHash(new byte[] { 1, 2, 3 });
+		AtomicInteger writecount = new AtomicInteger();
+		for (int i = 0; i < 3; i++) {
+			CompressedEntry entry = cache.get(contents, ZipEntry.DEFLATED, Deflater.DEFAULT_COMPRESSION, os -> {
+				writecount.incrementAndGet();
+				os.write("content".getBytes(StandardCharsets.UTF_8));
+			});
+			assertEquals(entry.getSize(), 7L);
+			assertEquals(entry.getCrc(), ZipCreatorUtils.crc("content".getBytes(StandardCharsets.UTF_8)));
+		}
+		//compressed only once
+		assertEquals(writecount.get(), 1);
+
+		//different level is compressed again
+		cache.get(contents, ZipEntry.DEFLATED, 1, os -> {
+			writecount.incrementAndGet();
+			os.write("content".getBytes(StandardCharsets.UTF_8));
+		});
+		assertEquals(writecount.get(), 2);
+
+		//contents larger than the entry limit are not buffered
+		byte[] large = new byte[(int) cache.getMaxEntrySize() + 1];
+		HashContentDescriptor largecontents = HashContentDescriptor.createWithHash(new byte[] { 4, 5, 6 });
+		assertNull(cache.get(largecontents, ZipEntry.DEFLATED, 1, large.length, os -> {
+			fail("called for known large size");
+		}));
+		assertNull(cache.get(largecontents, ZipEntry.DEFLATED, 1, os -> {
+			writecount.incrementAndGet();
+			os.write(large);
+		}));
+		assertEquals(writecount.get(), 3);
+
+		//the least recently used entries are evicted when the cache is full
+		CompressedEntryCache smallcache = new CompressedEntryCache(16 * 1024);
+		byte[] entrybytes = new byte[1000];
+		for (int i = 0; i < 40; i++) {
+			cacheStored(smallcache, i, entrybytes, writecount);
+		}
+		assertEquals(writecount.get(), 43);
+		cacheStored(smallcache, 39, entrybytes, writecount);
+		assertEquals(writecount.get(), 43);
+		cacheStored(smallcache, 0, entrybytes, writecount);
+		assertEquals(writecount.get(), 44);
+
+		TreeMap<String, String> includedzipcontents = TestUtils.<String, String>treeMapBuilder()
+				.put("inc/readme.txt", "included").put("inc/dir/", null).put("inc/large.txt", LARGE).build();
+		SakerFile includedzip = ZipCreatorUtils.getZipFile(includedzipcontents);
+
+		ByteArrayRegion nocachebytes = genZipBytes(null, includedzip);
+		ByteArrayRegion firstbytes = genZipBytes(cache, includedzip);
+		ByteArrayRegion secondbytes = genZipBytes(cache, includedzip);
+
+		//the output should be the same regardless of the cache usage
+		assertEquals(nocachebytes.copy(), firstbytes.copy());
+		assertEquals(nocachebytes.copy(), secondbytes.copy());
+
+		ZipCreatorUtils.assertSameContents(TestUtils.<String, String>treeMapBuilder().put("readme.txt", "readme")
+				.put("stored.txt", "stored").put("mydir/", null).put("inc/readme.txt", "included")
+				.put("inc/dir/", null).put("inc/large.txt", LARGE).build(), secondbytes);
+		ZipCreatorUtils.assertCompression(secondbytes, ZipEntry.STORED, WildcardPath.valueOf("stored.txt"));
+	}
+
+	private static void cacheStored(CompressedEntryCache cache, int id, byte[] bytes, AtomicInteger writecount)
+			throws Exception {
+		HashContentDescriptor contents = HashContentDescriptor.createWithHash(new byte[] { 7, (byte) id });
+		assertNonNull(cache.get(contents, ZipEntry.STORED, 0, bytes.length, os -> {
+			writecount.incrementAndGet();
+			os.write(bytes);
+		}));
+	}
+
+	private static ByteArrayRegion genZipBytes(CompressedEntryCache cache, SakerFile includedzip) throws Exception {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setCompressedEntryCache(cache);
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("readme.txt")),
+				ZipCreatorUtils.byteFileHandle("readme"));
+		builder.add(ZipResourceEntry.stored(SakerPath.valueOf("stored.txt")),
+				ZipCreatorUtils.byteFileHandle("stored"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("mydir")), null, DirectoryContentDescriptor.INSTANCE);
+		builder.addIncludeFromArchive(includedzip, includedzip.getContentDescriptor(),
+				IdentityIncludeResourceMapping.INSTANCE);
+		return builder.build("test.zip").getBytes();
+	}
+
+	private static String createLargeContents() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; sb.length() < 128 * 1024; i++) {
+			sb.append(Integer.toHexString(i * 0x9E3779B1));
+		}
+		return sb.toString();
+	}
+
+}
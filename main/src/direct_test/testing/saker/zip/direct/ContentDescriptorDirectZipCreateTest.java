@@ -4,6 +4,7 @@ import java.nio.file.attribute.FileTime;
 import java.util.Map;
 
 import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
 import saker.build.file.path.SakerPath;
 import saker.zip.api.create.ZipResourceEntry;
 import saker.zip.impl.create.ZipOutputSakerFile;
@@ -46,6 +47,8 @@ public class ContentDescriptorDirectZipCreateTest extends SakerTestCase {
 		}
 
 		assertEquals(contentdefault, contententrydefault);
+		//the content descriptor is a compact digest of the archive contents
+		assertTrue(contentdefault instanceof HashContentDescriptor);
 
 		//different modification times or store methods, so file content descriptor should not equal
 		assertNotEquals(contentdefault, contentmodtime);
@@ -0,0 +1,175 @@
+package testing.saker.zip.direct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipDeduplication;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipCentralDirectory;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the entries with identical contents are compressed once, and share the data in the archive if
+ * requested.
+ */
+@SakerTest
+public class DeduplicationDirectZipCreateTest extends SakerTestCase {
+	private static final String LARGE = createLargeContents();
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		SakerFile includedzip = ZipCreatorUtils.getZipFile(TestUtils.<String, String>treeMapBuilder()
+				.put("inc/dup.txt", LARGE).put("inc/other.txt", "other").build());
+		TreeMap<String, String> expectedcontents = TestUtils.<String, String>treeMapBuilder().put("a.txt", LARGE)
+				.put("b/a.txt", LARGE).put("c.txt", LARGE).put("unique.txt", "unique").put("small1.txt", "s")
+				.put("small2.txt", "s").put("inc/dup.txt", LARGE).put("inc/other.txt", "other").build();
+
+		ZipOutputSakerFile nodedup = createBuilder(includedzip, null).build("test.zip");
+		ByteArrayRegion nodedupbytes = nodedup.getBytes();
+		ZipCreatorUtils.assertSameContents(expectedcontents, nodedupbytes);
+		assertEquals(countDistinctOffsets(nodedupbytes), expectedcontents.size());
+		assertEquals(nodedup.getContentDescriptor(),
+				createBuilder(includedzip, ZipDeduplication.NONE).build("test.zip").getContentDescriptor());
+
+		ZipOutputSakerFile copied = createBuilder(includedzip, ZipDeduplication.COPY).build("test.zip");
+		ByteArrayRegion copiedbytes = copied.getBytes();
+		//the same layout as without deduplication
+		assertTrue(Arrays.equals(copiedbytes.copyOptionally(), nodedupbytes.copyOptionally()));
+
+		ZipOutputSakerFile shared = createBuilder(includedzip, ZipDeduplication.SHARED).build("test.zip");
+		ByteArrayRegion sharedbytes = shared.getBytes();
+		assertNotEquals(shared.getContentDescriptor(), nodedup.getContentDescriptor());
+		assertTrue(sharedbytes.getLength() < nodedupbytes.getLength());
+		//the large and the small duplicates share the data
+		assertEquals(countDistinctOffsets(sharedbytes), expectedcontents.size() - 4);
+		assertEquals(readContents(sharedbytes), expectedcontents);
+		assertEquals(readWithZipFile(sharedbytes), expectedcontents);
+
+		//the shared records are copied separately when the records are assembled to another archive
+		assertEquals(readContents(copyRecords(sharedbytes)), expectedcontents);
+
+		//the data of an unaligned entry is not shared with an aligned one
+		ZipOutputSakerFile.Builder alignedbuilder = ZipOutputSakerFile.builder();
+		alignedbuilder.add(ZipResourceEntry.stored(SakerPath.valueOf("unaligned.txt")),
+				ZipCreatorUtils.byteFileHandle(LARGE));
+		alignedbuilder.add(ZipResourceEntry.stored(SakerPath.valueOf("aligned.txt")).withAlignment(4096),
+				ZipCreatorUtils.byteFileHandle(LARGE));
+		alignedbuilder.add(ZipResourceEntry.stored(SakerPath.valueOf("aligned2.txt")).withAlignment(4096),
+				ZipCreatorUtils.byteFileHandle(LARGE));
+		alignedbuilder.setDeduplication(ZipDeduplication.SHARED);
+		ByteArrayRegion alignedbytes = alignedbuilder.build("aligned.zip").getBytes();
+		assertEquals(countDistinctOffsets(alignedbytes), 2);
+		assertEquals(readContents(alignedbytes), TestUtils.<String, String>treeMapBuilder().put("unaligned.txt", LARGE)
+				.put("aligned.txt", LARGE).put("aligned2.txt", LARGE).build());
+	}
+
+	private static ZipOutputSakerFile.Builder createBuilder(SakerFile includedzip, ZipDeduplication deduplication) {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.add(SakerPath.valueOf("a.txt"), ZipCreatorUtils.byteFileHandle(LARGE));
+		builder.add(SakerPath.valueOf("b/a.txt"), ZipCreatorUtils.byteFileHandle(LARGE));
+		builder.add(SakerPath.valueOf("c.txt"), ZipCreatorUtils.byteFileHandle(LARGE));
+		builder.add(SakerPath.valueOf("unique.txt"), ZipCreatorUtils.byteFileHandle("unique"));
+		builder.add(SakerPath.valueOf("small1.txt"), ZipCreatorUtils.byteFileHandle("s"));
+		builder.add(SakerPath.valueOf("small2.txt"), ZipCreatorUtils.byteFileHandle("s"));
+		builder.addIncludeFromArchive(includedzip, includedzip.getContentDescriptor(),
+				IncludeResourceMapping.identity());
+		builder.setDeduplication(deduplication);
+		return builder;
+	}
+
+	private static String createLargeContents() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			sb.append(Integer.toHexString(i * 0x9E3779B1));
+		}
+		return sb.toString();
+	}
+
+	private static int countDistinctOffsets(ByteArrayRegion bytes) throws IOException {
+		Set<Long> offsets = new HashSet<>();
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(bytes)) {
+			for (ZipArchiveEntryInformation entry : reader.readManifest().getEntries()) {
+				offsets.add(entry.getLocalHeaderOffset());
+			}
+		}
+		return offsets.size();
+	}
+
+	private static Map<String, String> readContents(ByteArrayRegion bytes) throws IOException {
+		Map<String, String> result = new TreeMap<>();
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(bytes)) {
+			for (ZipArchiveEntryInformation entry : reader.readManifest().getEntries()) {
+				try (InputStream in = reader.openEntry(entry)) {
+					result.put(entry.getName(),
+							new String(StreamUtils.readStreamFully(in).copyOptionally(), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static Map<String, String> readWithZipFile(ByteArrayRegion bytes) throws IOException {
+		Path file = Files.createTempFile("dedup", ".zip");
+		try {
+			Files.write(file, bytes.copyOptionally());
+			Map<String, String> result = new TreeMap<>();
+			try (ZipFile zf = new ZipFile(file.toFile())) {
+				for (Enumeration<? extends ZipEntry> it = zf.entries(); it.hasMoreElements();) {
+					ZipEntry entry = it.nextElement();
+					try (InputStream in = zf.getInputStream(entry)) {
+						result.put(entry.getName(),
+								new String(StreamUtils.readStreamFully(in).copyOptionally(), StandardCharsets.UTF_8));
+					}
+				}
+			}
+			return result;
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static ByteArrayRegion copyRecords(ByteArrayRegion bytes) throws IOException {
+		UnsyncByteArrayOutputStream out = new UnsyncByteArrayOutputStream();
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(bytes);
+				ZipArchiveOutputStream zipos = new ZipArchiveOutputStream(out)) {
+			ZipCentralDirectory directory = reader.readCentralDirectory();
+			int count = directory.getEntryCount();
+			for (int start = 0; start < count;) {
+				int end = start + 1;
+				while (end < count && directory.isContiguous(end - 1)) {
+					++end;
+				}
+				zipos.writeRawRecords(reader, directory, start, end);
+				start = end;
+			}
+			CompactZipArchiveManifest manifest = zipos.getManifest();
+			assertEquals(manifest.getEntryCount(), count);
+		}
+		return out.toByteArrayRegion();
+	}
+}
@@ -0,0 +1,107 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.extract.ZipEntryDifference;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.extract.SimpleZipArchiveDiff;
+import saker.zip.impl.extract.ZipDiffWorkerTaskFactory;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Compares archives, and checks that the detailed differences are only computed for the selected entries.
+ */
+@SakerTest
+public class DiffDirectZipCreateTest extends SakerTestCase {
+	private static final String LONG_PREFIX = String.join("", Collections.nCopies(2000, "0123456789"));
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ByteArrayOutputStream basebytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipout = new ZipOutputStream(basebytes)) {
+			putEntry(zipout, "same.txt", "same", ZipEntry.DEFLATED);
+			putEntry(zipout, "modified.txt", "aval", ZipEntry.DEFLATED);
+			putEntry(zipout, "removed.txt", "rval", ZipEntry.DEFLATED);
+			putEntry(zipout, "long.bin", LONG_PREFIX + "A", ZipEntry.DEFLATED);
+			putEntry(zipout, "method.txt", "method", ZipEntry.DEFLATED);
+			putEntry(zipout, "nodetail.dat", "nval", ZipEntry.DEFLATED);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zipout = new ZipOutputStream(bytes)) {
+			putEntry(zipout, "added.txt", "added", ZipEntry.DEFLATED);
+			putEntry(zipout, "same.txt", "same", ZipEntry.DEFLATED);
+			putEntry(zipout, "modified.txt", "amod", ZipEntry.DEFLATED);
+			putEntry(zipout, "long.bin", LONG_PREFIX + "B", ZipEntry.STORED);
+			putEntry(zipout, "method.txt", "method", ZipEntry.STORED);
+			putEntry(zipout, "nodetail.dat", "nmod", ZipEntry.DEFLATED);
+		}
+
+		SimpleZipArchiveDiff diff;
+		try (ZipArchiveEntryReader basereader = new ZipArchiveEntryReader(
+				ByteArrayRegion.wrap(basebytes.toByteArray()));
+				ZipArchiveEntryReader reader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(bytes.toByteArray()))) {
+			diff = ZipDiffWorkerTaskFactory.diff(basereader, reader, new LinkedHashSet<>(
+					Arrays.asList(WildcardPath.valueOf("*.txt"), WildcardPath.valueOf("*.bin"))));
+		}
+		assertEquals(names(diff.getAddedEntries()), Arrays.asList("added.txt"));
+		assertEquals(names(diff.getRemovedEntries()), Arrays.asList("removed.txt"));
+		assertEquals(names(diff.getModifiedEntries()),
+				Arrays.asList("modified.txt", "long.bin", "method.txt", "nodetail.dat"));
+		assertEquals(diff.getEntryDifferences().keySet(),
+				new LinkedHashSet<>(Arrays.asList("long.bin", "method.txt", "modified.txt")));
+
+		ZipEntryDifference modified = diff.getEntryDifferences().get("modified.txt");
+		assertEquals(modified.getFirstDifferenceOffset(), 1L);
+		assertEquals(modified.getBaseEntry().getCrc(), crc("aval"));
+		assertEquals(modified.getEntry().getCrc(), crc("amod"));
+		assertEquals(diff.getEntryDifferences().get("long.bin").getFirstDifferenceOffset(),
+				(long) LONG_PREFIX.length());
+		ZipEntryDifference method = diff.getEntryDifferences().get("method.txt");
+		assertEquals(method.getFirstDifferenceOffset(), -1L);
+		assertEquals(method.getBaseEntry().getMethod(), ZipEntry.DEFLATED);
+		assertEquals(method.getEntry().getMethod(), ZipEntry.STORED);
+	}
+
+	private static List<String> names(ZipArchiveManifest manifest) {
+		List<String> result = new ArrayList<>();
+		for (int i = 0; i < manifest.getEntryCount(); i++) {
+			result.add(manifest.getEntry(i).getName());
+		}
+		return result;
+	}
+
+	private static void putEntry(ZipOutputStream zipout, String name, String contents, int method)
+			throws IOException {
+		byte[] data = contents.getBytes(StandardCharsets.UTF_8);
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (method == ZipEntry.STORED) {
+			entry.setSize(data.length);
+			entry.setCrc(crc(contents));
+		}
+		zipout.putNextEntry(entry);
+		zipout.write(data);
+		zipout.closeEntry();
+	}
+
+	private static long crc(String contents) {
+		CRC32 crc = new CRC32();
+		crc.update(contents.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,64 @@
+package testing.saker.zip.direct;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.thirdparty.saker.util.StringUtils;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the archive digests are computed both when the archive is written to a stream, and when it is written
+ * through the file channel of a local output file.
+ */
+@SakerTest
+public class DigestDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ZipOutputSakerFile streamfile = createFile();
+		byte[] bytes = streamfile.getBytes().copy();
+		assertEquals(streamfile.getDigests(), computeDigests(bytes));
+
+		Path outdir = Files.createTempDirectory("saker.zip-digest");
+		try {
+			Path target = outdir.resolve("test.zip");
+			ZipOutputSakerFile channelfile = createFile();
+			channelfile.synchronizeImpl(LocalFileProvider.getInstance().getPathKey(SakerPath.valueOf(target)));
+			assertTrue(Arrays.equals(Files.readAllBytes(target), bytes));
+			assertEquals(channelfile.getDigests(), computeDigests(bytes));
+		} finally {
+			Files.deleteIfExists(outdir.resolve("test.zip"));
+			Files.delete(outdir);
+		}
+	}
+
+	private static ZipOutputSakerFile createFile() {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setDigestAlgorithms(Arrays.asList("SHA-256", "MD5"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("readme.txt")),
+				ZipCreatorUtils.byteFileHandle("readme"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("dir/other.txt")),
+				ZipCreatorUtils.byteFileHandle("other"));
+		return builder.build("test.zip");
+	}
+
+	private static Map<String, String> computeDigests(byte[] bytes) throws Exception {
+		return TestUtils.<String, String>treeMapBuilder()
+				.put("SHA-256", digest("SHA-256", bytes)).put("MD5", digest("MD5", bytes)).build();
+	}
+
+	private static String digest(String algorithm, byte[] bytes) throws Exception {
+		return StringUtils.toHexString(MessageDigest.getInstance(algorithm).digest(bytes)).toLowerCase(Locale.ROOT);
+	}
+}
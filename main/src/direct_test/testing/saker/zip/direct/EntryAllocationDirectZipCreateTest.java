@@ -0,0 +1,71 @@
+package testing.saker.zip.direct;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Measures the heap allocation of writing an archive with many small entries through {@link ZipOutputSakerFile}
+ * without transformers, and checks that it is about the size of the retained data. Each entry name is retained by the
+ * central directory records, the entry name registry and the manifest of the archive.
+ */
+@SakerTest
+public class EntryAllocationDirectZipCreateTest extends SakerTestCase {
+	private static final int ENTRY_COUNT = 100_000;
+	private static final long MAX_BYTES_PER_ENTRY = 512;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ThreadMXBean mxbean = ManagementFactory.getThreadMXBean();
+		if (!(mxbean instanceof com.sun.management.ThreadMXBean)) {
+			System.err.println("Thread allocation measurement is not supported.");
+			return;
+		}
+		com.sun.management.ThreadMXBean threadmx = (com.sun.management.ThreadMXBean) mxbean;
+		if (!threadmx.isThreadAllocatedMemorySupported()) {
+			System.err.println("Thread allocation measurement is not supported.");
+			return;
+		}
+		threadmx.setThreadAllocatedMemoryEnabled(true);
+
+		SakerFile contents = ZipCreatorUtils.byteFileHandle("");
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			builder.add(ZipResourceEntry.stored(SakerPath.valueOf("dir" + (i % 100) + "/sub/File" + i + ".class")),
+					contents);
+		}
+		ZipOutputSakerFile file = builder.build("entries.zip");
+		//warm up, the entry names are encoded during the first write
+		file.writeToStreamImpl(new NullOutputStream());
+
+		long threadid = Thread.currentThread().getId();
+		long start = threadmx.getThreadAllocatedBytes(threadid);
+		file.writeToStreamImpl(new NullOutputStream());
+		long allocated = threadmx.getThreadAllocatedBytes(threadid) - start;
+
+		long perentry = allocated / ENTRY_COUNT;
+		System.out.println("Allocated bytes per entry: " + perentry);
+		if (perentry >= MAX_BYTES_PER_ENTRY) {
+			fail("Allocated too many bytes per entry: " + perentry);
+		}
+	}
+
+	private static final class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+}
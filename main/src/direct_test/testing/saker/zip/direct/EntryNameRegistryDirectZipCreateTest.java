@@ -0,0 +1,39 @@
+package testing.saker.zip.direct;
+
+import java.util.Map;
+
+import saker.build.file.path.SakerPath;
+import saker.zip.impl.create.ZipEntryNameRegistry;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+@SakerTest
+public class EntryNameRegistryDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		try (ZipEntryNameRegistry registry = new ZipEntryNameRegistry()) {
+			assertEquals(registry.putIfAbsent(SakerPath.valueOf("dir/a.txt"), (byte) 0), ZipEntryNameRegistry.ABSENT);
+			assertEquals(registry.putIfAbsent(SakerPath.valueOf("DIR/A.TXT"), (byte) 1), 0);
+			assertEquals(registry.putIfAbsent(SakerPath.valueOf("dir"), (byte) 1), ZipEntryNameRegistry.ABSENT);
+			assertEquals(registry.putIfAbsent(SakerPath.valueOf("Dir"), (byte) 0), 1);
+			assertTrue(registry.add(SakerPath.valueOf("árvíztűrő.txt")));
+			assertFalse(registry.add(SakerPath.valueOf("ÁRVÍZTŰRŐ.TXT")));
+			assertEquals(registry.size(), 3);
+			assertFalse(registry.isSpilled());
+		}
+
+		//spill the names to a file right after a few entries
+		try (ZipEntryNameRegistry registry = new ZipEntryNameRegistry(64)) {
+			for (int i = 0; i < 10000; i++) {
+				assertTrue(registry.add(SakerPath.valueOf("dir" + (i % 10) + "/file" + i + ".txt")));
+			}
+			assertTrue(registry.isSpilled());
+			for (int i = 0; i < 10000; i++) {
+				assertFalse(registry.add(SakerPath.valueOf("DIR" + (i % 10) + "/File" + i + ".TXT")));
+			}
+			assertEquals(registry.size(), 10000);
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.impl.create.ZipEntryOrder;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the entries are written in the order specified by the entry order list.
+ */
+@SakerTest
+public class EntryOrderDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		assertEquals(ZipEntryOrder.parse("# comment\n\ncom/example/Main.class\r\n"
+				+ "[Loaded com.example.Util from file:/app.jar]\n"
+				+ "[0.012s][info][class,load] com.example.Config source: file:/app.jar\n"
+				+ "[0.013s][info][class,load] com.example.Main$$Lambda/0x000001 source: com.example.Main\n"
+				+ "[0.014s][info][gc] Using G1\n" + "../outside.txt\n" + "com/example/Main.class\n" + "res/a.txt"),
+				paths("com/example/Main.class", "com/example/Util.class", "com/example/Config.class", "res/a.txt"));
+
+		SakerFile includedzip = ZipCreatorUtils
+				.getZipFile(TestUtils.<String, String>treeMapBuilder().put("inc.txt", "included").build());
+		TreeMap<String, String> expectedcontents = TestUtils.<String, String>treeMapBuilder()
+				.put("META-INF/MANIFEST.MF", "Manifest-Version: 1.0")
+				.put("a.txt", "a").put("b.txt", "b").put("c/d.txt", "d").put("c/e.txt", "e").put("inc.txt", "included")
+				.build();
+
+		ZipOutputSakerFile unordered = createBuilder(includedzip, null).build("test.zip");
+		assertEquals(getEntryNames(unordered.getBytes()), Arrays.asList("META-INF/MANIFEST.MF", "a.txt",
+				"b.txt", "c/d.txt", "c/e.txt", "inc.txt"));
+
+		ZipOutputSakerFile ordered = createBuilder(includedzip,
+				paths("c/e.txt", "notpresent.txt", "META-INF/MANIFEST.MF", "b.txt")).build("test.zip");
+		ByteArrayRegion orderedbytes = ordered.getBytes();
+		ZipCreatorUtils.assertSameContents(expectedcontents, orderedbytes);
+		assertEquals(getEntryNames(orderedbytes), Arrays.asList("META-INF/MANIFEST.MF", "c/e.txt",
+				"b.txt", "a.txt", "c/d.txt", "inc.txt"));
+
+		assertNotEquals(unordered.getContentDescriptor(), ordered.getContentDescriptor());
+		assertEquals(ordered.getContentDescriptor(),
+				createBuilder(includedzip, paths("c/e.txt", "notpresent.txt", "META-INF/MANIFEST.MF", "b.txt"))
+						.build("test.zip").getContentDescriptor());
+	}
+
+	private static ZipOutputSakerFile.Builder createBuilder(SakerFile includedzip, List<SakerPath> order) {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.add(SakerPath.valueOf("a.txt"), ZipCreatorUtils.byteFileHandle("a"));
+		builder.add(SakerPath.valueOf("c/e.txt"), ZipCreatorUtils.byteFileHandle("e"));
+		builder.add(SakerPath.valueOf("META-INF/MANIFEST.MF"),
+				ZipCreatorUtils.byteFileHandle("Manifest-Version: 1.0"));
+		builder.add(SakerPath.valueOf("b.txt"), ZipCreatorUtils.byteFileHandle("b"));
+		builder.add(SakerPath.valueOf("c/d.txt"), ZipCreatorUtils.byteFileHandle("d"));
+		builder.addIncludeFromArchive(includedzip, includedzip.getContentDescriptor(),
+				IncludeResourceMapping.identity());
+		if (order != null) {
+			builder.setEntryOrder(order);
+		}
+		return builder;
+	}
+
+	private static List<SakerPath> paths(String... paths) {
+		List<SakerPath> result = new ArrayList<>();
+		for (String p : paths) {
+			result.add(SakerPath.valueOf(p));
+		}
+		return result;
+	}
+
+	private static List<String> getEntryNames(ByteArrayRegion bytes) throws IOException {
+		List<String> result = new ArrayList<>();
+		try (ZipInputStream zis = new ZipInputStream(
+				new ByteArrayInputStream(bytes.getArray(), bytes.getOffset(), bytes.getLength()))) {
+			for (ZipEntry ze; (ze = zis.getNextEntry()) != null;) {
+				result.add(ze.getName());
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,151 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.Zip64Mode;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Reads the entries of archives concurrently with positional reads, and checks that corrupted entry data is detected.
+ */
+@SakerTest
+public class EntryReaderDirectZipCreateTest extends SakerTestCase {
+	private static final int ENTRY_COUNT = 200;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		for (Zip64Mode mode : new Zip64Mode[] { Zip64Mode.AS_NEEDED, Zip64Mode.ALWAYS }) {
+			byte[] archive = createArchive(mode);
+			try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(archive))) {
+				verifyEntries(reader);
+			}
+			Path file = Files.createTempFile("entry-reader", ".zip");
+			try {
+				Files.write(file, archive);
+				try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(FileChannel.open(file))) {
+					verifyEntries(reader);
+				}
+			} finally {
+				Files.deleteIfExists(file);
+			}
+		}
+		testCorruptedEntry();
+	}
+
+	private static void verifyEntries(ZipArchiveEntryReader reader) throws Exception {
+		CompactZipArchiveManifest manifest = reader.readManifest();
+		assertEquals(manifest.getEntryCount(), ENTRY_COUNT);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < ENTRY_COUNT; i++) {
+				int idx = i;
+				ZipArchiveEntryInformation entry = manifest.getEntry(i);
+				futures.add(executor.submit(() -> {
+					assertEquals(entry.getName(), entryName(idx));
+					try (InputStream in = reader.openEntry(entry)) {
+						assertEquals(new String(readFully(in), StandardCharsets.UTF_8), entryContents(idx));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void testCorruptedEntry() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] contents = "stored contents".getBytes(StandardCharsets.UTF_8);
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			ZipEntry entry = new ZipEntry("stored.txt");
+			entry.setMethod(ZipEntry.STORED);
+			CRC32 crc = new CRC32();
+			crc.update(contents);
+			entry.setCrc(crc.getValue());
+			entry.setSize(contents.length);
+			zipout.putNextEntry(entry);
+			zipout.write(contents);
+			zipout.closeEntry();
+		}
+		byte[] archive = baos.toByteArray();
+		//the data follows the 30 byte local header, the name and the extra field
+		int dataoffset = 30 + (archive[26] & 0xFF) + (archive[28] & 0xFF);
+		archive[dataoffset] ^= 1;
+		try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(archive))) {
+			ZipArchiveEntryInformation entry = reader.readManifest().getEntry(0);
+			try (InputStream in = reader.openEntry(entry)) {
+				readFully(in);
+				fail("Corrupted entry was read.");
+			} catch (ZipException e) {
+			}
+		}
+	}
+
+	private static byte[] createArchive(Zip64Mode mode) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			zipout.setZip64Mode(mode);
+			for (int i = 0; i < ENTRY_COUNT; i++) {
+				byte[] contents = entryContents(i).getBytes(StandardCharsets.UTF_8);
+				ZipEntry entry = new ZipEntry(entryName(i));
+				if (i % 3 == 0) {
+					CRC32 crc = new CRC32();
+					crc.update(contents);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setCrc(crc.getValue());
+					entry.setSize(contents.length);
+				}
+				zipout.putNextEntry(entry);
+				zipout.write(contents);
+				zipout.closeEntry();
+			}
+		}
+		return baos.toByteArray();
+	}
+
+	private static String entryName(int i) {
+		return "dir" + (i % 10) + "/entry" + i + ".txt";
+	}
+
+	private static String entryContents(int i) {
+		StringBuilder sb = new StringBuilder();
+		for (int j = 0; j <= i % 50; j++) {
+			sb.append("contents of entry ").append(i).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buf = new byte[256];
+		for (int r; (r = in.read(buf)) > 0;) {
+			baos.write(buf, 0, r);
+		}
+		return baos.toByteArray();
+	}
+}
@@ -0,0 +1,109 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import saker.zip.impl.archive.FileChannelOutputStream;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipEntryHeader;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Writes an archive to a file through a small direct buffer, and checks that the file has the same contents as the
+ * archive written to memory.
+ */
+@SakerTest
+public class FileChannelOutputDirectZipCreateTest extends SakerTestCase {
+	private static final int BUFFER_SIZE = 4096;
+	private static final long MODIFICATION_MILLIS = 1_600_000_000_000L;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		byte[] data = new byte[100 * 1024 + 3];
+		new Random(456).nextBytes(data);
+
+		Path input = Files.createTempFile("channel-input", ".bin");
+		Path output = Files.createTempFile("channel-output", ".zip");
+		try {
+			Files.write(input, data);
+
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(expected)) {
+				writeArchive(zipout, input);
+			}
+
+			FileChannel outchannel = FileChannel.open(output, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try (FileChannelOutputStream os = new FileChannelOutputStream(outchannel, BUFFER_SIZE)) {
+				try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(os, os.getChannel())) {
+					writeArchive(zipout, input);
+				}
+			}
+			byte[] written = Files.readAllBytes(output);
+			assertEquals(written.length, expected.size());
+			assertTrue(Arrays.equals(written, expected.toByteArray()));
+		} finally {
+			Files.deleteIfExists(input);
+			Files.deleteIfExists(output);
+		}
+	}
+
+	private static void writeArchive(ZipArchiveOutputStream zipout, Path input) throws IOException {
+		ZipEntryHeader header = new ZipEntryHeader();
+		for (int i = 0; i < 200; i++) {
+			header.reset();
+			header.setName("dir/file" + i + ".txt");
+			header.setModificationMillis(MODIFICATION_MILLIS);
+			header.setMethod(i % 2 == 0 ? ZipEntry.DEFLATED : ZipEntry.STORED);
+			byte[] contents = ("contents of file " + i).getBytes(StandardCharsets.UTF_8);
+			if (header.getMethod() == ZipEntry.STORED) {
+				CRC32 crc = new CRC32();
+				crc.update(contents);
+				header.setCrc(crc.getValue());
+				header.setSize(contents.length);
+			}
+			zipout.putNextEntry(header);
+			zipout.write(contents);
+			zipout.closeEntry();
+
+			if (i % 40 == 0) {
+				//larger than the buffer of the file stream, written to the channel directly
+				byte[] large = new byte[BUFFER_SIZE * 3 + i];
+				new Random(i).nextBytes(large);
+				CRC32 crc = new CRC32();
+				crc.update(large);
+				header.reset();
+				header.setName("large" + i + ".bin");
+				header.setModificationMillis(MODIFICATION_MILLIS);
+				header.setMethod(ZipEntry.STORED);
+				header.setCrc(crc.getValue());
+				header.setSize(large.length);
+				zipout.putNextEntry(header);
+				zipout.write(large);
+				zipout.closeEntry();
+			}
+
+			if (i % 50 == 0) {
+				header.reset();
+				header.setName("data" + i + ".bin");
+				header.setModificationMillis(MODIFICATION_MILLIS);
+				header.setMethod(ZipEntry.STORED);
+				header.setCrc(-1);
+				try (FileChannel channel = FileChannel.open(input)) {
+					zipout.writeStoredEntry(header, channel);
+				}
+			}
+		}
+	}
+}
\ No newline at end of file
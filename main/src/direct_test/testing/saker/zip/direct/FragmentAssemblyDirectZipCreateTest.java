@@ -0,0 +1,144 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipMergeConflictPolicy;
+import saker.zip.impl.archive.FileChannelOutputStream;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipCentralDirectory;
+import saker.zip.impl.create.MergeSourceArchive;
+import saker.zip.impl.create.MergedZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Assembles an archive from archives created for separate modules, and checks that the result is the same as if the
+ * archive was created directly.
+ */
+@SakerTest
+public class FragmentAssemblyDirectZipCreateTest extends SakerTestCase {
+	private static final long MODIFICATION_MILLIS = 1_600_000_000_000L;
+
+	private static final String[][] FIRST_ENTRIES = { { "META-INF/", null }, { "META-INF/first.txt", "first" },
+			{ "first/A.class", "aaaaaaaaaaaaaaaa" }, { "first/B.class", "bbbbbbbbbbbbbbbbbbbbbbbbbb" } };
+	private static final String[][] SECOND_ENTRIES = { { "META-INF/", null }, { "second/C.class", "cccccccc" },
+			{ "second/D.class", "dddddddddddddddddddddddddddddddd" } };
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		byte[] first = createArchive(FIRST_ENTRIES);
+		byte[] second = createArchive(SECOND_ENTRIES);
+		byte[] expected = createArchive(FIRST_ENTRIES, Arrays.copyOfRange(SECOND_ENTRIES, 1, SECOND_ENTRIES.length));
+
+		List<ContentDescriptor> contents = Arrays.asList(HashContentDescriptor.createWithHash(new byte[] { 1 }),
+				HashContentDescriptor.createWithHash(new byte[] { 2 }));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveEntryReader firstreader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(first));
+				ZipArchiveEntryReader secondreader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(second))) {
+			MergedZipOutputSakerFile file = MergedZipOutputSakerFile.create("out.zip",
+					Arrays.asList(new MergeSourceArchive(firstreader), new MergeSourceArchive(secondreader)),
+					contents, ZipMergeConflictPolicy.FIRST, null);
+			file.writeTo(baos);
+		}
+		assertTrue(Arrays.equals(baos.toByteArray(), expected));
+
+		testChannelTransfer(first, second, expected);
+		testClosedSources(first, second, expected, contents);
+	}
+
+	private static void testClosedSources(byte[] first, byte[] second, byte[] expected,
+			List<ContentDescriptor> contents) throws IOException {
+		Path dir = Files.createTempDirectory("saker-zip-fragment");
+		Path firstpath = dir.resolve("first.zip");
+		Path secondpath = dir.resolve("second.zip");
+		try {
+			Files.write(firstpath, first);
+			Files.write(secondpath, second);
+			MergedZipOutputSakerFile file;
+			try (MergeSourceArchive firstsource = new MergeSourceArchive(firstpath);
+					MergeSourceArchive secondsource = new MergeSourceArchive(secondpath)) {
+				file = MergedZipOutputSakerFile.create("out.zip", Arrays.asList(firstsource, secondsource), contents,
+						ZipMergeConflictPolicy.FIRST, null);
+			}
+			//the archives are opened again
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			file.writeTo(baos);
+			assertTrue(Arrays.equals(baos.toByteArray(), expected));
+		} finally {
+			Files.deleteIfExists(firstpath);
+			Files.deleteIfExists(secondpath);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	private static void testChannelTransfer(byte[] first, byte[] second, byte[] expected) throws IOException {
+		Path dir = Files.createTempDirectory("saker-zip-fragment");
+		Path firstpath = dir.resolve("first.zip");
+		Path secondpath = dir.resolve("second.zip");
+		Path out = dir.resolve("out.zip");
+		try {
+			Files.write(firstpath, first);
+			Files.write(secondpath, second);
+			try (ZipArchiveEntryReader firstreader = new ZipArchiveEntryReader(
+					FileChannel.open(firstpath, StandardOpenOption.READ));
+					ZipArchiveEntryReader secondreader = new ZipArchiveEntryReader(
+							FileChannel.open(secondpath, StandardOpenOption.READ));
+					FileChannelOutputStream os = FileChannelOutputStream.open(out);
+					ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(os, os.getChannel())) {
+				ZipCentralDirectory firstdir = firstreader.readCentralDirectory();
+				ZipCentralDirectory seconddir = secondreader.readCentralDirectory();
+				assertEquals(firstdir.getEntryCount(), FIRST_ENTRIES.length);
+				assertTrue(firstdir.isContiguous(0));
+				assertFalse(firstdir.isContiguous(FIRST_ENTRIES.length - 1));
+
+				zipout.writeRawRecords(firstreader, firstdir, 0, firstdir.getEntryCount());
+				zipout.writeRawRecords(secondreader, seconddir, 1, seconddir.getEntryCount());
+			}
+			assertTrue(Arrays.equals(Files.readAllBytes(out), expected));
+		} finally {
+			Files.deleteIfExists(firstpath);
+			Files.deleteIfExists(secondpath);
+			Files.deleteIfExists(out);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	private static byte[] createArchive(String[][]... entrygroups) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			for (String[][] entries : entrygroups) {
+				for (String[] entry : entries) {
+					ZipEntry ze = new ZipEntry(entry[0]);
+					ze.setTime(MODIFICATION_MILLIS);
+					byte[] data = entry[1] == null ? new byte[0] : entry[1].getBytes(StandardCharsets.UTF_8);
+					if (entry[1] == null) {
+						CRC32 crc = new CRC32();
+						crc.update(data);
+						ze.setMethod(ZipEntry.STORED);
+						ze.setSize(data.length);
+						ze.setCrc(crc.getValue());
+					}
+					zipout.putNextEntry(ze);
+					zipout.write(data);
+					zipout.closeEntry();
+				}
+			}
+		}
+		return baos.toByteArray();
+	}
+}
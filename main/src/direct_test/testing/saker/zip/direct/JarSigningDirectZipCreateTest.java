@@ -0,0 +1,179 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.JarSignatureWriter;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipEntryHeader;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the archives signed while they are written are verified by {@link JarFile}.
+ */
+@SakerTest
+public class JarSigningDirectZipCreateTest extends SakerTestCase {
+	private static final String PASSWORD = "testpass";
+	private static final String ALIAS = "test.signer";
+	private static final String LONG_NAME = "some/very/long/directory/name/that/is/wrapped/in/the/manifest/Entry.class";
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		assertEquals(JarSignatureWriter.toSignerName(ALIAS), "TEST_SIG");
+
+		Path dir = Files.createTempDirectory("jar-signing");
+		try {
+			Path keystorepath = dir.resolve("keystore.p12");
+			generateKeyStore(keystorepath);
+			KeyStore keystore = KeyStore.getInstance("PKCS12");
+			try (InputStream in = Files.newInputStream(keystorepath)) {
+				keystore.load(in, PASSWORD.toCharArray());
+			}
+			PrivateKey key = (PrivateKey) keystore.getKey(ALIAS, PASSWORD.toCharArray());
+			List<X509Certificate> chain = new ArrayList<>();
+			for (Certificate cert : keystore.getCertificateChain(ALIAS)) {
+				chain.add((X509Certificate) cert);
+			}
+
+			SakerFile includedzip = ZipCreatorUtils.getZipFile(TestUtils.<String, String>treeMapBuilder()
+					.put("inc1.txt", "included").put("incdir/inc2.txt", "included_2").build());
+			ZipOutputSakerFile unsigned = createBuilder(includedzip).build("test.jar");
+			ZipOutputSakerFile.Builder builder = createBuilder(includedzip);
+			builder.setJarSignature(JarSignatureWriter.toSignerName(ALIAS), key, chain);
+			ZipOutputSakerFile signed = builder.build("test.jar");
+			assertNotEquals(signed.getContentDescriptor(), unsigned.getContentDescriptor());
+
+			Path jar = dir.resolve("test.jar");
+			ByteArrayRegion bytes = signed.getBytes();
+			Files.write(jar, bytes.copyOptionally());
+
+			Map<String, String> expected = TestUtils.<String, String>treeMapBuilder().put("a.txt", "a")
+					.put("stored.txt", "stored").put("empty.txt", "").put(LONG_NAME, "class")
+					.put("inc1.txt", "included").put("incdir/inc2.txt", "included_2").build();
+			Map<String, String> contents = verifyJar(jar);
+			assertEquals(contents, expected);
+
+			try (JarFile jf = new JarFile(jar.toFile())) {
+				Manifest manifest = jf.getManifest();
+				assertEquals(manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS), "test.Main");
+				assertEquals(manifest.getAttributes("a.txt").getValue("Content-Type"), "text/plain");
+				assertEquals(manifest.getAttributes("missing.txt").getValue("X-Custom"), "value");
+				assertNotEquals(jf.getEntry("META-INF/TEST_SIG.SF"), null);
+				assertNotEquals(jf.getEntry("META-INF/TEST_SIG.RSA"), null);
+			}
+
+			//the STORED entries written directly from a file channel are digested too
+			Path stored = dir.resolve("stored.bin");
+			byte[] storeddata = new byte[256 * 1024];
+			new Random(123).nextBytes(storeddata);
+			Files.write(stored, storeddata);
+			Path channeljar = dir.resolve("channel.jar");
+			try (OutputStream os = Files.newOutputStream(channeljar);
+					ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(os);
+					FileChannel channel = FileChannel.open(stored)) {
+				zipout.setJarSignature(new JarSignatureWriter("CHANNEL", key, chain, FileTime.fromMillis(0)));
+				ZipEntryHeader header = new ZipEntryHeader();
+				header.setName("stored.bin");
+				header.setModificationMillis(0);
+				zipout.writeStoredEntry(header, channel);
+			}
+			try (JarFile jf = new JarFile(channeljar.toFile())) {
+				JarEntry entry = jf.getJarEntry("stored.bin");
+				assertEquals(entry.getMethod(), ZipEntry.STORED);
+			}
+			assertEquals(verifyJar(channeljar).keySet(), new TreeMap<>(
+					TestUtils.<String, String>treeMapBuilder().put("stored.bin", "").build()).keySet());
+		} finally {
+			for (Path p : Files.newDirectoryStream(dir)) {
+				Files.delete(p);
+			}
+			Files.delete(dir);
+		}
+	}
+
+	private static ZipOutputSakerFile.Builder createBuilder(SakerFile includedzip) {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.add(SakerPath.valueOf("META-INF/MANIFEST.MF"),
+				ZipCreatorUtils.byteFileHandle("Manifest-Version: 1.0\r\nMain-Class: test.Main\n\n"
+						+ "Name: a.txt\nContent-Type: text/plain\n\nName: missing.txt\nX-Custom: value\n"));
+		builder.add(SakerPath.valueOf("a.txt"), ZipCreatorUtils.byteFileHandle("a"));
+		builder.add(ZipResourceEntry.stored(SakerPath.valueOf("stored.txt")), ZipCreatorUtils.byteFileHandle("stored"));
+		builder.add(SakerPath.valueOf("empty.txt"), ZipCreatorUtils.byteFileHandle(""));
+		builder.add(SakerPath.valueOf(LONG_NAME), ZipCreatorUtils.byteFileHandle("class"));
+		builder.add(SakerPath.valueOf("dir"), null, ZipCreatorUtils.byteFileHandle("").getContentDescriptor());
+		builder.addIncludeFromArchive(includedzip, includedzip.getContentDescriptor(),
+				IncludeResourceMapping.identity());
+		return builder;
+	}
+
+	/**
+	 * Reads and verifies all entries of the JAR, and checks that the files are signed.
+	 */
+	private static Map<String, String> verifyJar(Path jar) throws Exception {
+		Map<String, String> result = new TreeMap<>();
+		try (JarFile jf = new JarFile(jar.toFile(), true)) {
+			Enumeration<JarEntry> entries = jf.entries();
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				ByteArrayOutputStream baos = new ByteArrayOutputStream();
+				try (InputStream in = jf.getInputStream(entry)) {
+					//throws SecurityException if the digest doesn't match
+					StreamUtils.copyStream(in, baos);
+				}
+				String name = entry.getName();
+				if (name.startsWith("META-INF/") || entry.isDirectory()) {
+					continue;
+				}
+				if (entry.getCodeSigners() == null) {
+					throw new AssertionError("Entry is not signed: " + name);
+				}
+				result.put(name, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+			}
+		}
+		return result;
+	}
+
+	private static void generateKeyStore(Path keystore) throws Exception {
+		Process proc = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "keytool").toString(),
+				"-genkeypair", "-keystore", keystore.toString(), "-storetype", "PKCS12", "-storepass", PASSWORD,
+				"-keypass", PASSWORD, "-alias", ALIAS, "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+				"-dname", "CN=saker.zip test").redirectErrorStream(true).start();
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		StreamUtils.copyStream(proc.getInputStream(), output);
+		if (proc.waitFor() != 0) {
+			throw new AssertionError("Failed to generate key store: " + output);
+		}
+	}
+}
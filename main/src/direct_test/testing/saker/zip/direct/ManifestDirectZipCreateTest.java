@@ -0,0 +1,109 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipArchiveManifest;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.ZipArchiveManifestReader;
+import saker.zip.impl.create.SimpleZipCreatorTaskOutput;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ManifestDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.add(SakerPath.valueOf("readme.txt"), ZipCreatorUtils.byteFileHandle("readme"));
+		builder.add(ZipResourceEntry.stored(SakerPath.valueOf("dir/stored.txt")),
+				ZipCreatorUtils.byteFileHandle("stored"));
+		builder.add(SakerPath.valueOf("mydir"), null, DirectoryContentDescriptor.INSTANCE);
+		ZipOutputSakerFile file = builder.build("test.zip");
+
+		assertNull(file.getManifest());
+		ByteArrayRegion bytes = file.getBytes();
+		ZipArchiveManifest manifest = file.getManifest();
+		assertNonNull(manifest);
+
+		List<ZipEntry> expectedentries = new ArrayList<>();
+		try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes.copy()))) {
+			for (ZipEntry ze; (ze = zis.getNextEntry()) != null;) {
+				//read the entry to have the sizes and crc available
+				while (zis.read() >= 0) {
+				}
+				expectedentries.add(ze);
+			}
+		}
+		assertEquals(manifest.getEntryCount(), expectedentries.size());
+		for (int i = 0; i < expectedentries.size(); i++) {
+			ZipEntry ze = expectedentries.get(i);
+			ZipArchiveEntryInformation entry = manifest.getEntry(i);
+			assertEquals(entry.getName(), ze.getName());
+			assertEquals(entry.getMethod(), ze.getMethod());
+			assertEquals(entry.getCrc(), ze.getCrc());
+			assertEquals(entry.getSize(), ze.getSize());
+			assertEquals(entry.getCompressedSize(), ze.getCompressedSize());
+		}
+		assertEquals(manifest.getEntries().get(0).getLocalHeaderOffset(), 0L);
+		for (ZipArchiveEntryInformation entry : manifest.getEntries()) {
+			if (entry.getName().equals("dir/stored.txt")) {
+				assertEquals(entry.getMethod(), ZipEntry.STORED);
+				assertEquals(entry.getCompressedSize(), entry.getSize());
+			}
+		}
+
+		//reading the central directory results in the same manifest
+		Path temp = Files.createTempFile("saker.zip-manifest", ".zip");
+		try {
+			Files.write(temp, bytes.copy());
+			try (SeekableByteChannel channel = Files.newByteChannel(temp)) {
+				assertEquals(ZipArchiveManifestReader.read(channel), manifest);
+			}
+
+			//the task output doesn't serialize the manifest, but reads it from the archive when requested
+			SimpleZipCreatorTaskOutput output = new SimpleZipCreatorTaskOutput(SakerPath.valueOf("/test.zip"),
+					manifest, Collections.emptyMap(), temp);
+			assertEquals(output.getManifest(), manifest);
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialize(output)))) {
+				SimpleZipCreatorTaskOutput readoutput = (SimpleZipCreatorTaskOutput) ois.readObject();
+				assertEquals(readoutput.getPath(), output.getPath());
+				assertEquals(readoutput.getManifest(), manifest);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialize(manifest)))) {
+			assertEquals(ois.readObject(), manifest);
+		}
+	}
+
+	private static byte[] serialize(Object obj) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(obj);
+		}
+		return baos.toByteArray();
+	}
+
+}
@@ -0,0 +1,249 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipMergeConflictPolicy;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.api.create.ZipResourceTransformationContext;
+import saker.zip.api.create.ZipResourceTransformer;
+import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.impl.archive.FileChannelOutputStream;
+import saker.zip.impl.archive.ZipArchiveEntryReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipEntryHeader;
+import saker.zip.impl.create.MergeSourceArchive;
+import saker.zip.impl.create.MergedZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Merges archives with the different conflict policies, and checks that the raw copied entries are the same as the
+ * ones in the source archive.
+ */
+@SakerTest
+public class MergeDirectZipCreateTest extends SakerTestCase {
+	private static final long MODIFICATION_MILLIS = 1_600_000_000_000L;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		byte[] first = createArchive(new String[][] { { "dir/", null }, { "dir/a.txt", "a1" }, { "same.txt", "same" },
+				{ "conflict.txt", "first" } }, ZipEntry.DEFLATED);
+		byte[] second = createArchive(new String[][] { { "dir/", null }, { "same.txt", "same" },
+				{ "conflict.txt", "second" }, { "b.txt", "b" } }, ZipEntry.STORED);
+
+		Map<String, String> firstmerged = merge(first, second, ZipMergeConflictPolicy.FIRST, null);
+		assertEquals(new ArrayList<>(firstmerged.keySet()),
+				Arrays.asList("dir/", "dir/a.txt", "same.txt", "conflict.txt", "b.txt"));
+		assertEquals(firstmerged.get("conflict.txt"), "first");
+
+		Map<String, String> lastmerged = merge(first, second, ZipMergeConflictPolicy.LAST, null);
+		assertEquals(new ArrayList<>(lastmerged.keySet()),
+				Arrays.asList("dir/", "dir/a.txt", "same.txt", "conflict.txt", "b.txt"));
+		assertEquals(lastmerged.get("conflict.txt"), "second");
+
+		try {
+			merge(first, second, ZipMergeConflictPolicy.ERROR, null);
+			fail("Conflicting entries were merged.");
+		} catch (IllegalArgumentException e) {
+		}
+
+		Map<String, String> concatmerged = merge(first, second, ZipMergeConflictPolicy.MERGE,
+				new ConcatTransformerFactory());
+		assertEquals(new ArrayList<>(concatmerged.keySet()),
+				Arrays.asList("dir/", "dir/a.txt", "same.txt", "b.txt", "conflict.txt"));
+		assertEquals(concatmerged.get("conflict.txt"), "firstsecond");
+
+		//the entries returned by the merger are written with their attributes
+		Map<String, String> renamemerged = merge(first, second, ZipMergeConflictPolicy.MERGE,
+				new RenameTransformerFactory(), 6);
+		assertEquals(new ArrayList<>(renamemerged.keySet()),
+				Arrays.asList("dir/", "dir/a.txt", "same.txt", "b.txt", "conflict.txt.1", "conflict.txt.2"));
+		assertEquals(renamemerged.get("conflict.txt.1"), "first");
+		assertEquals(renamemerged.get("conflict.txt.2"), "second");
+
+		testChannelTransfer(first);
+	}
+
+	private static void testChannelTransfer(byte[] archive) throws IOException {
+		Path dir = Files.createTempDirectory("saker-zip-merge");
+		try {
+			Path in = dir.resolve("in.zip");
+			Path out = dir.resolve("out.zip");
+			Files.write(in, archive);
+			try (ZipArchiveEntryReader reader = new ZipArchiveEntryReader(
+					FileChannel.open(in, StandardOpenOption.READ));
+					FileChannelOutputStream os = FileChannelOutputStream.open(out);
+					ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(os, os.getChannel())) {
+				ZipEntryHeader header = new ZipEntryHeader();
+				for (ZipArchiveEntryInformation entry : reader.readManifest().getEntries()) {
+					header.reset();
+					long dataoffset = reader.readHeader(entry, header);
+					assertEquals(header.getModificationMillis(), MODIFICATION_MILLIS);
+					zipout.writeRawEntry(header, reader, dataoffset);
+				}
+			}
+			//the entries are laid out the same way as in the source
+			assertTrue(Arrays.equals(Files.readAllBytes(out), archive));
+		} finally {
+			Files.deleteIfExists(dir.resolve("in.zip"));
+			Files.deleteIfExists(dir.resolve("out.zip"));
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	private static Map<String, String> merge(byte[] first, byte[] second, ZipMergeConflictPolicy policy,
+			ZipResourceTransformerFactory merger) throws IOException {
+		return merge(first, second, policy, merger, 5);
+	}
+
+	private static Map<String, String> merge(byte[] first, byte[] second, ZipMergeConflictPolicy policy,
+			ZipResourceTransformerFactory merger, int expectedcount) throws IOException {
+		List<ContentDescriptor> contents = Arrays.asList(HashContentDescriptor.createWithHash(new byte[] { 1 }),
+				HashContentDescriptor.createWithHash(new byte[] { 2 }));
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveEntryReader firstreader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(first));
+				ZipArchiveEntryReader secondreader = new ZipArchiveEntryReader(ByteArrayRegion.wrap(second))) {
+			MergedZipOutputSakerFile file = MergedZipOutputSakerFile.create("out.zip",
+					Arrays.asList(new MergeSourceArchive(firstreader), new MergeSourceArchive(secondreader)),
+					contents, policy, merger);
+			file.writeTo(baos);
+			assertEquals(file.getManifest().getEntryCount(), expectedcount);
+		}
+		Map<String, String> result = new LinkedHashMap<>();
+		try (ZipInputStream zipin = new ZipInputStream(new java.io.ByteArrayInputStream(baos.toByteArray()))) {
+			for (ZipEntry entry; (entry = zipin.getNextEntry()) != null;) {
+				if (merger == null || merger instanceof RenameTransformerFactory) {
+					assertEquals(entry.getTime(), MODIFICATION_MILLIS);
+				}
+				if (merger instanceof RenameTransformerFactory && entry.getName().startsWith("conflict.txt")) {
+					assertEquals(entry.getMethod(), ZipEntry.STORED);
+				}
+				result.put(entry.getName(), readString(zipin));
+			}
+		}
+		return result;
+	}
+
+	private static byte[] createArchive(String[][] entries, int method) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			for (String[] entry : entries) {
+				ZipEntry ze = new ZipEntry(entry[0]);
+				ze.setTime(MODIFICATION_MILLIS);
+				byte[] data = entry[1] == null ? new byte[0] : entry[1].getBytes(StandardCharsets.UTF_8);
+				if (entry[1] == null || method == ZipEntry.STORED) {
+					CRC32 crc = new CRC32();
+					crc.update(data);
+					ze.setMethod(ZipEntry.STORED);
+					ze.setSize(data.length);
+					ze.setCrc(crc.getValue());
+				}
+				zipout.putNextEntry(ze);
+				zipout.write(data);
+				zipout.closeEntry();
+			}
+		}
+		return baos.toByteArray();
+	}
+
+	private static String readString(InputStream in) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buf = new byte[256];
+		for (int r; (r = in.read(buf)) > 0;) {
+			baos.write(buf, 0, r);
+		}
+		return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static final class RenameTransformerFactory implements ZipResourceTransformerFactory {
+		@Override
+		public ZipResourceTransformer createTransformer() {
+			return new ZipResourceTransformer() {
+				private int counter;
+
+				@Override
+				public boolean process(ZipResourceTransformationContext context, SakerPath resourcepath,
+						InputStream resourceinput) throws IOException {
+					throw new UnsupportedOperationException();
+				}
+
+				@Override
+				public ZipResourceEntry process(ZipResourceTransformationContext context,
+						ZipResourceEntry resourceentry, InputStream resourceinput) throws IOException {
+					SakerPath path = resourceentry.getEntryPath();
+					return resourceentry.withEntryPath(SakerPath.valueOf(path + "." + ++counter)).asStoredEntry();
+				}
+			};
+		}
+
+		@Override
+		public int hashCode() {
+			return getClass().hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj != null && getClass() == obj.getClass();
+		}
+	}
+
+	private static final class ConcatTransformerFactory implements ZipResourceTransformerFactory {
+		@Override
+		public ZipResourceTransformer createTransformer() {
+			return new ZipResourceTransformer() {
+				private SakerPath path;
+				private ByteArrayOutputStream contents = new ByteArrayOutputStream();
+
+				@Override
+				public boolean process(ZipResourceTransformationContext context, SakerPath resourcepath,
+						InputStream resourceinput) throws IOException {
+					path = resourcepath;
+					byte[] buf = new byte[256];
+					for (int r; (r = resourceinput.read(buf)) > 0;) {
+						contents.write(buf, 0, r);
+					}
+					return true;
+				}
+
+				@Override
+				public void flush(ZipResourceTransformationContext context) throws IOException {
+					if (path != null) {
+						context.appendFile(path, null).write(contents.toByteArray());
+						path = null;
+						contents.reset();
+					}
+				}
+			};
+		}
+
+		@Override
+		public int hashCode() {
+			return getClass().hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj != null && getClass() == obj.getClass();
+		}
+	}
+}
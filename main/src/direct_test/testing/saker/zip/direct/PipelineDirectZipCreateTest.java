@@ -0,0 +1,107 @@
+package testing.saker.zip.direct;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.CompressedEntryCache;
+import saker.zip.impl.create.EntryPipelineConfiguration;
+import saker.zip.impl.create.EntryPipelineConfigurationExecutionProperty;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Checks that the archive written through the entry pipeline is the same as the one written sequentially, regardless
+ * of the pipeline configuration.
+ */
+@SakerTest
+public class PipelineDirectZipCreateTest extends SakerTestCase {
+	private static final int ENTRY_COUNT = 500;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		byte[][] contents = new byte[ENTRY_COUNT][];
+		Random random = new Random(1234);
+		for (int i = 0; i < ENTRY_COUNT; i++) {
+			//some entries are larger than the per entry limit of the small buffers
+			byte[] data = new byte[i % 50 == 0 ? 200_000 : random.nextInt(4000)];
+			for (int j = 0; j < data.length; j++) {
+				data[j] = (byte) ('a' + random.nextInt(8));
+			}
+			contents[i] = data;
+		}
+
+		byte[] expected = genZipBytes(contents, null, null).copy();
+		assertEquals(genZipBytes(contents, new EntryPipelineConfiguration(1, 1, 1, 1), null).copy(), expected);
+		assertEquals(genZipBytes(contents, new EntryPipelineConfiguration(2, 4, 8, 64 * 1024), null).copy(),
+				expected);
+		assertEquals(genZipBytes(contents, new EntryPipelineConfiguration(4, 4, 64, 32 * 1024 * 1024), null).copy(),
+				expected);
+
+		CompressedEntryCache cache = new CompressedEntryCache(16 * 1024 * 1024);
+		EntryPipelineConfiguration config = new EntryPipelineConfiguration(2, 2, 16, 1024 * 1024);
+		assertEquals(genZipBytes(contents, config, cache).copy(), expected);
+		//second time from the cache
+		assertEquals(genZipBytes(contents, config, cache).copy(), expected);
+
+		assertNonNull(getConfiguration(Collections.emptyMap()));
+		assertNull(getConfiguration(Collections.singletonMap(
+				EntryPipelineConfigurationExecutionProperty.PARAMETER_QUEUE_CAPACITY, "0")));
+		assertNull(getConfiguration(
+				Collections.singletonMap(EntryPipelineConfigurationExecutionProperty.PARAMETER_BUFFER_SIZE, "-1")));
+		assertNull(getConfiguration(
+				Collections.singletonMap(EntryPipelineConfigurationExecutionProperty.PARAMETER_READERS, "0")));
+	}
+
+	private static EntryPipelineConfiguration getConfiguration(Map<String, String> userparameters) throws Exception {
+		ExecutionContext executioncontext = (ExecutionContext) Proxy.newProxyInstance(
+				PipelineDirectZipCreateTest.class.getClassLoader(), new Class<?>[] { ExecutionContext.class },
+				(proxy, method, args) -> {
+					if ("getUserParameters".equals(method.getName())) {
+						return userparameters;
+					}
+					throw new UnsupportedOperationException(method.toString());
+				});
+		return EntryPipelineConfigurationExecutionProperty.INSTANCE.getCurrentValue(executioncontext);
+	}
+
+	private static ByteArrayRegion genZipBytes(byte[][] contents, EntryPipelineConfiguration pipelineconfig,
+			CompressedEntryCache cache) throws Exception {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setPipelineConfiguration(pipelineconfig);
+		builder.setCompressedEntryCache(cache);
+		for (int i = 0; i < contents.length; i++) {
+			SakerPath path = SakerPath.valueOf("dir" + (i % 10) + "/file" + i + ".txt");
+			ZipResourceEntry entry;
+			switch (i % 4) {
+				case 0: {
+					entry = ZipResourceEntry.stored(path);
+					break;
+				}
+				case 1: {
+					entry = ZipResourceEntry.deflated(path, Deflater.BEST_SPEED);
+					break;
+				}
+				default: {
+					entry = ZipResourceEntry.create(path);
+					break;
+				}
+			}
+			builder.add(entry, ZipCreatorUtils.byteFileHandle(contents[i]),
+					HashContentDescriptor.createWithHash(new byte[] { (byte) i, (byte) (i >>> 8) }));
+		}
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("emptydir")), null,
+				DirectoryContentDescriptor.INSTANCE);
+		return builder.build("test.zip").getBytes();
+	}
+}
@@ -0,0 +1,94 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.TreeSet;
+
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.create.ResourceEntriesDigestTree;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ResourceEntriesDigestTreeDirectZipCreateTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ZipOutputSakerFile first = build(null, null);
+		ResourceEntriesDigestTree tree = first.getResourceEntriesDigestTree();
+		assertNonNull(tree);
+
+		//reusing the previous tree results in the same content descriptor
+		ZipOutputSakerFile second = build(tree, null);
+		assertEquals(second.getContentDescriptor(), first.getContentDescriptor());
+
+		//changed entries are detected when the previous tree is used
+		FileTime modtime = FileTime.fromMillis(123456789000L);
+		ContentDescriptor changedfresh = build(null, modtime).getContentDescriptor();
+		ContentDescriptor changedincremental = build(tree, modtime).getContentDescriptor();
+		assertNotEquals(changedfresh, first.getContentDescriptor());
+		assertEquals(changedincremental, changedfresh);
+
+		//moving an entry to a different directory changes the digest
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setPreviousResourceEntriesDigestTree(tree);
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/b/c.txt")), ZipCreatorUtils.byteFileHandle("c"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/d.txt")), ZipCreatorUtils.byteFileHandle("d"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/b/e.txt")), ZipCreatorUtils.byteFileHandle("e"));
+		assertNotEquals(builder.build("test.zip").getResourceEntriesDigestTree().getRootDigest(),
+				tree.getRootDigest());
+
+		//names with the same String hash code are distinguished when the previous tree is used
+		assertEquals("Aa.txt".hashCode(), "BB.txt".hashCode());
+		ResourceEntriesDigestTree aatree = buildTree(null, "dir/Aa.txt");
+		ResourceEntriesDigestTree bbfresh = buildTree(null, "dir/BB.txt");
+		ResourceEntriesDigestTree bbincremental = buildTree(aatree, "dir/BB.txt");
+		assertNotEquals(bbfresh.getRootDigest(), aatree.getRootDigest());
+		assertEquals(bbincremental.getRootDigest(), bbfresh.getRootDigest());
+
+		//only the digests of the directories are serialized, not the attributes of the entries
+		String[] manyentries = new String[1000];
+		for (int i = 0; i < manyentries.length; i++) {
+			manyentries[i] = "dir/file" + i + ".txt";
+		}
+		assertEquals(serialize(buildTree(null, manyentries)).length, serialize(aatree).length);
+	}
+
+	private static ResourceEntriesDigestTree buildTree(ResourceEntriesDigestTree previous, String... paths) {
+		ResourceEntriesDigestTree.Builder builder = new ResourceEntriesDigestTree.Builder(previous);
+		TreeSet<SakerPath> sorted = new TreeSet<>();
+		for (String p : paths) {
+			sorted.add(SakerPath.valueOf(p));
+		}
+		for (SakerPath p : sorted) {
+			builder.add(ZipResourceEntry.create(p));
+		}
+		return builder.build();
+	}
+
+	private static byte[] serialize(Object obj) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+			oos.writeObject(obj);
+		}
+		return baos.toByteArray();
+	}
+
+	private static ZipOutputSakerFile build(ResourceEntriesDigestTree previous, FileTime emodtime) {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setPreviousResourceEntriesDigestTree(previous);
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/b/c.txt")), ZipCreatorUtils.byteFileHandle("c"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/d.txt")), ZipCreatorUtils.byteFileHandle("d"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("a/e.txt"), emodtime),
+				ZipCreatorUtils.byteFileHandle("e"));
+		builder.add(ZipResourceEntry.create(SakerPath.valueOf("f.txt")), ZipCreatorUtils.byteFileHandle("f"));
+		return builder.build("test.zip");
+	}
+
+}
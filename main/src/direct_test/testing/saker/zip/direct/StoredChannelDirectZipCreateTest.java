@@ -0,0 +1,145 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.archive.ZipEntryHeader;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Checks that the STORED entries written directly from a file channel are the same as the ones written through the
+ * stream, both when the data is transferred to the output channel, and when it is copied to the stream.
+ */
+@SakerTest
+public class StoredChannelDirectZipCreateTest extends SakerTestCase {
+	private static final int DATA_SIZE = 300 * 1024 + 17;
+	private static final long MODIFICATION_MILLIS = 1_600_000_000_000L;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		byte[] data = new byte[DATA_SIZE];
+		new Random(123).nextBytes(data);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+
+		Path input = Files.createTempFile("stored-input", ".bin");
+		Path output = Files.createTempFile("stored-output", ".zip");
+		try {
+			Files.write(input, data);
+
+			ByteArrayOutputStream expected = new ByteArrayOutputStream();
+			try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(expected)) {
+				writeDeflated(zipout, "first.txt");
+				ZipEntryHeader header = createHeader("data.bin");
+				header.setCrc(crc.getValue());
+				header.setSize(DATA_SIZE);
+				zipout.putNextEntry(header);
+				zipout.write(data);
+				zipout.closeEntry();
+				writeDeflated(zipout, "last.txt");
+			}
+
+			ByteArrayOutputStream copied = new ByteArrayOutputStream();
+			try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(copied)) {
+				writeArchive(zipout, input, crc.getValue());
+			}
+			assertTrue(Arrays.equals(copied.toByteArray(), expected.toByteArray()));
+
+			try (FileChannel outchannel = FileChannel.open(output, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+					OutputStream os = Channels.newOutputStream(outchannel);
+					ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(os, outchannel)) {
+				writeArchive(zipout, input, crc.getValue());
+			}
+			assertTrue(Arrays.equals(Files.readAllBytes(output), expected.toByteArray()));
+
+			//the output channel stops accepting bytes, the rest is copied to the stream
+			ByteArrayOutputStream stalled = new ByteArrayOutputStream();
+			try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(stalled,
+					new StallingChannel(stalled, 64 * 1024))) {
+				writeArchive(zipout, input, crc.getValue());
+			}
+			assertTrue(Arrays.equals(stalled.toByteArray(), expected.toByteArray()));
+		} finally {
+			Files.deleteIfExists(input);
+			Files.deleteIfExists(output);
+		}
+	}
+
+	private static void writeArchive(ZipArchiveOutputStream zipout, Path input, long expectedcrc)
+			throws IOException {
+		writeDeflated(zipout, "first.txt");
+		try (FileChannel channel = FileChannel.open(input)) {
+			ZipEntryHeader header = createHeader("data.bin");
+			header.setCrc(-1);
+			assertEquals(zipout.writeStoredEntry(header, channel), expectedcrc);
+		}
+		writeDeflated(zipout, "last.txt");
+	}
+
+	private static void writeDeflated(ZipArchiveOutputStream zipout, String name) throws IOException {
+		ZipEntryHeader header = new ZipEntryHeader();
+		header.setName(name);
+		header.setModificationMillis(MODIFICATION_MILLIS);
+		header.setMethod(ZipEntry.DEFLATED);
+		zipout.putNextEntry(header);
+		zipout.write(("contents of " + name).getBytes(StandardCharsets.UTF_8));
+		zipout.closeEntry();
+	}
+
+	/**
+	 * Channel that writes to the stream until the limit is reached, and then doesn't accept any more bytes.
+	 */
+	private static final class StallingChannel implements WritableByteChannel {
+		private final ByteArrayOutputStream out;
+		private int remaining;
+
+		public StallingChannel(ByteArrayOutputStream out, int limit) {
+			this.out = out;
+			this.remaining = limit;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			int c = Math.min(remaining, src.remaining());
+			byte[] buf = new byte[c];
+			src.get(buf);
+			out.write(buf);
+			remaining -= c;
+			return c;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+		}
+	}
+
+	private static ZipEntryHeader createHeader(String name) {
+		ZipEntryHeader header = new ZipEntryHeader();
+		header.setName(name);
+		header.setModificationMillis(MODIFICATION_MILLIS);
+		header.setMethod(ZipEntry.STORED);
+		return header;
+	}
+}
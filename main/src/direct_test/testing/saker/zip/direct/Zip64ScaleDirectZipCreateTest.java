@@ -0,0 +1,368 @@
+package testing.saker.zip.direct;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+import saker.build.file.path.SakerPath;
+import saker.zip.api.create.Zip64Mode;
+import saker.zip.api.create.ZipArchiveEntryInformation;
+import saker.zip.api.create.ZipResourceEntry;
+import saker.zip.impl.archive.CompactZipArchiveManifest;
+import saker.zip.impl.archive.ZipArchiveInputStream;
+import saker.zip.impl.archive.ZipArchiveManifestReader;
+import saker.zip.impl.archive.ZipArchiveOutputStream;
+import saker.zip.impl.create.ZipOutputSakerFile;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+/**
+ * Writes an archive that requires the ZIP64 format in every aspect (entry sizes, entry offsets, entry count), and
+ * reads it back in a streaming manner.
+ * <p>
+ * The archive is piped from the writer to the reader, so it is neither stored on the disk nor in memory. Only the
+ * central directory is captured to verify it separately.
+ */
+@SakerTest
+public class Zip64ScaleDirectZipCreateTest extends SakerTestCase {
+	private static final long LARGE_SIZE = (1L << 32) + 1024;
+	private static final int SMALL_ENTRY_COUNT = 70_000;
+	private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		testAlwaysMode();
+		testOutputFileMode();
+		testNeverMode();
+		testLargeArchive();
+	}
+
+	private static void testAlwaysMode() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(baos)) {
+			zipout.setZip64Mode(Zip64Mode.ALWAYS);
+			writeSmallEntries(zipout, 10);
+		}
+		byte[] bytes = baos.toByteArray();
+		try (ZipArchiveInputStream in = new ZipArchiveInputStream(new ByteArrayInputStream(bytes))) {
+			verifySmallEntries(in, 10);
+			assertEquals(in.getNextEntry(), null);
+		}
+		if (getJavaMajorVersion() >= 21) {
+			//the data descriptors have ZIP64 sizes, older ZipInputStream implementations expect 4 byte sizes for
+			//small entries
+			try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+				for (int i = 0; i < 10; i++) {
+					ZipEntry e = in.getNextEntry();
+					assertEquals(e.getName(), smallEntryName(i));
+					assertEquals(new String(readFully(in), StandardCharsets.UTF_8), smallEntryContents(i));
+				}
+				assertEquals(in.getNextEntry(), null);
+			}
+		}
+		CompactZipArchiveManifest manifest = ZipArchiveManifestReader.read(new TailByteChannel(0, bytes, bytes.length));
+		assertEquals(manifest.getEntryCount(), 10);
+		assertEquals(manifest.getEntry(3).getName(), smallEntryName(3));
+	}
+
+	private static void testOutputFileMode() throws Exception {
+		ZipOutputSakerFile defaultfile = createOutputFile(null);
+		ZipOutputSakerFile alwaysfile = createOutputFile(Zip64Mode.ALWAYS);
+		assertEquals(defaultfile.getContentDescriptor(), createOutputFile(Zip64Mode.AS_NEEDED).getContentDescriptor());
+		assertNotEquals(alwaysfile.getContentDescriptor(), defaultfile.getContentDescriptor());
+
+		byte[] defaultbytes = defaultfile.getBytes().copy();
+		byte[] alwaysbytes = alwaysfile.getBytes().copy();
+		assertFalse(containsZip64EndRecord(defaultbytes));
+		assertTrue(containsZip64EndRecord(alwaysbytes));
+		try (ZipArchiveInputStream in = new ZipArchiveInputStream(new ByteArrayInputStream(alwaysbytes))) {
+			verifySmallEntries(in, 3);
+			assertEquals(in.getNextEntry(), null);
+		}
+	}
+
+	private static ZipOutputSakerFile createOutputFile(Zip64Mode mode) {
+		ZipOutputSakerFile.Builder builder = ZipOutputSakerFile.builder();
+		builder.setZip64Mode(mode);
+		for (int i = 0; i < 3; i++) {
+			builder.add(ZipResourceEntry.create(SakerPath.valueOf(smallEntryName(i))),
+					ZipCreatorUtils.byteFileHandle(smallEntryContents(i)));
+		}
+		return builder.build("test.zip");
+	}
+
+	private static boolean containsZip64EndRecord(byte[] bytes) {
+		for (int i = bytes.length - 4; i >= 0; i--) {
+			if (bytes[i] == 0x50 && bytes[i + 1] == 0x4b && bytes[i + 2] == 0x06 && bytes[i + 3] == 0x06) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int getJavaMajorVersion() {
+		String version = System.getProperty("java.specification.version");
+		if (version.startsWith("1.")) {
+			return Integer.parseInt(version.substring(2));
+		}
+		return Integer.parseInt(version);
+	}
+
+	private static void testNeverMode() throws Exception {
+		ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(new ByteArrayOutputStream());
+		zipout.setZip64Mode(Zip64Mode.NEVER);
+		writeSmallEntries(zipout, 0xFFFF + 1);
+		try {
+			zipout.close();
+			fail("ZIP64 format was written in NEVER mode.");
+		} catch (ZipException e) {
+		}
+	}
+
+	private static void testLargeArchive() throws Throwable {
+		PipedInputStream pipein = new PipedInputStream(WRITE_BUFFER_SIZE);
+		PipedOutputStream pipeout = new PipedOutputStream(pipein);
+		Throwable[] readerexc = { null };
+		Thread reader = new Thread(() -> {
+			try (ZipArchiveInputStream in = new ZipArchiveInputStream(pipein)) {
+				verifyLargeEntry(in, "stored.bin", ZipEntry.STORED);
+				verifyLargeEntry(in, "deflated.bin", ZipEntry.DEFLATED);
+				verifySmallEntries(in, SMALL_ENTRY_COUNT);
+				assertEquals(in.getNextEntry(), null);
+				//drain the central directory so the writer doesn't block
+				byte[] buf = new byte[WRITE_BUFFER_SIZE];
+				while (pipein.read(buf) >= 0) {
+				}
+			} catch (Throwable e) {
+				readerexc[0] = e;
+			}
+		}, "ZIP64 reader");
+		reader.start();
+
+		TailCaptureOutputStream capture = new TailCaptureOutputStream(pipeout);
+		CompactZipArchiveManifest writtenmanifest;
+		try (ZipArchiveOutputStream zipout = new ZipArchiveOutputStream(capture)) {
+			byte[] zeros = new byte[WRITE_BUFFER_SIZE];
+			CRC32 crc = new CRC32();
+			for (long c = 0; c < LARGE_SIZE;) {
+				int len = (int) Math.min(zeros.length, LARGE_SIZE - c);
+				crc.update(zeros, 0, len);
+				c += len;
+			}
+
+			ZipEntry stored = new ZipEntry("stored.bin");
+			stored.setMethod(ZipEntry.STORED);
+			stored.setSize(LARGE_SIZE);
+			stored.setCrc(crc.getValue());
+			zipout.putNextEntry(stored);
+			writeZeros(zipout, zeros);
+			zipout.closeEntry();
+
+			zipout.setLevel(Deflater.BEST_SPEED);
+			zipout.putNextEntry(new ZipEntry("deflated.bin"));
+			writeZeros(zipout, zeros);
+			zipout.closeEntry();
+			zipout.setLevel(Deflater.DEFAULT_COMPRESSION);
+
+			writeSmallEntries(zipout, SMALL_ENTRY_COUNT);
+			capture.startCapture();
+			zipout.finish();
+			writtenmanifest = zipout.getManifest();
+		}
+		reader.join();
+		if (readerexc[0] != null) {
+			throw readerexc[0];
+		}
+
+		assertEquals(writtenmanifest.getEntryCount(), SMALL_ENTRY_COUNT + 2);
+		CompactZipArchiveManifest readmanifest = ZipArchiveManifestReader
+				.read(new TailByteChannel(capture.captureOffset, capture.captured.toByteArray(), capture.count));
+		assertEquals(readmanifest, writtenmanifest);
+
+		ZipArchiveEntryInformation last = readmanifest.getEntry(readmanifest.getEntryCount() - 1);
+		assertEquals(last.getName(), smallEntryName(SMALL_ENTRY_COUNT - 1));
+		assertTrue(last.getLocalHeaderOffset() > LARGE_SIZE);
+		ZipArchiveEntryInformation deflated = readmanifest.getEntry(1);
+		assertEquals(deflated.getSize(), LARGE_SIZE);
+		assertTrue(deflated.getLocalHeaderOffset() > LARGE_SIZE);
+	}
+
+	private static void writeZeros(OutputStream out, byte[] zeros) throws IOException {
+		for (long c = 0; c < LARGE_SIZE;) {
+			int len = (int) Math.min(zeros.length, LARGE_SIZE - c);
+			out.write(zeros, 0, len);
+			c += len;
+		}
+	}
+
+	private static void verifyLargeEntry(ZipArchiveInputStream in, String name, int method) throws IOException {
+		ZipEntry e = in.getNextEntry();
+		assertEquals(e.getName(), name);
+		assertEquals(e.getMethod(), method);
+		byte[] buf = new byte[WRITE_BUFFER_SIZE];
+		long count = 0;
+		for (int r; (r = in.read(buf)) > 0;) {
+			for (int i = 0; i < r; i++) {
+				if (buf[i] != 0) {
+					throw new AssertionError("Non-zero byte at: " + (count + i));
+				}
+			}
+			count += r;
+		}
+		assertEquals(count, LARGE_SIZE);
+		assertEquals(e.getSize(), LARGE_SIZE);
+	}
+
+	private static void writeSmallEntries(ZipArchiveOutputStream zipout, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			zipout.putNextEntry(new ZipEntry(smallEntryName(i)));
+			zipout.write(smallEntryContents(i).getBytes(StandardCharsets.UTF_8));
+			zipout.closeEntry();
+		}
+	}
+
+	private static void verifySmallEntries(ZipArchiveInputStream in, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			ZipEntry e = in.getNextEntry();
+			assertEquals(e.getName(), smallEntryName(i));
+			assertEquals(new String(readFully(in), StandardCharsets.UTF_8), smallEntryContents(i));
+		}
+	}
+
+	private static String smallEntryName(int i) {
+		return "dir" + (i % 100) + "/file" + i + ".txt";
+	}
+
+	private static String smallEntryContents(int i) {
+		return "contents-" + i;
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buf = new byte[256];
+		for (int r; (r = in.read(buf)) > 0;) {
+			baos.write(buf, 0, r);
+		}
+		return baos.toByteArray();
+	}
+
+	private static final class TailCaptureOutputStream extends OutputStream {
+		private final OutputStream out;
+		protected long count;
+		protected long captureOffset = -1;
+		protected final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+		public TailCaptureOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		public void startCapture() {
+			captureOffset = count;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+			if (captureOffset >= 0) {
+				captured.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Read-only channel that only has the bytes at the end of the archive available.
+	 */
+	private static final class TailByteChannel implements SeekableByteChannel {
+		private final long tailOffset;
+		private final byte[] tail;
+		private final long size;
+		private long position;
+
+		public TailByteChannel(long tailOffset, byte[] tail, long size) {
+			this.tailOffset = tailOffset;
+			this.tail = tail;
+			this.size = size;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			if (position >= size) {
+				return -1;
+			}
+			if (position < tailOffset) {
+				throw new IOException("Reading outside of the captured tail: " + position);
+			}
+			int idx = (int) (position - tailOffset);
+			int len = Math.min(dst.remaining(), tail.length - idx);
+			dst.put(tail, idx, len);
+			position += len;
+			return len;
+		}
+
+		@Override
+		public int write(ByteBuffer src) {
+			throw new NonWritableChannelException();
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public SeekableByteChannel position(long newPosition) {
+			this.position = newPosition;
+			return this;
+		}
+
+		@Override
+		public long size() {
+			return size;
+		}
+
+		@Override
+		public SeekableByteChannel truncate(long size) {
+			throw new NonWritableChannelException();
+		}
+	}
+}
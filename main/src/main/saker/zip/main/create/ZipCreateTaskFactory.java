@@ -36,13 +36,17 @@ import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
 import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
 import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
 import saker.nest.utils.FrontendTaskFactory;
+import saker.std.main.file.option.FileLocationTaskOption;
 import saker.zip.api.create.ZipCreationTaskBuilder;
+import saker.zip.main.create.option.JarSigningTaskOption;
 import saker.zip.main.create.option.ZipCreateDataContext;
 import saker.zip.main.create.option.ZipIncludeTaskOption;
 import saker.zip.main.create.option.ZipResourceTransformerTaskOption;
 import saker.zip.main.create.option.ZipResourcesTaskOption;
 import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZip64Mode;
 import saker.zip.main.doc.TaskDocs.DocZipCreatorTaskOutput;
+import saker.zip.main.doc.TaskDocs.DocZipDeduplication;
 
 @NestTaskInformation(returnType = @NestTypeUsage(DocZipCreatorTaskOutput.class))
 @NestInformation("Creates a ZIP archive with the specified contents.\n"
@@ -71,6 +75,26 @@ import saker.zip.main.doc.TaskDocs.DocZipCreatorTaskOutput;
 @NestParameterInformation(value = "ModificationTime",
 		type = @NestTypeUsage(value = Date.class, kind = TypeInformationKind.LITERAL),
 		info = @NestInformation(TaskDocs.ZIP_CREATE_MODIFICATION_TIME))
+
+@NestParameterInformation(value = "Digests",
+		aliases = { "Digest" },
+		type = @NestTypeUsage(value = Collection.class, elementTypes = String.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_DIGESTS))
+@NestParameterInformation(value = "WriteDigestFiles",
+		type = @NestTypeUsage(boolean.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_WRITE_DIGEST_FILES))
+@NestParameterInformation(value = "EntryOrder",
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_ENTRY_ORDER))
+@NestParameterInformation(value = "JarSigning",
+		type = @NestTypeUsage(JarSigningTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_JAR_SIGNING))
+@NestParameterInformation(value = "Deduplication",
+		type = @NestTypeUsage(DocZipDeduplication.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_DEDUPLICATION))
+@NestParameterInformation(value = "Zip64Mode",
+		type = @NestTypeUsage(DocZip64Mode.class),
+		info = @NestInformation(TaskDocs.ZIP_CREATE_ZIP64_MODE))
 public class ZipCreateTaskFactory extends FrontendTaskFactory<Object> {
 	private static final long serialVersionUID = 1L;
 
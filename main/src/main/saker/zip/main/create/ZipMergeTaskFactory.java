@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.create;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.nest.utils.FrontendTaskFactory;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.create.ZipMergeConflictPolicy;
+import saker.zip.api.create.ZipMergeTaskBuilder;
+import saker.zip.api.create.ZipResourceTransformerFactory;
+import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZipCreatorTaskOutput;
+import saker.zip.main.doc.TaskDocs.DocZipMergeConflictPolicy;
+
+@NestTaskInformation(returnType = @NestTypeUsage(DocZipCreatorTaskOutput.class))
+@NestInformation("Merges multiple ZIP archives into one.\n"
+		+ "The entries of the output are determined based on the central directories of the archives, and "
+		+ "they are copied to the output without decompressing them. "
+		+ "The archive will be written to the specified location in the " + ZipMergeTaskFactory.TASK_NAME
+		+ " subdirectory of the build directory.\n"
+		+ "The entries with the same name in multiple archives are handled based on the ConflictPolicy parameter.")
+
+@NestParameterInformation(value = "Archives",
+		aliases = { "", "Archive" },
+		required = true,
+		type = @NestTypeUsage(value = Collection.class, elementTypes = FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_MERGE_ARCHIVES))
+@NestParameterInformation(value = "Output",
+		type = @NestTypeUsage(SakerPath.class),
+		info = @NestInformation(TaskDocs.ZIP_MERGE_OUTPUT))
+@NestParameterInformation(value = "ConflictPolicy",
+		type = @NestTypeUsage(DocZipMergeConflictPolicy.class),
+		info = @NestInformation(TaskDocs.ZIP_MERGE_CONFLICT_POLICY))
+@NestParameterInformation(value = "Merger",
+		type = @NestTypeUsage(ZipResourceTransformerFactory.class),
+		info = @NestInformation(TaskDocs.ZIP_MERGE_MERGER))
+public class ZipMergeTaskFactory extends FrontendTaskFactory<Object> {
+	private static final long serialVersionUID = 1L;
+
+	public static final String TASK_NAME = "saker.zip.merge";
+
+	protected static class ZipMergeTaskImpl implements ParameterizableTask<Object> {
+		private static final SakerPath DEFAULT_BUILD_SUBDIRECTORY_PATH = SakerPath.valueOf(TASK_NAME);
+		private static final SakerPath DEFAULT_OUTPUT_PATH = SakerPath.valueOf("output.zip");
+
+		@SakerInput(value = { "", "Archive", "Archives" }, required = true)
+		public Collection<FileLocationTaskOption> archivesOption;
+
+		@SakerInput(value = { "Output" })
+		public SakerPath outputOption;
+
+		@SakerInput(value = { "ConflictPolicy" })
+		public String conflictPolicyOption;
+
+		@SakerInput(value = { "Merger" })
+		public ZipResourceTransformerFactory mergerOption;
+
+		public ZipMergeTaskImpl() {
+		}
+
+		@Override
+		public Object run(TaskContext taskcontext) throws Exception {
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+				BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_FRONTEND);
+			}
+			SakerPath output = outputOption;
+			if (output == null || output.equals(SakerPath.EMPTY)) {
+				output = DEFAULT_OUTPUT_PATH;
+			}
+			if (!output.isForwardRelative()) {
+				taskcontext.abortExecution(
+						new InvalidPathFormatException("Zip output path must be forward relative: " + output));
+				return null;
+			}
+			ZipMergeConflictPolicy policy = null;
+			if (conflictPolicyOption != null) {
+				try {
+					policy = ZipMergeConflictPolicy.valueOf(conflictPolicyOption.toUpperCase(Locale.ENGLISH));
+				} catch (IllegalArgumentException e) {
+					taskcontext.abortExecution(
+							new IllegalArgumentException("Invalid conflict policy: " + conflictPolicyOption, e));
+					return null;
+				}
+			}
+
+			SakerPath builddirpath = SakerPathFiles.requireBuildDirectoryPath(taskcontext)
+					.resolve(DEFAULT_BUILD_SUBDIRECTORY_PATH);
+
+			ZipMergeTaskBuilder taskbuilder = ZipMergeTaskBuilder.newBuilder();
+			taskbuilder.setOutputPath(builddirpath.resolve(output));
+			for (FileLocationTaskOption archive : archivesOption) {
+				if (archive == null) {
+					continue;
+				}
+				taskbuilder.addArchive(TaskOptionUtils.toFileLocation(archive, taskcontext));
+			}
+			taskbuilder.setConflictPolicy(policy);
+			taskbuilder.setMerger(mergerOption);
+
+			TaskFactory<?> workerfactory = taskbuilder.buildTaskFactory();
+			TaskIdentifier taskid = taskbuilder.buildTaskIdentifier();
+
+			taskcontext.startTask(taskid, workerfactory, null);
+
+			SimpleStructuredObjectTaskResult result = new SimpleStructuredObjectTaskResult(taskid);
+			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+			return result;
+		}
+	}
+
+	@Override
+	public ParameterizableTask<? extends Object> createTask(ExecutionContext executioncontext) {
+		return new ZipMergeTaskImpl();
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.create.option;
+
+import saker.nest.scriptinfo.reflection.annot.NestFieldInformation;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.std.main.file.option.FileLocationTaskOption;
+
+@NestInformation("Configures the signing of the created archive as a JAR.\n"
+		+ "The entries are digested while the archive is written, and the signature files are appended to the archive, "
+		+ "so the archive doesn't need to be signed by the jarsigner tool afterwards.")
+@NestFieldInformation(value = "Keystore",
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation("Specifies the key store file that contains the signing key.\n"
+				+ "PKCS12 key stores are expected for the .p12 and .pfx extensions, JKS for .jks, "
+				+ "and the default key store type of the JVM otherwise."))
+@NestFieldInformation(value = "Alias",
+		type = @NestTypeUsage(String.class),
+		info = @NestInformation("Specifies the alias of the private key in the key store.\n"
+				+ "The signature files are named after the alias the same way as by jarsigner."))
+@NestFieldInformation(value = "StorePasswordParameter",
+		type = @NestTypeUsage(String.class),
+		info = @NestInformation("Specifies the name of the execution user parameter that contains the password of the "
+				+ "key store.\n"
+				+ "User parameters are specified with the -U<name>=<value> command line option. The password is read "
+				+ "when the archive is created, so it is not stored in the build database."))
+@NestFieldInformation(value = "KeyPasswordParameter",
+		type = @NestTypeUsage(String.class),
+		info = @NestInformation("Specifies the name of the execution user parameter that contains the password of the "
+				+ "private key.\n"
+				+ "If not set, the password of the key store is used."))
+public interface JarSigningTaskOption {
+	public default JarSigningTaskOption clone() {
+		return new SimpleJarSigningTaskOption(this);
+	}
+
+	public FileLocationTaskOption getKeystore();
+
+	public String getAlias();
+
+	public default String getStorePasswordParameter() {
+		return null;
+	}
+
+	public default String getKeyPasswordParameter() {
+		return null;
+	}
+}
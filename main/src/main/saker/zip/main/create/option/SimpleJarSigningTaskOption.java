@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.create.option;
+
+import saker.build.task.TaskContext;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.create.ZipCreationTaskBuilder;
+
+public class SimpleJarSigningTaskOption implements JarSigningTaskOption {
+	private FileLocationTaskOption keystore;
+	private String alias;
+	private String storePasswordParameter;
+	private String keyPasswordParameter;
+
+	public SimpleJarSigningTaskOption(JarSigningTaskOption copy) {
+		FileLocationTaskOption keystore = copy.getKeystore();
+		this.keystore = keystore == null ? null : keystore.clone();
+		this.alias = copy.getAlias();
+		this.storePasswordParameter = copy.getStorePasswordParameter();
+		this.keyPasswordParameter = copy.getKeyPasswordParameter();
+	}
+
+	@Override
+	public FileLocationTaskOption getKeystore() {
+		return keystore;
+	}
+
+	@Override
+	public String getAlias() {
+		return alias;
+	}
+
+	@Override
+	public String getStorePasswordParameter() {
+		return storePasswordParameter;
+	}
+
+	@Override
+	public String getKeyPasswordParameter() {
+		return keyPasswordParameter;
+	}
+
+	@Override
+	public JarSigningTaskOption clone() {
+		return this;
+	}
+
+	public static void addTo(TaskContext taskcontext, ZipCreationTaskBuilder taskbuilder,
+			JarSigningTaskOption signing) {
+		FileLocationTaskOption keystore = signing.getKeystore();
+		if (keystore == null) {
+			throw new IllegalArgumentException("Keystore not specified for JAR signing.");
+		}
+		String alias = signing.getAlias();
+		if (alias == null) {
+			throw new IllegalArgumentException("Alias not specified for JAR signing.");
+		}
+		taskbuilder.setJarSigning(TaskOptionUtils.toFileLocation(keystore, taskcontext), alias,
+				signing.getStorePasswordParameter(), signing.getKeyPasswordParameter());
+	}
+}
@@ -10,14 +10,20 @@ public class SimpleZipCompressionTaskOption implements ZipCompressionTaskOption
 
 	private ZipCompression method;
 	private int level;
+	private int alignment;
 
 	public SimpleZipCompressionTaskOption(ZipCompression method, int level) {
+		this(method, level, 0);
+	}
+
+	public SimpleZipCompressionTaskOption(ZipCompression method, int level, int alignment) {
 		this.method = method;
 		this.level = level;
+		this.alignment = alignment;
 	}
 
 	public SimpleZipCompressionTaskOption(ZipCompressionTaskOption copy) {
-		this(copy.getMethod(), copy.getLevel());
+		this(copy.getMethod(), copy.getLevel(), copy.getAlignment());
 	}
 
 	@Override
@@ -35,14 +41,24 @@ public class SimpleZipCompressionTaskOption implements ZipCompressionTaskOption
 		return level;
 	}
 
+	@Override
+	public int getAlignment() {
+		return alignment;
+	}
+
 	public static ZipResourceEntry createEntry(SakerPath entrypath, ZipCompressionTaskOption compression) {
 		if (compression == null) {
 			return ZipResourceEntry.create(entrypath);
 		}
 		ZipCompression method = compression.getMethod();
 		int level = compression.getLevel();
+		int alignment = compression.getAlignment();
 		if (method == null) {
 			if (level < 0) {
+				if (alignment > 0) {
+					//only stored entries are aligned
+					return ZipResourceEntry.stored(entrypath).withAlignment(alignment);
+				}
 				//use defaults
 				return ZipResourceEntry.create(entrypath);
 			}
@@ -53,7 +69,7 @@ public class SimpleZipCompressionTaskOption implements ZipCompressionTaskOption
 			case DEFLATED:
 				return ZipResourceEntry.deflated(entrypath, level);
 			case STORED:
-				return ZipResourceEntry.stored(entrypath);
+				return ZipResourceEntry.stored(entrypath).withAlignment(alignment);
 			default: {
 				throw new UnsupportedOperationException("Unsupported compression method: " + method);
 			}
@@ -66,8 +82,13 @@ public class SimpleZipCompressionTaskOption implements ZipCompressionTaskOption
 		}
 		ZipCompression method = compression.getMethod();
 		int level = compression.getLevel();
+		int alignment = compression.getAlignment();
 		if (method == null) {
 			if (level < 0) {
+				if (alignment > 0) {
+					//only stored entries are aligned
+					return StoredCompressionIncludeResourceMapping.get(alignment);
+				}
 				//use defaults
 				return null;
 			}
@@ -78,7 +99,7 @@ public class SimpleZipCompressionTaskOption implements ZipCompressionTaskOption
 			case DEFLATED:
 				return DeflatedCompressionIncludeResourceMapping.get(level);
 			case STORED:
-				return StoredCompressionIncludeResourceMapping.INSTANCE;
+				return StoredCompressionIncludeResourceMapping.get(alignment);
 			default: {
 				throw new UnsupportedOperationException("Unsupported compression method: " + method);
 			}
@@ -9,7 +9,7 @@ import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
 		+ "Accepts one of the compression methods, STORED (for uncompressed data) or DEFLATE (for compressed).\n"
 		+ "The option also accepts string with the format DEFLATED:<L> where <L> is the compression level.\n"
 		+ "Passing a single integer as compression level (implying DEFLATED) is also supported.\n"
-		+ "Extended configuration using the Method and Level fields are also possible.")
+		+ "Extended configuration using the Method, Level and Alignment fields are also possible.")
 
 @NestTypeInformation(relatedTypes = @NestTypeUsage(ZipCompression.class))
 
@@ -19,6 +19,14 @@ import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
 @NestFieldInformation(value = "Level",
 		type = @NestTypeUsage(int.class),
 		info = @NestInformation("Specifies the compression level (for DEFLATED compression)."))
+@NestFieldInformation(value = "Alignment",
+		type = @NestTypeUsage(int.class),
+		info = @NestInformation("Specifies the alignment of the entry data in bytes (for STORED compression).\n"
+				+ "The local headers of the entries are padded so the uncompressed data starts at an offset that is "
+				+ "the multiple of the alignment. This allows the data to be memory mapped directly from the archive.\n"
+				+ "The alignment must be a power of two, not greater than 32768. Use 4 for general data, "
+				+ "and 4096 for native libraries that are loaded directly from the archive.\n"
+				+ "If no Method or Level is specified, STORED compression is used."))
 public interface ZipCompressionTaskOption {
 	public default ZipCompressionTaskOption clone() {
 		return new SimpleZipCompressionTaskOption(this);
@@ -32,6 +40,10 @@ public interface ZipCompressionTaskOption {
 		return -1;
 	}
 
+	public default int getAlignment() {
+		return 0;
+	}
+
 	public static ZipCompressionTaskOption valueOf(String value) {
 		int colonidx = value.indexOf(':');
 		ZipCompression method;
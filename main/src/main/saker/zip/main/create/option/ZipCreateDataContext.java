@@ -15,15 +15,21 @@
  */
 package saker.zip.main.create.option;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Locale;
 
 import saker.build.file.path.SakerPath;
 import saker.build.task.TaskContext;
 import saker.build.task.utils.annot.SakerInput;
 import saker.build.util.data.annotation.ConverterConfiguration;
 import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.create.Zip64Mode;
 import saker.zip.api.create.ZipCreationTaskBuilder;
+import saker.zip.api.create.ZipDeduplication;
 
 public final class ZipCreateDataContext implements ZipContentsTaskOption {
 	@SakerInput(value = { "Output" })
@@ -42,6 +48,24 @@ public final class ZipCreateDataContext implements ZipContentsTaskOption {
 	@ConverterConfiguration({ DateDataConverter.class })
 	public Date modificationTimeOption;
 
+	@SakerInput(value = { "Digest", "Digests" })
+	public Collection<String> digestsOption;
+
+	@SakerInput("WriteDigestFiles")
+	public boolean writeDigestFilesOption;
+
+	@SakerInput("EntryOrder")
+	public FileLocationTaskOption entryOrderOption;
+
+	@SakerInput("JarSigning")
+	public JarSigningTaskOption jarSigningOption;
+
+	@SakerInput("Deduplication")
+	public String deduplicationOption;
+
+	@SakerInput("Zip64Mode")
+	public String zip64ModeOption;
+
 	public ZipCreateDataContext() {
 	}
 
@@ -52,6 +76,12 @@ public final class ZipCreateDataContext implements ZipContentsTaskOption {
 		this.transformersOption = ObjectUtils.cloneArrayList(copy.transformersOption,
 				ZipResourceTransformerTaskOption::clone);
 		this.modificationTimeOption = copy.modificationTimeOption;
+		this.digestsOption = copy.digestsOption == null ? null : new ArrayList<>(copy.digestsOption);
+		this.writeDigestFilesOption = copy.writeDigestFilesOption;
+		this.entryOrderOption = copy.entryOrderOption == null ? null : copy.entryOrderOption.clone();
+		this.jarSigningOption = copy.jarSigningOption == null ? null : copy.jarSigningOption.clone();
+		this.deduplicationOption = copy.deduplicationOption;
+		this.zip64ModeOption = copy.zip64ModeOption;
 	}
 
 	@Override
@@ -73,6 +103,40 @@ public final class ZipCreateDataContext implements ZipContentsTaskOption {
 				transformeroption.addTo(taskcontext, taskbuilder);
 			}
 		}
+		Collection<String> digests = this.digestsOption;
+		if (!ObjectUtils.isNullOrEmpty(digests)) {
+			for (String digest : digests) {
+				if (ObjectUtils.isNullOrEmpty(digest)) {
+					continue;
+				}
+				taskbuilder.addDigestAlgorithm(digest);
+			}
+		}
+		taskbuilder.setWriteDigestFiles(writeDigestFilesOption);
+		if (entryOrderOption != null) {
+			taskbuilder.setEntryOrder(TaskOptionUtils.toFileLocation(entryOrderOption, taskcontext));
+		}
+		if (jarSigningOption != null) {
+			SimpleJarSigningTaskOption.addTo(taskcontext, taskbuilder, jarSigningOption);
+		}
+		if (deduplicationOption != null) {
+			ZipDeduplication deduplication;
+			try {
+				deduplication = ZipDeduplication.valueOf(deduplicationOption.toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid deduplication: " + deduplicationOption, e);
+			}
+			taskbuilder.setDeduplication(deduplication);
+		}
+		if (zip64ModeOption != null) {
+			Zip64Mode zip64mode;
+			try {
+				zip64mode = Zip64Mode.valueOf(zip64ModeOption.toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Invalid ZIP64 mode: " + zip64ModeOption, e);
+			}
+			taskbuilder.setZip64Mode(zip64mode);
+		}
 	}
 
 	public static void addContentsTo(TaskContext taskcontext, ZipCreationTaskBuilder taskbuilder,
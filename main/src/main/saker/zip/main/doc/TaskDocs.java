@@ -15,6 +15,10 @@
  */
 package saker.zip.main.doc;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import saker.build.file.path.SakerPath;
 import saker.build.scripting.model.info.TypeInformationKind;
 import saker.nest.scriptinfo.reflection.annot.NestFieldInformation;
@@ -22,6 +26,8 @@ import saker.nest.scriptinfo.reflection.annot.NestInformation;
 import saker.nest.scriptinfo.reflection.annot.NestTypeInformation;
 import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
 import saker.zip.main.create.ZipCreateTaskFactory;
+import saker.zip.main.create.ZipMergeTaskFactory;
+import saker.zip.main.extract.ZipExtractTaskFactory;
 
 public class TaskDocs {
 	public static final String ZIP_CREATE_OUTPUT = "Specifies the output path of the created archive.\n"
@@ -50,13 +56,247 @@ public class TaskDocs {
 			+ "yyyy-MM-dd HH:mm:ss\n" + "yyyy-MM-dd HH:mm\n" + "yyyy-MM-dd\n" + "yyyy.MM.dd\n"
 			+ "Where the pattern letters are interpreted the same way as SimpleDateFormat: "
 			+ "https://docs.oracle.com/javase/8/docs/api/java/text/SimpleDateFormat.html";
+	public static final String ZIP_CREATE_DIGESTS = "Specifies one or more digest algorithms that should be used to compute the digests of the created archive.\n"
+			+ "The digests are computed while the archive is written, so the archive doesn't need to be read again to compute them.\n"
+			+ "The algorithm names are the same as for the Java MessageDigest class. E.g. SHA-256, SHA-512.\n"
+			+ "The digests are available in the Digests field of the task output.";
+	public static final String ZIP_CREATE_WRITE_DIGEST_FILES = "Specifies if the computed digests should be written to files next to the created archive.\n"
+			+ "The digest files are named by appending the algorithm name to the archive file name. E.g. output.zip.sha256.\n"
+			+ "The files have the same format as the output of the sha256sum and similar tools.\n"
+			+ "The default is false.";
+	public static final String ZIP_CREATE_ENTRY_ORDER = "Specifies a file that contains the order of the entries at the start of the archive.\n"
+			+ "If set, the manifest (META-INF/MANIFEST.MF) is written first, then the resources in the order of "
+			+ "the file, then the rest of the resources in path order. The entries of the included archives are "
+			+ "written after them.\n"
+			+ "Placing the entries that are read during the startup of an application next to each other "
+			+ "reduces the I/O when the archive is opened. "
+			+ "Each line of the file is an entry path, or a class loading message of the -verbose:class "
+			+ "or -Xlog:class+load JVM options. Empty lines, lines starting with #, and other log messages are ignored.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_CREATE_JAR_SIGNING = "Specifies the key that the created archive is signed with as a JAR.\n"
+			+ "The digests of the entries are computed while the archive is written, and the manifest with the "
+			+ "entry digests, the signature file, and the signature block file are written at the end of the archive. "
+			+ "The archive is signed without reading it again, the same way as by the jarsigner tool without timestamping.\n"
+			+ "As the manifest is not the first entry of signed archives, they can be verified by the JarFile class, "
+			+ "but not by JarInputStream. This is also the case if an EntryOrder is set.";
+	public static final String ZIP_CREATE_DEDUPLICATION = "Specifies how the file entries with identical contents are stored.\n"
+			+ "If set, the contents of the entries are hashed while the archive is written, and identical contents "
+			+ "are compressed only once. Deduplication is not applied to signed archives, archives created with "
+			+ "transformers, and entries larger than 16 MiB.\n"
+			+ "The default is NONE.";
+	public static final String ZIP_CREATE_ZIP64_MODE = "Specifies when the ZIP64 format extensions are used in the archive.\n"
+			+ "The extensions are required for archives and entries larger than 4 GiB, and for archives with more "
+			+ "than 65535 entries.\n"
+			+ "The default is AS_NEEDED.";
+
+	public static final String ZIP_EXTRACT_ARCHIVE = "Specifies the ZIP archive to extract.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_EXTRACT_OUTPUT = "Specifies the output directory path of the extracted entries.\n"
+			+ "The path must be forward relative, and the task will extract the entries under the "
+			+ ZipExtractTaskFactory.TASK_NAME + " subdirectory of the build directory.\n"
+			+ "If not specified, the file name of the archive without its extension is used.\n"
+			+ "The task owns the contents of the output directory, and deletes the files that it extracted previously "
+			+ "if they're no longer part of the extraction.";
+	public static final String ZIP_EXTRACT_RESOURCES = "Specifies one or more wildcard patterns which are used to select the entries that should be extracted.\n"
+			+ "If none of the wildcards match an entry name, it won't be extracted.\n"
+			+ "If no wildcard patterns are specified, all entries of the archive are extracted.";
+	public static final String ZIP_EXTRACT_TARGET_DIRECTORY = "Specifies the directory relative to the output directory under which the entries should be extracted.\n"
+			+ "The specified path must be forward relative. By default, the entries are extracted directly into the output directory.";
+
+	public static final String ZIP_LIST_ARCHIVE = "Specifies the ZIP archive to list the entries of.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_LIST_RESOURCES = "Specifies one or more wildcard patterns which are used to select the entries that should be listed.\n"
+			+ "If none of the wildcards match an entry name, it won't be part of the listing.\n"
+			+ "If no wildcard patterns are specified, all entries of the archive are listed.";
+
+	public static final String ZIP_DIFF_BASE = "Specifies the base ZIP archive that the other archive is compared to.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_DIFF_ARCHIVE = "Specifies the ZIP archive to compare to the base archive.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_DIFF_DETAIL = "Specifies one or more wildcard patterns which are used to select the modified entries "
+			+ "that should be compared in detail.\n"
+			+ "The contents of the selected entries are inflated from both archives to find the first difference. "
+			+ "The contents of other entries are not read.";
+
+	public static final String ZIP_MERGE_ARCHIVES = "Specifies the ZIP archives to merge.\n"
+			+ "The archives are merged in the specified order. The entries of the output are written in the order of "
+			+ "the archives, and the order they appear in them.\n"
+			+ "The archives created separately for the parts of an application can be used to assemble the "
+			+ "final archive. The adjacent entries of an archive are copied together, and only the central directory "
+			+ "of the output is generated.\n"
+			+ "The option accepts simple paths or file locations.";
+	public static final String ZIP_MERGE_OUTPUT = "Specifies the output path of the merged archive.\n"
+			+ "The path must be forward relative, and the task will write the archive under the "
+			+ ZipMergeTaskFactory.TASK_NAME + " subdirectory of the build directory.\n"
+			+ "If not specified, the archive is created with the \"output.zip\" name.";
+	public static final String ZIP_MERGE_CONFLICT_POLICY = "Specifies how the entries with the same name in multiple archives are handled.\n"
+			+ "Entries with the same CRC and size, and directory entries are not considered to be conflicting. "
+			+ "The first one of them is kept.\n"
+			+ "The default is FIRST.";
+	public static final String ZIP_MERGE_MERGER = "Specifies the ZIP resource transformer that merges the conflicting entries.\n"
+			+ "The transformer is used with the MERGE conflict policy. All versions of a conflicting entry are passed to "
+			+ "the transformer in the order of the archives. If the transformer doesn't consume a version, "
+			+ "the first such version is kept as is.";
+
+	public static final String ZIP_VIEW_ARCHIVE = "Specifies the ZIP archive to create the view for.\n"
+			+ "The option accepts simple paths or file locations.";
 
 	@NestInformation("Represents the task output of a ZIP archive creation.\n"
 			+ "Provides access to the output Path of the created archive.")
 	@NestFieldInformation(value = "Path",
 			type = @NestTypeUsage(kind = TypeInformationKind.FILE_PATH, value = SakerPath.class),
 			info = @NestInformation("The path to the created ZIP archive."))
+	@NestFieldInformation(value = "Digests",
+			type = @NestTypeUsage(value = Map.class, elementTypes = { String.class, String.class }),
+			info = @NestInformation("The lowercase hexadecimal digests of the created ZIP archive mapped to their algorithm names.\n"
+					+ "Contains the digests for the algorithms specified in the Digests parameter."))
+	@NestFieldInformation(value = "Manifest",
+			type = @NestTypeUsage(DocZipArchiveManifest.class),
+			info = @NestInformation("The manifest of the entries in the created ZIP archive.\n"
+					+ "May be null if not available."))
 	@NestTypeInformation(qualifiedName = "ZipCreatorTaskOutput")
 	public static class DocZipCreatorTaskOutput {
 	}
+
+	@NestInformation("Policy for handling the entries with the same name in merged ZIP archives.")
+	@NestTypeInformation(kind = TypeInformationKind.ENUM,
+			qualifiedName = "saker.zip.api.create.ZipMergeConflictPolicy",
+			enumValues = { @NestFieldInformation(value = "FIRST",
+							info = @NestInformation("The entry from the first archive that contains it is kept.")),
+					@NestFieldInformation(value = "LAST",
+							info = @NestInformation("The entry from the last archive that contains it is kept.")),
+					@NestFieldInformation(value = "ERROR",
+							info = @NestInformation("The task fails if there are conflicting entries.")),
+					@NestFieldInformation(value = "MERGE",
+							info = @NestInformation("The conflicting entries are passed to the Merger transformer.")) })
+	public static class DocZipMergeConflictPolicy {
+	}
+
+	@NestInformation("Storage mode of the file entries with identical contents in a created ZIP archive.")
+	@NestTypeInformation(kind = TypeInformationKind.ENUM,
+			qualifiedName = "saker.zip.api.create.ZipDeduplication",
+			enumValues = { @NestFieldInformation(value = "NONE",
+							info = @NestInformation("Each entry is compressed and stored separately.")),
+					@NestFieldInformation(value = "SHARED",
+							info = @NestInformation("The central directory records of the duplicates point to the data "
+									+ "of the first entry. The data is stored only once, but streaming readers "
+									+ "don't see the duplicates.")),
+					@NestFieldInformation(value = "COPY",
+							info = @NestInformation("The compressed data of the first entry is copied for the "
+									+ "duplicates. Compatible with all readers.")) })
+	public static class DocZipDeduplication {
+	}
+
+	@NestInformation("Usage mode of the ZIP64 format extensions in a created ZIP archive.")
+	@NestTypeInformation(kind = TypeInformationKind.ENUM,
+			qualifiedName = "saker.zip.api.create.Zip64Mode",
+			enumValues = { @NestFieldInformation(value = "AS_NEEDED",
+							info = @NestInformation("The ZIP64 extensions are only used for the values that don't fit "
+									+ "in the standard fields.")),
+					@NestFieldInformation(value = "ALWAYS",
+							info = @NestInformation("The ZIP64 extensions are used for all entries and the end of "
+									+ "the central directory. Streaming readers before Java 21 can't read the "
+									+ "data descriptors of these archives.")),
+					@NestFieldInformation(value = "NEVER",
+							info = @NestInformation("The ZIP64 extensions are never used. The task fails if the "
+									+ "archive requires them.")) })
+	public static class DocZip64Mode {
+	}
+
+	@NestInformation("Represents the task output of a ZIP archive extraction.\n"
+			+ "Provides access to the output directory and the paths of the extracted files.")
+	@NestFieldInformation(value = "OutputDirectoryPath",
+			type = @NestTypeUsage(kind = TypeInformationKind.DIRECTORY_PATH, value = SakerPath.class),
+			info = @NestInformation("The path to the directory where the entries were extracted to."))
+	@NestFieldInformation(value = "FilePaths",
+			type = @NestTypeUsage(value = Set.class, elementTypes = SakerPath.class),
+			info = @NestInformation("The paths of the extracted files.\n"
+					+ "The directories created for the extracted entries are not part of the set."))
+	@NestTypeInformation(qualifiedName = "ZipExtractorTaskOutput")
+	public static class DocZipExtractorTaskOutput {
+	}
+
+	@NestInformation("Represents the differences between the entries of two ZIP archives.\n"
+			+ "An entry is modified if it is present in both archives with different CRC, size or compression method.")
+	@NestFieldInformation(value = "AddedEntries",
+			type = @NestTypeUsage(DocZipArchiveManifest.class),
+			info = @NestInformation("The entries that are only present in the compared archive."))
+	@NestFieldInformation(value = "RemovedEntries",
+			type = @NestTypeUsage(DocZipArchiveManifest.class),
+			info = @NestInformation("The entries that are only present in the base archive."))
+	@NestFieldInformation(value = "ModifiedEntries",
+			type = @NestTypeUsage(DocZipArchiveManifest.class),
+			info = @NestInformation("The entries that are modified in the compared archive."))
+	@NestFieldInformation(value = "EntryDifferences",
+			type = @NestTypeUsage(value = Map.class, elementTypes = { String.class, DocZipEntryDifference.class }),
+			info = @NestInformation("The detailed differences of the modified entries mapped to their names.\n"
+					+ "Contains the entries that were selected by the Detail parameter."))
+	@NestTypeInformation(qualifiedName = "saker.zip.api.extract.ZipArchiveDiff")
+	public static class DocZipArchiveDiff {
+	}
+
+	@NestInformation("Detailed difference of an entry that is modified between two ZIP archives.")
+	@NestFieldInformation(value = "BaseEntry",
+			type = @NestTypeUsage(DocZipArchiveEntryInformation.class),
+			info = @NestInformation("The entry in the base archive."))
+	@NestFieldInformation(value = "Entry",
+			type = @NestTypeUsage(DocZipArchiveEntryInformation.class),
+			info = @NestInformation("The entry in the compared archive."))
+	@NestFieldInformation(value = "FirstDifferenceOffset",
+			type = @NestTypeUsage(long.class),
+			info = @NestInformation("The offset of the first byte where the uncompressed contents of the entries differ.\n"
+					+ "-1 if the uncompressed contents are the same."))
+	@NestTypeInformation(qualifiedName = "saker.zip.api.extract.ZipEntryDifference")
+	public static class DocZipEntryDifference {
+	}
+
+	@NestInformation("Read-only view of the files in a ZIP archive.\n"
+			+ "The contents of the files are read from the archive when they are accessed.")
+	@NestFieldInformation(value = "FilePaths",
+			type = @NestTypeUsage(value = Set.class, elementTypes = SakerPath.class),
+			info = @NestInformation("The paths of the files in the archive, relative to the archive root."))
+	@NestFieldInformation(value = "DirectoryPaths",
+			type = @NestTypeUsage(value = Set.class, elementTypes = SakerPath.class),
+			info = @NestInformation("The paths of the directories in the archive, relative to the archive root.\n"
+					+ "Contains the directories that are only present as parents of other entries."))
+	@NestFieldInformation(value = "Manifest",
+			type = @NestTypeUsage(DocZipArchiveManifest.class),
+			info = @NestInformation("The manifest of the entries in the ZIP archive."))
+	@NestTypeInformation(qualifiedName = "saker.zip.api.extract.ZipArchiveView")
+	public static class DocZipArchiveView {
+	}
+
+	@NestInformation("Provides information about the entries of a ZIP archive.")
+	@NestFieldInformation(value = "EntryCount",
+			type = @NestTypeUsage(int.class),
+			info = @NestInformation("The number of entries in the archive."))
+	@NestFieldInformation(value = "Entries",
+			type = @NestTypeUsage(value = List.class, elementTypes = DocZipArchiveEntryInformation.class),
+			info = @NestInformation("The entries in the archive, in the order of the central directory."))
+	@NestTypeInformation(qualifiedName = "saker.zip.api.create.ZipArchiveManifest")
+	public static class DocZipArchiveManifest {
+	}
+
+	@NestInformation("Provides information about an entry in a created ZIP archive.")
+	@NestFieldInformation(value = "Name",
+			type = @NestTypeUsage(String.class),
+			info = @NestInformation("The name of the entry. Directory entries end with a '/' character."))
+	@NestFieldInformation(value = "Method",
+			type = @NestTypeUsage(int.class),
+			info = @NestInformation("The compression method of the entry. 0 for stored, 8 for deflated entries."))
+	@NestFieldInformation(value = "Crc",
+			type = @NestTypeUsage(long.class),
+			info = @NestInformation("The CRC-32 checksum of the uncompressed entry data."))
+	@NestFieldInformation(value = "Size",
+			type = @NestTypeUsage(long.class),
+			info = @NestInformation("The uncompressed size of the entry data."))
+	@NestFieldInformation(value = "CompressedSize",
+			type = @NestTypeUsage(long.class),
+			info = @NestInformation("The compressed size of the entry data."))
+	@NestFieldInformation(value = "LocalHeaderOffset",
+			type = @NestTypeUsage(long.class),
+			info = @NestInformation("The offset of the local file header of the entry in the archive."))
+	@NestTypeInformation(qualifiedName = "saker.zip.api.create.ZipArchiveEntryInformation")
+	public static class DocZipArchiveEntryInformation {
+	}
 }
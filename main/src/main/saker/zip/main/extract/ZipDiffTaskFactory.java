@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.extract;
+
+import java.util.Collection;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.nest.utils.FrontendTaskFactory;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.extract.ZipDiffTaskBuilder;
+import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZipArchiveDiff;
+
+@NestTaskInformation(returnType = @NestTypeUsage(DocZipArchiveDiff.class))
+@NestInformation("Compares the entries of two ZIP archives.\n"
+		+ "The archives are compared based on the names, CRCs, sizes and compression methods in their central directories. "
+		+ "The task reports the added, removed and modified entries.\n"
+		+ "The entry contents are only read for the modified entries that are selected by the Detail parameter.")
+
+@NestParameterInformation(value = "Base",
+		required = true,
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_DIFF_BASE))
+@NestParameterInformation(value = "Archive",
+		aliases = { "" },
+		required = true,
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_DIFF_ARCHIVE))
+@NestParameterInformation(value = "Detail",
+		type = @NestTypeUsage(value = Collection.class, elementTypes = WildcardPath.class),
+		info = @NestInformation(TaskDocs.ZIP_DIFF_DETAIL))
+public class ZipDiffTaskFactory extends FrontendTaskFactory<Object> {
+	private static final long serialVersionUID = 1L;
+
+	public static final String TASK_NAME = "saker.zip.diff";
+
+	protected static class ZipDiffTaskImpl implements ParameterizableTask<Object> {
+		@SakerInput(value = { "Base" }, required = true)
+		public FileLocationTaskOption baseOption;
+
+		@SakerInput(value = { "", "Archive" }, required = true)
+		public FileLocationTaskOption archiveOption;
+
+		@SakerInput(value = { "Detail" })
+		public Collection<WildcardPath> detailOption;
+
+		public ZipDiffTaskImpl() {
+		}
+
+		@Override
+		public Object run(TaskContext taskcontext) throws Exception {
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+				BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_FRONTEND);
+			}
+			ZipDiffTaskBuilder taskbuilder = ZipDiffTaskBuilder.newBuilder();
+			taskbuilder.setBaseArchive(TaskOptionUtils.toFileLocation(baseOption, taskcontext));
+			taskbuilder.setArchive(TaskOptionUtils.toFileLocation(archiveOption, taskcontext));
+			if (detailOption != null) {
+				for (WildcardPath wc : detailOption) {
+					if (wc == null) {
+						continue;
+					}
+					taskbuilder.addDetailWildcard(wc);
+				}
+			}
+
+			TaskFactory<?> workerfactory = taskbuilder.buildTaskFactory();
+			TaskIdentifier taskid = taskbuilder.buildTaskIdentifier();
+
+			taskcontext.startTask(taskid, workerfactory, null);
+
+			SimpleStructuredObjectTaskResult result = new SimpleStructuredObjectTaskResult(taskid);
+			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+			return result;
+		}
+	}
+
+	@Override
+	public ParameterizableTask<? extends Object> createTask(ExecutionContext executioncontext) {
+		return new ZipDiffTaskImpl();
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.extract;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import saker.build.exception.InvalidPathFormatException;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.WildcardPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.nest.utils.FrontendTaskFactory;
+import saker.std.api.file.location.ExecutionFileLocation;
+import saker.std.api.file.location.FileLocation;
+import saker.std.api.file.location.FileLocationVisitor;
+import saker.std.api.file.location.LocalFileLocation;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.extract.ZipExtractionTaskBuilder;
+import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZipExtractorTaskOutput;
+
+@NestTaskInformation(returnType = @NestTypeUsage(DocZipExtractorTaskOutput.class))
+@NestInformation("Extracts the entries of a ZIP archive.\n"
+		+ "The task extracts the selected entries of the archive to the specified directory in the "
+		+ ZipExtractTaskFactory.TASK_NAME + " subdirectory of the build directory.\n"
+		+ "The entries are extracted in parallel. When the task is rerun, only the files of the entries that have "
+		+ "a different CRC or size are rewritten, and the files of the entries that are no longer extracted are deleted.")
+
+@NestParameterInformation(value = "Archive",
+		aliases = { "" },
+		required = true,
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_EXTRACT_ARCHIVE))
+@NestParameterInformation(value = "Output",
+		type = @NestTypeUsage(SakerPath.class),
+		info = @NestInformation(TaskDocs.ZIP_EXTRACT_OUTPUT))
+@NestParameterInformation(value = "Resources",
+		type = @NestTypeUsage(value = Collection.class, elementTypes = WildcardPath.class),
+		info = @NestInformation(TaskDocs.ZIP_EXTRACT_RESOURCES))
+@NestParameterInformation(value = "TargetDirectory",
+		type = @NestTypeUsage(SakerPath.class),
+		info = @NestInformation(TaskDocs.ZIP_EXTRACT_TARGET_DIRECTORY))
+public class ZipExtractTaskFactory extends FrontendTaskFactory<Object> {
+	private static final long serialVersionUID = 1L;
+
+	public static final String TASK_NAME = "saker.zip.extract";
+
+	protected static class ZipExtractTaskImpl implements ParameterizableTask<Object> {
+		private static final SakerPath DEFAULT_BUILD_SUBDIRECTORY_PATH = SakerPath.valueOf(TASK_NAME);
+
+		@SakerInput(value = { "", "Archive" }, required = true)
+		public FileLocationTaskOption archiveOption;
+
+		@SakerInput(value = { "Output" })
+		public SakerPath outputOption;
+
+		@SakerInput(value = { "Resources" })
+		public Collection<WildcardPath> resourcesOption;
+
+		@SakerInput(value = { "TargetDirectory" })
+		public SakerPath targetDirectoryOption;
+
+		public ZipExtractTaskImpl() {
+		}
+
+		@Override
+		public Object run(TaskContext taskcontext) throws Exception {
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+				BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_FRONTEND);
+			}
+			FileLocation archive = TaskOptionUtils.toFileLocation(archiveOption, taskcontext);
+			SakerPath output = outputOption;
+			if (output == null || output.equals(SakerPath.EMPTY)) {
+				output = getDefaultOutputPath(archive);
+			}
+			if (!output.isForwardRelative()) {
+				taskcontext.abortExecution(
+						new InvalidPathFormatException("Extraction output path must be forward relative: " + output));
+				return null;
+			}
+			SakerPath builddirpath = SakerPathFiles.requireBuildDirectoryPath(taskcontext)
+					.resolve(DEFAULT_BUILD_SUBDIRECTORY_PATH);
+
+			ZipExtractionTaskBuilder taskbuilder = ZipExtractionTaskBuilder.newBuilder();
+			taskbuilder.setArchive(archive);
+			taskbuilder.setOutputDirectoryPath(builddirpath.resolve(output));
+			taskbuilder.setResourceMapping(createResourceMapping());
+
+			TaskFactory<?> workerfactory = taskbuilder.buildTaskFactory();
+			TaskIdentifier taskid = taskbuilder.buildTaskIdentifier();
+
+			taskcontext.startTask(taskid, workerfactory, null);
+
+			SimpleStructuredObjectTaskResult result = new SimpleStructuredObjectTaskResult(taskid);
+			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+			return result;
+		}
+
+		private IncludeResourceMapping createResourceMapping() {
+			IncludeResourceMapping wildcardmapping = null;
+			if (resourcesOption != null) {
+				List<IncludeResourceMapping> wildcardfilters = new ArrayList<>();
+				for (WildcardPath reswc : resourcesOption) {
+					if (reswc == null) {
+						continue;
+					}
+					wildcardfilters.add(IncludeResourceMapping.wildcardIncludeFilter(reswc));
+				}
+				wildcardmapping = IncludeResourceMapping.multi(wildcardfilters);
+			}
+			IncludeResourceMapping targetdirmapping = null;
+			if (targetDirectoryOption != null) {
+				targetdirmapping = IncludeResourceMapping.targetDirectory(targetDirectoryOption);
+			}
+			return IncludeResourceMapping.chain(wildcardmapping, targetdirmapping);
+		}
+
+		/**
+		 * Gets the archive file name without its extension.
+		 */
+		private static SakerPath getDefaultOutputPath(FileLocation archive) {
+			String[] result = { null };
+			archive.accept(new FileLocationVisitor() {
+				@Override
+				public void visit(ExecutionFileLocation loc) {
+					result[0] = loc.getPath().getFileName();
+				}
+
+				@Override
+				public void visit(LocalFileLocation loc) {
+					result[0] = loc.getLocalPath().getFileName();
+				}
+			});
+			String fn = result[0];
+			if (fn == null) {
+				return SakerPath.valueOf("output");
+			}
+			int dotidx = fn.lastIndexOf('.');
+			if (dotidx > 0) {
+				fn = fn.substring(0, dotidx);
+			}
+			return SakerPath.valueOf(fn);
+		}
+	}
+
+	@Override
+	public ParameterizableTask<? extends Object> createTask(ExecutionContext executioncontext) {
+		return new ZipExtractTaskImpl();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.extract;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import saker.build.file.path.WildcardPath;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.nest.utils.FrontendTaskFactory;
+import saker.std.api.file.location.FileLocation;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.create.IncludeResourceMapping;
+import saker.zip.api.extract.ZipListingTaskBuilder;
+import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZipArchiveManifest;
+
+@NestTaskInformation(returnType = @NestTypeUsage(DocZipArchiveManifest.class))
+@NestInformation("Lists the entries of a ZIP archive.\n"
+		+ "The task only reads the central directory of the archive, the entry data is not read. "
+		+ "The listing contains the names, compression methods, CRCs and sizes of the selected entries "
+		+ "in the order of the central directory.")
+
+@NestParameterInformation(value = "Archive",
+		aliases = { "" },
+		required = true,
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_LIST_ARCHIVE))
+@NestParameterInformation(value = "Resources",
+		type = @NestTypeUsage(value = Collection.class, elementTypes = WildcardPath.class),
+		info = @NestInformation(TaskDocs.ZIP_LIST_RESOURCES))
+public class ZipListTaskFactory extends FrontendTaskFactory<Object> {
+	private static final long serialVersionUID = 1L;
+
+	public static final String TASK_NAME = "saker.zip.list";
+
+	protected static class ZipListTaskImpl implements ParameterizableTask<Object> {
+		@SakerInput(value = { "", "Archive" }, required = true)
+		public FileLocationTaskOption archiveOption;
+
+		@SakerInput(value = { "Resources" })
+		public Collection<WildcardPath> resourcesOption;
+
+		public ZipListTaskImpl() {
+		}
+
+		@Override
+		public Object run(TaskContext taskcontext) throws Exception {
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+				BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_FRONTEND);
+			}
+			FileLocation archive = TaskOptionUtils.toFileLocation(archiveOption, taskcontext);
+
+			ZipListingTaskBuilder taskbuilder = ZipListingTaskBuilder.newBuilder();
+			taskbuilder.setArchive(archive);
+			if (resourcesOption != null) {
+				List<IncludeResourceMapping> wildcardfilters = new ArrayList<>();
+				for (WildcardPath reswc : resourcesOption) {
+					if (reswc == null) {
+						continue;
+					}
+					wildcardfilters.add(IncludeResourceMapping.wildcardIncludeFilter(reswc));
+				}
+				taskbuilder.setResourceMapping(IncludeResourceMapping.multi(wildcardfilters));
+			}
+
+			TaskFactory<?> workerfactory = taskbuilder.buildTaskFactory();
+			TaskIdentifier taskid = taskbuilder.buildTaskIdentifier();
+
+			taskcontext.startTask(taskid, workerfactory, null);
+
+			SimpleStructuredObjectTaskResult result = new SimpleStructuredObjectTaskResult(taskid);
+			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+			return result;
+		}
+	}
+
+	@Override
+	public ParameterizableTask<? extends Object> createTask(ExecutionContext executioncontext) {
+		return new ZipListTaskImpl();
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.zip.main.extract;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.EqualityTaskOutputChangeDetector;
+import saker.build.trace.BuildTrace;
+import saker.nest.scriptinfo.reflection.annot.NestInformation;
+import saker.nest.scriptinfo.reflection.annot.NestParameterInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTaskInformation;
+import saker.nest.scriptinfo.reflection.annot.NestTypeUsage;
+import saker.nest.utils.FrontendTaskFactory;
+import saker.std.api.file.location.FileLocation;
+import saker.std.main.file.option.FileLocationTaskOption;
+import saker.std.main.file.utils.TaskOptionUtils;
+import saker.zip.api.extract.ZipArchiveViewTaskBuilder;
+import saker.zip.main.doc.TaskDocs;
+import saker.zip.main.doc.TaskDocs.DocZipArchiveView;
+
+@NestTaskInformation(returnType = @NestTypeUsage(DocZipArchiveView.class))
+@NestInformation("Creates a read-only view of the files in a ZIP archive.\n"
+		+ "The task only reads the central directory of the archive. The entries are inflated when the tasks that use "
+		+ "the view access the contents of the files.\n"
+		+ "The view can be passed to other tasks to use the archive contents without extracting it.")
+
+@NestParameterInformation(value = "Archive",
+		aliases = { "" },
+		required = true,
+		type = @NestTypeUsage(FileLocationTaskOption.class),
+		info = @NestInformation(TaskDocs.ZIP_VIEW_ARCHIVE))
+public class ZipViewTaskFactory extends FrontendTaskFactory<Object> {
+	private static final long serialVersionUID = 1L;
+
+	public static final String TASK_NAME = "saker.zip.view";
+
+	protected static class ZipViewTaskImpl implements ParameterizableTask<Object> {
+		@SakerInput(value = { "", "Archive" }, required = true)
+		public FileLocationTaskOption archiveOption;
+
+		public ZipViewTaskImpl() {
+		}
+
+		@Override
+		public Object run(TaskContext taskcontext) throws Exception {
+			if (saker.build.meta.Versions.VERSION_FULL_COMPOUND >= 8_006) {
+				BuildTrace.classifyTask(BuildTrace.CLASSIFICATION_FRONTEND);
+			}
+			FileLocation archive = TaskOptionUtils.toFileLocation(archiveOption, taskcontext);
+
+			ZipArchiveViewTaskBuilder taskbuilder = ZipArchiveViewTaskBuilder.newBuilder();
+			taskbuilder.setArchive(archive);
+
+			TaskFactory<?> workerfactory = taskbuilder.buildTaskFactory();
+			TaskIdentifier taskid = taskbuilder.buildTaskIdentifier();
+
+			taskcontext.startTask(taskid, workerfactory, null);
+
+			SimpleStructuredObjectTaskResult result = new SimpleStructuredObjectTaskResult(taskid);
+			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
+			return result;
+		}
+	}
+
+	@Override
+	public ParameterizableTask<? extends Object> createTask(ExecutionContext executioncontext) {
+		return new ZipViewTaskImpl();
+	}
+
+}
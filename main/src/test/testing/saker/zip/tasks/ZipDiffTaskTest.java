@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import testing.saker.SakerTest;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ZipDiffTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+	@Override
+	protected void runTestImpl() throws Throwable {
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("base.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("b.txt", "bval").put("removed.txt", "rval").build()));
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("new.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("added.txt", "added").put("b.txt", "bmod").build()));
+
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("added"), 1);
+		assertEquals(res.getTargetTaskResult("removed"), 1);
+		assertEquals(res.getTargetTaskResult("modified"), 1);
+		assertEquals(res.getTargetTaskResult("offset"), 1L);
+
+		res = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("new.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "amod")
+						.put("b.txt", "bvaX").put("removed.txt", "rval").build()));
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("added"), 0);
+		assertEquals(res.getTargetTaskResult("removed"), 0);
+		assertEquals(res.getTargetTaskResult("modified"), 2);
+		assertEquals(res.getTargetTaskResult("offset"), 3L);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+import saker.build.file.path.SakerPath;
+import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import testing.saker.SakerTest;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+
+@SakerTest
+public class ZipDigestTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		assertDigests(res);
+
+		res = runScriptTask("build");
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(), strTaskIdSetOf());
+		assertDigests(res);
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("c.txt"), "gamma");
+		res = runScriptTask("build");
+		assertDigests(res);
+	}
+
+	private void assertDigests(CombinedTargetTaskResult res) throws Exception {
+		SakerPath zippath = (SakerPath) res.getTargetTaskResult("zippath");
+		ByteArrayRegion zipbytes = files.getAllBytes(zippath);
+		assertDigest(res, zippath, zipbytes, "SHA-256", "sha256");
+		assertDigest(res, zippath, zipbytes, "SHA-512", "sha512");
+	}
+
+	private void assertDigest(CombinedTargetTaskResult res, SakerPath zippath, ByteArrayRegion zipbytes,
+			String algorithm, String extension) throws Exception {
+		String expected = StringUtils.toHexString(MessageDigest.getInstance(algorithm).digest(zipbytes.copy()))
+				.toLowerCase(Locale.ROOT);
+		assertEquals(res.getTargetTaskResult(extension), expected);
+
+		SakerPath digestfilepath = zippath.resolveSibling(zippath.getFileName() + "." + extension);
+		assertEquals(new String(files.getAllBytes(digestfilepath).copy(), StandardCharsets.UTF_8),
+				expected + "  " + zippath.getFileName() + "\n");
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+
+import saker.build.file.path.SakerPath;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ZipExtractTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+	@Override
+	protected void runTestImpl() throws Throwable {
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("b.txt", "bval").put("notextracted", "no-no").put("dir/", null)
+						.put("dir/c.bin", "cval").build()));
+
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		SakerPath outdir = (SakerPath) res.getTargetTaskResult("outdir");
+		assertEquals(outdir, PATH_BUILD_DIRECTORY.resolve("saker.zip.extract/archive"));
+		assertEquals(files.getAllBytes(outdir.resolve("target/a.txt")).toString(), "aval");
+		assertEquals(files.getAllBytes(outdir.resolve("target/b.txt")).toString(), "bval");
+		assertEquals(files.getAllBytes(outdir.resolve("target/dir/c.bin")).toString(), "cval");
+		assertNotExists(outdir.resolve("target/notextracted"));
+
+		res = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("b.txt", "bmod").put("notextracted", "no-no").build()));
+		res = runScriptTask("build");
+		assertEquals(files.getAllBytes(outdir.resolve("target/a.txt")).toString(), "aval");
+		assertEquals(files.getAllBytes(outdir.resolve("target/b.txt")).toString(), "bmod");
+		assertNotExists(outdir.resolve("target/dir/c.bin"));
+
+		//modified output file is restored
+		files.putFile(outdir.resolve("target/a.txt"), "modified");
+		res = runScriptTask("build");
+		assertEquals(files.getAllBytes(outdir.resolve("target/a.txt")).toString(), "aval");
+	}
+
+	private void assertNotExists(SakerPath path) throws IOException {
+		try {
+			files.getFileAttributes(path);
+			fail("File exists: " + path);
+		} catch (NoSuchFileException e) {
+		}
+	}
+}
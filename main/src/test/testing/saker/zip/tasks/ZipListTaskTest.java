@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import testing.saker.SakerTest;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ZipListTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+	@Override
+	protected void runTestImpl() throws Throwable {
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("b.txt", "bval").put("notlisted", "no-no").put("dir/c.bin", "cval").build()));
+
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("count"), 3);
+		assertEquals(res.getTargetTaskResult("firstname"), "a.txt");
+		assertEquals(res.getTargetTaskResult("firstsize"), 4L);
+
+		res = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "amodified")
+						.put("notlisted", "no-no").build()));
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("count"), 1);
+		assertEquals(res.getTargetTaskResult("firstsize"), 9L);
+	}
+}
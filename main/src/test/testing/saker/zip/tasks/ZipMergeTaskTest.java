@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import saker.build.file.path.SakerPath;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ZipMergeTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+	@Override
+	protected void runTestImpl() throws Throwable {
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("first.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("conflict.txt", "first").put("dir/", null).put("same.txt", "same").build()));
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("second.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("b.txt", "bval")
+						.put("conflict.txt", "second").put("dir/", null).put("same.txt", "same").build()));
+
+		Map<String, String> contents = new TreeMap<>();
+		contents.put("a.txt", "aval");
+		contents.put("b.txt", "bval");
+		contents.put("conflict.txt", "first");
+		contents.put("dir/", null);
+		contents.put("same.txt", "same");
+		Map<String, String> lastcontents = new TreeMap<>(contents);
+		lastcontents.put("conflict.txt", "second");
+
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("entrycount"), 5);
+		ZipCreatorUtils.assertSameContents((SakerPath) res.getTargetTaskResult("zippath"), files, contents);
+		ZipCreatorUtils.assertSameContents((SakerPath) res.getTargetTaskResult("lastzippath"), files,
+				lastcontents);
+
+		res = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+
+		assertTaskException(IllegalArgumentException.class, () -> runScriptTask("error"));
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("second.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("b.txt", "bmod")
+						.put("conflict.txt", "first").build()));
+		contents.put("b.txt", "bmod");
+		lastcontents.put("b.txt", "bmod");
+		lastcontents.put("conflict.txt", "first");
+		res = runScriptTask("build");
+		ZipCreatorUtils.assertSameContents((SakerPath) res.getTargetTaskResult("zippath"), files, contents);
+		ZipCreatorUtils.assertSameContents((SakerPath) res.getTargetTaskResult("lastzippath"), files,
+				lastcontents);
+
+		//no conflicts, as the entries with the same name have the same contents
+		runScriptTask("error");
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.zip.tasks;
+
+import saker.build.file.path.SakerPath;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.TestUtils;
+import testing.saker.nest.util.RepositoryLoadingVariablesMetricEnvironmentTestCase;
+import testing.saker.zip.test.utils.ZipCreatorUtils;
+
+@SakerTest
+public class ZipViewTaskTest extends RepositoryLoadingVariablesMetricEnvironmentTestCase {
+	@Override
+	protected void runTestImpl() throws Throwable {
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("empty/", null).put("dir/sub/c.bin", "cval").build()));
+
+		CombinedTargetTaskResult res;
+
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("files"),
+				TestUtils.treeSetOf(SakerPath.valueOf("a.txt"), SakerPath.valueOf("dir/sub/c.bin")));
+		assertEquals(res.getTargetTaskResult("directories"), TestUtils.treeSetOf(SakerPath.valueOf("dir"),
+				SakerPath.valueOf("dir/sub"), SakerPath.valueOf("empty")));
+
+		res = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("archive.zip"),
+				ZipCreatorUtils.getZipBytes(TestUtils.<String, String>treeMapBuilder().put("a.txt", "aval")
+						.put("b.txt", "bval").build()));
+		res = runScriptTask("build");
+		assertEquals(res.getTargetTaskResult("files"),
+				TestUtils.treeSetOf(SakerPath.valueOf("a.txt"), SakerPath.valueOf("b.txt")));
+		assertEquals(res.getTargetTaskResult("directories"), TestUtils.treeSetOf());
+	}
+}